@@ -13,6 +13,11 @@ public class AiModelConfig {
 
     private String defaultProvider = "openai";
     private Map<String, ProviderConfig> providers;
+    private HedgeConfig hedge = new HedgeConfig();
+    private RoutingConfig routing = new RoutingConfig();
+    private ResilienceConfig resilience = new ResilienceConfig();
+    private RateLimitConfig rateLimit = new RateLimitConfig();
+    private HealthConfig health = new HealthConfig();
 
     @Data
     public static class ProviderConfig {
@@ -21,8 +26,13 @@ public class AiModelConfig {
         private String modelName;
         private Double temperature = 0.7;
         private Integer maxTokens = 2000;
+        // 提示词Token预算，超出时压缩历史对话
+        private Integer maxPromptTokens = 3000;
         private String timeout = "60s";
         private Boolean enabled = true;
+        // 每分钟请求数与Token数上限，为空表示不限制
+        private Integer requestsPerMinute;
+        private Integer tokensPerMinute;
 
         public long getTimeoutInSeconds() {
             if (timeout == null) return 60;
@@ -38,6 +48,87 @@ public class AiModelConfig {
         }
     }
 
+    /**
+     * 对冲请求配置：主提供商超过延迟阈值仍未响应时，向备用提供商发送相同请求
+     */
+    @Data
+    public static class HedgeConfig {
+        private Boolean enabled = false;
+        // 固定对冲延迟（毫秒），为空时使用主提供商滚动P95
+        private Long delayMs;
+        private Long minDelayMs = 200L;
+        // 计算P95所需的最少样本数，样本不足时不对冲
+        private Integer minSamples = 20;
+        // 对冲请求占全部请求的比例上限，用于控制成本
+        private Double maxHedgeRatio = 0.1;
+        // 同时进行的对冲调用上限（主请求与备用请求各占一个），超出时不对冲，直接在调用线程发送
+        private Integer maxConcurrentCalls = 32;
+    }
+
+    /**
+     * 自适应路由配置
+     */
+    @Data
+    public static class RoutingConfig {
+        // fixed / least-outstanding / weighted
+        private String policy = "fixed";
+        // 错误率超过该阈值的提供商视为降级，只在没有其他选择时使用
+        private Double degradedErrorRate = 0.5;
+        // 错误率对路由得分的惩罚系数
+        private Double errorPenalty = 4.0;
+        // 尚无延迟样本时假定的延迟（毫秒）
+        private Long defaultLatencyMs = 1000L;
+    }
+
+    /**
+     * 熔断与并发隔离配置（按提供商独立生效）
+     */
+    @Data
+    public static class ResilienceConfig {
+        // 熔断统计的滑动窗口大小（最近N次调用）
+        private Integer slidingWindowSize = 20;
+        // 窗口内至少有多少次调用才开始计算失败率
+        private Integer minimumCalls = 10;
+        private Double failureRateThreshold = 0.5;
+        private Double slowCallRateThreshold = 0.8;
+        private Long slowCallDurationMs = 15000L;
+        // 熔断打开后等待多久进入半开状态
+        private Long openDurationMs = 30000L;
+        private Integer halfOpenPermittedCalls = 2;
+        // 每个提供商允许的最大并发调用数
+        private Integer maxConcurrentCalls = 20;
+        // 并发已满时等待许可的最长时间，0表示立即失败
+        private Long maxWaitMs = 0L;
+    }
+
+    /**
+     * 客户端限流排队配置：配额不足时按请求优先级最多等待的时间
+     */
+    @Data
+    public static class RateLimitConfig {
+        private Long interactiveMaxWaitMs = 5000L;
+        private Long backgroundMaxWaitMs = 30000L;
+    }
+
+    /**
+     * 后台健康探测配置：定期请求各提供商的模型列表接口，不产生计费的对话调用
+     */
+    @Data
+    public static class HealthConfig {
+        private Boolean enabled = true;
+        private Long initialDelayMs = 5000L;
+        private Long intervalMs = 60000L;
+        // 探测间隔的随机抖动比例，避免多个实例同时探测
+        private Double jitterRatio = 0.2;
+        private Long timeoutMs = 5000L;
+        // 成功率统计的探测次数
+        private Integer windowSize = 10;
+        // 连续失败多少次判定为不健康
+        private Integer unhealthyThreshold = 3;
+        // 提供商状态快照的缓存时间
+        private Long statusCacheMs = 5000L;
+    }
+
     public ProviderConfig getProviderConfig(String provider) {
         if (providers == null) {
             return null;
@@ -8,13 +8,20 @@ import com.codenavigator.ai.service.AiModelService;
 import com.codenavigator.ai.service.NaturalLanguageProcessor;
 import com.codenavigator.ai.service.LearningPathGenerator;
 import com.codenavigator.ai.service.ConversationStateManager;
+import com.codenavigator.core.entity.LearningPath;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 @Slf4j
 @Component
@@ -25,23 +32,101 @@ public class ConversationEngine {
     private final NaturalLanguageProcessor nlpProcessor;
     private final LearningPathGenerator pathGenerator;
     private final ConversationStateManager stateManager;
+    private final PromptBudgeter promptBudgeter = new PromptBudgeter();
+    private final SessionMailbox sessionMailbox = new SessionMailbox();
+    private final LearningPathPrefetcher pathPrefetcher = new LearningPathPrefetcher();
+    
+    // 学习路径预生成使用的批处理线程池，未配置时不预生成
+    @Autowired(required = false)
+    @Qualifier("batchTaskExecutor")
+    private Executor batchTaskExecutor;
     
     public ConversationResponse processMessage(ConversationRequest request) {
+        return processMessage(request, ConversationEventListener.NONE);
+    }
+    
+    /**
+     * 处理消息，处理进度、流式回复片段与生成的学习路径通过listener推送
+     */
+    public ConversationResponse processMessage(ConversationRequest request, ConversationEventListener listener) {
+        return processMessage(request, null, listener);
+    }
+    
+    /**
+     * 在已绑定的会话状态上处理消息，供长连接通道使用，不再按会话ID逐轮查找状态
+     *
+     * @param state 由openSession解析的会话状态，为null时按请求中的会话ID获取或创建
+     */
+    public ConversationResponse processMessage(ConversationRequest request, ConversationState state,
+                                               ConversationEventListener listener) {
         log.info("Processing conversation message for user: {}", request.getUserId());
         
+        String sessionId = state != null ? state.getSessionId() : request.getSessionId();
+        // 新会话没有并发，直接处理；已有会话的消息按到达顺序串行处理
+        if (sessionId == null) {
+            return doProcessMessage(request, null, listener);
+        }
+        try {
+            return sessionMailbox.process(sessionId, () -> doProcessMessage(request, state, listener));
+        } catch (SessionMailbox.MailboxTimeoutException e) {
+            log.warn("Conversation message rejected: {}", e.getMessage());
+            return ConversationResponse.builder()
+                .type(ConversationResponse.ResponseType.ERROR_MESSAGE)
+                .message("上一条消息仍在处理中，请稍后再试。")
+                .sessionId(sessionId)
+                .confidence(0.0)
+                .build();
+        }
+    }
+    
+    /**
+     * 打开会话：已有会话直接返回其状态，否则创建新会话并保存
+     * 供长连接通道在建立连接时解析一次会话，之后的消息都绑定到该会话
+     */
+    public ConversationState openSession(String sessionId, String userId) {
+        ConversationState state = sessionId != null ? stateManager.getState(sessionId) : null;
+        if (state == null) {
+            state = ConversationState.builder()
+                .sessionId(sessionId != null ? sessionId : UUID.randomUUID().toString())
+                .userId(userId)
+                .phase(ConversationState.ConversationPhase.GREETING)
+                .messageCount(0)
+                .build();
+            stateManager.saveState(state);
+        }
+        return state;
+    }
+    
+    /**
+     * 获取会话信箱统计
+     */
+    public Map<String, Object> getMailboxStats() {
+        return sessionMailbox.getStats();
+    }
+    
+    /**
+     * 获取学习路径预生成统计
+     */
+    public Map<String, Object> getPathPrefetchStats() {
+        return pathPrefetcher.getStats();
+    }
+    
+    private ConversationResponse doProcessMessage(ConversationRequest request, ConversationState boundState,
+                                                  ConversationEventListener listener) {
         try {
             // 获取或创建会话状态
-            ConversationState state = getOrCreateState(request);
+            ConversationState state = boundState != null ? boundState : getOrCreateState(request);
             
             // 更新会话状态
             state.addMessage(request.getMessage());
             
             // 自然语言理解
+            listener.onProgress("understanding", "正在理解你的问题...");
             var intent = nlpProcessor.extractIntent(request.getMessage(), state);
             var entities = nlpProcessor.extractEntities(request.getMessage());
             
             // 根据会话阶段和意图生成响应
-            ConversationResponse response = generateResponse(request, state, intent, entities);
+            ConversationResponse response = generateResponse(request, state, intent, entities, listener);
             
             // 更新会话状态
             updateConversationState(state, intent, entities);
@@ -61,6 +146,13 @@ public class ConversationEngine {
         }
     }
     
+    /**
+     * 获取会话的完整对话记录，早期消息按需从归档中加载
+     */
+    public List<String> getTranscript(String sessionId) {
+        return stateManager.getFullTranscript(sessionId);
+    }
+    
     private ConversationState getOrCreateState(ConversationRequest request) {
         ConversationState state = null;
         
@@ -84,7 +176,8 @@ public class ConversationEngine {
             ConversationRequest request, 
             ConversationState state, 
             String intent, 
-            Map<String, Object> entities) {
+            Map<String, Object> entities,
+            ConversationEventListener listener) {
         
         switch (state.getPhase()) {
             case GREETING:
@@ -92,15 +185,15 @@ public class ConversationEngine {
             case GOAL_IDENTIFICATION:
                 return handleGoalIdentification(request, state, intent, entities);
             case SKILL_ASSESSMENT:
-                return handleSkillAssessment(request, state, intent, entities);
+                return handleSkillAssessment(request, state, intent, entities, listener);
             case PATH_PLANNING:
-                return handlePathPlanning(request, state, intent, entities);
+                return handlePathPlanning(request, state, intent, entities, listener);
             case TASK_EXECUTION:
                 return handleTaskExecution(request, state, intent, entities);
             case REVIEW_FEEDBACK:
                 return handleReviewFeedback(request, state, intent, entities);
             default:
-                return generateDefaultResponse(request, state);
+                return generateDefaultResponse(request, state, listener);
         }
     }
     
@@ -164,12 +257,16 @@ public class ConversationEngine {
             ConversationRequest request, 
             ConversationState state, 
             String intent, 
-            Map<String, Object> entities) {
+            Map<String, Object> entities,
+            ConversationEventListener listener) {
         
         // 评估用户技能水平
         var userLevel = nlpProcessor.assessUserLevel(request.getMessage());
         state.setUserLevel(userLevel);
         
+        // 目标和水平都已确定，提前在后台生成学习路径，下一轮直接取用
+        prefetchLearningPath(state, listener);
+        
         String message = "好的，基于你的技能水平，我来为你生成一个定制的学习路径。请稍等...";
         
         return ConversationResponse.builder()
@@ -183,15 +280,28 @@ public class ConversationEngine {
             ConversationRequest request, 
             ConversationState state, 
             String intent, 
-            Map<String, Object> entities) {
+            Map<String, Object> entities,
+            ConversationEventListener listener) {
         
         try {
-            // 生成学习路径
-            var learningPath = pathGenerator.generatePath(
-                state.getLearningGoal(), 
-                state.getUserLevel(),
-                state.getContext()
-            );
+            // 优先取用预生成的学习路径，没有时同步生成
+            LearningPath learningPath;
+            LearningPathPrefetcher.Prefetched prefetched =
+                pathPrefetcher.take(state.getSessionId(), learningPathKey(state));
+            if (prefetched != null) {
+                learningPath = prefetched.learningPath();
+                if (!prefetched.delivered()) {
+                    listener.onLearningPath(learningPath);
+                }
+            } else {
+                listener.onProgress("generating_path", "正在生成学习路径...");
+                learningPath = pathGenerator.generatePath(
+                    state.getLearningGoal(), 
+                    state.getUserLevel(),
+                    state.getContext()
+                );
+                listener.onLearningPath(learningPath);
+            }
             
             String message = "我已经为你生成了一个学习路径！这个路径包含了" + 
                     learningPath.getModules().size() + "个学习模块，预计需要" +
@@ -226,6 +336,21 @@ public class ConversationEngine {
         }
     }
     
+    private void prefetchLearningPath(ConversationState state, ConversationEventListener listener) {
+        if (batchTaskExecutor == null || state.getLearningGoal() == null || state.getUserLevel() == null) {
+            return;
+        }
+        String learningGoal = state.getLearningGoal();
+        var userLevel = state.getUserLevel();
+        Map<String, Object> context = state.getContext() != null ? new HashMap<>(state.getContext()) : null;
+        pathPrefetcher.prefetch(state.getSessionId(), learningPathKey(state), batchTaskExecutor,
+            () -> pathGenerator.generatePath(learningGoal, userLevel, context), listener);
+    }
+    
+    private String learningPathKey(ConversationState state) {
+        return state.getLearningGoal() + "|" + state.getUserLevel();
+    }
+    
     private ConversationResponse handleTaskExecution(
             ConversationRequest request, 
             ConversationState state, 
@@ -254,15 +379,28 @@ public class ConversationEngine {
             .build();
     }
     
-    private ConversationResponse generateDefaultResponse(ConversationRequest request, ConversationState state) {
+    private ConversationResponse generateDefaultResponse(
+            ConversationRequest request, 
+            ConversationState state, 
+            ConversationEventListener listener) {
         try {
             // 使用AI模型生成智能回复
-            String aiResponse = generateAiResponse(request, state);
+            Map<String, Object> usage = new HashMap<>();
+            String aiResponse = generateAiResponse(request, state, usage, listener);
             return ConversationResponse.builder()
                 .type(ConversationResponse.ResponseType.TEXT_RESPONSE)
                 .message(aiResponse)
+                .data(Map.of("promptUsage", usage))
                 .confidence(0.8)
                 .build();
+        } catch (StreamInterruptedException e) {
+            // 部分回复已推送给客户端，不能再用其他回复覆盖，本轮直接失败
+            log.error("AI response stream interrupted for session {}", state.getSessionId(), e);
+            return ConversationResponse.builder()
+                .type(ConversationResponse.ResponseType.ERROR_MESSAGE)
+                .message("回复生成中断，请重新发送消息。")
+                .confidence(0.0)
+                .build();
         } catch (Exception e) {
             log.error("Error generating AI response", e);
             return ConversationResponse.builder()
@@ -273,43 +411,104 @@ public class ConversationEngine {
         }
     }
 
-    private String generateAiResponse(ConversationRequest request, ConversationState state) {
+    private String generateAiResponse(ConversationRequest request, ConversationState state, Map<String, Object> usage,
+                                      ConversationEventListener listener) {
         // 构建上下文提示
-        StringBuilder promptBuilder = new StringBuilder();
-        promptBuilder.append("你是CodeNavigator的AI学习助手，专门帮助用户制定技术学习路径和解答编程问题。\n\n");
+        StringBuilder headerBuilder = new StringBuilder();
+        headerBuilder.append("你是CodeNavigator的AI学习助手，专门帮助用户制定技术学习路径和解答编程问题。\n\n");
 
         // 添加会话上下文
         if (state.getLearningGoal() != null) {
-            promptBuilder.append("用户学习目标: ").append(state.getLearningGoal()).append("\n");
+            headerBuilder.append("用户学习目标: ").append(state.getLearningGoal()).append("\n");
         }
         if (state.getUserLevel() != null) {
-            promptBuilder.append("用户技能水平: ").append(state.getUserLevel()).append("\n");
+            headerBuilder.append("用户技能水平: ").append(state.getUserLevel()).append("\n");
         }
-        promptBuilder.append("会话阶段: ").append(state.getPhase()).append("\n");
+        headerBuilder.append("会话阶段: ").append(state.getPhase()).append("\n");
 
-        // 添加历史消息（最近几条）
-        List<String> recentMessages = state.getRecentMessages(3);
-        if (!recentMessages.isEmpty()) {
-            promptBuilder.append("\n最近对话:\n");
-            for (int i = 0; i < recentMessages.size(); i++) {
-                promptBuilder.append(i % 2 == 0 ? "用户: " : "助手: ").append(recentMessages.get(i)).append("\n");
-            }
+        // 历史消息按Token预算放入，最后一条即当前消息，单独放在末尾
+        List<String> history = state.getMessageHistory() != null ? state.getMessageHistory() : List.of();
+        if (!history.isEmpty()) {
+            history = history.subList(0, history.size() - 1);
         }
 
-        promptBuilder.append("\n当前用户消息: ").append(request.getMessage());
-        promptBuilder.append("\n\n请基于以上信息给出专业、有帮助的回复。回复应该简洁明了，并提供具体的学习建议或解答。");
+        AiProvider preferredProvider = resolvePreferredProvider(request);
+        AiProvider budgetProvider = preferredProvider != null ? preferredProvider : aiModelService.getCurrentProvider();
+        int budgetTokens = budgetProvider != null ? aiModelService.getPromptTokenBudget(budgetProvider) : 0;
+
+        PromptBudgeter.BudgetedPrompt prompt = promptBudgeter.build(PromptBudgeter.PromptParts.builder()
+                .header(headerBuilder.toString())
+                .history(history)
+                .historySummary(state.getHistorySummary())
+                .currentMessage(request.getMessage())
+                .footer("\n\n请基于以上信息给出专业、有帮助的回复。回复应该简洁明了，并提供具体的学习建议或解答。")
+                .build(), budgetTokens);
+
+        usage.put("promptTokens", prompt.getPromptTokens());
+        usage.put("budgetTokens", prompt.getBudgetTokens());
+        usage.put("historyIncluded", prompt.getHistoryIncluded());
+        usage.put("historyDropped", prompt.getHistoryDropped());
+        usage.put("summarized", prompt.isSummarized());
+        log.debug("Prompt for session {}: {} tokens (budget {}), {} history messages included, {} compacted",
+                state.getSessionId(), prompt.getPromptTokens(), prompt.getBudgetTokens(),
+                prompt.getHistoryIncluded(), prompt.getHistoryDropped());
+
+        listener.onProgress("generating", "正在生成回复...");
+        // 有事件监听方时流式调用，回复片段边生成边推送
+        boolean streaming = listener != ConversationEventListener.NONE;
+        AtomicBoolean emitted = new AtomicBoolean();
+        Consumer<String> onToken = token -> {
+            emitted.set(true);
+            listener.onToken(token);
+        };
 
         // 支持指定AI提供商
-        if (request.getPreferredProvider() != null) {
+        if (preferredProvider != null) {
             try {
-                AiProvider provider = AiProvider.fromCode(request.getPreferredProvider());
-                return aiModelService.sendMessage(promptBuilder.toString(), provider);
+                return streaming
+                    ? aiModelService.streamMessage(prompt.getPrompt(), preferredProvider, onToken)
+                    : aiModelService.sendMessage(prompt.getPrompt(), preferredProvider);
             } catch (Exception e) {
+                // 已推送过片段时改用其他提供商会重复输出，只在尚未推送任何片段时回退
+                if (emitted.get()) {
+                    throw new StreamInterruptedException(e);
+                }
                 log.warn("Failed to use preferred provider {}, falling back to default", request.getPreferredProvider());
             }
         }
 
-        return aiModelService.sendMessage(promptBuilder.toString());
+        if (!streaming) {
+            return aiModelService.sendMessage(prompt.getPrompt());
+        }
+        try {
+            return aiModelService.streamMessage(prompt.getPrompt(), onToken);
+        } catch (RuntimeException e) {
+            if (emitted.get()) {
+                throw new StreamInterruptedException(e);
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * 流式回复在推送部分片段后失败
+     */
+    private static final class StreamInterruptedException extends RuntimeException {
+        private StreamInterruptedException(Throwable cause) {
+            super(cause);
+        }
+    }
+
+    private AiProvider resolvePreferredProvider(ConversationRequest request) {
+        if (request.getPreferredProvider() == null) {
+            return null;
+        }
+        try {
+            return AiProvider.fromCode(request.getPreferredProvider());
+        } catch (IllegalArgumentException e) {
+            log.warn("Unknown preferred provider {}, using default routing", request.getPreferredProvider());
+            return null;
+        }
     }
     
     private void updateConversationState(ConversationState state, String intent, Map<String, Object> entities) {
@@ -0,0 +1,34 @@
+package com.codenavigator.ai.engine;
+
+import com.codenavigator.core.entity.LearningPath;
+
+/**
+ * 对话处理过程中的事件回调
+ * 供WebSocket等长连接通道在最终回复之前推送处理进度、流式回复片段和生成的学习路径
+ */
+public interface ConversationEventListener {
+
+    /**
+     * 不关心中间事件的调用方（如HTTP接口）使用，AI回复走非流式调用
+     */
+    ConversationEventListener NONE = new ConversationEventListener() {
+    };
+
+    /**
+     * 处理阶段变化
+     */
+    default void onProgress(String stage, String message) {
+    }
+
+    /**
+     * AI回复的增量片段
+     */
+    default void onToken(String token) {
+    }
+
+    /**
+     * 学习路径生成完成；预生成的路径可能在本轮回复之后由后台线程回调
+     */
+    default void onLearningPath(LearningPath learningPath) {
+    }
+}
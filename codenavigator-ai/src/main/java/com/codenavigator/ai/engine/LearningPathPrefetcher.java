@@ -0,0 +1,164 @@
+package com.codenavigator.ai.engine;
+
+import com.codenavigator.core.entity.LearningPath;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 学习路径预生成
+ * 学习目标与技能水平确定后立即在后台生成学习路径并按会话暂存，下一轮对话直接取用；
+ * 生成完成时通过发起该轮对话的监听方推送。暂存条目按LRU淘汰，取用后移除
+ */
+@Slf4j
+public class LearningPathPrefetcher {
+
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+    public static final long DEFAULT_MAX_WAIT_MS = 5000;
+
+    /**
+     * 取用结果，delivered表示学习路径已通过监听方推送过
+     */
+    public record Prefetched(LearningPath learningPath, boolean delivered) {
+    }
+
+    // 条目的交付状态：取用与推送以CAS抢占PENDING，只有一方交付学习路径
+    private static final int PENDING = 0;
+    private static final int TAKEN = 1;
+    private static final int PUSHED = 2;
+
+    private static class Entry {
+        private final String key;
+        private final CompletableFuture<LearningPath> future;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+
+        private Entry(String key, CompletableFuture<LearningPath> future) {
+            this.key = key;
+            this.future = future;
+        }
+    }
+
+    private final Map<String, Entry> entries;
+    private final long maxWaitMs;
+
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong pushed = new AtomicLong();
+
+    public LearningPathPrefetcher() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_WAIT_MS);
+    }
+
+    public LearningPathPrefetcher(int maxEntries, long maxWaitMs) {
+        this.maxWaitMs = maxWaitMs;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * 在executor上开始生成会话的学习路径；同一会话已有相同key的生成任务时不重复提交
+     *
+     * @param key 生成参数（目标、水平）的标识，取用时key不一致则视为未命中
+     */
+    public void prefetch(String sessionId, String key, Executor executor,
+                         Supplier<LearningPath> generator, ConversationEventListener listener) {
+        Entry entry;
+        synchronized (entries) {
+            Entry existing = entries.get(sessionId);
+            if (existing != null && existing.key.equals(key)) {
+                return;
+            }
+            entry = new Entry(key, new CompletableFuture<>());
+            entries.put(sessionId, entry);
+        }
+        started.incrementAndGet();
+
+        try {
+            CompletableFuture.supplyAsync(generator, executor).whenComplete((learningPath, error) -> {
+                if (error != null) {
+                    failures.incrementAndGet();
+                    log.warn("Speculative learning path generation failed for session {}", sessionId, error);
+                    entry.future.completeExceptionally(error);
+                    return;
+                }
+                entry.future.complete(learningPath);
+                // 下一轮对话尚未取用时主动推送
+                if (listener != ConversationEventListener.NONE && entry.state.compareAndSet(PENDING, PUSHED)) {
+                    pushed.incrementAndGet();
+                    listener.onLearningPath(learningPath);
+                }
+            });
+        } catch (RuntimeException e) {
+            // 线程池拒绝时放弃预生成，由下一轮同步生成
+            synchronized (entries) {
+                entries.remove(sessionId, entry);
+            }
+            failures.incrementAndGet();
+            log.warn("Failed to schedule speculative learning path generation for session {}: {}",
+                    sessionId, e.getMessage());
+        }
+    }
+
+    /**
+     * 取用并移除会话预生成的学习路径；仍在生成时最多等待maxWaitMs
+     *
+     * @return 未预生成、key不一致、生成失败或等待超时时返回null
+     */
+    public Prefetched take(String sessionId, String key) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.remove(sessionId);
+        }
+        if (entry == null || !entry.key.equals(key)) {
+            misses.incrementAndGet();
+            return null;
+        }
+        // 推送方已抢先时由推送交付，否则由取用方交付，此后不再推送
+        boolean delivered = !entry.state.compareAndSet(PENDING, TAKEN);
+
+        try {
+            LearningPath learningPath = entry.future.get(maxWaitMs, TimeUnit.MILLISECONDS);
+            hits.incrementAndGet();
+            return new Prefetched(learningPath, delivered);
+        } catch (TimeoutException e) {
+            log.warn("Speculative learning path for session {} not ready after {}ms", sessionId, maxWaitMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // 生成失败已在回调中记录
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * 获取预生成统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (entries) {
+            stats.put("pending", entries.size());
+        }
+        stats.put("started", started.get());
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("failures", failures.get());
+        stats.put("pushed", pushed.get());
+        return stats;
+    }
+}
@@ -0,0 +1,171 @@
+package com.codenavigator.ai.engine;
+
+import com.codenavigator.ai.model.MessageSummarizer;
+import com.codenavigator.ai.provider.TokenEstimator;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 按Token预算组装提示词
+ * 固定部分（角色说明、会话上下文、当前消息）优先保证；剩余预算从最新的历史消息开始放入，
+ * 放不下的早期消息压缩为抽取式摘要，摘要最多占剩余预算的四分之一
+ */
+public class PromptBudgeter {
+
+    public static final int DEFAULT_BUDGET_TOKENS = 3000;
+    // 预算再宽裕也只带最近的若干轮原文，更早的内容以摘要形式出现
+    private static final int MAX_VERBATIM_MESSAGES = 10;
+    private static final int SUMMARY_BUDGET_DIVISOR = 4;
+
+    private static final String TRUNCATED_MARK = "…";
+
+    @Getter
+    @Builder
+    public static class PromptParts {
+        private final String header;
+        private final List<String> history;
+        private final String historySummary;
+        private final String currentMessage;
+        private final String footer;
+    }
+
+    @Getter
+    @Builder
+    public static class BudgetedPrompt {
+        private final String prompt;
+        private final int promptTokens;
+        private final int budgetTokens;
+        private final int historyIncluded;
+        private final int historyDropped;
+        private final boolean summarized;
+        private final boolean messageTruncated;
+    }
+
+    /**
+     * @param budgetTokens 提示词Token上限，不大于0时使用默认值
+     */
+    public BudgetedPrompt build(PromptParts parts, int budgetTokens) {
+        int budget = budgetTokens > 0 ? budgetTokens : DEFAULT_BUDGET_TOKENS;
+        String header = nullToEmpty(parts.getHeader());
+        String footer = nullToEmpty(parts.getFooter());
+        String currentMessage = nullToEmpty(parts.getCurrentMessage());
+
+        int fixedTokens = TokenEstimator.estimate(header) + TokenEstimator.estimate(footer)
+                + TokenEstimator.estimate("\n当前用户消息: ");
+        boolean truncated = false;
+        int messageTokens = TokenEstimator.estimate(currentMessage);
+        if (fixedTokens + messageTokens > budget) {
+            currentMessage = truncateToTokens(currentMessage, Math.max(budget - fixedTokens, 0));
+            messageTokens = TokenEstimator.estimate(currentMessage);
+            truncated = true;
+        }
+        int remaining = budget - fixedTokens - messageTokens;
+
+        // 从最新的消息开始放入原文
+        List<String> history = parts.getHistory() != null ? parts.getHistory() : List.of();
+        List<String> verbatim = new ArrayList<>();
+        int historyHeaderTokens = TokenEstimator.estimate("\n最近对话:\n");
+        int index = history.size() - 1;
+        int verbatimBudget = remaining - historyHeaderTokens;
+        for (; index >= 0 && verbatim.size() < MAX_VERBATIM_MESSAGES; index--) {
+            String line = "用户: " + history.get(index) + "\n";
+            int lineTokens = TokenEstimator.estimate(line);
+            if (lineTokens > verbatimBudget) {
+                break;
+            }
+            verbatim.add(line);
+            verbatimBudget -= lineTokens;
+        }
+        Collections.reverse(verbatim);
+        if (!verbatim.isEmpty()) {
+            remaining = verbatimBudget;
+        }
+
+        // 放不下的早期消息与已有摘要合并为抽取式摘要
+        List<String> dropped = history.subList(0, index + 1);
+        String summary = buildSummary(parts.getHistorySummary(), dropped, remaining / SUMMARY_BUDGET_DIVISOR);
+
+        StringBuilder prompt = new StringBuilder(header);
+        if (!summary.isEmpty()) {
+            prompt.append("\n此前对话摘要: ").append(summary).append("\n");
+        }
+        if (!verbatim.isEmpty()) {
+            prompt.append("\n最近对话:\n");
+            verbatim.forEach(prompt::append);
+        }
+        prompt.append("\n当前用户消息: ").append(currentMessage);
+        prompt.append(footer);
+
+        String text = prompt.toString();
+        return BudgetedPrompt.builder()
+                .prompt(text)
+                .promptTokens(TokenEstimator.estimate(text))
+                .budgetTokens(budget)
+                .historyIncluded(verbatim.size())
+                .historyDropped(dropped.size())
+                .summarized(!summary.isEmpty())
+                .messageTruncated(truncated)
+                .build();
+    }
+
+    private String buildSummary(String existingSummary, List<String> dropped, int maxTokens) {
+        if (maxTokens <= 0) {
+            return "";
+        }
+        String summary = nullToEmpty(existingSummary);
+        String droppedSummary = MessageSummarizer.summarize(dropped);
+        if (!droppedSummary.isEmpty()) {
+            summary = summary.isEmpty() ? droppedSummary : summary + "；" + droppedSummary;
+        }
+        if (TokenEstimator.estimate(summary) <= maxTokens) {
+            return summary;
+        }
+        // 超出预算时保留最近的部分
+        return truncateTailToTokens(summary, maxTokens);
+    }
+
+    /**
+     * 保留文本开头，使其Token数不超过maxTokens
+     */
+    static String truncateToTokens(String text, int maxTokens) {
+        if (maxTokens <= 0) {
+            return "";
+        }
+        int low = 0;
+        int high = text.length();
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (TokenEstimator.estimate(text.substring(0, mid)) + 1 <= maxTokens) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return text.substring(0, low) + TRUNCATED_MARK;
+    }
+
+    /**
+     * 保留文本结尾，使其Token数不超过maxTokens
+     */
+    static String truncateTailToTokens(String text, int maxTokens) {
+        int low = 0;
+        int high = text.length();
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (TokenEstimator.estimate(text.substring(text.length() - mid)) + 1 <= maxTokens) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low == 0 ? "" : TRUNCATED_MARK + text.substring(text.length() - low);
+    }
+
+    private String nullToEmpty(String text) {
+        return text != null ? text : "";
+    }
+}
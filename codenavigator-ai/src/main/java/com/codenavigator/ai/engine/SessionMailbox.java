@@ -0,0 +1,121 @@
+package com.codenavigator.ai.engine;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 按会话串行执行的信箱
+ * 同一会话的任务按到达顺序逐个在调用线程上执行，不同会话之间完全并行；
+ * 每个会话的信箱只在有任务等待或执行时存在，空闲后立即回收
+ */
+@Slf4j
+public class SessionMailbox {
+
+    public static final long DEFAULT_MAX_WAIT_MS = 60_000;
+
+    /**
+     * 等待前序任务超时
+     */
+    public static class MailboxTimeoutException extends RuntimeException {
+        public MailboxTimeoutException(String sessionId, long waitedMs) {
+            super("Timed out after " + waitedMs + "ms waiting for session " + sessionId);
+        }
+    }
+
+    private static class Mailbox {
+        // 公平锁保证等待的任务按先来先服务的顺序执行
+        private final ReentrantLock lock = new ReentrantLock(true);
+        // 正在执行或等待的任务数，由mailboxes.compute原子维护
+        private int pending;
+    }
+
+    private final ConcurrentHashMap<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final long maxWaitMs;
+
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong contended = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong maxQueueWaitMs = new AtomicLong();
+
+    public SessionMailbox() {
+        this(DEFAULT_MAX_WAIT_MS);
+    }
+
+    public SessionMailbox(long maxWaitMs) {
+        this.maxWaitMs = maxWaitMs;
+    }
+
+    /**
+     * 在会话的信箱中执行任务，前序任务完成后才开始
+     *
+     * @throws MailboxTimeoutException 等待超过maxWaitMs
+     * @throws CancellationException    等待期间线程被中断
+     */
+    public <T> T process(String sessionId, Supplier<T> task) {
+        Mailbox mailbox = mailboxes.compute(sessionId, (key, existing) -> {
+            Mailbox target = existing != null ? existing : new Mailbox();
+            target.pending++;
+            return target;
+        });
+
+        try {
+            long waitStart = System.nanoTime();
+            if (mailbox.lock.isLocked()) {
+                contended.incrementAndGet();
+            }
+            // 只使用限时tryLock：无参tryLock会忽略公平性插队到已等待的任务之前
+            if (!mailbox.lock.tryLock(maxWaitMs, TimeUnit.MILLISECONDS)) {
+                timedOut.incrementAndGet();
+                throw new MailboxTimeoutException(sessionId, maxWaitMs);
+            }
+            long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - waitStart);
+            if (waitedMs > 0) {
+                maxQueueWaitMs.accumulateAndGet(waitedMs, Math::max);
+                log.debug("Session {} waited {}ms for previous message", sessionId, waitedMs);
+            }
+            try {
+                executed.incrementAndGet();
+                return task.get();
+            } finally {
+                mailbox.lock.unlock();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            CancellationException cancelled = new CancellationException(
+                    "Interrupted while waiting for session " + sessionId);
+            cancelled.initCause(e);
+            throw cancelled;
+        } finally {
+            release(sessionId);
+        }
+    }
+
+    /**
+     * 当前存在的信箱数量（有任务执行或等待的会话数）
+     */
+    public int getActiveMailboxCount() {
+        return mailboxes.size();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("activeMailboxes", mailboxes.size());
+        stats.put("executed", executed.get());
+        stats.put("contended", contended.get());
+        stats.put("timedOut", timedOut.get());
+        stats.put("maxQueueWaitMs", maxQueueWaitMs.get());
+        return stats;
+    }
+
+    private void release(String sessionId) {
+        mailboxes.computeIfPresent(sessionId, (key, mailbox) -> --mailbox.pending == 0 ? null : mailbox);
+    }
+}
@@ -0,0 +1,14 @@
+package com.codenavigator.ai.enums;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum RequestPriority {
+    INTERACTIVE("interactive", "用户实时对话请求，优先获得配额"),
+    BACKGROUND("background", "后台任务（笔记生成、健康探测等），只使用剩余配额");
+
+    private final String code;
+    private final String description;
+}
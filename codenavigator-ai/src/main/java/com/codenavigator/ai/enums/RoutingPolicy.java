@@ -0,0 +1,24 @@
+package com.codenavigator.ai.enums;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum RoutingPolicy {
+    FIXED("fixed", "固定使用当前提供商"),
+    LEAST_OUTSTANDING("least-outstanding", "优先选择进行中请求最少的提供商"),
+    WEIGHTED("weighted", "按延迟与错误率加权随机选择提供商");
+
+    private final String code;
+    private final String description;
+
+    public static RoutingPolicy fromCode(String code) {
+        for (RoutingPolicy policy : values()) {
+            if (policy.getCode().equalsIgnoreCase(code) || policy.name().equalsIgnoreCase(code)) {
+                return policy;
+            }
+        }
+        throw new IllegalArgumentException("Unknown routing policy: " + code);
+    }
+}
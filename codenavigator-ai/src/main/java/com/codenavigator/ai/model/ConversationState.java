@@ -1,17 +1,27 @@
 package com.codenavigator.ai.model;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 import lombok.Builder;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import com.codenavigator.common.enums.UserLevel;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
 import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -20,6 +30,12 @@ import java.util.Map;
 @NoArgsConstructor
 @AllArgsConstructor
 public class ConversationState {
+
+    // 保留的原始消息条数上限，更早的消息压缩进historySummary
+    public static final int MAX_HISTORY_SIZE = 50;
+    private static final int MAX_SUMMARY_CHARS = 1000;
+    // 会话在最后一次交互后的存活时间
+    public static final Duration SESSION_TIMEOUT = Duration.ofHours(2);
     
     private String sessionId;
     private String userId;
@@ -27,7 +43,19 @@ public class ConversationState {
     private UserLevel userLevel;
     private String currentTopic;
     private Map<String, Object> context;
-    private List<String> messageHistory;
+    // 最近的消息，容量固定为MAX_HISTORY_SIZE
+    private MessageRingBuffer recentMessages;
+    // 被移出recentMessages的早期消息的抽取式摘要
+    private String historySummary;
+    // 已移出并归档到数据库的消息条数
+    private Integer archivedCount;
+    // 已移出但尚未交给归档任务的消息，不随状态序列化
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private List<String> spilledMessages;
 
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     @JsonSerialize(using = LocalDateTimeSerializer.class)
@@ -50,25 +78,84 @@ public class ConversationState {
     }
     
     public void addMessage(String message) {
-        if (messageHistory == null) {
-            messageHistory = new java.util.ArrayList<>();
+        if (recentMessages == null) {
+            recentMessages = new MessageRingBuffer(MAX_HISTORY_SIZE);
+        }
+        String evicted = recentMessages.add(message);
+        if (evicted != null) {
+            historySummary = MessageSummarizer.append(historySummary, evicted, MAX_SUMMARY_CHARS);
+            archivedCount = (archivedCount != null ? archivedCount : 0) + 1;
+            if (spilledMessages == null) {
+                spilledMessages = new ArrayList<>();
+            }
+            spilledMessages.add(evicted);
         }
-        messageHistory.add(message);
-        this.messageCount = messageHistory.size();
+        this.messageCount = (messageCount != null ? messageCount : 0) + 1;
         this.lastInteraction = LocalDateTime.now();
     }
+
+    /**
+     * 按时间顺序返回内存中保留的最近消息
+     */
+    @JsonIgnore
+    public List<String> getMessageHistory() {
+        return recentMessages != null ? recentMessages.toList() : new ArrayList<>();
+    }
+
+    /**
+     * 取出自上次调用以来被移出的消息，交给归档任务写入数据库
+     */
+    public List<String> drainSpilledMessages() {
+        if (spilledMessages == null || spilledMessages.isEmpty()) {
+            return List.of();
+        }
+        List<String> drained = spilledMessages;
+        spilledMessages = null;
+        return drained;
+    }
     
+    /**
+     * 复制当前状态，供后台任务写入Redis；上下文、技能列表与消息缓冲区均为独立副本，
+     * 之后请求线程对原状态的修改不会影响副本。未归档的移出消息不复制
+     */
+    public ConversationState snapshot() {
+        return ConversationState.builder()
+                .sessionId(sessionId)
+                .userId(userId)
+                .phase(phase)
+                .userLevel(userLevel)
+                .currentTopic(currentTopic)
+                .context(context != null ? new HashMap<>(context) : null)
+                .recentMessages(recentMessages != null ? recentMessages.copy() : null)
+                .historySummary(historySummary)
+                .archivedCount(archivedCount)
+                .lastInteraction(lastInteraction)
+                .messageCount(messageCount)
+                .learningGoal(learningGoal)
+                .identifiedSkills(identifiedSkills != null ? new ArrayList<>(identifiedSkills) : null)
+                .preferredLearningStyle(preferredLearningStyle)
+                .build();
+    }
+
     public boolean isExpired() {
         return lastInteraction != null &&
-               lastInteraction.isBefore(LocalDateTime.now().minusHours(2));
+               lastInteraction.isBefore(LocalDateTime.now().minus(SESSION_TIMEOUT));
+    }
+
+    /**
+     * 会话过期的时间戳（毫秒），没有交互记录时返回Long.MAX_VALUE表示不过期
+     */
+    public long expiresAtEpochMilli() {
+        if (lastInteraction == null) {
+            return Long.MAX_VALUE;
+        }
+        return lastInteraction.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() + SESSION_TIMEOUT.toMillis();
     }
 
     public List<String> getRecentMessages(int count) {
-        if (messageHistory == null || messageHistory.isEmpty()) {
+        if (recentMessages == null || recentMessages.isEmpty()) {
             return List.of();
         }
-
-        int startIndex = Math.max(0, messageHistory.size() - count);
-        return messageHistory.subList(startIndex, messageHistory.size());
+        return recentMessages.tail(count);
     }
-}
\ No newline at end of file
+}
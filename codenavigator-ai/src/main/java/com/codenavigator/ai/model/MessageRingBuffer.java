@@ -0,0 +1,115 @@
+package com.codenavigator.ai.model;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 固定容量的消息环形缓冲区
+ * 只保留最近的若干条消息，写满后新消息覆盖最早的一条并将其返回给调用方处理
+ */
+@JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY,
+        getterVisibility = JsonAutoDetect.Visibility.NONE,
+        isGetterVisibility = JsonAutoDetect.Visibility.NONE,
+        setterVisibility = JsonAutoDetect.Visibility.NONE)
+public class MessageRingBuffer {
+
+    private String[] slots;
+    // 最早一条消息所在的位置
+    private int head;
+    private int size;
+
+    /**
+     * 供反序列化使用
+     */
+    MessageRingBuffer() {
+        this(ConversationState.MAX_HISTORY_SIZE);
+    }
+
+    public MessageRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.slots = new String[capacity];
+    }
+
+    /**
+     * 复制出内容相同的独立缓冲区
+     */
+    public MessageRingBuffer copy() {
+        MessageRingBuffer copy = new MessageRingBuffer(slots.length);
+        for (String message : toList()) {
+            copy.add(message);
+        }
+        return copy;
+    }
+
+    /**
+     * 追加消息
+     *
+     * @return 被覆盖的最早消息，缓冲区未满时返回null
+     */
+    public String add(String message) {
+        int capacity = slots.length;
+        if (size < capacity) {
+            slots[(head + size) % capacity] = message;
+            size++;
+            return null;
+        }
+        String evicted = slots[head];
+        slots[head] = message;
+        head = (head + 1) % capacity;
+        return evicted;
+    }
+
+    /**
+     * 按时间顺序返回最近count条消息
+     */
+    public List<String> tail(int count) {
+        int n = Math.max(0, Math.min(count, size));
+        List<String> messages = new ArrayList<>(n);
+        for (int i = size - n; i < size; i++) {
+            messages.add(slots[(head + i) % slots.length]);
+        }
+        return messages;
+    }
+
+    public List<String> toList() {
+        return tail(size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof MessageRingBuffer that)) {
+            return false;
+        }
+        return slots.length == that.slots.length && toList().equals(that.toList());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(slots.length, toList());
+    }
+
+    @Override
+    public String toString() {
+        return toList().toString();
+    }
+}
@@ -0,0 +1,70 @@
+package com.codenavigator.ai.model;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * 基于本地规则的抽取式摘要
+ * 取每条消息的首句作为关键句，不调用大模型
+ */
+public final class MessageSummarizer {
+
+    private static final Pattern SENTENCE_END = Pattern.compile("[。！？!?\\n]|\\.(\\s|$)");
+    private static final int MAX_KEY_SENTENCE_CHARS = 60;
+    private static final String SEPARATOR = "；";
+
+    private MessageSummarizer() {
+    }
+
+    /**
+     * 提取单条消息的关键句（首句，过长时截断）
+     */
+    public static String keySentence(String message) {
+        if (message == null) {
+            return "";
+        }
+        String text = message.trim();
+        var matcher = SENTENCE_END.matcher(text);
+        if (matcher.find()) {
+            text = text.substring(0, matcher.start()).trim();
+        }
+        if (text.length() > MAX_KEY_SENTENCE_CHARS) {
+            text = text.substring(0, MAX_KEY_SENTENCE_CHARS) + "…";
+        }
+        return text;
+    }
+
+    /**
+     * 将多条消息压缩为关键句列表，跳过空句和重复句
+     */
+    public static String summarize(List<String> messages) {
+        StringBuilder summary = new StringBuilder();
+        for (String message : messages) {
+            append(summary, keySentence(message));
+        }
+        return summary.toString();
+    }
+
+    /**
+     * 在已有摘要后追加一条关键句，摘要超过最大长度时丢弃最早的部分
+     */
+    public static String append(String summary, String message, int maxChars) {
+        StringBuilder builder = new StringBuilder(summary != null ? summary : "");
+        append(builder, keySentence(message));
+        if (builder.length() > maxChars) {
+            int cut = builder.indexOf(SEPARATOR, builder.length() - maxChars);
+            return cut >= 0 ? builder.substring(cut + SEPARATOR.length()) : builder.substring(builder.length() - maxChars);
+        }
+        return builder.toString();
+    }
+
+    private static void append(StringBuilder summary, String sentence) {
+        if (sentence.isEmpty() || summary.indexOf(sentence) >= 0) {
+            return;
+        }
+        if (summary.length() > 0) {
+            summary.append(SEPARATOR);
+        }
+        summary.append(sentence);
+    }
+}
@@ -0,0 +1,64 @@
+package com.codenavigator.ai.provider;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.concurrent.Cancellable;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.io.SocketConfig;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import java.net.URI;
+import java.time.Duration;
+
+/**
+ * 提供商调用使用的请求工厂：按提供商配置的timeout设置连接与读取超时，
+ * 并把创建的请求登记到当前的ProviderCall上，使对冲落败的一方可以直接中止HTTP请求
+ *
+ * 每个提供商只有一个路由，连接池上限须不小于并发隔离与对冲允许的并发调用数，
+ * 否则多出的调用会排队等待连接并被计为慢调用
+ */
+public class AbortableRequestFactory extends HttpComponentsClientHttpRequestFactory {
+
+    public static final int DEFAULT_MAX_CONNECTIONS = 64;
+    public static final Duration DEFAULT_CONNECTION_REQUEST_TIMEOUT = Duration.ofSeconds(2);
+
+    public AbortableRequestFactory(Duration timeout) {
+        this(timeout, DEFAULT_MAX_CONNECTIONS, DEFAULT_CONNECTION_REQUEST_TIMEOUT);
+    }
+
+    /**
+     * @param maxConnections           连接池上限（单路由与总数相同）
+     * @param connectionRequestTimeout 从连接池借出连接的最长等待时间
+     */
+    public AbortableRequestFactory(Duration timeout, int maxConnections, Duration connectionRequestTimeout) {
+        super(HttpClients.custom()
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(connectionRequestTimeout))
+                        .setResponseTimeout(Timeout.of(timeout))
+                        .build())
+                .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                        .setMaxConnPerRoute(maxConnections)
+                        .setMaxConnTotal(maxConnections)
+                        .setDefaultConnectionConfig(ConnectionConfig.custom()
+                                .setConnectTimeout(Timeout.of(timeout))
+                                .build())
+                        .setDefaultSocketConfig(SocketConfig.custom()
+                                .setSoTimeout(Timeout.of(timeout))
+                                .build())
+                        .build())
+                .build());
+    }
+
+    @Override
+    protected ClassicHttpRequest createHttpUriRequest(HttpMethod httpMethod, URI uri) {
+        ClassicHttpRequest request = super.createHttpUriRequest(httpMethod, uri);
+        if (request instanceof Cancellable cancellable) {
+            ProviderCall.attach(cancellable);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,34 @@
+package com.codenavigator.ai.provider;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * OpenAI兼容的 /chat/completions 请求体
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ChatCompletionRequest(
+        String model,
+        Double temperature,
+        @JsonProperty("max_tokens") Integer maxTokens,
+        List<ChatMessage> messages,
+        Boolean stream,
+        @JsonProperty("stream_options") StreamOptions streamOptions) {
+
+    public ChatCompletionRequest(String model, Double temperature, Integer maxTokens, List<ChatMessage> messages) {
+        this(model, temperature, maxTokens, messages, null, null);
+    }
+
+    /**
+     * stream模式请求；要求在最后一个分块中返回Token用量，否则流式调用无法按实际用量修正限流配额
+     */
+    public static ChatCompletionRequest streaming(String model, Double temperature, Integer maxTokens,
+                                                  List<ChatMessage> messages) {
+        return new ChatCompletionRequest(model, temperature, maxTokens, messages, true, new StreamOptions(true));
+    }
+
+    public record StreamOptions(@JsonProperty("include_usage") Boolean includeUsage) {
+    }
+}
@@ -0,0 +1,16 @@
+package com.codenavigator.ai.provider;
+
+/**
+ * /chat/completions 响应中实际需要的字段：首个回复内容与Token用量
+ * 响应未返回usage时对应的Token数为-1
+ */
+public record ChatCompletionResult(
+        String content,
+        int promptTokens,
+        int completionTokens,
+        int totalTokens) {
+
+    public boolean hasUsage() {
+        return totalTokens >= 0;
+    }
+}
@@ -0,0 +1,23 @@
+package com.codenavigator.ai.provider;
+
+/**
+ * OpenAI兼容接口的单条对话消息
+ */
+public record ChatMessage(String role, String content) {
+
+    public static final String ROLE_SYSTEM = "system";
+    public static final String ROLE_USER = "user";
+    public static final String ROLE_ASSISTANT = "assistant";
+
+    public static ChatMessage system(String content) {
+        return new ChatMessage(ROLE_SYSTEM, content);
+    }
+
+    public static ChatMessage user(String content) {
+        return new ChatMessage(ROLE_USER, content);
+    }
+
+    public static ChatMessage assistant(String content) {
+        return new ChatMessage(ROLE_ASSISTANT, content);
+    }
+}
@@ -0,0 +1,264 @@
+package com.codenavigator.ai.provider;
+
+import com.codenavigator.ai.config.AiModelConfig;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * OpenAI兼容接口（OpenAI、DeepSeek等）的统一调用客户端
+ * 请求体由类型化的record直接序列化到请求流；响应使用流式解析器只提取回复内容和Token用量，不构建完整的对象树。
+ * stream模式下按SSE逐块读取增量内容
+ */
+public class OpenAiCompatibleClient {
+
+    // 全局共享、预先配置好的ObjectMapper，线程安全
+    public static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+
+    private static final JsonFactory JSON_FACTORY = OBJECT_MAPPER.getFactory();
+
+    private final RestTemplate restTemplate;
+
+    public OpenAiCompatibleClient(RestTemplate restTemplate) {
+        this.restTemplate = restTemplate;
+    }
+
+    /**
+     * 调用 /chat/completions
+     */
+    public ChatCompletionResult complete(AiModelConfig.ProviderConfig config, List<ChatMessage> messages) {
+        ChatCompletionRequest body = new ChatCompletionRequest(
+                config.getModelName(), config.getTemperature(), config.getMaxTokens(), messages);
+
+        return restTemplate.execute(config.getBaseUrl() + "/chat/completions", HttpMethod.POST,
+                request -> {
+                    HttpHeaders headers = request.getHeaders();
+                    headers.setBearerAuth(config.getApiKey());
+                    headers.setContentType(MediaType.APPLICATION_JSON);
+                    headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+                    OBJECT_MAPPER.writeValue(request.getBody(), body);
+                },
+                response -> parse(response.getBody()));
+    }
+
+    /**
+     * 以stream模式调用 /chat/completions，每收到一段增量内容即回调onDelta，返回拼接后的完整回复
+     */
+    public ChatCompletionResult stream(AiModelConfig.ProviderConfig config, List<ChatMessage> messages,
+                                       Consumer<String> onDelta) {
+        ChatCompletionRequest body = ChatCompletionRequest.streaming(
+                config.getModelName(), config.getTemperature(), config.getMaxTokens(), messages);
+
+        return restTemplate.execute(config.getBaseUrl() + "/chat/completions", HttpMethod.POST,
+                request -> {
+                    HttpHeaders headers = request.getHeaders();
+                    headers.setBearerAuth(config.getApiKey());
+                    headers.setContentType(MediaType.APPLICATION_JSON);
+                    headers.setAccept(List.of(MediaType.TEXT_EVENT_STREAM));
+                    OBJECT_MAPPER.writeValue(request.getBody(), body);
+                },
+                response -> parseStream(response.getBody(), onDelta));
+    }
+
+    /**
+     * 请求 /models 接口，用于低成本的连通性与鉴权检查；失败时抛出异常
+     */
+    public void listModels(AiModelConfig.ProviderConfig config) {
+        restTemplate.execute(config.getBaseUrl() + "/models", HttpMethod.GET,
+                request -> request.getHeaders().setBearerAuth(config.getApiKey()),
+                response -> null);
+    }
+
+    /**
+     * 流式解析响应：只读取 choices[0].message.content 与 usage，其余字段直接跳过
+     */
+    public static ChatCompletionResult parse(InputStream body) throws IOException {
+        if (body == null) {
+            throw new RuntimeException("Empty response from AI service");
+        }
+
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new RuntimeException("Empty response from AI service");
+            }
+
+            String content = null;
+            boolean hasChoices = false;
+            int[] usage = {-1, -1, -1};
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("choices".equals(field) && value == JsonToken.START_ARRAY) {
+                    JsonToken first = parser.nextToken();
+                    if (first != JsonToken.END_ARRAY) {
+                        hasChoices = true;
+                        if (first == JsonToken.START_OBJECT) {
+                            content = readFirstChoice(parser, "message", null);
+                        } else {
+                            parser.skipChildren();
+                        }
+                        skipRemainingArray(parser);
+                    }
+                } else if ("usage".equals(field) && value == JsonToken.START_OBJECT) {
+                    readUsage(parser, usage);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            if (!hasChoices) {
+                throw new RuntimeException("No choices in AI response");
+            }
+            if (content == null || content.trim().isEmpty()) {
+                throw new RuntimeException("Empty content in AI response");
+            }
+            return new ChatCompletionResult(content.trim(), usage[0], usage[1], usage[2]);
+        }
+    }
+
+    /**
+     * 解析SSE响应：逐行读取 data 事件，提取 choices[0].delta.content 并回调，遇到 [DONE] 结束；
+     * 既没有 [DONE] 也没有 finish_reason 就读到流末尾时视为连接中断，抛出异常而不是返回不完整的回复
+     */
+    public static ChatCompletionResult parseStream(InputStream body, Consumer<String> onDelta) throws IOException {
+        if (body == null) {
+            throw new RuntimeException("Empty response from AI service");
+        }
+
+        StringBuilder content = new StringBuilder();
+        int[] usage = {-1, -1, -1};
+        boolean[] finished = {false};
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.startsWith("data:")) {
+                continue;
+            }
+            String data = line.substring(5).trim();
+            if ("[DONE]".equals(data)) {
+                finished[0] = true;
+                break;
+            }
+            if (data.isEmpty()) {
+                continue;
+            }
+            String delta = parseChunk(data, usage, finished);
+            if (delta != null && !delta.isEmpty()) {
+                content.append(delta);
+                onDelta.accept(delta);
+            }
+        }
+
+        if (!finished[0]) {
+            throw new RuntimeException("AI response stream ended before completion");
+        }
+        String text = content.toString().trim();
+        if (text.isEmpty()) {
+            throw new RuntimeException("Empty content in AI response");
+        }
+        return new ChatCompletionResult(text, usage[0], usage[1], usage[2]);
+    }
+
+    /**
+     * 解析单个流式分块，返回其中的增量内容；分块携带usage时一并读取，携带finish_reason时标记回复已结束
+     */
+    private static String parseChunk(String data, int[] usage, boolean[] finished) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(data)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+
+            String delta = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("choices".equals(field) && value == JsonToken.START_ARRAY) {
+                    JsonToken first = parser.nextToken();
+                    if (first != JsonToken.END_ARRAY) {
+                        if (first == JsonToken.START_OBJECT) {
+                            delta = readFirstChoice(parser, "delta", finished);
+                        } else {
+                            parser.skipChildren();
+                        }
+                        skipRemainingArray(parser);
+                    }
+                } else if ("usage".equals(field) && value == JsonToken.START_OBJECT) {
+                    readUsage(parser, usage);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return delta;
+        }
+    }
+
+    /**
+     * 读取第一个choice对象中的 message.content（流式分块中为 delta.content），解析器停在该对象的END_OBJECT；
+     * finished不为null时，choice带有非空的finish_reason则置为true
+     */
+    private static String readFirstChoice(JsonParser parser, String messageField, boolean[] finished) throws IOException {
+        String content = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (messageField.equals(field) && value == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String contentField = parser.currentName();
+                    JsonToken contentValue = parser.nextToken();
+                    if ("content".equals(contentField) && contentValue == JsonToken.VALUE_STRING) {
+                        content = parser.getText();
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else if (finished != null && "finish_reason".equals(field) && value == JsonToken.VALUE_STRING) {
+                finished[0] = true;
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return content;
+    }
+
+    private static void skipRemainingArray(JsonParser parser) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            parser.skipChildren();
+        }
+    }
+
+    private static void readUsage(JsonParser parser, int[] usage) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (value != JsonToken.VALUE_NUMBER_INT) {
+                parser.skipChildren();
+                continue;
+            }
+            switch (field) {
+                case "prompt_tokens" -> usage[0] = parser.getIntValue();
+                case "completion_tokens" -> usage[1] = parser.getIntValue();
+                case "total_tokens" -> usage[2] = parser.getIntValue();
+                default -> {
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.codenavigator.ai.provider;
+
+import org.apache.hc.core5.concurrent.Cancellable;
+
+import java.util.function.Supplier;
+
+/**
+ * 可中止的提供商调用
+ * 阻塞在网络读取上的线程无法通过中断唤醒，取消时直接中止底层HTTP请求（关闭连接），调用线程随即以异常返回。
+ * 调用期间由AbortableRequestFactory把创建的请求登记到当前线程的ProviderCall上
+ */
+public class ProviderCall {
+
+    private static final ThreadLocal<ProviderCall> CURRENT = new ThreadLocal<>();
+
+    // 以下字段均在this锁内读写
+    private Cancellable request;
+    private boolean cancelled;
+    private boolean finished;
+
+    /**
+     * 在当前线程执行调用，期间发出的HTTP请求可被cancel中止
+     */
+    public <T> T run(Supplier<T> call) {
+        CURRENT.set(this);
+        try {
+            return call.get();
+        } finally {
+            CURRENT.remove();
+            synchronized (this) {
+                finished = true;
+                request = null;
+            }
+        }
+    }
+
+    /**
+     * 中止进行中的请求；调用已结束时没有副作用
+     */
+    public synchronized void cancel() {
+        if (finished || cancelled) {
+            return;
+        }
+        cancelled = true;
+        if (request != null) {
+            request.cancel();
+        }
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * 当前线程正在执行的调用，不在ProviderCall中执行时返回null
+     */
+    public static ProviderCall current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 登记当前线程即将发出的请求；调用已被取消时立即中止
+     */
+    static void attach(Cancellable request) {
+        ProviderCall call = CURRENT.get();
+        if (call == null) {
+            return;
+        }
+        synchronized (call) {
+            if (call.cancelled) {
+                request.cancel();
+            } else {
+                call.request = request;
+            }
+        }
+    }
+}
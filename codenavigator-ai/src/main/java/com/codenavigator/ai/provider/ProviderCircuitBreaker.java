@@ -0,0 +1,179 @@
+package com.codenavigator.ai.provider;
+
+import com.codenavigator.ai.config.AiModelConfig;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 单个提供商的熔断器（基于最近N次调用的计数滑动窗口）
+ * 失败率或慢调用率超过阈值时打开，等待期结束后进入半开状态放行少量探测调用，
+ * 探测结果达标则关闭，否则重新打开
+ */
+public class ProviderCircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final AiModelConfig.ResilienceConfig config;
+
+    // 滑动窗口：每个槽位记录一次调用是否失败、是否慢调用
+    private final boolean[] failures;
+    private final boolean[] slowCalls;
+    private int nextIndex;
+    private int recordedCalls;
+    private int failureCount;
+    private int slowCallCount;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenCompleted;
+    private int halfOpenFailures;
+
+    public ProviderCircuitBreaker(AiModelConfig.ResilienceConfig config) {
+        this.config = config;
+        this.failures = new boolean[config.getSlidingWindowSize()];
+        this.slowCalls = new boolean[config.getSlidingWindowSize()];
+    }
+
+    /**
+     * 申请调用许可；熔断打开时返回false，调用方应快速失败
+     */
+    public synchronized boolean tryAcquirePermission() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.currentTimeMillis() - openedAt < config.getOpenDurationMs()) {
+                    return false;
+                }
+                transitionTo(State.HALF_OPEN);
+                // fall through
+            case HALF_OPEN:
+            default:
+                if (halfOpenPermits >= config.getHalfOpenPermittedCalls()) {
+                    return false;
+                }
+                halfOpenPermits++;
+                return true;
+        }
+    }
+
+    /**
+     * 归还未使用的许可（例如并发隔离已满，调用没有实际发出）
+     */
+    public synchronized void releasePermission() {
+        if (state == State.HALF_OPEN && halfOpenPermits > 0) {
+            halfOpenPermits--;
+        }
+    }
+
+    public synchronized void onSuccess(long durationMs) {
+        record(false, durationMs);
+    }
+
+    public synchronized void onError(long durationMs) {
+        record(true, durationMs);
+    }
+
+    private void record(boolean failed, long durationMs) {
+        boolean slow = durationMs >= config.getSlowCallDurationMs();
+
+        if (state == State.HALF_OPEN) {
+            halfOpenCompleted++;
+            if (failed || slow) {
+                halfOpenFailures++;
+            }
+            if (halfOpenFailures > 0) {
+                transitionTo(State.OPEN);
+            } else if (halfOpenCompleted >= config.getHalfOpenPermittedCalls()) {
+                transitionTo(State.CLOSED);
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            // 熔断打开前已发出的调用，结果不再影响窗口
+            return;
+        }
+
+        if (recordedCalls == failures.length) {
+            if (failures[nextIndex]) {
+                failureCount--;
+            }
+            if (slowCalls[nextIndex]) {
+                slowCallCount--;
+            }
+        } else {
+            recordedCalls++;
+        }
+        failures[nextIndex] = failed;
+        slowCalls[nextIndex] = slow;
+        if (failed) {
+            failureCount++;
+        }
+        if (slow) {
+            slowCallCount++;
+        }
+        nextIndex = (nextIndex + 1) % failures.length;
+
+        if (recordedCalls >= config.getMinimumCalls()
+                && (getFailureRate() >= config.getFailureRateThreshold()
+                    || getSlowCallRate() >= config.getSlowCallRateThreshold())) {
+            transitionTo(State.OPEN);
+        }
+    }
+
+    private void transitionTo(State newState) {
+        state = newState;
+        halfOpenPermits = 0;
+        halfOpenCompleted = 0;
+        halfOpenFailures = 0;
+        if (newState == State.OPEN) {
+            openedAt = System.currentTimeMillis();
+        }
+        if (newState == State.CLOSED) {
+            nextIndex = 0;
+            recordedCalls = 0;
+            failureCount = 0;
+            slowCallCount = 0;
+        }
+    }
+
+    /**
+     * 当前状态（打开状态下等待期已过时视为半开，可以放行探测调用）
+     */
+    public synchronized State getState() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= config.getOpenDurationMs()) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    /**
+     * 是否会拒绝调用
+     */
+    public boolean isOpen() {
+        return getState() == State.OPEN;
+    }
+
+    public synchronized double getFailureRate() {
+        return recordedCalls > 0 ? (double) failureCount / recordedCalls : 0.0;
+    }
+
+    public synchronized double getSlowCallRate() {
+        return recordedCalls > 0 ? (double) slowCallCount / recordedCalls : 0.0;
+    }
+
+    public synchronized Map<String, Object> toMap() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("state", getState().name());
+        map.put("failureRate", getFailureRate());
+        map.put("slowCallRate", getSlowCallRate());
+        map.put("recordedCalls", recordedCalls);
+        return map;
+    }
+}
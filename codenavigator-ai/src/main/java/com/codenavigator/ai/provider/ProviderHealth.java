@@ -0,0 +1,104 @@
+package com.codenavigator.ai.provider;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 单个提供商的健康探测记录
+ * 保存最近一次探测的延迟与错误、最近N次探测的成功率以及连续失败次数，由后台探测任务更新
+ */
+public class ProviderHealth {
+
+    private final boolean[] window;
+    private final int unhealthyThreshold;
+
+    private int count;
+    private int next;
+    private int consecutiveFailures;
+    private boolean lastSucceeded;
+    private long lastLatencyMs = -1;
+    private long lastCheckedAt;
+    private String lastError;
+
+    /**
+     * @param windowSize         成功率统计的探测次数
+     * @param unhealthyThreshold 连续失败多少次判定为不健康
+     */
+    public ProviderHealth(int windowSize, int unhealthyThreshold) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("windowSize must be positive");
+        }
+        this.window = new boolean[windowSize];
+        this.unhealthyThreshold = unhealthyThreshold;
+    }
+
+    public synchronized void recordSuccess(long latencyMs) {
+        record(true, latencyMs);
+        consecutiveFailures = 0;
+        lastError = null;
+    }
+
+    public synchronized void recordFailure(long latencyMs, String error) {
+        record(false, latencyMs);
+        consecutiveFailures++;
+        lastError = error;
+    }
+
+    private void record(boolean success, long latencyMs) {
+        window[next] = success;
+        next = (next + 1) % window.length;
+        count = Math.min(count + 1, window.length);
+        lastSucceeded = success;
+        lastLatencyMs = latencyMs;
+        lastCheckedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * 是否健康；尚未探测过的提供商视为健康
+     */
+    public synchronized boolean isHealthy() {
+        return consecutiveFailures < unhealthyThreshold;
+    }
+
+    /**
+     * 最近一次探测是否成功，不受连续失败阈值的滞后影响；尚未探测过时返回false
+     */
+    public synchronized boolean isLastProbeSucceeded() {
+        return count > 0 && lastSucceeded;
+    }
+
+    /**
+     * 最近N次探测的成功率，尚无探测记录时返回-1
+     */
+    public synchronized double getSuccessRatio() {
+        if (count == 0) {
+            return -1;
+        }
+        int successes = 0;
+        for (int i = 0; i < count; i++) {
+            if (window[i]) {
+                successes++;
+            }
+        }
+        return (double) successes / count;
+    }
+
+    public synchronized long getLastCheckedAt() {
+        return lastCheckedAt;
+    }
+
+    public synchronized Map<String, Object> toMap() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("healthy", isHealthy());
+        map.put("lastProbeSucceeded", isLastProbeSucceeded());
+        map.put("lastLatencyMs", lastLatencyMs);
+        map.put("lastCheckedAt", lastCheckedAt);
+        map.put("successRatio", getSuccessRatio());
+        map.put("consecutiveFailures", consecutiveFailures);
+        map.put("probes", count);
+        if (lastError != null) {
+            map.put("lastError", lastError);
+        }
+        return map;
+    }
+}
@@ -0,0 +1,127 @@
+package com.codenavigator.ai.provider;
+
+import com.codenavigator.ai.config.AiModelConfig;
+import com.codenavigator.ai.enums.AiProvider;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 提供商后台健康探测
+ * 按带随机抖动的间隔请求各提供商的 /models 接口，结果写入ProviderRouter中的健康记录，
+ * 状态查询与路由只读取该缓存，不再为了查看状态发送计费的对话请求
+ */
+@Slf4j
+@Component
+public class ProviderHealthProber {
+
+    private final AiModelConfig aiModelConfig;
+    private final ProviderRouter providerRouter;
+    private final OpenAiCompatibleClient probeClient;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "CodeNavigator-AI-HealthProbe");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ProviderHealthProber(AiModelConfig aiModelConfig, ProviderRouter providerRouter) {
+        this.aiModelConfig = aiModelConfig;
+        this.providerRouter = providerRouter;
+
+        long timeoutMs = healthConfig().getTimeoutMs();
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout((int) timeoutMs);
+        requestFactory.setReadTimeout((int) timeoutMs);
+        this.probeClient = new OpenAiCompatibleClient(new RestTemplate(requestFactory));
+    }
+
+    @PostConstruct
+    public void start() {
+        AiModelConfig.HealthConfig config = healthConfig();
+        if (!Boolean.TRUE.equals(config.getEnabled())) {
+            log.info("Provider health probing is disabled");
+            return;
+        }
+        for (AiProvider provider : AiProvider.values()) {
+            scheduleNext(provider, config.getInitialDelayMs());
+        }
+        log.info("Provider health probing started, interval {}ms", config.getIntervalMs());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 返回缓存的健康记录；记录已超过一个探测周期（或从未探测）时立即探测一次
+     */
+    public ProviderHealth getOrProbe(AiProvider provider) {
+        AiModelConfig.HealthConfig config = healthConfig();
+        ProviderHealth health = providerRouter.health(provider, config);
+        if (System.currentTimeMillis() - health.getLastCheckedAt() > config.getIntervalMs()) {
+            probe(provider);
+        }
+        return health;
+    }
+
+    /**
+     * 探测一次提供商；未启用或未配置的提供商不探测
+     */
+    public void probe(AiProvider provider) {
+        AiModelConfig.ProviderConfig config = aiModelConfig.getProviderConfig(provider.getCode());
+        if (config == null || !Boolean.TRUE.equals(config.getEnabled())
+                || config.getApiKey() == null || config.getApiKey().trim().isEmpty()) {
+            return;
+        }
+
+        ProviderHealth health = providerRouter.health(provider, healthConfig());
+        long startTime = System.currentTimeMillis();
+        try {
+            probeClient.listModels(config);
+            health.recordSuccess(System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            health.recordFailure(System.currentTimeMillis() - startTime, e.getMessage());
+            log.warn("Health probe for {} failed: {}", provider.getDisplayName(), e.getMessage());
+        }
+    }
+
+    private void scheduleNext(AiProvider provider, long delayMs) {
+        if (scheduler.isShutdown()) {
+            return;
+        }
+        scheduler.schedule(() -> {
+            try {
+                probe(provider);
+            } catch (Exception e) {
+                log.error("Unexpected error probing {}", provider.getDisplayName(), e);
+            } finally {
+                scheduleNext(provider, jitteredInterval());
+            }
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private long jitteredInterval() {
+        AiModelConfig.HealthConfig config = healthConfig();
+        long interval = config.getIntervalMs();
+        long jitter = (long) (interval * config.getJitterRatio());
+        if (jitter <= 0) {
+            return interval;
+        }
+        return interval + ThreadLocalRandom.current().nextLong(-jitter, jitter + 1);
+    }
+
+    private AiModelConfig.HealthConfig healthConfig() {
+        AiModelConfig.HealthConfig config = aiModelConfig.getHealth();
+        return config != null ? config : new AiModelConfig.HealthConfig();
+    }
+}
@@ -0,0 +1,62 @@
+package com.codenavigator.ai.provider;
+
+import java.util.Arrays;
+
+/**
+ * 提供商响应延迟滚动窗口
+ * 保存最近N次成功调用的耗时，用于计算P50/P95等分位数
+ */
+public class ProviderLatencyWindow {
+
+    public static final int DEFAULT_CAPACITY = 200;
+
+    private final long[] samples;
+    private int nextIndex;
+    private int size;
+
+    public ProviderLatencyWindow() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ProviderLatencyWindow(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.samples = new long[capacity];
+    }
+
+    /**
+     * 记录一次调用耗时（毫秒）
+     */
+    public synchronized void record(long latencyMs) {
+        samples[nextIndex] = latencyMs;
+        nextIndex = (nextIndex + 1) % samples.length;
+        if (size < samples.length) {
+            size++;
+        }
+    }
+
+    /**
+     * 获取当前样本数量
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * 计算分位数，percentile取值范围(0, 100]；无样本时返回-1
+     */
+    public long percentile(double percentile) {
+        long[] snapshot;
+        synchronized (this) {
+            if (size == 0) {
+                return -1;
+            }
+            snapshot = Arrays.copyOf(samples, size);
+        }
+
+        Arrays.sort(snapshot);
+        int rank = (int) Math.ceil(percentile / 100.0 * snapshot.length) - 1;
+        return snapshot[Math.max(0, Math.min(rank, snapshot.length - 1))];
+    }
+}
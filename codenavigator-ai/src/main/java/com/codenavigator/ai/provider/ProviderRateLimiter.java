@@ -0,0 +1,286 @@
+package com.codenavigator.ai.provider;
+
+import com.codenavigator.ai.enums.RequestPriority;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 单个提供商的客户端限流器
+ * 同时维护每分钟请求数（RPM）和每分钟Token数（TPM）两个令牌桶；配额不足时请求在有界时间内排队，
+ * 交互式请求优先于后台请求；收到429后按Retry-After暂停并收缩桶容量，之后随成功调用逐步恢复
+ */
+public class ProviderRateLimiter {
+
+    private static final double MIN_CAPACITY_FACTOR = 0.1;
+    private static final double RECOVERY_STEP = 0.02;
+    private static final long MAX_POLL_MILLIS = 200;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+
+    private final TokenBucket requestBucket;
+    private final TokenBucket tokenBucket;
+
+    // 以下字段均在lock保护下读写
+    private double capacityFactor = 1.0;
+    private long throttledUntil;
+    private int interactiveWaiting;
+    private int backgroundWaiting;
+    private long acquiredCount;
+    private long timedOutCount;
+    private long throttledCount;
+    private long totalWaitMillis;
+    private long maxWaitMillis;
+
+    /**
+     * @param requestsPerMinute 每分钟请求上限，为空表示不限制
+     * @param tokensPerMinute   每分钟Token上限，为空表示不限制
+     */
+    public ProviderRateLimiter(Integer requestsPerMinute, Integer tokensPerMinute) {
+        this.requestBucket = requestsPerMinute != null ? new TokenBucket(requestsPerMinute) : null;
+        this.tokenBucket = tokensPerMinute != null ? new TokenBucket(tokensPerMinute) : null;
+    }
+
+    /**
+     * 申请一次调用所需的配额，最多等待maxWaitMillis
+     *
+     * @return 是否成功获得配额；超时返回false
+     */
+    public boolean acquire(int tokens, RequestPriority priority, long maxWaitMillis) throws InterruptedException {
+        long startTime = System.currentTimeMillis();
+        long deadline = startTime + maxWaitMillis;
+
+        lock.lock();
+        try {
+            adjustWaiting(priority, 1);
+            try {
+                while (true) {
+                    long now = System.currentTimeMillis();
+                    refill(now);
+
+                    // 有交互式请求在排队时，后台请求让出配额
+                    boolean yieldToInteractive = priority == RequestPriority.BACKGROUND && interactiveWaiting > 0;
+                    if (!yieldToInteractive && now >= throttledUntil && hasCapacity(tokens)) {
+                        consume(tokens);
+                        recordWait(now - startTime);
+                        return true;
+                    }
+
+                    long remaining = deadline - now;
+                    if (remaining <= 0) {
+                        timedOutCount++;
+                        return false;
+                    }
+                    changed.await(Math.min(remaining, millisUntilAvailable(tokens, now)), TimeUnit.MILLISECONDS);
+                }
+            } finally {
+                adjustWaiting(priority, -1);
+                changed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 调用成功，逐步恢复被429收缩的容量
+     */
+    public void onSuccess() {
+        lock.lock();
+        try {
+            if (capacityFactor < 1.0) {
+                capacityFactor = Math.min(1.0, capacityFactor + RECOVERY_STEP);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 按响应返回的实际Token用量修正预留量：预估偏多时归还差额，偏少时补扣
+     */
+    public void reconcile(int reservedTokens, int actualTokens) {
+        if (tokenBucket == null || actualTokens < 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            long now = System.currentTimeMillis();
+            refill(now);
+            double reserved = tokenBucket.clamp(reservedTokens, capacityFactor);
+            tokenBucket.adjust(reserved - actualTokens, capacityFactor);
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 调用未实际发出（熔断或并发隔离拒绝），归还预留的请求次数和Token
+     */
+    public void release(int reservedTokens) {
+        lock.lock();
+        try {
+            long now = System.currentTimeMillis();
+            refill(now);
+            if (requestBucket != null) {
+                requestBucket.adjust(1, capacityFactor);
+            }
+            if (tokenBucket != null) {
+                tokenBucket.adjust(tokenBucket.clamp(reservedTokens, capacityFactor), capacityFactor);
+            }
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 收到429：在Retry-After期间暂停发送，并将桶容量减半、清空现有令牌
+     */
+    public void onThrottled(long retryAfterMillis) {
+        lock.lock();
+        try {
+            long now = System.currentTimeMillis();
+            throttledCount++;
+            throttledUntil = Math.max(throttledUntil, now + Math.max(retryAfterMillis, 0));
+            capacityFactor = Math.max(MIN_CAPACITY_FACTOR, capacityFactor * 0.5);
+            if (requestBucket != null) {
+                requestBucket.drain(now);
+            }
+            if (tokenBucket != null) {
+                tokenBucket.drain(now);
+            }
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Map<String, Object> toMap() {
+        lock.lock();
+        try {
+            refill(System.currentTimeMillis());
+            Map<String, Object> map = new HashMap<>();
+            map.put("interactiveQueueDepth", interactiveWaiting);
+            map.put("backgroundQueueDepth", backgroundWaiting);
+            map.put("acquired", acquiredCount);
+            map.put("timedOut", timedOutCount);
+            map.put("throttled", throttledCount);
+            map.put("avgWaitMs", acquiredCount > 0 ? (double) totalWaitMillis / acquiredCount : 0.0);
+            map.put("maxWaitMs", maxWaitMillis);
+            map.put("capacityFactor", capacityFactor);
+            if (requestBucket != null) {
+                map.put("availableRequests", (long) requestBucket.available);
+            }
+            if (tokenBucket != null) {
+                map.put("availableTokens", (long) tokenBucket.available);
+            }
+            return map;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void adjustWaiting(RequestPriority priority, int delta) {
+        if (priority == RequestPriority.BACKGROUND) {
+            backgroundWaiting += delta;
+        } else {
+            interactiveWaiting += delta;
+        }
+    }
+
+    private void refill(long now) {
+        if (requestBucket != null) {
+            requestBucket.refill(now, capacityFactor);
+        }
+        if (tokenBucket != null) {
+            tokenBucket.refill(now, capacityFactor);
+        }
+    }
+
+    private boolean hasCapacity(int tokens) {
+        return (requestBucket == null || requestBucket.available >= 1)
+                && (tokenBucket == null || tokenBucket.available >= tokenBucket.clamp(tokens, capacityFactor));
+    }
+
+    private void consume(int tokens) {
+        if (requestBucket != null) {
+            requestBucket.available -= 1;
+        }
+        if (tokenBucket != null) {
+            tokenBucket.available -= tokenBucket.clamp(tokens, capacityFactor);
+        }
+    }
+
+    private long millisUntilAvailable(int tokens, long now) {
+        long wait = Math.max(throttledUntil - now, 1);
+        if (requestBucket != null) {
+            wait = Math.max(wait, requestBucket.millisUntil(1, capacityFactor));
+        }
+        if (tokenBucket != null) {
+            wait = Math.max(wait, tokenBucket.millisUntil(tokenBucket.clamp(tokens, capacityFactor), capacityFactor));
+        }
+        // 被唤醒的时机还取决于其他等待者，限制单次等待时长以便及时重新检查
+        return Math.min(wait, MAX_POLL_MILLIS);
+    }
+
+    private void recordWait(long waitMillis) {
+        acquiredCount++;
+        totalWaitMillis += waitMillis;
+        maxWaitMillis = Math.max(maxWaitMillis, waitMillis);
+    }
+
+    /**
+     * 按分钟补充的令牌桶，实际容量 = 每分钟配额 × 容量系数
+     */
+    private static class TokenBucket {
+
+        private final int perMinute;
+        private double available;
+        private long lastRefill = System.currentTimeMillis();
+
+        TokenBucket(int perMinute) {
+            this.perMinute = perMinute;
+            this.available = perMinute;
+        }
+
+        void refill(long now, double factor) {
+            double capacity = perMinute * factor;
+            double refillPerMilli = capacity / 60_000.0;
+            available = Math.min(capacity, available + (now - lastRefill) * refillPerMilli);
+            lastRefill = now;
+        }
+
+        void drain(long now) {
+            available = 0;
+            lastRefill = now;
+        }
+
+        /**
+         * 归还（正数）或补扣（负数）令牌，允许短暂透支，由后续补充抵消
+         */
+        void adjust(double delta, double factor) {
+            available = Math.min(perMinute * factor, available + delta);
+        }
+
+        /**
+         * 单次请求所需令牌不超过桶容量，避免超大请求永远无法获得配额
+         */
+        double clamp(int tokens, double factor) {
+            return Math.min(tokens, perMinute * factor);
+        }
+
+        long millisUntil(double needed, double factor) {
+            double deficit = needed - available;
+            if (deficit <= 0) {
+                return 0;
+            }
+            return (long) Math.ceil(deficit / (perMinute * factor / 60_000.0));
+        }
+    }
+}
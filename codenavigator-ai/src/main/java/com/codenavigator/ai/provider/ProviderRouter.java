@@ -0,0 +1,182 @@
+package com.codenavigator.ai.provider;
+
+import com.codenavigator.ai.config.AiModelConfig;
+import com.codenavigator.ai.enums.AiProvider;
+import com.codenavigator.ai.enums.RoutingPolicy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 提供商自适应路由
+ * 根据各提供商的EWMA延迟、错误率与进行中请求数为每个请求选择提供商，
+ * 慢或异常的提供商会自动被降低优先级，无需人工切换
+ */
+@Slf4j
+@Component
+public class ProviderRouter {
+
+    private static final double EWMA_ALPHA = 0.2;
+
+    private final Map<AiProvider, ProviderStats> stats = new ConcurrentHashMap<>();
+    private final Map<AiProvider, ProviderCircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    private final Map<AiProvider, Semaphore> bulkheads = new ConcurrentHashMap<>();
+    private final Map<AiProvider, ProviderRateLimiter> rateLimiters = new ConcurrentHashMap<>();
+    private final Map<AiProvider, ProviderHealth> healthRecords = new ConcurrentHashMap<>();
+
+    /**
+     * 获取提供商统计（不存在时创建）
+     */
+    public ProviderStats stats(AiProvider provider) {
+        return stats.computeIfAbsent(provider, p -> new ProviderStats(EWMA_ALPHA));
+    }
+
+    /**
+     * 获取提供商熔断器（不存在时按配置创建）
+     */
+    public ProviderCircuitBreaker circuitBreaker(AiProvider provider, AiModelConfig.ResilienceConfig resilience) {
+        return circuitBreakers.computeIfAbsent(provider,
+                p -> new ProviderCircuitBreaker(resilience != null ? resilience : new AiModelConfig.ResilienceConfig()));
+    }
+
+    /**
+     * 获取提供商并发隔离信号量（不存在时按配置创建）
+     */
+    public Semaphore bulkhead(AiProvider provider, AiModelConfig.ResilienceConfig resilience) {
+        return bulkheads.computeIfAbsent(provider, p -> new Semaphore(
+                (resilience != null ? resilience : new AiModelConfig.ResilienceConfig()).getMaxConcurrentCalls()));
+    }
+
+    /**
+     * 获取提供商限流器（不存在时按RPM/TPM配置创建）
+     */
+    public ProviderRateLimiter rateLimiter(AiProvider provider, AiModelConfig.ProviderConfig providerConfig) {
+        return rateLimiters.computeIfAbsent(provider, p -> providerConfig != null
+                ? new ProviderRateLimiter(providerConfig.getRequestsPerMinute(), providerConfig.getTokensPerMinute())
+                : new ProviderRateLimiter(null, null));
+    }
+
+    /**
+     * 获取提供商健康探测记录（不存在时按配置创建）
+     */
+    public ProviderHealth health(AiProvider provider, AiModelConfig.HealthConfig healthConfig) {
+        return healthRecords.computeIfAbsent(provider, p -> {
+            AiModelConfig.HealthConfig config = healthConfig != null ? healthConfig : new AiModelConfig.HealthConfig();
+            return new ProviderHealth(config.getWindowSize(), config.getUnhealthyThreshold());
+        });
+    }
+
+    /**
+     * 最近的健康探测是否正常（尚未探测的提供商视为健康）
+     */
+    public boolean isHealthy(AiProvider provider) {
+        ProviderHealth health = healthRecords.get(provider);
+        return health == null || health.isHealthy();
+    }
+
+    /**
+     * 熔断器是否处于打开状态（尚未创建熔断器的提供商视为关闭）
+     */
+    public boolean isCircuitOpen(AiProvider provider) {
+        ProviderCircuitBreaker breaker = circuitBreakers.get(provider);
+        return breaker != null && breaker.isOpen();
+    }
+
+    /**
+     * 按路由策略对候选提供商排序，首位即本次请求应使用的提供商，其余可作为对冲或降级备选
+     *
+     * @param candidates 当前可用的提供商
+     * @param preferred  偏好提供商（手动切换的当前提供商），同等条件下优先
+     * @param routing    路由配置，为空时等同于固定策略
+     */
+    public List<AiProvider> rank(List<AiProvider> candidates, AiProvider preferred,
+                                 AiModelConfig.RoutingConfig routing) {
+        List<AiProvider> ranked = new ArrayList<>(candidates);
+        RoutingPolicy policy = routing != null ? RoutingPolicy.fromCode(routing.getPolicy()) : RoutingPolicy.FIXED;
+
+        if (policy == RoutingPolicy.FIXED) {
+            if (ranked.remove(preferred)) {
+                ranked.add(0, preferred);
+            }
+            // 熔断打开或健康探测失败的提供商移到末尾，其余保持原顺序
+            ranked.sort(Comparator.comparing(this::isCircuitOpen)
+                    .thenComparing(provider -> !isHealthy(provider)));
+            return ranked;
+        }
+
+        Comparator<AiProvider> byScore = Comparator.comparingDouble(provider -> score(provider, routing));
+        Comparator<AiProvider> comparator = Comparator
+                .comparing(this::isCircuitOpen)
+                .thenComparing(provider -> isDegraded(provider, routing))
+                .thenComparing(policy == RoutingPolicy.LEAST_OUTSTANDING
+                        ? Comparator.<AiProvider>comparingInt(provider -> stats(provider).getInFlight()).thenComparing(byScore)
+                        : byScore)
+                .thenComparing(provider -> provider != preferred);
+        ranked.sort(comparator);
+
+        if (policy == RoutingPolicy.WEIGHTED) {
+            moveWeightedChoiceToFront(ranked, routing);
+        }
+
+        log.debug("Routing order ({}): {}", policy.getCode(), ranked);
+        return ranked;
+    }
+
+    /**
+     * 提供商是否处于降级状态（健康探测失败或错误率超过阈值）
+     */
+    public boolean isDegraded(AiProvider provider, AiModelConfig.RoutingConfig routing) {
+        if (!isHealthy(provider)) {
+            return true;
+        }
+        return routing != null && stats(provider).getErrorRate() > routing.getDegradedErrorRate();
+    }
+
+    /**
+     * 路由得分，越小越好：延迟 × (1 + 错误惩罚 × 错误率)
+     */
+    private double score(AiProvider provider, AiModelConfig.RoutingConfig routing) {
+        ProviderStats providerStats = stats(provider);
+        double latency = providerStats.getEwmaLatencyMs() >= 0
+                ? providerStats.getEwmaLatencyMs()
+                : routing.getDefaultLatencyMs();
+        return Math.max(latency, 1.0) * (1 + routing.getErrorPenalty() * providerStats.getErrorRate());
+    }
+
+    /**
+     * 在未降级的提供商中按得分倒数加权随机选择一个放到首位
+     */
+    private void moveWeightedChoiceToFront(List<AiProvider> ranked, AiModelConfig.RoutingConfig routing) {
+        List<AiProvider> healthy = ranked.stream()
+                .filter(provider -> !isCircuitOpen(provider) && !isDegraded(provider, routing))
+                .toList();
+        if (healthy.size() < 2) {
+            return;
+        }
+
+        double[] weights = new double[healthy.size()];
+        double totalWeight = 0;
+        for (int i = 0; i < healthy.size(); i++) {
+            weights[i] = 1.0 / score(healthy.get(i), routing);
+            totalWeight += weights[i];
+        }
+
+        double pick = ThreadLocalRandom.current().nextDouble(totalWeight);
+        for (int i = 0; i < healthy.size(); i++) {
+            pick -= weights[i];
+            if (pick <= 0) {
+                AiProvider chosen = healthy.get(i);
+                ranked.remove(chosen);
+                ranked.add(0, chosen);
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.codenavigator.ai.provider;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单个提供商的实时调用统计
+ * 维护EWMA延迟、EWMA错误率、进行中请求数以及最近延迟窗口
+ */
+public class ProviderStats {
+
+    // 错误率随时间衰减的时间常数，保证被降级的提供商在无流量时也能逐步恢复
+    private static final long ERROR_DECAY_MILLIS = 60_000;
+
+    private final double alpha;
+    private final ProviderLatencyWindow latencyWindow = new ProviderLatencyWindow();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong totalCalls = new AtomicLong();
+    private final AtomicLong failedCalls = new AtomicLong();
+    private final AtomicLong promptTokens = new AtomicLong();
+    private final AtomicLong completionTokens = new AtomicLong();
+
+    private double ewmaLatencyMs = -1;
+    private double ewmaErrorRate;
+    private long lastUpdateMillis = System.currentTimeMillis();
+
+    public ProviderStats(double alpha) {
+        this.alpha = alpha;
+    }
+
+    public void onCallStarted() {
+        inFlight.incrementAndGet();
+    }
+
+    public void onCallSucceeded(long latencyMs) {
+        inFlight.decrementAndGet();
+        totalCalls.incrementAndGet();
+        latencyWindow.record(latencyMs);
+        update(latencyMs, 0.0);
+    }
+
+    public void onCallFailed(long latencyMs) {
+        inFlight.decrementAndGet();
+        totalCalls.incrementAndGet();
+        failedCalls.incrementAndGet();
+        update(latencyMs, 1.0);
+    }
+
+    /**
+     * 调用被主动取消（例如对冲落败），不计入成功或失败
+     */
+    public void onCallCancelled() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * 记录提供商返回的实际Token用量
+     */
+    public void onTokenUsage(int prompt, int completion) {
+        promptTokens.addAndGet(Math.max(prompt, 0));
+        completionTokens.addAndGet(Math.max(completion, 0));
+    }
+
+    private synchronized void update(long latencyMs, double error) {
+        ewmaLatencyMs = ewmaLatencyMs < 0 ? latencyMs : alpha * latencyMs + (1 - alpha) * ewmaLatencyMs;
+        ewmaErrorRate = alpha * error + (1 - alpha) * decayedErrorRate(System.currentTimeMillis());
+        lastUpdateMillis = System.currentTimeMillis();
+    }
+
+    private double decayedErrorRate(long now) {
+        long elapsed = Math.max(0, now - lastUpdateMillis);
+        return ewmaErrorRate * Math.exp(-(double) elapsed / ERROR_DECAY_MILLIS);
+    }
+
+    /**
+     * EWMA延迟（毫秒），尚无样本时返回-1
+     */
+    public synchronized double getEwmaLatencyMs() {
+        return ewmaLatencyMs;
+    }
+
+    /**
+     * 随时间衰减后的EWMA错误率
+     */
+    public synchronized double getErrorRate() {
+        return decayedErrorRate(System.currentTimeMillis());
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public ProviderLatencyWindow getLatencyWindow() {
+        return latencyWindow;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("ewmaLatencyMs", Math.round(getEwmaLatencyMs()));
+        map.put("errorRate", getErrorRate());
+        map.put("inFlight", getInFlight());
+        map.put("totalCalls", totalCalls.get());
+        map.put("failedCalls", failedCalls.get());
+        map.put("p95LatencyMs", latencyWindow.percentile(95));
+        map.put("promptTokens", promptTokens.get());
+        map.put("completionTokens", completionTokens.get());
+        return map;
+    }
+}
@@ -0,0 +1,18 @@
+package com.codenavigator.ai.provider;
+
+import com.codenavigator.ai.enums.AiProvider;
+import lombok.Getter;
+
+/**
+ * 提供商暂不可用（熔断打开或并发隔离已满），调用未实际发出，调用方应立即降级
+ */
+@Getter
+public class ProviderUnavailableException extends RuntimeException {
+
+    private final AiProvider provider;
+
+    public ProviderUnavailableException(AiProvider provider, String reason) {
+        super("Provider " + provider.getDisplayName() + " is unavailable: " + reason);
+        this.provider = provider;
+    }
+}
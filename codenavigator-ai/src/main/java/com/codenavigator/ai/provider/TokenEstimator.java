@@ -0,0 +1,55 @@
+package com.codenavigator.ai.provider;
+
+/**
+ * 本地Token数估算
+ * 不依赖具体模型的分词器：中日韩字符约1个Token，其余字符约4个字符1个Token
+ */
+public final class TokenEstimator {
+
+    // 每条对话消息的结构开销（role、分隔符等）
+    public static final int MESSAGE_OVERHEAD_TOKENS = 4;
+
+    private static final double CHARS_PER_TOKEN = 4.0;
+
+    private TokenEstimator() {
+    }
+
+    /**
+     * 估算文本的Token数
+     */
+    public static int estimate(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+
+        int cjkChars = 0;
+        int otherChars = 0;
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            if (isCjk(codePoint)) {
+                cjkChars++;
+            } else {
+                otherChars++;
+            }
+            i += Character.charCount(codePoint);
+        }
+        return cjkChars + (int) Math.ceil(otherChars / CHARS_PER_TOKEN);
+    }
+
+    /**
+     * 估算单条对话消息的Token数（含结构开销）
+     */
+    public static int estimateMessage(String content) {
+        return estimate(content) + MESSAGE_OVERHEAD_TOKENS;
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL
+                || (codePoint >= 0x3000 && codePoint <= 0x303F)
+                || (codePoint >= 0xFF00 && codePoint <= 0xFFEF);
+    }
+}
@@ -1,9 +1,11 @@
 package com.codenavigator.ai.service;
 
 import com.codenavigator.ai.enums.AiProvider;
+import com.codenavigator.ai.enums.RequestPriority;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 public interface AiModelService {
 
@@ -12,11 +14,31 @@ public interface AiModelService {
      */
     String sendMessage(String message);
 
+    /**
+     * 按指定优先级发送消息，提供商配额不足时后台请求让位于交互式请求
+     */
+    String sendMessage(String message, RequestPriority priority);
+
     /**
      * 使用指定提供商发送消息
      */
     String sendMessage(String message, AiProvider provider);
 
+    /**
+     * 流式发送消息，回复内容按增量回调onToken，返回完整回复
+     */
+    String streamMessage(String message, Consumer<String> onToken);
+
+    /**
+     * 使用指定提供商流式发送消息
+     */
+    String streamMessage(String message, AiProvider provider, Consumer<String> onToken);
+
+    /**
+     * 获取提供商的提示词Token预算，未配置时返回0
+     */
+    int getPromptTokenBudget(AiProvider provider);
+
     /**
      * 获取当前使用的AI提供商
      */
@@ -46,4 +68,9 @@ public interface AiModelService {
      * 测试提供商连接
      */
     boolean testProvider(AiProvider provider);
+
+    /**
+     * 获取对冲请求统计（对冲次数、对冲胜出次数等）
+     */
+    Map<String, Object> getHedgingStats();
 }
\ No newline at end of file
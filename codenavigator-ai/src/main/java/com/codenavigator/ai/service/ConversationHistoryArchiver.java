@@ -0,0 +1,178 @@
+package com.codenavigator.ai.service;
+
+import com.codenavigator.core.entity.ConversationMessage;
+import com.codenavigator.core.repository.ConversationMessageRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 对话历史归档
+ * 会话状态只在内存与Redis中保留最近的消息，被移出的早期消息先进入队列，
+ * 由后台任务按批写入conversation_messages表；只有请求完整对话记录时才从数据库读取
+ */
+@Slf4j
+@Service
+public class ConversationHistoryArchiver {
+
+    @Autowired(required = false)
+    private ConversationMessageRepository messageRepository;
+
+    @Value("${codenavigator.ai.history.batch-size:100}")
+    private int batchSize = 100;
+
+    @Value("${codenavigator.ai.history.flush-interval-ms:1000}")
+    private long flushIntervalMs = 1000;
+
+    @Value("${codenavigator.ai.history.queue-capacity:10000}")
+    private int queueCapacity = 10000;
+
+    private final LinkedBlockingQueue<ConversationMessage> queue = new LinkedBlockingQueue<>();
+    // 写入与读取互斥，避免读取时消息已出队但尚未提交
+    private final Object flushLock = new Object();
+
+    private ScheduledExecutorService flushExecutor;
+
+    private final AtomicLong queuedMessages = new AtomicLong();
+    private final AtomicLong archivedMessages = new AtomicLong();
+    private final AtomicLong droppedMessages = new AtomicLong();
+    private final AtomicLong failedMessages = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        if (messageRepository == null) {
+            log.info("Conversation message repository not available, older turns are kept only as summaries");
+            return;
+        }
+
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "CodeNavigator-History-Archiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flushExecutor.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (flushExecutor != null) {
+            flushExecutor.shutdown();
+            flush();
+        }
+    }
+
+    /**
+     * 将被移出内存窗口的消息加入归档队列，队列已满时丢弃（摘要中仍保留要点）
+     */
+    public void archive(String sessionId, List<String> messages) {
+        if (messageRepository == null || messages.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (String message : messages) {
+            if (queue.size() >= queueCapacity) {
+                droppedMessages.incrementAndGet();
+                log.warn("Conversation history archive queue full, dropping message for session: {}", sessionId);
+                continue;
+            }
+            queue.offer(new ConversationMessage(sessionId, ConversationMessage.MessageType.USER, message, now));
+            queuedMessages.incrementAndGet();
+        }
+    }
+
+    /**
+     * 按时间顺序加载会话已归档的消息，包括仍在队列中等待写入的部分
+     */
+    public List<String> loadArchived(String sessionId) {
+        if (messageRepository == null) {
+            return List.of();
+        }
+
+        synchronized (flushLock) {
+            List<String> messages = new ArrayList<>();
+            try {
+                messageRepository.findBySessionIdOrderByIdAsc(sessionId)
+                    .forEach(message -> messages.add(message.getContent()));
+            } catch (Exception e) {
+                log.warn("Error loading archived messages for session: {}", sessionId, e);
+            }
+            for (ConversationMessage pending : queue) {
+                if (sessionId.equals(pending.getSessionId())) {
+                    messages.add(pending.getContent());
+                }
+            }
+            return messages;
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", messageRepository != null);
+        stats.put("pending", queue.size());
+        stats.put("queued", queuedMessages.get());
+        stats.put("archived", archivedMessages.get());
+        stats.put("dropped", droppedMessages.get());
+        stats.put("failed", failedMessages.get());
+        stats.put("batches", batches.get());
+        return stats;
+    }
+
+    /**
+     * 将队列中的消息按批写入数据库；整批写入失败时按会话拆开重试，
+     * 只有仍然失败的会话的消息记入失败数后丢弃，不影响同批其他会话，也不阻塞后续归档
+     */
+    void flush() {
+        synchronized (flushLock) {
+            List<ConversationMessage> batch = new ArrayList<>(batchSize);
+            while (queue.drainTo(batch, batchSize) > 0) {
+                try {
+                    insert(batch);
+                } catch (Exception e) {
+                    log.warn("Failed to archive {} conversation messages as one batch, retrying per session: {}",
+                        batch.size(), e.getMessage());
+                    insertPerSession(batch);
+                }
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+    }
+
+    private void insertPerSession(List<ConversationMessage> batch) {
+        Map<String, List<ConversationMessage>> bySession = new LinkedHashMap<>();
+        for (ConversationMessage message : batch) {
+            bySession.computeIfAbsent(message.getSessionId(), id -> new ArrayList<>()).add(message);
+        }
+        bySession.forEach((sessionId, messages) -> {
+            try {
+                insert(messages);
+            } catch (Exception e) {
+                failedMessages.addAndGet(messages.size());
+                log.warn("Failed to archive {} conversation messages for session: {}", messages.size(), sessionId, e);
+            }
+        });
+    }
+
+    private void insert(List<ConversationMessage> messages) {
+        messageRepository.batchInsert(messages);
+        archivedMessages.addAndGet(messages.size());
+        batches.incrementAndGet();
+        log.debug("Archived {} conversation messages", messages.size());
+    }
+}
@@ -1,125 +1,470 @@
 package com.codenavigator.ai.service;
 
 import com.codenavigator.ai.model.ConversationState;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * 会话状态两级存储
+ * 本地为有界LRU近缓存（带TTL），Redis为权威存储；保存时先写本地，再由后台任务合并同一会话的多次更新后批量写入Redis，
+ * 写入后通过pub/sub通知其他节点丢弃本地副本。Redis不可用时退化为纯本地存储
+ */
 @Slf4j
 @Service
 public class ConversationStateManager {
 
     @Autowired(required = false)
     private RedisTemplate<String, Object> redisTemplate;
-    
-    // 作为Redis的备选方案，本地缓存
-    private final ConcurrentHashMap<String, ConversationState> localCache = new ConcurrentHashMap<>();
-    
+
+    @Autowired(required = false)
+    private ConversationHistoryArchiver historyArchiver;
+
+    @Value("${codenavigator.ai.state.local-cache-size:10000}")
+    private int localCacheSize = 10000;
+
+    @Value("${codenavigator.ai.state.local-ttl-seconds:300}")
+    private long localTtlSeconds = 300;
+
+    @Value("${codenavigator.ai.state.write-behind-delay-ms:200}")
+    private long writeBehindDelayMs = 200;
+
+    @Value("${codenavigator.ai.state.expiry-tick-ms:1000}")
+    private long expiryTickMs = 1000;
+
     private static final String STATE_KEY_PREFIX = "conversation:state:";
+    private static final String INVALIDATION_CHANNEL = "conversation:state:invalidate";
+    private static final String INVALIDATION_SEPARATOR = "|";
     private static final Duration STATE_EXPIRATION = Duration.ofHours(2);
-    
-    public ConversationState getState(String sessionId) {
-        log.debug("Getting conversation state for session: {}", sessionId);
-        
+
+    // 本节点标识，用于忽略自己发出的失效通知
+    private final String nodeId = UUID.randomUUID().toString();
+
+    // 本地近缓存按会话ID分段加锁，容量较小时只分一段以保持精确的LRU
+    private static final int MAX_SEGMENTS = 16;
+    private static final int MIN_SEGMENT_CAPACITY = 256;
+
+    // 首次访问时按配置的容量创建
+    private volatile Segment[] segments;
+
+    // 待写入Redis的会话，同一会话的多次保存只保留最新一次
+    private final ConcurrentHashMap<String, ConversationState> pendingWrites = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService writeBehindExecutor;
+    private ScheduledExecutorService expiryExecutor;
+    private RedisMessageListenerContainer listenerContainer;
+
+    private final AtomicLong localHits = new AtomicLong();
+    private final AtomicLong redisHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong savedStates = new AtomicLong();
+    private final AtomicLong flushedStates = new AtomicLong();
+    private final AtomicLong invalidationsReceived = new AtomicLong();
+    private final AtomicLong expiredSessions = new AtomicLong();
+
+    /**
+     * 本地近缓存的一段：按访问顺序淘汰的LRU，会话按过期时间挂在本段的时间轮上由后台线程整槽清理；
+     * 所有访问都在本段的锁内进行
+     */
+    private final class Segment {
+        private final int capacity;
+        private final SessionExpiryWheel expiryWheel = new SessionExpiryWheel(expiryTickMs, System.currentTimeMillis());
+        private final LinkedHashMap<String, LocalEntry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, LocalEntry> eldest) {
+                if (size() <= capacity) {
+                    return false;
+                }
+                expiryWheel.cancel(eldest.getValue().expiry);
+                return true;
+            }
+        };
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+        }
+
+        /**
+         * 时间轮回调，调用方已持有本段的锁
+         */
+        void onSessionExpired(SessionExpiryWheel.Entry expiry) {
+            LocalEntry entry = entries.get(expiry.getSessionId());
+            if (entry != null && entry.expiry == expiry) {
+                entries.remove(expiry.getSessionId());
+                expiredSessions.incrementAndGet();
+            }
+        }
+    }
+
+    private static class LocalEntry {
+        private final ConversationState state;
+        private final long cachedAt;
+        private final long expiresAt;
+        private final SessionExpiryWheel.Entry expiry;
+
+        LocalEntry(String sessionId, ConversationState state) {
+            this.state = state;
+            this.cachedAt = System.currentTimeMillis();
+            this.expiresAt = state.expiresAtEpochMilli();
+            this.expiry = new SessionExpiryWheel.Entry(sessionId);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        expiryExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "CodeNavigator-Session-Expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        expiryExecutor.scheduleAtFixedRate(this::clearExpiredStates, expiryTickMs, expiryTickMs, TimeUnit.MILLISECONDS);
+
+        if (redisTemplate == null) {
+            log.info("Redis not available, conversation states are kept in local cache only");
+            return;
+        }
+
+        writeBehindExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "CodeNavigator-State-WriteBehind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writeBehindExecutor.scheduleWithFixedDelay(this::flushPendingWrites,
+                writeBehindDelayMs, writeBehindDelayMs, TimeUnit.MILLISECONDS);
+
         try {
-            // 首先尝试从Redis获取（如果可用）
-            ConversationState state = null;
-            if (redisTemplate != null) {
-                String key = STATE_KEY_PREFIX + sessionId;
-                state = (ConversationState) redisTemplate.opsForValue().get(key);
-            }
-            
-            if (state != null) {
-                log.debug("Found state in Redis for session: {}", sessionId);
-                return state;
-            }
-            
-            // 如果Redis中没有，从本地缓存获取
-            state = localCache.get(sessionId);
-            if (state != null && !state.isExpired()) {
-                log.debug("Found state in local cache for session: {}", sessionId);
-                return state;
-            }
-            
-            // 清理过期的本地缓存
-            if (state != null && state.isExpired()) {
-                localCache.remove(sessionId);
-            }
-            
-            log.debug("No valid state found for session: {}", sessionId);
-            return null;
-            
+            listenerContainer = new RedisMessageListenerContainer();
+            listenerContainer.setConnectionFactory(redisTemplate.getConnectionFactory());
+            listenerContainer.addMessageListener(this::onInvalidation, new ChannelTopic(INVALIDATION_CHANNEL));
+            listenerContainer.afterPropertiesSet();
+            listenerContainer.start();
         } catch (Exception e) {
-            log.warn("Error getting state from Redis, using local cache for session: {}", sessionId, e);
-            ConversationState state = localCache.get(sessionId);
-            return (state != null && !state.isExpired()) ? state : null;
+            log.warn("Failed to subscribe to conversation state invalidations, relying on local TTL", e);
+            listenerContainer = null;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (expiryExecutor != null) {
+            expiryExecutor.shutdownNow();
+        }
+        if (writeBehindExecutor != null) {
+            writeBehindExecutor.shutdown();
+            // 退出前把尚未写入的状态刷到Redis，保证重启后会话可恢复
+            flushPendingWrites();
+        }
+        if (listenerContainer != null) {
+            try {
+                listenerContainer.destroy();
+            } catch (Exception e) {
+                log.warn("Error stopping conversation state listener", e);
+            }
         }
     }
-    
+
+    public ConversationState getState(String sessionId) {
+        log.debug("Getting conversation state for session: {}", sessionId);
+
+        ConversationState state = getLocal(sessionId);
+        if (state != null) {
+            localHits.incrementAndGet();
+            return state;
+        }
+
+        if (redisTemplate != null) {
+            try {
+                state = (ConversationState) redisTemplate.opsForValue().get(STATE_KEY_PREFIX + sessionId);
+                if (state != null && !state.isExpired()) {
+                    log.debug("Found state in Redis for session: {}", sessionId);
+                    redisHits.incrementAndGet();
+                    putLocal(sessionId, state);
+                    return state;
+                }
+            } catch (Exception e) {
+                log.warn("Error getting state from Redis for session: {}", sessionId, e);
+            }
+        }
+
+        log.debug("No valid state found for session: {}", sessionId);
+        misses.incrementAndGet();
+        return null;
+    }
+
     public void saveState(ConversationState state) {
         log.debug("Saving conversation state for session: {}", state.getSessionId());
 
-        try {
-            // 临时禁用Redis，直接使用本地缓存
-            log.debug("Using local cache only for session: {}", state.getSessionId());
-
-            // 保存到本地缓存
-            localCache.put(state.getSessionId(), state);
+        // 移出内存窗口的早期消息交给归档任务异步写库
+        List<String> spilled = state.drainSpilledMessages();
+        if (!spilled.isEmpty() && historyArchiver != null) {
+            historyArchiver.archive(state.getSessionId(), spilled);
+        }
 
-        } catch (Exception e) {
-            log.warn("Error saving state to local cache for session: {}",
-                     state.getSessionId(), e);
-            throw new RuntimeException("Failed to save conversation state", e);
+        putLocal(state.getSessionId(), state);
+        savedStates.incrementAndGet();
+        if (redisTemplate != null) {
+            // 请求线程会继续修改state，后台序列化的是保存时的副本
+            pendingWrites.put(state.getSessionId(), state.snapshot());
         }
     }
-    
+
     public void deleteState(String sessionId) {
         log.debug("Deleting conversation state for session: {}", sessionId);
-        
-        try {
-            // 从Redis删除（如果可用）
-            if (redisTemplate != null) {
-                String key = STATE_KEY_PREFIX + sessionId;
-                redisTemplate.delete(key);
+
+        removeLocal(sessionId);
+        pendingWrites.remove(sessionId);
+
+        if (redisTemplate != null) {
+            try {
+                redisTemplate.delete(STATE_KEY_PREFIX + sessionId);
+                publishInvalidation(sessionId);
                 log.debug("State deleted from Redis for session: {}", sessionId);
+            } catch (Exception e) {
+                log.warn("Error deleting state from Redis for session: {}", sessionId, e);
             }
+        }
+    }
 
-        } catch (Exception e) {
-            log.warn("Error deleting state from Redis for session: {}", sessionId, e);
+    /**
+     * 获取完整对话记录：数据库中已归档的早期消息加上内存中的最近消息
+     */
+    public List<String> getFullTranscript(String sessionId) {
+        ConversationState state = getState(sessionId);
+        List<String> transcript = new ArrayList<>();
+        if (historyArchiver != null && (state == null || state.getArchivedCount() != null)) {
+            transcript.addAll(historyArchiver.loadArchived(sessionId));
+        }
+        if (state != null) {
+            transcript.addAll(state.getMessageHistory());
         }
-        
-        // 从本地缓存删除
-        localCache.remove(sessionId);
+        return transcript;
     }
-    
+
+    /**
+     * 推进时间轮并移除到期的本地会话，由后台线程按tick调用
+     */
     public void clearExpiredStates() {
-        log.debug("Clearing expired conversation states");
-        
-        // 清理本地缓存中的过期状态
-        localCache.entrySet().removeIf(entry -> entry.getValue().isExpired());
-        
-        log.debug("Expired states cleared from local cache");
-    }
-    
+        long before = expiredSessions.get();
+        long now = System.currentTimeMillis();
+        // 逐段推进，每次只持有一段的锁
+        for (Segment segment : segments()) {
+            synchronized (segment) {
+                segment.expiryWheel.advance(now, segment::onSessionExpired);
+            }
+        }
+
+        long cleared = expiredSessions.get() - before;
+        if (cleared > 0) {
+            log.debug("Cleared {} expired conversation states from local cache", cleared);
+        }
+    }
+
     public int getActiveSessionCount() {
-        // 统计活跃会话数量
-        return (int) localCache.values().stream()
-            .filter(state -> !state.isExpired())
-            .count();
+        // 统计本节点活跃会话数量，时间轮维护计数，无需遍历
+        int count = 0;
+        for (Segment segment : segments()) {
+            synchronized (segment) {
+                count += segment.expiryWheel.size();
+            }
+        }
+        return count;
     }
-    
+
     public void updateStateContext(String sessionId, String key, Object value) {
         ConversationState state = getState(sessionId);
         if (state != null) {
             if (state.getContext() == null) {
-                state.setContext(new java.util.HashMap<>());
+                state.setContext(new HashMap<>());
             }
             state.getContext().put(key, value);
             saveState(state);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 获取两级缓存统计
+     */
+    public Map<String, Object> getCacheStats() {
+        Map<String, Object> stats = new HashMap<>();
+        int localSize = 0;
+        for (Segment segment : segments()) {
+            synchronized (segment) {
+                localSize += segment.entries.size();
+            }
+        }
+        stats.put("localSize", localSize);
+        stats.put("localCapacity", localCacheSize);
+        stats.put("localSegments", segments().length);
+        stats.put("localHits", localHits.get());
+        stats.put("redisHits", redisHits.get());
+        stats.put("misses", misses.get());
+        stats.put("savedStates", savedStates.get());
+        stats.put("flushedStates", flushedStates.get());
+        stats.put("pendingWrites", pendingWrites.size());
+        stats.put("invalidationsReceived", invalidationsReceived.get());
+        stats.put("expiredSessions", expiredSessions.get());
+        stats.put("redisEnabled", redisTemplate != null);
+        return stats;
+    }
+
+    /**
+     * 将合并后的待写状态通过管道批量写入Redis，并通知其他节点失效
+     */
+    void flushPendingWrites() {
+        if (pendingWrites.isEmpty()) {
+            return;
+        }
+
+        List<ConversationState> batch = new ArrayList<>(pendingWrites.size());
+        Iterator<Map.Entry<String, ConversationState>> iterator = pendingWrites.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, ConversationState> entry = iterator.next();
+            // 只有条目未被再次更新时才移除，期间的新保存会留到下一轮
+            if (pendingWrites.remove(entry.getKey(), entry.getValue())) {
+                batch.add(entry.getValue());
+            }
+        }
+
+        try {
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                    RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                    for (ConversationState state : batch) {
+                        ops.opsForValue().set(STATE_KEY_PREFIX + state.getSessionId(), state, STATE_EXPIRATION);
+                        ops.convertAndSend(INVALIDATION_CHANNEL, invalidationPayload(state.getSessionId()));
+                    }
+                    return null;
+                }
+            });
+            flushedStates.addAndGet(batch.size());
+            log.debug("Flushed {} conversation states to Redis", batch.size());
+        } catch (Exception e) {
+            log.warn("Failed to flush {} conversation states to Redis, will retry", batch.size(), e);
+            // 放回待写队列，已有更新的会话保留更新的版本
+            for (ConversationState state : batch) {
+                pendingWrites.putIfAbsent(state.getSessionId(), state);
+            }
+        }
+    }
+
+    private void onInvalidation(Message message, byte[] pattern) {
+        Object payload = redisTemplate.getValueSerializer().deserialize(message.getBody());
+        if (!(payload instanceof String text)) {
+            return;
+        }
+        int separator = text.indexOf(INVALIDATION_SEPARATOR);
+        if (separator < 0 || text.substring(0, separator).equals(nodeId)) {
+            return;
+        }
+
+        String sessionId = text.substring(separator + 1);
+        // 本节点还有未写出的更新时保留本地版本，由写入覆盖远端
+        if (!pendingWrites.containsKey(sessionId)) {
+            removeLocal(sessionId);
+        }
+        invalidationsReceived.incrementAndGet();
+    }
+
+    private void publishInvalidation(String sessionId) {
+        redisTemplate.convertAndSend(INVALIDATION_CHANNEL, invalidationPayload(sessionId));
+    }
+
+    private String invalidationPayload(String sessionId) {
+        return nodeId + INVALIDATION_SEPARATOR + sessionId;
+    }
+
+    private ConversationState getLocal(String sessionId) {
+        Segment segment = segmentFor(sessionId);
+        synchronized (segment) {
+            LocalEntry entry = segment.entries.get(sessionId);
+            if (entry == null) {
+                return null;
+            }
+            long now = System.currentTimeMillis();
+            boolean stale = redisTemplate != null
+                    && now - entry.cachedAt > localTtlSeconds * 1000
+                    && !pendingWrites.containsKey(sessionId);
+            // 时间轮按tick清理，tick之间仍可能读到刚过期的条目
+            if (entry.expiresAt <= now || stale) {
+                segment.entries.remove(sessionId);
+                segment.expiryWheel.cancel(entry.expiry);
+                return null;
+            }
+            return entry.state;
+        }
+    }
+
+    private void putLocal(String sessionId, ConversationState state) {
+        LocalEntry entry = new LocalEntry(sessionId, state);
+        Segment segment = segmentFor(sessionId);
+        synchronized (segment) {
+            LocalEntry previous = segment.entries.put(sessionId, entry);
+            if (previous != null) {
+                segment.expiryWheel.cancel(previous.expiry);
+            }
+            segment.expiryWheel.schedule(entry.expiry, entry.expiresAt);
+        }
+    }
+
+    private void removeLocal(String sessionId) {
+        Segment segment = segmentFor(sessionId);
+        synchronized (segment) {
+            LocalEntry entry = segment.entries.remove(sessionId);
+            if (entry != null) {
+                segment.expiryWheel.cancel(entry.expiry);
+            }
+        }
+    }
+
+    private Segment segmentFor(String sessionId) {
+        Segment[] current = segments();
+        int hash = sessionId.hashCode();
+        hash ^= hash >>> 16;
+        return current[(hash & Integer.MAX_VALUE) % current.length];
+    }
+
+    private Segment[] segments() {
+        Segment[] current = segments;
+        if (current == null) {
+            synchronized (this) {
+                current = segments;
+                if (current == null) {
+                    int count = Math.max(1, Math.min(MAX_SEGMENTS, localCacheSize / MIN_SEGMENT_CAPACITY));
+                    int capacity = (localCacheSize + count - 1) / count;
+                    current = new Segment[count];
+                    for (int i = 0; i < count; i++) {
+                        current[i] = new Segment(capacity);
+                    }
+                    segments = current;
+                }
+            }
+        }
+        return current;
+    }
+}
@@ -0,0 +1,204 @@
+package com.codenavigator.ai.service;
+
+import java.util.function.Consumer;
+
+/**
+ * 会话过期分层时间轮
+ * 三层各64个槽，以tick为单位覆盖约2^18个tick（tick为1秒时约72小时），更远的截止时间先挂在最高层，
+ * 下沉时重新计算位置。条目以侵入式双向链表挂在槽上，调度与取消都是O(1)，推进时只处理到期的槽。
+ * 非线程安全，由调用方加锁
+ */
+class SessionExpiryWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 3;
+    private static final long MAX_SPAN_TICKS = 1L << (SLOT_BITS * LEVELS);
+
+    /**
+     * 时间轮条目，每个会话一个
+     */
+    static class Entry {
+        private final String sessionId;
+        private long deadlineTick;
+        private Entry prev;
+        private Entry next;
+        private Bucket bucket;
+
+        Entry(String sessionId) {
+            this.sessionId = sessionId;
+        }
+
+        String getSessionId() {
+            return sessionId;
+        }
+
+        boolean isScheduled() {
+            return bucket != null;
+        }
+    }
+
+    private static class Bucket {
+        private Entry head;
+        private int size;
+
+        void add(Entry entry) {
+            entry.bucket = this;
+            entry.prev = null;
+            entry.next = head;
+            if (head != null) {
+                head.prev = entry;
+            }
+            head = entry;
+            size++;
+        }
+
+        void remove(Entry entry) {
+            if (entry.prev != null) {
+                entry.prev.next = entry.next;
+            } else {
+                head = entry.next;
+            }
+            if (entry.next != null) {
+                entry.next.prev = entry.prev;
+            }
+            entry.prev = null;
+            entry.next = null;
+            entry.bucket = null;
+            size--;
+        }
+
+        /**
+         * 摘下整条链表，调用方逐个处理
+         */
+        Entry detachAll() {
+            Entry first = head;
+            for (Entry entry = head; entry != null; entry = entry.next) {
+                entry.bucket = null;
+            }
+            head = null;
+            size = 0;
+            return first;
+        }
+    }
+
+    private final long tickMs;
+    private final Bucket[][] levels = new Bucket[LEVELS][SLOTS];
+    // 调度时已经过期的条目，下一次推进时统一处理
+    private final Bucket overdue = new Bucket();
+    private long currentTick;
+    private int size;
+
+    SessionExpiryWheel(long tickMs, long nowMillis) {
+        this.tickMs = tickMs;
+        this.currentTick = nowMillis / tickMs;
+        for (Bucket[] level : levels) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                level[slot] = new Bucket();
+            }
+        }
+    }
+
+    /**
+     * 调度或重新调度条目，deadlineMillis为Long.MAX_VALUE表示永不过期
+     */
+    void schedule(Entry entry, long deadlineMillis) {
+        cancel(entry);
+        entry.deadlineTick = deadlineMillis == Long.MAX_VALUE
+                ? Long.MAX_VALUE
+                : Math.floorDiv(deadlineMillis + tickMs - 1, tickMs);
+        place(entry);
+        size++;
+    }
+
+    void cancel(Entry entry) {
+        if (entry.bucket != null) {
+            entry.bucket.remove(entry);
+            size--;
+        }
+    }
+
+    /**
+     * 推进到当前时间，依次回调所有到期条目
+     */
+    void advance(long nowMillis, Consumer<Entry> onExpired) {
+        long targetTick = nowMillis / tickMs;
+        expire(overdue, onExpired);
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade();
+            expire(levels[0][(int) (currentTick & SLOT_MASK)], onExpired);
+            expire(overdue, onExpired);
+        }
+    }
+
+    /**
+     * 尚未过期的条目数量
+     */
+    int size() {
+        return size - overdue.size;
+    }
+
+    private void place(Entry entry) {
+        long delta = entry.deadlineTick - currentTick;
+        if (delta <= 0) {
+            overdue.add(entry);
+            return;
+        }
+        // 超出覆盖范围的条目先挂在最高层的最远槽位，下沉时重新计算
+        long placementTick = delta < MAX_SPAN_TICKS ? entry.deadlineTick : currentTick + MAX_SPAN_TICKS - 1;
+        long placementDelta = placementTick - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && placementDelta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        int slot = (int) ((placementTick >> (SLOT_BITS * level)) & SLOT_MASK);
+        levels[level][slot].add(entry);
+    }
+
+    /**
+     * 低层转完一圈时，把上一层当前槽的条目下沉到更低的层
+     */
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) != 0) {
+                return;
+            }
+            int slot = (int) ((currentTick >> (SLOT_BITS * level)) & SLOT_MASK);
+            Bucket bucket = levels[level][slot];
+            int moved = bucket.size;
+            Entry entry = bucket.detachAll();
+            size -= moved;
+            while (entry != null) {
+                Entry next = entry.next;
+                entry.prev = null;
+                entry.next = null;
+                place(entry);
+                size++;
+                entry = next;
+            }
+        }
+    }
+
+    private void expire(Bucket bucket, Consumer<Entry> onExpired) {
+        if (bucket.head == null) {
+            return;
+        }
+        int detached = bucket.size;
+        Entry entry = bucket.detachAll();
+        size -= detached;
+        while (entry != null) {
+            Entry next = entry.next;
+            entry.prev = null;
+            entry.next = null;
+            if (entry.deadlineTick <= currentTick) {
+                onExpired.accept(entry);
+            } else {
+                place(entry);
+                size++;
+            }
+            entry = next;
+        }
+    }
+}
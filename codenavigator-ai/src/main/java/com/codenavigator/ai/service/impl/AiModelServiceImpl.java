@@ -2,18 +2,45 @@ package com.codenavigator.ai.service.impl;
 
 import com.codenavigator.ai.config.AiModelConfig;
 import com.codenavigator.ai.enums.AiProvider;
+import com.codenavigator.ai.enums.RequestPriority;
+import com.codenavigator.ai.provider.AbortableRequestFactory;
+import com.codenavigator.ai.provider.ChatCompletionResult;
+import com.codenavigator.ai.provider.ChatMessage;
+import com.codenavigator.ai.provider.OpenAiCompatibleClient;
+import com.codenavigator.ai.provider.ProviderCall;
+import com.codenavigator.ai.provider.ProviderHealth;
+import com.codenavigator.ai.provider.ProviderHealthProber;
+import com.codenavigator.ai.provider.ProviderCircuitBreaker;
+import com.codenavigator.ai.provider.ProviderLatencyWindow;
+import com.codenavigator.ai.provider.ProviderRateLimiter;
+import com.codenavigator.ai.provider.ProviderRouter;
+import com.codenavigator.ai.provider.ProviderStats;
+import com.codenavigator.ai.provider.ProviderUnavailableException;
+import com.codenavigator.ai.provider.TokenEstimator;
 import com.codenavigator.ai.service.AiModelService;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 @Slf4j
 @Service
@@ -21,17 +48,80 @@ import java.util.concurrent.atomic.AtomicReference;
 public class AiModelServiceImpl implements AiModelService {
 
     private final AiModelConfig aiModelConfig;
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final ProviderRouter providerRouter;
+    private final ProviderHealthProber providerHealthProber;
     private final AtomicReference<AiProvider> currentProvider = new AtomicReference<>();
 
+    // 各提供商独立的HTTP客户端，按提供商配置的timeout设置超时
+    private final Map<AiProvider, AbortableRequestFactory> requestFactories = new ConcurrentHashMap<>();
+    private final Map<AiProvider, OpenAiCompatibleClient> chatClients = new ConcurrentHashMap<>();
+
+    // 对冲调用线程池：对冲请求需要与主请求并行执行，线程数有上限，落败的一方通过中止HTTP请求取消
+    private ThreadPoolExecutor hedgeExecutor;
+
+    // 对冲统计
+    private final AtomicLong hedgeEligibleRequests = new AtomicLong();
+    private final AtomicLong hedgedRequests = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+
+    // 全部提供商状态快照，供频繁轮询的状态接口复用
+    private volatile Map<AiProvider, Map<String, Object>> statusSnapshot;
+    private volatile long statusSnapshotAt;
+
+    private static final long DEFAULT_RETRY_AFTER_MS = 1000;
+
     @Override
     public String sendMessage(String message) {
-        AiProvider provider = getCurrentProvider();
-        return sendMessage(message, provider);
+        return sendMessage(message, RequestPriority.INTERACTIVE);
+    }
+
+    @Override
+    public String sendMessage(String message, RequestPriority priority) {
+        List<AiProvider> ranked = routeProviders();
+
+        if (selectHedgeProvider(ranked) != null) {
+            return sendHedged(message, ranked, priority);
+        }
+        return sendWithFailover(message, ranked, priority, null);
+    }
+
+    /**
+     * 按路由顺序发送；提供商被熔断、并发已满或限流等待超时时（调用未实际发出）立即尝试下一个
+     */
+    private String sendWithFailover(String message, List<AiProvider> ranked, RequestPriority priority,
+                                    Consumer<String> onToken) {
+        ProviderUnavailableException lastUnavailable = null;
+        for (AiProvider provider : ranked) {
+            try {
+                return send(message, provider, priority, onToken);
+            } catch (ProviderUnavailableException e) {
+                log.warn(e.getMessage());
+                lastUnavailable = e;
+            }
+        }
+        throw lastUnavailable;
     }
 
     @Override
     public String sendMessage(String message, AiProvider provider) {
+        return send(message, provider, RequestPriority.INTERACTIVE, null);
+    }
+
+    @Override
+    public String streamMessage(String message, Consumer<String> onToken) {
+        // 已推送给调用方的增量无法撤回，流式请求只做调用发出前的故障转移，不做对冲
+        return sendWithFailover(message, routeProviders(), RequestPriority.INTERACTIVE, onToken);
+    }
+
+    @Override
+    public String streamMessage(String message, AiProvider provider, Consumer<String> onToken) {
+        return send(message, provider, RequestPriority.INTERACTIVE, onToken);
+    }
+
+    /**
+     * @param onToken 不为null时以stream模式调用并回调增量内容
+     */
+    private String send(String message, AiProvider provider, RequestPriority priority, Consumer<String> onToken) {
         log.info("Sending message to {} provider", provider.getDisplayName());
 
         AiModelConfig.ProviderConfig config = aiModelConfig.getProviderConfig(provider.getCode());
@@ -39,14 +129,135 @@ public class AiModelServiceImpl implements AiModelService {
             throw new IllegalStateException("Provider " + provider.getDisplayName() + " is not available");
         }
 
+        // 先做不排队的熔断与并发检查，熔断中的提供商不占用限流队列
+        AiModelConfig.ResilienceConfig resilience = aiModelConfig.getResilience();
+        ProviderCircuitBreaker breaker = providerRouter.circuitBreaker(provider, resilience);
+        if (!breaker.tryAcquirePermission()) {
+            throw new ProviderUnavailableException(provider, "circuit breaker is open");
+        }
+        Semaphore bulkhead = providerRouter.bulkhead(provider, resilience);
+        if (!tryAcquireBulkhead(bulkhead, resilience)) {
+            breaker.releasePermission();
+            throw new ProviderUnavailableException(provider, "too many concurrent calls");
+        }
+
+        ProviderRateLimiter rateLimiter = providerRouter.rateLimiter(provider, config);
+        int reservedTokens;
+        try {
+            reservedTokens = acquireRateLimit(rateLimiter, provider, message, config, priority);
+        } catch (RuntimeException e) {
+            bulkhead.release();
+            breaker.releasePermission();
+            throw e;
+        }
+
+        ProviderStats stats = providerRouter.stats(provider);
+        long startTime = System.currentTimeMillis();
+        stats.onCallStarted();
         try {
-            return callAiApi(message, provider, config);
+            ChatCompletionResult result = callAiApi(message, provider, config, onToken);
+            long duration = System.currentTimeMillis() - startTime;
+            stats.onCallSucceeded(duration);
+            breaker.onSuccess(duration);
+            rateLimiter.onSuccess();
+            if (result.hasUsage()) {
+                stats.onTokenUsage(result.promptTokens(), result.completionTokens());
+                rateLimiter.reconcile(reservedTokens, result.totalTokens());
+            } else {
+                // 响应未返回用量时按提示词和回复内容估算，归还预留的最大输出Token
+                rateLimiter.reconcile(reservedTokens,
+                        TokenEstimator.estimateMessage(message) + TokenEstimator.estimate(result.content()));
+            }
+            return result.content();
         } catch (Exception e) {
+            // 调用失败时不按预估量计费，预留的Token全部归还（须在429收缩令牌桶之前）
+            rateLimiter.reconcile(reservedTokens, 0);
+            ProviderCall call = ProviderCall.current();
+            if (call != null && call.isCancelled()) {
+                // 对冲落败被中止，不计入错误率
+                stats.onCallCancelled();
+                breaker.releasePermission();
+                throw new RuntimeException("Request to " + provider.getDisplayName() + " was cancelled", e);
+            }
+            long duration = System.currentTimeMillis() - startTime;
+            stats.onCallFailed(duration);
+            if (e instanceof HttpClientErrorException) {
+                // 4xx（含429）说明提供商正常响应，是请求或配额问题，不计入熔断失败率
+                breaker.releasePermission();
+            } else {
+                breaker.onError(duration);
+            }
+            if (e instanceof HttpClientErrorException.TooManyRequests tooManyRequests) {
+                long retryAfterMs = parseRetryAfter(tooManyRequests);
+                rateLimiter.onThrottled(retryAfterMs);
+                log.warn("{} returned 429, pausing for {}ms", provider.getDisplayName(), retryAfterMs);
+            }
             log.error("Error calling {} API", provider.getDisplayName(), e);
             throw new RuntimeException("Failed to get response from " + provider.getDisplayName(), e);
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    /**
+     * 按预估Token数（提示词 + 最大输出）申请限流配额，超过该优先级的最长等待时间则视为提供商不可用
+     *
+     * @return 预留的Token数，响应返回实际用量后据此多退少补
+     */
+    private int acquireRateLimit(ProviderRateLimiter rateLimiter, AiProvider provider, String message,
+                                  AiModelConfig.ProviderConfig config, RequestPriority priority) {
+        int estimatedTokens = TokenEstimator.estimateMessage(message)
+                + (config.getMaxTokens() != null ? config.getMaxTokens() : 0);
+        AiModelConfig.RateLimitConfig rateLimit = aiModelConfig.getRateLimit();
+        long maxWaitMs = rateLimit == null ? 0
+                : priority == RequestPriority.BACKGROUND ? rateLimit.getBackgroundMaxWaitMs()
+                : rateLimit.getInteractiveMaxWaitMs();
+        try {
+            if (!rateLimiter.acquire(estimatedTokens, priority, maxWaitMs)) {
+                throw new ProviderUnavailableException(provider, "rate limit wait exceeded");
+            }
+            return estimatedTokens;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Request to " + provider.getDisplayName() + " was cancelled", e);
+        }
+    }
+
+    /**
+     * 解析Retry-After响应头（秒），缺失或格式不正确时使用默认值
+     */
+    private long parseRetryAfter(HttpClientErrorException e) {
+        HttpHeaders headers = e.getResponseHeaders();
+        String retryAfter = headers != null ? headers.getFirst(HttpHeaders.RETRY_AFTER) : null;
+        if (retryAfter == null) {
+            return DEFAULT_RETRY_AFTER_MS;
+        }
+        try {
+            return (long) (Double.parseDouble(retryAfter.trim()) * 1000);
+        } catch (NumberFormatException ex) {
+            return DEFAULT_RETRY_AFTER_MS;
+        }
+    }
+
+    private boolean tryAcquireBulkhead(Semaphore bulkhead, AiModelConfig.ResilienceConfig resilience) {
+        long maxWaitMs = resilience != null && resilience.getMaxWaitMs() != null ? resilience.getMaxWaitMs() : 0;
+        if (maxWaitMs <= 0) {
+            return bulkhead.tryAcquire();
+        }
+        try {
+            return bulkhead.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
         }
     }
 
+    @Override
+    public int getPromptTokenBudget(AiProvider provider) {
+        AiModelConfig.ProviderConfig config = aiModelConfig.getProviderConfig(provider.getCode());
+        return config != null && config.getMaxPromptTokens() != null ? config.getMaxPromptTokens() : 0;
+    }
+
     @Override
     public AiProvider getCurrentProvider() {
         if (currentProvider.get() == null) {
@@ -94,121 +305,346 @@ public class AiModelServiceImpl implements AiModelService {
             status.put("hasApiKey", config.getApiKey() != null && !config.getApiKey().trim().isEmpty());
         }
 
+        status.put("routing", providerRouter.stats(provider).toMap());
+
+        AiModelConfig.ResilienceConfig resilience = aiModelConfig.getResilience();
+        Map<String, Object> breakerStatus = providerRouter.circuitBreaker(provider, resilience).toMap();
+        breakerStatus.put("availableConcurrentCalls", providerRouter.bulkhead(provider, resilience).availablePermits());
+        status.put("circuitBreaker", breakerStatus);
+        status.put("degraded", providerRouter.isDegraded(provider, aiModelConfig.getRouting()));
+        status.put("rateLimiter", providerRouter.rateLimiter(provider, config).toMap());
+        status.put("health", providerRouter.health(provider, aiModelConfig.getHealth()).toMap());
+
         return status;
     }
 
     @Override
     public Map<AiProvider, Map<String, Object>> getAllProviderStatus() {
+        AiModelConfig.HealthConfig health = aiModelConfig.getHealth();
+        long cacheMs = health != null && health.getStatusCacheMs() != null ? health.getStatusCacheMs() : 0;
+        Map<AiProvider, Map<String, Object>> snapshot = statusSnapshot;
+        if (snapshot != null && System.currentTimeMillis() - statusSnapshotAt < cacheMs) {
+            return snapshot;
+        }
+
         Map<AiProvider, Map<String, Object>> allStatus = new HashMap<>();
         for (AiProvider provider : AiProvider.values()) {
             allStatus.put(provider, getProviderStatus(provider));
         }
-        return allStatus;
+        statusSnapshot = Collections.unmodifiableMap(allStatus);
+        statusSnapshotAt = System.currentTimeMillis();
+        return statusSnapshot;
     }
 
     @Override
     public boolean testProvider(AiProvider provider) {
-        try {
-            log.info("Testing provider: {}", provider.getDisplayName());
-            String testResponse = sendMessage("Hello", provider);
-            return testResponse != null && !testResponse.trim().isEmpty();
-        } catch (Exception e) {
-            log.warn("Provider {} test failed", provider.getDisplayName(), e);
+        if (!isProviderAvailable(provider)) {
             return false;
         }
+        // 读取后台探测的缓存结果，记录过期时才发起一次低成本的 /models 探测；
+        // 返回最近一次探测的结果，而不是按连续失败阈值判定的健康状态
+        ProviderHealth health = providerHealthProber.getOrProbe(provider);
+        return health.isLastProbeSucceeded();
     }
 
-    private boolean isProviderAvailable(AiProvider provider) {
-        return aiModelConfig.isProviderEnabled(provider.getCode());
+    @Override
+    public Map<String, Object> getHedgingStats() {
+        AiModelConfig.HedgeConfig hedge = aiModelConfig.getHedge();
+        long eligible = hedgeEligibleRequests.get();
+        long hedged = hedgedRequests.get();
+        long wins = hedgeWins.get();
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", hedge != null && Boolean.TRUE.equals(hedge.getEnabled()));
+        stats.put("eligibleRequests", eligible);
+        stats.put("hedgedRequests", hedged);
+        stats.put("hedgeWins", wins);
+        stats.put("hedgeRate", eligible > 0 ? (double) hedged / eligible : 0.0);
+        stats.put("hedgeWinRate", hedged > 0 ? (double) wins / hedged : 0.0);
+
+        Map<String, Object> p95 = new HashMap<>();
+        for (AiProvider provider : getAvailableProviders()) {
+            p95.put(provider.getCode(), providerRouter.stats(provider).getLatencyWindow().percentile(95));
+        }
+        stats.put("p95LatencyMs", p95);
+        return stats;
     }
 
-    private String callAiApi(String message, AiProvider provider, AiModelConfig.ProviderConfig config) {
-        switch (provider) {
-            case OPENAI:
-                return callOpenAiApi(message, config);
-            case DEEPSEEK:
-                return callDeepSeekApi(message, config);
-            default:
-                throw new UnsupportedOperationException("Provider " + provider + " is not implemented yet");
+    @PreDestroy
+    public void shutdown() {
+        synchronized (this) {
+            if (hedgeExecutor != null) {
+                hedgeExecutor.shutdownNow();
+            }
         }
+        requestFactories.values().forEach(factory -> {
+            try {
+                factory.destroy();
+            } catch (Exception e) {
+                log.debug("Failed to close HTTP client: {}", e.getMessage());
+            }
+        });
     }
 
-    private String callOpenAiApi(String message, AiModelConfig.ProviderConfig config) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("Authorization", "Bearer " + config.getApiKey());
-        headers.set("Content-Type", "application/json");
-
-        Map<String, Object> requestBody = new HashMap<>();
-        requestBody.put("model", config.getModelName());
-        requestBody.put("temperature", config.getTemperature());
-        requestBody.put("max_tokens", config.getMaxTokens());
+    /**
+     * 按路由策略对可用提供商排序；没有可用提供商时返回当前提供商，由发送逻辑给出不可用错误
+     */
+    private List<AiProvider> routeProviders() {
+        List<AiProvider> candidates = getAvailableProviders();
+        if (candidates.isEmpty()) {
+            return List.of(getCurrentProvider());
+        }
+        return providerRouter.rank(candidates, getCurrentProvider(), aiModelConfig.getRouting());
+    }
 
-        List<Map<String, String>> messages = new ArrayList<>();
-        Map<String, String> userMessage = new HashMap<>();
-        userMessage.put("role", "user");
-        userMessage.put("content", message);
-        messages.add(userMessage);
-        requestBody.put("messages", messages);
+    /**
+     * 选择对冲备用提供商（路由排序中的第二位），未开启对冲或没有其他可用提供商时返回null
+     */
+    private AiProvider selectHedgeProvider(List<AiProvider> ranked) {
+        AiModelConfig.HedgeConfig hedge = aiModelConfig.getHedge();
+        if (hedge == null || !Boolean.TRUE.equals(hedge.getEnabled()) || ranked.size() < 2) {
+            return null;
+        }
+        return ranked.get(1);
+    }
 
-        HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
+    /**
+     * 计算对冲延迟：优先使用配置的固定延迟，否则使用主提供商滚动P95；样本不足时返回-1表示不对冲
+     */
+    private long resolveHedgeDelay(AiProvider primary, AiModelConfig.HedgeConfig hedge) {
+        long minDelay = hedge.getMinDelayMs() != null ? hedge.getMinDelayMs() : 0;
+        if (hedge.getDelayMs() != null) {
+            return Math.max(hedge.getDelayMs(), minDelay);
+        }
 
-        String url = config.getBaseUrl() + "/chat/completions";
-        @SuppressWarnings("rawtypes")
-        ResponseEntity<Map> response = restTemplate.exchange(url, HttpMethod.POST, request, Map.class);
+        ProviderLatencyWindow window = providerRouter.stats(primary).getLatencyWindow();
+        if (window.size() < hedge.getMinSamples()) {
+            return -1;
+        }
+        return Math.max(window.percentile(95), minDelay);
+    }
 
-        return extractResponseContent(response.getBody());
+    /**
+     * 按比例上限申请一次对冲额度
+     */
+    private boolean tryAcquireHedgeBudget(AiModelConfig.HedgeConfig hedge) {
+        double budget = hedgeEligibleRequests.get() * hedge.getMaxHedgeRatio();
+        long hedged;
+        do {
+            hedged = hedgedRequests.get();
+            if (hedged + 1 > budget) {
+                return false;
+            }
+        } while (!hedgedRequests.compareAndSet(hedged, hedged + 1));
+        return true;
     }
 
-    private String callDeepSeekApi(String message, AiModelConfig.ProviderConfig config) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("Authorization", "Bearer " + config.getApiKey());
-        headers.set("Content-Type", "application/json");
+    /**
+     * 对冲发送：主提供商在延迟阈值内未响应时，向备用提供商发送相同请求，取先成功者并取消另一个；
+     * 主提供商调用未发出（熔断、并发已满或限流等待超时）时与非对冲路径一样转移到后续提供商
+     */
+    private String sendHedged(String message, List<AiProvider> ranked, RequestPriority priority) {
+        AiProvider primary = ranked.get(0);
+        AiProvider secondary = ranked.get(1);
+        AiModelConfig.HedgeConfig hedge = aiModelConfig.getHedge();
+        long delayMs = resolveHedgeDelay(primary, hedge);
+        if (delayMs < 0) {
+            return sendWithFailover(message, ranked, priority, null);
+        }
+        hedgeEligibleRequests.incrementAndGet();
 
-        Map<String, Object> requestBody = new HashMap<>();
-        requestBody.put("model", config.getModelName());
-        requestBody.put("temperature", config.getTemperature());
-        requestBody.put("max_tokens", config.getMaxTokens());
+        CompletableFuture<String> primaryResult = new CompletableFuture<>();
+        ProviderCall primaryCall;
+        try {
+            primaryCall = submitCall(message, primary, priority, primaryResult);
+        } catch (RejectedExecutionException e) {
+            log.debug("Hedge pool is full, sending to {} without hedging", primary.getDisplayName());
+            return sendWithFailover(message, ranked, priority, null);
+        }
+        try {
+            return primaryResult.get(delayMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.debug("{} did not respond within {}ms", primary.getDisplayName(), delayMs);
+        } catch (ExecutionException e) {
+            RuntimeException cause = unwrap(e);
+            if (cause instanceof ProviderUnavailableException) {
+                log.warn(cause.getMessage());
+                return sendWithFailover(message, ranked.subList(1, ranked.size()), priority, null);
+            }
+            throw cause;
+        } catch (InterruptedException e) {
+            primaryCall.cancel();
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for " + primary.getDisplayName(), e);
+        }
 
-        List<Map<String, String>> messages = new ArrayList<>();
-        Map<String, String> userMessage = new HashMap<>();
-        userMessage.put("role", "user");
-        userMessage.put("content", message);
-        messages.add(userMessage);
-        requestBody.put("messages", messages);
+        if (!tryAcquireHedgeBudget(hedge)) {
+            return awaitPrimary(message, ranked, priority, primaryResult, primaryCall);
+        }
 
-        HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
+        log.info("Hedging request from {} to {} after {}ms",
+                primary.getDisplayName(), secondary.getDisplayName(), delayMs);
+        CompletableFuture<String> secondaryResult = new CompletableFuture<>();
+        ProviderCall secondaryCall;
+        try {
+            secondaryCall = submitCall(message, secondary, priority, secondaryResult);
+        } catch (RejectedExecutionException e) {
+            // 对冲请求未发出，归还申请到的额度
+            hedgedRequests.decrementAndGet();
+            log.debug("Hedge pool is full, waiting for {} only", primary.getDisplayName());
+            return awaitPrimary(message, ranked, priority, primaryResult, primaryCall);
+        }
 
-        String url = config.getBaseUrl() + "/chat/completions";
-        @SuppressWarnings("rawtypes")
-        ResponseEntity<Map> response = restTemplate.exchange(url, HttpMethod.POST, request, Map.class);
+        CompletableFuture<AiProvider> firstSuccess = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        primaryResult.whenComplete((response, error) -> onHedgeLegComplete(firstSuccess, failures, primary, error));
+        secondaryResult.whenComplete((response, error) -> onHedgeLegComplete(firstSuccess, failures, secondary, error));
 
-        return extractResponseContent(response.getBody());
+        try {
+            AiProvider winner = awaitResult(firstSuccess, null, primary);
+            if (winner == secondary) {
+                hedgeWins.incrementAndGet();
+                return secondaryResult.join();
+            }
+            return primaryResult.join();
+        } catch (ProviderUnavailableException e) {
+            // 两路都未发出调用时，继续尝试路由中排在后面的提供商
+            if (ranked.size() <= 2) {
+                throw e;
+            }
+            log.warn(e.getMessage());
+            return sendWithFailover(message, ranked.subList(2, ranked.size()), priority, null);
+        } finally {
+            // 中止仍在进行中的一方（已完成的调用取消无副作用）
+            primaryCall.cancel();
+            secondaryCall.cancel();
+        }
     }
 
-    @SuppressWarnings("unchecked")
-    private String extractResponseContent(Map<String, Object> responseBody) {
-        if (responseBody == null) {
-            throw new RuntimeException("Empty response from AI service");
+    /**
+     * 无法对冲时只等待主提供商；主提供商调用未发出时转移到后续提供商
+     */
+    private String awaitPrimary(String message, List<AiProvider> ranked, RequestPriority priority,
+                                CompletableFuture<String> primaryResult, ProviderCall primaryCall) {
+        try {
+            return awaitResult(primaryResult, primaryCall, ranked.get(0));
+        } catch (ProviderUnavailableException e) {
+            log.warn(e.getMessage());
+            return sendWithFailover(message, ranked.subList(1, ranked.size()), priority, null);
         }
+    }
 
-        try {
-            List<Map<String, Object>> choices = (List<Map<String, Object>>) responseBody.get("choices");
-            if (choices == null || choices.isEmpty()) {
-                throw new RuntimeException("No choices in AI response");
+    private void onHedgeLegComplete(CompletableFuture<AiProvider> firstSuccess, AtomicInteger failures,
+                                    AiProvider provider, Throwable error) {
+        if (error == null) {
+            firstSuccess.complete(provider);
+        } else if (failures.incrementAndGet() == 2) {
+            firstSuccess.completeExceptionally(error);
+        }
+    }
+
+    /**
+     * 在对冲线程池中发送，返回可用于中止该调用的句柄
+     *
+     * @throws RejectedExecutionException 对冲线程已达上限
+     */
+    private ProviderCall submitCall(String message, AiProvider provider, RequestPriority priority,
+                                    CompletableFuture<String> result) {
+        ProviderCall call = new ProviderCall();
+        hedgeExecutor().execute(() -> {
+            try {
+                result.complete(call.run(() -> send(message, provider, priority, null)));
+            } catch (Exception e) {
+                result.completeExceptionally(e);
             }
+        });
+        return call;
+    }
 
-            Map<String, Object> firstChoice = choices.get(0);
-            Map<String, Object> message = (Map<String, Object>) firstChoice.get("message");
-            String content = (String) message.get("content");
+    private synchronized ThreadPoolExecutor hedgeExecutor() {
+        if (hedgeExecutor == null) {
+            Integer maxCalls = aiModelConfig.getHedge() != null ? aiModelConfig.getHedge().getMaxConcurrentCalls() : null;
+            hedgeExecutor = new ThreadPoolExecutor(0, maxCalls != null ? maxCalls : 32,
+                    60, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "CodeNavigator-AI-Hedge");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return hedgeExecutor;
+    }
 
-            if (content == null || content.trim().isEmpty()) {
-                throw new RuntimeException("Empty content in AI response");
+    private <T> T awaitResult(CompletableFuture<T> future, ProviderCall call, AiProvider provider) {
+        AiModelConfig.ProviderConfig config = aiModelConfig.getProviderConfig(provider.getCode());
+        long timeoutSeconds = config != null ? config.getTimeoutInSeconds() : 60;
+        try {
+            return future.get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            if (call != null) {
+                call.cancel();
+            }
+            throw new RuntimeException("Timed out waiting for " + provider.getDisplayName(), e);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            if (call != null) {
+                call.cancel();
             }
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for " + provider.getDisplayName(), e);
+        }
+    }
+
+    private RuntimeException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        return new RuntimeException(cause);
+    }
+
+    private boolean isProviderAvailable(AiProvider provider) {
+        return aiModelConfig.isProviderEnabled(provider.getCode());
+    }
+
+    /**
+     * 获取提供商的调用客户端，首次使用时按其timeout配置创建
+     */
+    private OpenAiCompatibleClient chatClient(AiProvider provider, AiModelConfig.ProviderConfig config) {
+        return chatClients.computeIfAbsent(provider, key -> {
+            AbortableRequestFactory factory = new AbortableRequestFactory(
+                    Duration.ofSeconds(config.getTimeoutInSeconds()), maxConnections(),
+                    AbortableRequestFactory.DEFAULT_CONNECTION_REQUEST_TIMEOUT);
+            requestFactories.put(key, factory);
+            return new OpenAiCompatibleClient(new RestTemplate(factory));
+        });
+    }
 
-            return content.trim();
-        } catch (ClassCastException | NullPointerException e) {
-            log.error("Error parsing AI response: {}", responseBody, e);
-            throw new RuntimeException("Invalid response format from AI service", e);
+    /**
+     * 连接池上限：并发隔离允许的调用数加上对冲线程数，保证放行的调用不会再排队等待连接
+     */
+    private int maxConnections() {
+        AiModelConfig.ResilienceConfig resilience = aiModelConfig.getResilience();
+        AiModelConfig.HedgeConfig hedge = aiModelConfig.getHedge();
+        int bulkhead = resilience != null && resilience.getMaxConcurrentCalls() != null
+                ? resilience.getMaxConcurrentCalls() : 20;
+        int hedgeCalls = hedge != null && hedge.getMaxConcurrentCalls() != null
+                ? hedge.getMaxConcurrentCalls() : 32;
+        return Math.max(bulkhead + hedgeCalls, AbortableRequestFactory.DEFAULT_MAX_CONNECTIONS);
+    }
+
+    private ChatCompletionResult callAiApi(String message, AiProvider provider, AiModelConfig.ProviderConfig config,
+                                           Consumer<String> onToken) {
+        switch (provider) {
+            case OPENAI:
+            case DEEPSEEK:
+                OpenAiCompatibleClient chatClient = chatClient(provider, config);
+                if (onToken != null) {
+                    return chatClient.stream(config, List.of(ChatMessage.user(message)), onToken);
+                }
+                return chatClient.complete(config, List.of(ChatMessage.user(message)));
+            default:
+                throw new UnsupportedOperationException("Provider " + provider + " is not implemented yet");
         }
     }
-}
\ No newline at end of file
+}
@@ -18,9 +18,11 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.*;
@@ -523,6 +525,72 @@ class ConversationEngineTest {
         assertThat(unclearResponse.getConfidence()).isLessThan(greetingResponse.getConfidence());
     }
 
+    // ========== 流式回复测试 ==========
+
+    @Test
+    @DisplayName("指定提供商流式调用失败且尚未推送片段 - 回退到默认路由")
+    void testStreaming_PreferredProviderFailsBeforeFirstToken_FallsBack() {
+        testState.setPhase(ConversationState.ConversationPhase.COMPLETED);
+        List<String> tokens = new ArrayList<>();
+        when(nlpProcessor.extractIntent(anyString(), any())).thenReturn("general_question");
+        when(nlpProcessor.extractEntities(anyString())).thenReturn(new HashMap<>());
+        when(aiModelService.streamMessage(anyString(), eq(AiProvider.OPENAI), any()))
+            .thenThrow(new RuntimeException("connection refused"));
+        when(aiModelService.streamMessage(anyString(), any())).thenAnswer(invocation -> {
+            Consumer<String> onToken = invocation.getArgument(1);
+            onToken.accept("默认回复");
+            return "默认回复";
+        });
+
+        ConversationResponse response = conversationEngine.processMessage(streamingRequest(), testState,
+            new ConversationEventListener() {
+                @Override
+                public void onToken(String token) {
+                    tokens.add(token);
+                }
+            });
+
+        assertThat(response.getType()).isEqualTo(ConversationResponse.ResponseType.TEXT_RESPONSE);
+        assertThat(response.getMessage()).isEqualTo("默认回复");
+        assertThat(tokens).containsExactly("默认回复");
+        verify(stateManager, never()).getState(anyString());
+    }
+
+    @Test
+    @DisplayName("指定提供商在推送片段后失败 - 不回退，本轮返回错误")
+    void testStreaming_PreferredProviderFailsMidStream_FailsTurn() {
+        testState.setPhase(ConversationState.ConversationPhase.COMPLETED);
+        List<String> tokens = new ArrayList<>();
+        when(nlpProcessor.extractIntent(anyString(), any())).thenReturn("general_question");
+        when(nlpProcessor.extractEntities(anyString())).thenReturn(new HashMap<>());
+        when(aiModelService.streamMessage(anyString(), eq(AiProvider.OPENAI), any())).thenAnswer(invocation -> {
+            Consumer<String> onToken = invocation.getArgument(2);
+            onToken.accept("部分");
+            throw new RuntimeException("stream reset");
+        });
+
+        ConversationResponse response = conversationEngine.processMessage(streamingRequest(), testState,
+            new ConversationEventListener() {
+                @Override
+                public void onToken(String token) {
+                    tokens.add(token);
+                }
+            });
+
+        assertThat(response.getType()).isEqualTo(ConversationResponse.ResponseType.ERROR_MESSAGE);
+        assertThat(tokens).containsExactly("部分");
+        verify(aiModelService, never()).streamMessage(anyString(), any());
+    }
+
+    private ConversationRequest streamingRequest() {
+        return ConversationRequest.builder()
+            .userId("1")
+            .sessionId(testState.getSessionId())
+            .message("讲讲Java的垃圾回收")
+            .preferredProvider(AiProvider.OPENAI.getCode())
+            .build();
+    }
+
     // ========== 集成场景测试 ==========
 
     @Test
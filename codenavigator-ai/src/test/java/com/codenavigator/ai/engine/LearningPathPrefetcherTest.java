@@ -0,0 +1,144 @@
+package com.codenavigator.ai.engine;
+
+import com.codenavigator.core.entity.LearningPath;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * LearningPathPrefetcher单元测试
+ * 测试预生成结果的取用、推送与失效
+ */
+@DisplayName("LearningPathPrefetcher单元测试")
+class LearningPathPrefetcherTest {
+
+    private final Executor directExecutor = Runnable::run;
+
+    @Test
+    @DisplayName("预生成完成 - 推送给监听方，下一轮直接取用且不重复生成")
+    void testPrefetch_PushedAndTaken() {
+        LearningPathPrefetcher prefetcher = new LearningPathPrefetcher();
+        LearningPath path = new LearningPath();
+        AtomicInteger generated = new AtomicInteger();
+        List<LearningPath> pushed = new ArrayList<>();
+        ConversationEventListener listener = new ConversationEventListener() {
+            @Override
+            public void onLearningPath(LearningPath learningPath) {
+                pushed.add(learningPath);
+            }
+        };
+
+        prefetcher.prefetch("session-1", "Spring|BEGINNER", directExecutor,
+            () -> { generated.incrementAndGet(); return path; }, listener);
+        prefetcher.prefetch("session-1", "Spring|BEGINNER", directExecutor,
+            () -> { generated.incrementAndGet(); return path; }, listener);
+        LearningPathPrefetcher.Prefetched prefetched = prefetcher.take("session-1", "Spring|BEGINNER");
+
+        assertThat(generated).hasValue(1);
+        assertThat(pushed).containsExactly(path);
+        assertThat(prefetched.learningPath()).isSameAs(path);
+        assertThat(prefetched.delivered()).isTrue();
+        assertThat(prefetcher.take("session-1", "Spring|BEGINNER")).isNull();
+        assertThat(prefetcher.getStats()).containsEntry("hits", 1L).containsEntry("pushed", 1L);
+    }
+
+    @Test
+    @DisplayName("仍在生成时取用 - 等待结果，且不再推送")
+    void testTake_WaitsForRunningGeneration() throws Exception {
+        LearningPathPrefetcher prefetcher = new LearningPathPrefetcher();
+        LearningPath path = new LearningPath();
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger pushes = new AtomicInteger();
+
+        prefetcher.prefetch("session-1", "Kafka|ADVANCED", runnable -> new Thread(runnable).start(), () -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return path;
+        }, new ConversationEventListener() {
+            @Override
+            public void onLearningPath(LearningPath learningPath) {
+                pushes.incrementAndGet();
+            }
+        });
+
+        CompletableFuture<LearningPathPrefetcher.Prefetched> taken =
+            CompletableFuture.supplyAsync(() -> prefetcher.take("session-1", "Kafka|ADVANCED"));
+        Thread.sleep(50);
+        release.countDown();
+
+        LearningPathPrefetcher.Prefetched prefetched = taken.get(5, TimeUnit.SECONDS);
+        assertThat(prefetched.learningPath()).isSameAs(path);
+        assertThat(prefetched.delivered()).isFalse();
+        assertThat(pushes).hasValue(0);
+    }
+
+    @Test
+    @DisplayName("参数变化或生成失败 - 视为未命中")
+    void testTake_KeyMismatchOrFailure_ReturnsNull() {
+        LearningPathPrefetcher prefetcher = new LearningPathPrefetcher();
+
+        prefetcher.prefetch("session-1", "Spring|BEGINNER", directExecutor,
+            LearningPath::new, ConversationEventListener.NONE);
+        prefetcher.prefetch("session-2", "Netty|INTERMEDIATE", directExecutor,
+            () -> { throw new IllegalStateException("boom"); }, ConversationEventListener.NONE);
+
+        assertThat(prefetcher.take("session-1", "Spring|ADVANCED")).isNull();
+        assertThat(prefetcher.take("session-2", "Netty|INTERMEDIATE")).isNull();
+        assertThat(prefetcher.getStats()).containsEntry("misses", 2L).containsEntry("failures", 1L);
+    }
+
+    @Test
+    @DisplayName("完成与取用并发 - 学习路径恰好交付一次")
+    void testCompletionRacesTake_DeliveredExactlyOnce() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        LearningPathPrefetcher prefetcher = new LearningPathPrefetcher();
+        for (int i = 0; i < 500; i++) {
+            String sessionId = "session-" + i;
+            AtomicInteger deliveries = new AtomicInteger();
+            CountDownLatch start = new CountDownLatch(1);
+            ConversationEventListener listener = new ConversationEventListener() {
+                @Override
+                public void onLearningPath(LearningPath learningPath) {
+                    deliveries.incrementAndGet();
+                }
+            };
+            prefetcher.prefetch(sessionId, "key", executor, () -> {
+                await(start);
+                return new LearningPath();
+            }, listener);
+
+            start.countDown();
+            LearningPathPrefetcher.Prefetched prefetched = prefetcher.take(sessionId, "key");
+            assertThat(prefetched).isNotNull();
+            if (!prefetched.delivered()) {
+                deliveries.incrementAndGet();
+            }
+            // 单线程执行器上排在生成任务之后的空任务完成时，完成回调（含推送）已执行完
+            executor.submit(() -> { }).get(5, TimeUnit.SECONDS);
+            assertThat(deliveries).hasValue(1);
+        }
+        executor.shutdown();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.codenavigator.ai.engine;
+
+import com.codenavigator.ai.model.ConversationState;
+import com.codenavigator.ai.provider.TokenEstimator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * PromptBudgeter单元测试
+ * 测试提示词按Token预算裁剪历史、生成摘要与截断当前消息
+ */
+@DisplayName("PromptBudgeter单元测试")
+class PromptBudgeterTest {
+
+    private final PromptBudgeter budgeter = new PromptBudgeter();
+
+    @Test
+    @DisplayName("预算充足 - 保留全部历史原文")
+    void testBuild_AmpleBudget_KeepsHistory() {
+        PromptBudgeter.BudgetedPrompt prompt = budgeter.build(parts(List.of("我想学习Spring", "我是初学者")), 3000);
+
+        assertThat(prompt.getPrompt())
+            .contains("用户: 我想学习Spring")
+            .contains("用户: 我是初学者")
+            .contains("当前用户消息: 推荐一本书");
+        assertThat(prompt.getHistoryIncluded()).isEqualTo(2);
+        assertThat(prompt.getHistoryDropped()).isZero();
+        assertThat(prompt.isSummarized()).isFalse();
+        assertThat(prompt.getPromptTokens()).isEqualTo(TokenEstimator.estimate(prompt.getPrompt()));
+    }
+
+    @Test
+    @DisplayName("预算不足 - 早期消息压缩为摘要且不超出预算")
+    void testBuild_TightBudget_SummarizesOlderTurns() {
+        List<String> history = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            history.add("第" + i + "个问题是关于Spring事务传播行为的详细说明。后面还有很多补充内容需要考虑");
+        }
+
+        PromptBudgeter.BudgetedPrompt prompt = budgeter.build(parts(history), 400);
+
+        assertThat(prompt.getHistoryIncluded()).isLessThan(10);
+        assertThat(prompt.getHistoryDropped()).isEqualTo(30 - prompt.getHistoryIncluded());
+        assertThat(prompt.isSummarized()).isTrue();
+        assertThat(prompt.getPrompt()).contains("此前对话摘要").doesNotContain("后面还有很多补充内容需要考虑；");
+        assertThat(prompt.getPromptTokens()).isLessThanOrEqualTo(400);
+    }
+
+    @Test
+    @DisplayName("当前消息超出预算 - 截断当前消息")
+    void testBuild_OversizedMessage_Truncated() {
+        PromptBudgeter.BudgetedPrompt prompt = budgeter.build(PromptBudgeter.PromptParts.builder()
+            .header("助手说明\n")
+            .currentMessage("很长的问题".repeat(200))
+            .build(), 100);
+
+        assertThat(prompt.isMessageTruncated()).isTrue();
+        assertThat(prompt.getPromptTokens()).isLessThanOrEqualTo(100);
+    }
+
+    @Test
+    @DisplayName("会话历史超过上限 - 早期消息压缩进摘要")
+    void testConversationState_HistoryBounded() {
+        ConversationState state = new ConversationState();
+        for (int i = 0; i < ConversationState.MAX_HISTORY_SIZE + 5; i++) {
+            state.addMessage("消息" + i + "。附加说明");
+        }
+
+        assertThat(state.getMessageHistory()).hasSize(ConversationState.MAX_HISTORY_SIZE);
+        assertThat(state.getMessageCount()).isEqualTo(ConversationState.MAX_HISTORY_SIZE + 5);
+        assertThat(state.getHistorySummary()).contains("消息0").contains("消息4").doesNotContain("附加说明");
+    }
+
+    private PromptBudgeter.PromptParts parts(List<String> history) {
+        return PromptBudgeter.PromptParts.builder()
+            .header("你是CodeNavigator的AI学习助手。\n会话阶段: TASK_EXECUTION\n")
+            .history(history)
+            .currentMessage("推荐一本书")
+            .footer("\n\n请给出回复。")
+            .build();
+    }
+}
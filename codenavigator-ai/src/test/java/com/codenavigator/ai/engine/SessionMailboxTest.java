@@ -0,0 +1,200 @@
+package com.codenavigator.ai.engine;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * SessionMailbox单元测试
+ * 测试同一会话串行、不同会话并行以及空闲信箱回收
+ */
+@DisplayName("SessionMailbox单元测试")
+class SessionMailboxTest {
+
+    private final SessionMailbox mailbox = new SessionMailbox(5_000);
+
+    @Test
+    @DisplayName("同一会话 - 任务不会并发执行")
+    void testSameSession_NeverConcurrent() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            int index = i;
+            futures.add(executor.submit(() -> mailbox.process("session-1", () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep(2);
+                order.add(index);
+                running.decrementAndGet();
+                return index;
+            })));
+        }
+        for (Future<Integer> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(maxRunning.get()).isEqualTo(1);
+        assertThat(order).hasSize(40);
+        assertThat(mailbox.getActiveMailboxCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("不同会话 - 任务并行执行")
+    void testDifferentSessions_RunInParallel() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch bothStarted = new CountDownLatch(2);
+
+        Future<Boolean> first = executor.submit(() -> mailbox.process("session-1", () -> await(bothStarted)));
+        Future<Boolean> second = executor.submit(() -> mailbox.process("session-2", () -> await(bothStarted)));
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(second.get(5, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("等待超时 - 抛出MailboxTimeoutException并回收信箱")
+    void testWaitTimeout_ThrowsAndReclaims() throws Exception {
+        SessionMailbox shortMailbox = new SessionMailbox(50);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Boolean> holder = executor.submit(() -> shortMailbox.process("session-1", () -> {
+            started.countDown();
+            try {
+                return release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }));
+        started.await();
+
+        assertThatThrownBy(() -> shortMailbox.process("session-1", () -> "late"))
+            .isInstanceOf(SessionMailbox.MailboxTimeoutException.class);
+
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+        assertThat(shortMailbox.getActiveMailboxCount()).isZero();
+        assertThat(shortMailbox.getStats().get("timedOut")).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("同一会话 - 等待中的任务按到达顺序执行")
+    void testSameSession_WaitersRunInArrivalOrder() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        Future<Boolean> holder = executor.submit(() -> mailbox.process("session-1", () -> {
+            started.countDown();
+            return hold(release);
+        }));
+        started.await();
+
+        List<Future<Boolean>> waiters = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            int index = i;
+            waiters.add(executor.submit(() -> mailbox.process("session-1", () -> order.add(index))));
+            sleep(30);
+        }
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+        for (Future<Boolean> waiter : waiters) {
+            waiter.get(5, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(order).containsExactly(0, 1, 2, 3, 4);
+    }
+
+    @Test
+    @DisplayName("等待被中断 - 抛出CancellationException而不是超时")
+    void testWaitInterrupted_ThrowsCancellation() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Boolean> holder = executor.submit(() -> mailbox.process("session-1", () -> {
+            started.countDown();
+            return hold(release);
+        }));
+        started.await();
+
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread waiter = new Thread(() -> {
+            try {
+                mailbox.process("session-1", () -> "late");
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        waiter.start();
+        sleep(50);
+        waiter.interrupt();
+        waiter.join(5_000);
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        assertThat(failure.get()).isInstanceOf(CancellationException.class);
+        assertThat(mailbox.getActiveMailboxCount()).isZero();
+        assertThat(mailbox.getStats().get("timedOut")).isEqualTo(0L);
+    }
+
+    @Test
+    @DisplayName("任务抛出异常 - 信箱仍被释放")
+    void testTaskFailure_ReleasesMailbox() {
+        assertThatThrownBy(() -> mailbox.process("session-1", () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(mailbox.process("session-1", () -> "ok")).isEqualTo("ok");
+        assertThat(mailbox.getActiveMailboxCount()).isZero();
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        latch.countDown();
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static boolean hold(CountDownLatch release) {
+        try {
+            return release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
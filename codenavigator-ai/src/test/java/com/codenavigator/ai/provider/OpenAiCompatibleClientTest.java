@@ -0,0 +1,159 @@
+package com.codenavigator.ai.provider;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * OpenAiCompatibleClient单元测试
+ * 测试请求体序列化与响应的流式解析
+ */
+@DisplayName("OpenAiCompatibleClient单元测试")
+class OpenAiCompatibleClientTest {
+
+    @Test
+    @DisplayName("解析响应 - 提取首个回复内容与Token用量")
+    void testParse_ExtractsContentAndUsage() throws IOException {
+        String json = """
+            {
+              "id": "chatcmpl-1",
+              "object": "chat.completion",
+              "choices": [
+                {"index": 0, "message": {"role": "assistant", "content": "  你好  "}, "finish_reason": "stop"},
+                {"index": 1, "message": {"role": "assistant", "content": "ignored"}}
+              ],
+              "usage": {"prompt_tokens": 12, "completion_tokens": 5, "total_tokens": 17,
+                        "prompt_tokens_details": {"cached_tokens": 0}}
+            }
+            """;
+
+        ChatCompletionResult result = OpenAiCompatibleClient.parse(stream(json));
+
+        assertThat(result.content()).isEqualTo("你好");
+        assertThat(result.promptTokens()).isEqualTo(12);
+        assertThat(result.completionTokens()).isEqualTo(5);
+        assertThat(result.totalTokens()).isEqualTo(17);
+        assertThat(result.hasUsage()).isTrue();
+    }
+
+    @Test
+    @DisplayName("解析响应 - 缺少usage时Token数为-1")
+    void testParse_WithoutUsage() throws IOException {
+        String json = "{\"choices\":[{\"message\":{\"content\":\"ok\"}}]}";
+
+        ChatCompletionResult result = OpenAiCompatibleClient.parse(stream(json));
+
+        assertThat(result.content()).isEqualTo("ok");
+        assertThat(result.hasUsage()).isFalse();
+    }
+
+    @Test
+    @DisplayName("解析响应 - choices为空时抛出异常")
+    void testParse_NoChoices_Throws() {
+        assertThatThrownBy(() -> OpenAiCompatibleClient.parse(stream("{\"choices\":[]}")))
+            .isInstanceOf(RuntimeException.class)
+            .hasMessage("No choices in AI response");
+    }
+
+    @Test
+    @DisplayName("解析响应 - 内容为空时抛出异常")
+    void testParse_EmptyContent_Throws() {
+        assertThatThrownBy(() -> OpenAiCompatibleClient.parse(
+                stream("{\"choices\":[{\"message\":{\"content\":null}}]}")))
+            .isInstanceOf(RuntimeException.class)
+            .hasMessage("Empty content in AI response");
+    }
+
+    @Test
+    @DisplayName("解析流式响应 - 逐块回调增量内容并拼接完整回复")
+    void testParseStream_CallsBackDeltas() throws IOException {
+        String sse = """
+            data: {"object":"chat.completion.chunk","choices":[{"index":0,"delta":{"role":"assistant"}}]}
+
+            data: {"object":"chat.completion.chunk","choices":[{"index":0,"delta":{"content":"你好，"}}]}
+
+            : keep-alive
+            data: {"object":"chat.completion.chunk","choices":[{"index":0,"delta":{"content":"世界"}}]}
+
+            data: {"choices":[],"usage":{"prompt_tokens":3,"completion_tokens":2,"total_tokens":5}}
+
+            data: [DONE]
+
+            """;
+        List<String> deltas = new ArrayList<>();
+
+        ChatCompletionResult result = OpenAiCompatibleClient.parseStream(stream(sse), deltas::add);
+
+        assertThat(deltas).containsExactly("你好，", "世界");
+        assertThat(result.content()).isEqualTo("你好，世界");
+        assertThat(result.totalTokens()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("解析流式响应 - 没有任何内容时抛出异常")
+    void testParseStream_NoContent_Throws() {
+        assertThatThrownBy(() -> OpenAiCompatibleClient.parseStream(stream("data: [DONE]\n\n"), delta -> { }))
+            .isInstanceOf(RuntimeException.class)
+            .hasMessage("Empty content in AI response");
+    }
+
+    @Test
+    @DisplayName("解析流式响应 - 未收到结束标记就断开时抛出异常，带finish_reason的分块视为已结束")
+    void testParseStream_TruncatedStream_Throws() throws IOException {
+        String truncated = """
+            data: {"choices":[{"index":0,"delta":{"content":"你好，"}}]}
+
+            """;
+        assertThatThrownBy(() -> OpenAiCompatibleClient.parseStream(stream(truncated), delta -> { }))
+            .isInstanceOf(RuntimeException.class)
+            .hasMessage("AI response stream ended before completion");
+
+        String finished = """
+            data: {"choices":[{"index":0,"delta":{"content":"你好，"},"finish_reason":null}]}
+
+            data: {"choices":[{"index":0,"delta":{},"finish_reason":"stop"}]}
+
+            """;
+        assertThat(OpenAiCompatibleClient.parseStream(stream(finished), delta -> { }).content()).isEqualTo("你好，");
+    }
+
+    @Test
+    @DisplayName("序列化请求 - 使用snake_case字段并忽略空值")
+    void testRequestSerialization() throws IOException {
+        ChatCompletionRequest request = new ChatCompletionRequest(
+            "gpt-4", null, 2000, List.of(ChatMessage.user("hi")));
+
+        String json = OpenAiCompatibleClient.OBJECT_MAPPER.writeValueAsString(request);
+
+        assertThat(json)
+            .contains("\"max_tokens\":2000")
+            .contains("\"messages\":[{\"role\":\"user\",\"content\":\"hi\"}]")
+            .doesNotContain("temperature")
+            .doesNotContain("stream");
+    }
+
+    @Test
+    @DisplayName("序列化流式请求 - 要求在最后一个分块中返回Token用量")
+    void testStreamingRequestSerialization() throws IOException {
+        ChatCompletionRequest request = ChatCompletionRequest.streaming(
+            "gpt-4", 0.7, 2000, List.of(ChatMessage.user("hi")));
+
+        String json = OpenAiCompatibleClient.OBJECT_MAPPER.writeValueAsString(request);
+
+        assertThat(json)
+            .contains("\"stream\":true")
+            .contains("\"stream_options\":{\"include_usage\":true}");
+    }
+
+    private ByteArrayInputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
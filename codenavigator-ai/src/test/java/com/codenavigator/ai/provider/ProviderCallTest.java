@@ -0,0 +1,63 @@
+package com.codenavigator.ai.provider;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * ProviderCall单元测试
+ * 测试取消时中止阻塞中的HTTP请求
+ */
+@DisplayName("ProviderCall单元测试")
+class ProviderCallTest {
+
+    @Test
+    @DisplayName("取消调用 - 中止阻塞在等待响应上的请求，调用线程立即返回")
+    void testCancel_AbortsBlockedRequest() throws Exception {
+        // 只接受连接、从不响应的服务端
+        try (ServerSocket server = new ServerSocket(0)) {
+            CompletableFuture<Socket> accepted = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return server.accept();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            RestTemplate restTemplate = new RestTemplate(new AbortableRequestFactory(Duration.ofSeconds(30)));
+            ProviderCall call = new ProviderCall();
+
+            CompletableFuture<String> result = CompletableFuture.supplyAsync(() -> call.run(() ->
+                    restTemplate.getForObject("http://localhost:" + server.getLocalPort() + "/models", String.class)));
+            accepted.get(5, TimeUnit.SECONDS);
+            Thread.sleep(100);
+            long start = System.currentTimeMillis();
+            call.cancel();
+
+            assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS)).hasRootCauseInstanceOf(Exception.class);
+            assertThat(System.currentTimeMillis() - start).isLessThan(5000);
+            assertThat(call.isCancelled()).isTrue();
+            accepted.join().close();
+        }
+    }
+
+    @Test
+    @DisplayName("调用已结束 - 取消没有副作用")
+    void testCancel_AfterFinished_NoEffect() {
+        ProviderCall call = new ProviderCall();
+
+        assertThat(call.run(() -> "done")).isEqualTo("done");
+        call.cancel();
+
+        assertThat(call.isCancelled()).isFalse();
+        assertThat(ProviderCall.current()).isNull();
+    }
+}
@@ -0,0 +1,108 @@
+package com.codenavigator.ai.provider;
+
+import com.codenavigator.ai.config.AiModelConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * ProviderCircuitBreaker单元测试
+ * 测试熔断器的打开、半开探测与关闭
+ */
+@DisplayName("ProviderCircuitBreaker单元测试")
+class ProviderCircuitBreakerTest {
+
+    private AiModelConfig.ResilienceConfig config;
+
+    @BeforeEach
+    void setUp() {
+        config = new AiModelConfig.ResilienceConfig();
+        config.setSlidingWindowSize(10);
+        config.setMinimumCalls(4);
+        config.setFailureRateThreshold(0.5);
+        config.setSlowCallRateThreshold(0.8);
+        config.setSlowCallDurationMs(1000L);
+        config.setOpenDurationMs(0L);
+        config.setHalfOpenPermittedCalls(2);
+    }
+
+    @Test
+    @DisplayName("失败率低于阈值 - 保持关闭")
+    void testLowFailureRate_StaysClosed() {
+        ProviderCircuitBreaker breaker = new ProviderCircuitBreaker(config);
+
+        breaker.onSuccess(100);
+        breaker.onSuccess(100);
+        breaker.onSuccess(100);
+        breaker.onError(100);
+
+        assertThat(breaker.getState()).isEqualTo(ProviderCircuitBreaker.State.CLOSED);
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+    }
+
+    @Test
+    @DisplayName("失败率达到阈值 - 熔断打开并拒绝调用")
+    void testHighFailureRate_OpensAndRejects() {
+        config.setOpenDurationMs(60_000L);
+        ProviderCircuitBreaker breaker = new ProviderCircuitBreaker(config);
+
+        breaker.onSuccess(100);
+        breaker.onSuccess(100);
+        breaker.onError(100);
+        breaker.onError(100);
+
+        assertThat(breaker.isOpen()).isTrue();
+        assertThat(breaker.tryAcquirePermission()).isFalse();
+    }
+
+    @Test
+    @DisplayName("慢调用率达到阈值 - 熔断打开")
+    void testHighSlowCallRate_Opens() {
+        config.setOpenDurationMs(60_000L);
+        ProviderCircuitBreaker breaker = new ProviderCircuitBreaker(config);
+
+        for (int i = 0; i < 4; i++) {
+            breaker.onSuccess(5000);
+        }
+
+        assertThat(breaker.isOpen()).isTrue();
+        assertThat(breaker.getSlowCallRate()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("半开探测成功 - 熔断关闭")
+    void testHalfOpenProbesSucceed_Closes() {
+        ProviderCircuitBreaker breaker = openBreaker();
+
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        assertThat(breaker.tryAcquirePermission()).isFalse();
+
+        breaker.onSuccess(100);
+        breaker.onSuccess(100);
+
+        assertThat(breaker.getState()).isEqualTo(ProviderCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    @DisplayName("半开探测失败 - 熔断重新打开")
+    void testHalfOpenProbeFails_Reopens() {
+        ProviderCircuitBreaker breaker = openBreaker();
+
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        config.setOpenDurationMs(60_000L);
+        breaker.onError(100);
+
+        assertThat(breaker.isOpen()).isTrue();
+    }
+
+    private ProviderCircuitBreaker openBreaker() {
+        ProviderCircuitBreaker breaker = new ProviderCircuitBreaker(config);
+        for (int i = 0; i < 4; i++) {
+            breaker.onError(100);
+        }
+        return breaker;
+    }
+}
@@ -0,0 +1,74 @@
+package com.codenavigator.ai.provider;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * ProviderHealth单元测试
+ * 测试探测成功率与健康判定
+ */
+@DisplayName("ProviderHealth单元测试")
+class ProviderHealthTest {
+
+    @Test
+    @DisplayName("尚未探测 - 视为健康且成功率为-1")
+    void testNoProbes_HealthyWithUnknownRatio() {
+        ProviderHealth health = new ProviderHealth(10, 3);
+
+        assertThat(health.isHealthy()).isTrue();
+        assertThat(health.getSuccessRatio()).isEqualTo(-1);
+        assertThat(health.getLastCheckedAt()).isZero();
+    }
+
+    @Test
+    @DisplayName("连续失败达到阈值 - 判定为不健康，成功一次后恢复")
+    void testConsecutiveFailures_UnhealthyThenRecovers() {
+        ProviderHealth health = new ProviderHealth(10, 3);
+
+        health.recordSuccess(120);
+        health.recordFailure(5000, "timeout");
+        health.recordFailure(5000, "timeout");
+        assertThat(health.isHealthy()).isTrue();
+
+        health.recordFailure(5000, "timeout");
+        assertThat(health.isHealthy()).isFalse();
+        assertThat(health.getSuccessRatio()).isEqualTo(0.25);
+        assertThat(health.toMap()).containsEntry("lastError", "timeout");
+
+        health.recordSuccess(80);
+        assertThat(health.isHealthy()).isTrue();
+        assertThat(health.toMap()).containsEntry("lastLatencyMs", 80L).doesNotContainKey("lastError");
+    }
+
+    @Test
+    @DisplayName("最近一次探测结果 - 不受连续失败阈值影响")
+    void testLastProbeSucceeded_ReflectsLatestProbe() {
+        ProviderHealth health = new ProviderHealth(10, 3);
+        assertThat(health.isLastProbeSucceeded()).isFalse();
+
+        health.recordSuccess(100);
+        health.recordFailure(5000, "timeout");
+        assertThat(health.isHealthy()).isTrue();
+        assertThat(health.isLastProbeSucceeded()).isFalse();
+
+        health.recordFailure(5000, "timeout");
+        health.recordFailure(5000, "timeout");
+        health.recordSuccess(100);
+        assertThat(health.isLastProbeSucceeded()).isTrue();
+        assertThat(health.toMap()).containsEntry("lastProbeSucceeded", true);
+    }
+
+    @Test
+    @DisplayName("超出窗口 - 只统计最近的探测")
+    void testSuccessRatio_RollingWindow() {
+        ProviderHealth health = new ProviderHealth(2, 3);
+
+        health.recordFailure(100, "error");
+        health.recordSuccess(100);
+        health.recordSuccess(100);
+
+        assertThat(health.getSuccessRatio()).isEqualTo(1.0);
+    }
+}
@@ -0,0 +1,57 @@
+package com.codenavigator.ai.provider;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * ProviderLatencyWindow单元测试
+ * 测试滚动窗口的分位数计算与容量淘汰
+ */
+@DisplayName("ProviderLatencyWindow单元测试")
+class ProviderLatencyWindowTest {
+
+    @Test
+    @DisplayName("无样本 - 分位数返回-1")
+    void testPercentile_NoSamples_ReturnsMinusOne() {
+        ProviderLatencyWindow window = new ProviderLatencyWindow(10);
+
+        assertThat(window.size()).isZero();
+        assertThat(window.percentile(95)).isEqualTo(-1);
+    }
+
+    @Test
+    @DisplayName("计算分位数 - 返回正确的P50与P95")
+    void testPercentile_ReturnsExpectedValues() {
+        ProviderLatencyWindow window = new ProviderLatencyWindow(100);
+        for (int i = 1; i <= 100; i++) {
+            window.record(i);
+        }
+
+        assertThat(window.percentile(50)).isEqualTo(50);
+        assertThat(window.percentile(95)).isEqualTo(95);
+        assertThat(window.percentile(100)).isEqualTo(100);
+    }
+
+    @Test
+    @DisplayName("超出容量 - 只保留最近的样本")
+    void testRecord_OverCapacity_KeepsLatestSamples() {
+        ProviderLatencyWindow window = new ProviderLatencyWindow(5);
+        for (int i = 1; i <= 10; i++) {
+            window.record(i * 100L);
+        }
+
+        assertThat(window.size()).isEqualTo(5);
+        assertThat(window.percentile(1)).isEqualTo(600);
+        assertThat(window.percentile(100)).isEqualTo(1000);
+    }
+
+    @Test
+    @DisplayName("非法容量 - 应抛出异常")
+    void testConstructor_InvalidCapacity_Throws() {
+        assertThatThrownBy(() -> new ProviderLatencyWindow(0))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
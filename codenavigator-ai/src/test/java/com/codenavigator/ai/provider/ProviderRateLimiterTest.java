@@ -0,0 +1,83 @@
+package com.codenavigator.ai.provider;
+
+import com.codenavigator.ai.enums.RequestPriority;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * ProviderRateLimiter单元测试
+ * 测试RPM/TPM配额、排队超时与429后的容量收缩
+ */
+@DisplayName("ProviderRateLimiter单元测试")
+class ProviderRateLimiterTest {
+
+    @Test
+    @DisplayName("未配置限额 - 始终立即放行")
+    void testAcquire_Unlimited_AlwaysGranted() throws InterruptedException {
+        ProviderRateLimiter limiter = new ProviderRateLimiter(null, null);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(limiter.acquire(10_000, RequestPriority.INTERACTIVE, 0)).isTrue();
+        }
+    }
+
+    @Test
+    @DisplayName("请求数配额耗尽 - 等待超时返回false")
+    void testAcquire_RequestQuotaExhausted_TimesOut() throws InterruptedException {
+        ProviderRateLimiter limiter = new ProviderRateLimiter(2, null);
+
+        assertThat(limiter.acquire(1, RequestPriority.INTERACTIVE, 0)).isTrue();
+        assertThat(limiter.acquire(1, RequestPriority.INTERACTIVE, 0)).isTrue();
+        assertThat(limiter.acquire(1, RequestPriority.BACKGROUND, 50)).isFalse();
+
+        Map<String, Object> stats = limiter.toMap();
+        assertThat(stats.get("acquired")).isEqualTo(2L);
+        assertThat(stats.get("timedOut")).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("Token配额不足 - 超出部分排队，超大请求按桶容量截断")
+    void testAcquire_TokenQuota() throws InterruptedException {
+        ProviderRateLimiter limiter = new ProviderRateLimiter(null, 1000);
+
+        assertThat(limiter.acquire(50_000, RequestPriority.INTERACTIVE, 0)).isTrue();
+        assertThat(limiter.acquire(500, RequestPriority.INTERACTIVE, 0)).isFalse();
+    }
+
+    @Test
+    @DisplayName("调用未发出或失败 - 归还预留的请求次数和Token")
+    void testReleaseAndReconcile_RefundReservation() throws InterruptedException {
+        ProviderRateLimiter limiter = new ProviderRateLimiter(1, 1000);
+
+        assertThat(limiter.acquire(800, RequestPriority.INTERACTIVE, 0)).isTrue();
+        assertThat(limiter.acquire(100, RequestPriority.INTERACTIVE, 0)).isFalse();
+
+        // 熔断拒绝，调用没有发出
+        limiter.release(800);
+        assertThat(limiter.acquire(800, RequestPriority.INTERACTIVE, 0)).isTrue();
+
+        // 调用已发出但失败，请求次数已消耗，Token全部归还
+        limiter.reconcile(800, 0);
+        assertThat((long) limiter.toMap().get("availableTokens")).isGreaterThanOrEqualTo(1000L);
+        assertThat(limiter.acquire(100, RequestPriority.INTERACTIVE, 0)).isFalse();
+    }
+
+    @Test
+    @DisplayName("收到429 - 暂停发送并收缩容量，成功调用后逐步恢复")
+    void testOnThrottled_ShrinksAndRecovers() throws InterruptedException {
+        ProviderRateLimiter limiter = new ProviderRateLimiter(600, null);
+
+        limiter.onThrottled(60_000);
+
+        assertThat(limiter.acquire(1, RequestPriority.INTERACTIVE, 20)).isFalse();
+        assertThat(limiter.toMap().get("capacityFactor")).isEqualTo(0.5);
+        assertThat(limiter.toMap().get("throttled")).isEqualTo(1L);
+
+        limiter.onSuccess();
+        assertThat((double) limiter.toMap().get("capacityFactor")).isGreaterThan(0.5);
+    }
+}
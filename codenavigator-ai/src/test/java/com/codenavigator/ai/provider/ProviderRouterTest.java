@@ -0,0 +1,97 @@
+package com.codenavigator.ai.provider;
+
+import com.codenavigator.ai.config.AiModelConfig;
+import com.codenavigator.ai.enums.AiProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * ProviderRouter单元测试
+ * 测试不同路由策略下的提供商排序
+ */
+@DisplayName("ProviderRouter单元测试")
+class ProviderRouterTest {
+
+    private static final List<AiProvider> CANDIDATES = List.of(AiProvider.OPENAI, AiProvider.DEEPSEEK);
+
+    private ProviderRouter router;
+    private AiModelConfig.RoutingConfig routing;
+
+    @BeforeEach
+    void setUp() {
+        router = new ProviderRouter();
+        routing = new AiModelConfig.RoutingConfig();
+    }
+
+    @Test
+    @DisplayName("固定策略 - 偏好提供商排在首位")
+    void testRank_FixedPolicy_PreferredFirst() {
+        routing.setPolicy("fixed");
+
+        List<AiProvider> ranked = router.rank(CANDIDATES, AiProvider.DEEPSEEK, routing);
+
+        assertThat(ranked).containsExactly(AiProvider.DEEPSEEK, AiProvider.OPENAI);
+    }
+
+    @Test
+    @DisplayName("最少进行中请求策略 - 选择进行中请求较少的提供商")
+    void testRank_LeastOutstanding_PrefersIdleProvider() {
+        routing.setPolicy("least-outstanding");
+        router.stats(AiProvider.OPENAI).onCallStarted();
+        router.stats(AiProvider.OPENAI).onCallStarted();
+
+        List<AiProvider> ranked = router.rank(CANDIDATES, AiProvider.OPENAI, routing);
+
+        assertThat(ranked.get(0)).isEqualTo(AiProvider.DEEPSEEK);
+    }
+
+    @Test
+    @DisplayName("最少进行中请求策略 - 同等条件下选择延迟更低的提供商")
+    void testRank_LeastOutstanding_TieBrokenByLatency() {
+        routing.setPolicy("least-outstanding");
+        recordSuccess(AiProvider.OPENAI, 3000);
+        recordSuccess(AiProvider.DEEPSEEK, 500);
+
+        List<AiProvider> ranked = router.rank(CANDIDATES, AiProvider.OPENAI, routing);
+
+        assertThat(ranked).containsExactly(AiProvider.DEEPSEEK, AiProvider.OPENAI);
+    }
+
+    @Test
+    @DisplayName("降级提供商 - 错误率过高时排在最后")
+    void testRank_DegradedProvider_RankedLast() {
+        routing.setPolicy("weighted");
+        for (int i = 0; i < 10; i++) {
+            router.stats(AiProvider.OPENAI).onCallStarted();
+            router.stats(AiProvider.OPENAI).onCallFailed(100);
+        }
+        recordSuccess(AiProvider.DEEPSEEK, 2000);
+
+        assertThat(router.isDegraded(AiProvider.OPENAI, routing)).isTrue();
+        assertThat(router.rank(CANDIDATES, AiProvider.OPENAI, routing).get(0)).isEqualTo(AiProvider.DEEPSEEK);
+    }
+
+    @Test
+    @DisplayName("健康探测失败 - 固定策略下也排在最后")
+    void testRank_UnhealthyProvider_RankedLast() {
+        routing.setPolicy("fixed");
+        ProviderHealth health = router.health(AiProvider.OPENAI, new AiModelConfig.HealthConfig());
+        for (int i = 0; i < 3; i++) {
+            health.recordFailure(100, "connection refused");
+        }
+
+        assertThat(router.isHealthy(AiProvider.OPENAI)).isFalse();
+        assertThat(router.rank(CANDIDATES, AiProvider.OPENAI, routing))
+            .containsExactly(AiProvider.DEEPSEEK, AiProvider.OPENAI);
+    }
+
+    private void recordSuccess(AiProvider provider, long latencyMs) {
+        router.stats(provider).onCallStarted();
+        router.stats(provider).onCallSucceeded(latencyMs);
+    }
+}
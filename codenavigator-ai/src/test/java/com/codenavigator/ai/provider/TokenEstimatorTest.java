@@ -0,0 +1,41 @@
+package com.codenavigator.ai.provider;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * TokenEstimator单元测试
+ */
+@DisplayName("TokenEstimator单元测试")
+class TokenEstimatorTest {
+
+    @Test
+    @DisplayName("空文本 - 返回0")
+    void testEstimate_Empty_ReturnsZero() {
+        assertThat(TokenEstimator.estimate(null)).isZero();
+        assertThat(TokenEstimator.estimate("")).isZero();
+    }
+
+    @Test
+    @DisplayName("英文文本 - 约4个字符1个Token")
+    void testEstimate_Latin() {
+        assertThat(TokenEstimator.estimate("abcdefgh")).isEqualTo(2);
+        assertThat(TokenEstimator.estimate("abcde")).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("中文文本 - 每个汉字1个Token")
+    void testEstimate_Chinese() {
+        assertThat(TokenEstimator.estimate("学习路径")).isEqualTo(4);
+        assertThat(TokenEstimator.estimate("学习Java")).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("对话消息 - 包含结构开销")
+    void testEstimateMessage_IncludesOverhead() {
+        assertThat(TokenEstimator.estimateMessage("abcd"))
+            .isEqualTo(1 + TokenEstimator.MESSAGE_OVERHEAD_TOKENS);
+    }
+}
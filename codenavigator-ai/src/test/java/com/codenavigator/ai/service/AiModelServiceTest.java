@@ -2,12 +2,15 @@ package com.codenavigator.ai.service;
 
 import com.codenavigator.ai.config.AiModelConfig;
 import com.codenavigator.ai.enums.AiProvider;
+import com.codenavigator.ai.provider.ProviderHealthProber;
+import com.codenavigator.ai.provider.ProviderRouter;
 import com.codenavigator.ai.service.impl.AiModelServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.HashMap;
@@ -23,6 +26,12 @@ class AiModelServiceTest {
     @Mock
     private AiModelConfig aiModelConfig;
 
+    @Spy
+    private ProviderRouter providerRouter = new ProviderRouter();
+
+    @Mock
+    private ProviderHealthProber providerHealthProber;
+
     @InjectMocks
     private AiModelServiceImpl aiModelService;
 
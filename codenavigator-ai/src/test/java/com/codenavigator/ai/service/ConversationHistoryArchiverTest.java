@@ -0,0 +1,177 @@
+package com.codenavigator.ai.service;
+
+import com.codenavigator.ai.model.ConversationState;
+import com.codenavigator.core.entity.ConversationMessage;
+import com.codenavigator.core.repository.ConversationMessageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * ConversationHistoryArchiver单元测试
+ * 测试早期消息的批量归档与完整对话记录的按需加载
+ */
+@DisplayName("ConversationHistoryArchiver单元测试")
+class ConversationHistoryArchiverTest {
+
+    private ConversationMessageRepository messageRepository;
+    private ConversationHistoryArchiver archiver;
+    private ConversationStateManager stateManager;
+
+    @BeforeEach
+    void setUp() {
+        messageRepository = mock(ConversationMessageRepository.class);
+        archiver = new ConversationHistoryArchiver();
+        ReflectionTestUtils.setField(archiver, "messageRepository", messageRepository);
+        ReflectionTestUtils.setField(archiver, "batchSize", 10);
+
+        stateManager = new ConversationStateManager();
+        ReflectionTestUtils.setField(stateManager, "historyArchiver", archiver);
+    }
+
+    @Test
+    @DisplayName("会话历史使用环形缓冲 - 内存中只保留固定条数")
+    void testRingBuffer_KeepsFixedWindow() {
+        // Given
+        ConversationState state = createState("session-1");
+
+        // When
+        for (int i = 0; i < ConversationState.MAX_HISTORY_SIZE + 7; i++) {
+            state.addMessage("消息" + i);
+        }
+
+        // Then
+        assertThat(state.getMessageHistory()).hasSize(ConversationState.MAX_HISTORY_SIZE);
+        assertThat(state.getMessageHistory().get(0)).isEqualTo("消息7");
+        assertThat(state.getRecentMessages(2)).containsExactly(
+            "消息" + (ConversationState.MAX_HISTORY_SIZE + 5), "消息" + (ConversationState.MAX_HISTORY_SIZE + 6));
+        assertThat(state.getArchivedCount()).isEqualTo(7);
+        assertThat(state.drainSpilledMessages()).hasSize(7);
+        assertThat(state.drainSpilledMessages()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("保存状态 - 移出窗口的消息按批写入数据库")
+    @SuppressWarnings("unchecked")
+    void testSaveState_SpillsOlderTurnsInBatches() {
+        // Given
+        ConversationState state = createState("session-1");
+        for (int i = 0; i < ConversationState.MAX_HISTORY_SIZE + 25; i++) {
+            state.addMessage("消息" + i);
+        }
+
+        // When
+        stateManager.saveState(state);
+        archiver.flush();
+
+        // Then
+        ArgumentCaptor<List<ConversationMessage>> captor = ArgumentCaptor.forClass(List.class);
+        verify(messageRepository, times(3)).batchInsert(captor.capture());
+        assertThat(captor.getAllValues()).extracting(List::size).containsExactly(10, 10, 5);
+        assertThat(archiver.getStats().get("archived")).isEqualTo(25L);
+        assertThat(archiver.getStats().get("pending")).isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("完整对话记录 - 合并已归档、待写入与内存中的消息")
+    void testFullTranscript_MergesArchivedPendingAndRecent() {
+        // Given
+        when(messageRepository.findBySessionIdOrderByIdAsc("session-1")).thenReturn(List.of(
+            new ConversationMessage("session-1", ConversationMessage.MessageType.USER, "消息0", LocalDateTime.now())));
+        ConversationState state = createState("session-1");
+        for (int i = 0; i < ConversationState.MAX_HISTORY_SIZE + 2; i++) {
+            state.addMessage("消息" + i);
+        }
+        state.drainSpilledMessages();
+        archiver.archive("session-1", List.of("消息1"));
+        archiver.archive("session-2", List.of("其他会话"));
+        stateManager.saveState(state);
+
+        // When
+        List<String> transcript = stateManager.getFullTranscript("session-1");
+
+        // Then
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < ConversationState.MAX_HISTORY_SIZE + 2; i++) {
+            expected.add("消息" + i);
+        }
+        assertThat(transcript).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    @DisplayName("归档写入失败 - 记录失败数且不阻塞后续批次")
+    void testFlush_FailureCountedAndDropped() {
+        // Given
+        doThrow(new RuntimeException("DB down")).when(messageRepository).batchInsert(anyList());
+        archiver.archive("session-1", List.of("a", "b", "c"));
+
+        // When
+        archiver.flush();
+
+        // Then
+        assertThat(archiver.getStats().get("failed")).isEqualTo(3L);
+        assertThat(archiver.getStats().get("pending")).isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("归档写入失败 - 按会话隔离，只丢弃失败会话的消息")
+    @SuppressWarnings("unchecked")
+    void testFlush_FailureIsolatedPerSession() {
+        // Given
+        doAnswer(invocation -> {
+            List<ConversationMessage> messages = invocation.getArgument(0);
+            if (messages.stream().anyMatch(message -> "bad-session".equals(message.getSessionId()))) {
+                throw new RuntimeException("Data too long");
+            }
+            return messages.size();
+        }).when(messageRepository).batchInsert(anyList());
+        archiver.archive("session-1", List.of("a", "b"));
+        archiver.archive("bad-session", List.of("x"));
+        archiver.archive("session-2", List.of("c"));
+
+        // When
+        archiver.flush();
+
+        // Then
+        ArgumentCaptor<List<ConversationMessage>> captor = ArgumentCaptor.forClass(List.class);
+        verify(messageRepository, times(4)).batchInsert(captor.capture());
+        assertThat(captor.getAllValues()).extracting(List::size).containsExactly(4, 2, 1, 1);
+        assertThat(archiver.getStats().get("archived")).isEqualTo(3L);
+        assertThat(archiver.getStats().get("failed")).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("未配置数据库 - 不归档也不报错")
+    void testNoRepository_ArchivingDisabled() {
+        ConversationHistoryArchiver disabled = new ConversationHistoryArchiver();
+
+        disabled.archive("session-1", List.of("a"));
+
+        assertThat(disabled.loadArchived("session-1")).isEmpty();
+        assertThat(disabled.getStats().get("enabled")).isEqualTo(false);
+    }
+
+    private ConversationState createState(String sessionId) {
+        return ConversationState.builder()
+            .sessionId(sessionId)
+            .userId("user-1")
+            .phase(ConversationState.ConversationPhase.COMPLETED)
+            .messageCount(0)
+            .build();
+    }
+}
@@ -2,15 +2,27 @@ package com.codenavigator.ai.service;
 
 import com.codenavigator.ai.model.ConversationState;
 import com.codenavigator.common.enums.UserLevel;
+import com.codenavigator.core.serializer.CompactRedisSerializer;
+import com.codenavigator.core.serializer.SerializationMetrics;
+import com.codenavigator.core.serializer.TypeTable;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /**
  * ConversationStateManager单元测试
@@ -219,6 +231,19 @@ class ConversationStateManagerTest {
         assertThat(stateManager.getActiveSessionCount()).isEqualTo(2);
     }
 
+    @Test
+    @DisplayName("活跃会话数 - 已过期的会话在清理前也不计入")
+    void testGetActiveSessionCount_ExcludesExpiredBeforeClear() {
+        // Given
+        stateManager.saveState(createState("active-1", "1"));
+        stateManager.saveState(createExpiredState("expired-1", "2"));
+
+        // Then
+        assertThat(stateManager.getActiveSessionCount()).isEqualTo(1);
+        assertThat(stateManager.getState("expired-1")).isNull();
+        assertThat(stateManager.getCacheStats().get("localSize")).isEqualTo(1);
+    }
+
     // ========== 并发测试 ==========
 
     @Test
@@ -327,6 +352,134 @@ class ConversationStateManagerTest {
         assertThat(retrieved.getLearningGoal()).isEqualTo("Goal-4");
     }
 
+    // ========== 两级存储测试 ==========
+
+    @Test
+    @DisplayName("本地缓存有上限 - 超出容量时淘汰最久未访问的会话")
+    void testLocalCache_EvictsLeastRecentlyUsed() {
+        // Given
+        ReflectionTestUtils.setField(stateManager, "localCacheSize", 3);
+        stateManager.saveState(createState("session-1", "1"));
+        stateManager.saveState(createState("session-2", "2"));
+        stateManager.saveState(createState("session-3", "3"));
+        stateManager.getState("session-1");
+
+        // When
+        stateManager.saveState(createState("session-4", "4"));
+
+        // Then
+        assertThat(stateManager.getActiveSessionCount()).isEqualTo(3);
+        assertThat(stateManager.getState("session-1")).isNotNull();
+        assertThat(stateManager.getState("session-2")).isNull();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("延迟写入 - 同一会话的多次保存合并为一次Redis写入")
+    void testWriteBehind_CoalescesUpdates() {
+        // Given
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        ReflectionTestUtils.setField(stateManager, "redisTemplate", redisTemplate);
+        ConversationState state = createState("session-1", "1");
+
+        // When
+        stateManager.saveState(state);
+        state.setLearningGoal("Kafka");
+        stateManager.saveState(state);
+        stateManager.saveState(createState("session-2", "2"));
+        stateManager.flushPendingWrites();
+        stateManager.flushPendingWrites();
+
+        // Then
+        verify(redisTemplate, times(1)).executePipelined(any(SessionCallback.class));
+        Map<String, Object> stats = stateManager.getCacheStats();
+        assertThat(stats.get("savedStates")).isEqualTo(3L);
+        assertThat(stats.get("flushedStates")).isEqualTo(2L);
+        assertThat(stats.get("pendingWrites")).isEqualTo(0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("延迟写入 - 待写的是保存时的副本，之后的修改不影响后台序列化")
+    void testWriteBehind_EnqueuesSnapshot() {
+        // Given
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        ReflectionTestUtils.setField(stateManager, "redisTemplate", redisTemplate);
+        ConversationState state = createState("session-1", "1");
+        state.setContext(new HashMap<>(Map.of("topic", "Spring")));
+        state.addMessage("消息0");
+
+        // When
+        stateManager.saveState(state);
+        state.getContext().put("topic", "Kafka");
+        state.addMessage("消息1");
+
+        // Then
+        Map<String, ConversationState> pending =
+            (Map<String, ConversationState>) ReflectionTestUtils.getField(stateManager, "pendingWrites");
+        ConversationState queued = pending.get("session-1");
+        assertThat(queued).isNotSameAs(state);
+        assertThat(queued.getContext()).containsEntry("topic", "Spring");
+        assertThat(queued.getMessageHistory()).containsExactly("消息0");
+        assertThat(stateManager.getState("session-1")).isSameAs(state);
+    }
+
+    @Test
+    @DisplayName("本地缓存分段加锁 - 各段计数合计为全部会话")
+    void testLocalCache_StripedSegments() {
+        // When
+        for (int i = 0; i < 100; i++) {
+            stateManager.saveState(createState("session-" + i, String.valueOf(i)));
+        }
+
+        // Then
+        assertThat(stateManager.getCacheStats().get("localSegments")).isEqualTo(16);
+        assertThat(stateManager.getCacheStats().get("localSize")).isEqualTo(100);
+        assertThat(stateManager.getActiveSessionCount()).isEqualTo(100);
+        assertThat(stateManager.getState("session-42")).isNotNull();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("延迟写入失败 - 保留待写状态以便重试")
+    void testWriteBehind_FailureKeepsPendingWrites() {
+        // Given
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        when(redisTemplate.executePipelined(any(SessionCallback.class)))
+            .thenThrow(new RuntimeException("Redis unavailable"));
+        ReflectionTestUtils.setField(stateManager, "redisTemplate", redisTemplate);
+
+        // When
+        stateManager.saveState(createState("session-1", "1"));
+        stateManager.flushPendingWrites();
+
+        // Then
+        assertThat(stateManager.getCacheStats().get("pendingWrites")).isEqualTo(1);
+        assertThat(stateManager.getState("session-1")).isNotNull();
+    }
+
+    @Test
+    @DisplayName("紧凑序列化 - 会话状态往返后内容一致")
+    void testCompactSerialization_RoundTrip() {
+        // Given
+        CompactRedisSerializer serializer = new CompactRedisSerializer(
+            CompactRedisSerializer.createMapper(TypeTable.withDefaults().register("ConversationState", ConversationState.class)),
+            null, new SerializationMetrics().forCache("test"), true, 1024);
+        ConversationState state = createState("session-1", "1");
+        state.setContext(new HashMap<>(Map.of("topic", "Spring", "turns", 3)));
+        for (int i = 0; i < 60; i++) {
+            state.addMessage("第" + i + "条消息：Spring事务的传播行为");
+        }
+
+        // When
+        ConversationState restored = (ConversationState) serializer.deserialize(serializer.serialize(state));
+
+        // Then（lastInteraction按秒精度格式化）
+        assertThat(restored).usingRecursiveComparison().ignoringFields("lastInteraction", "spilledMessages").isEqualTo(state);
+        assertThat(restored.getLastInteraction()).isEqualTo(state.getLastInteraction().truncatedTo(ChronoUnit.SECONDS));
+        assertThat(restored.getMessageHistory()).hasSize(ConversationState.MAX_HISTORY_SIZE);
+    }
+
     // ========== 辅助方法 ==========
 
     private ConversationState createState(String sessionId, String userId) {
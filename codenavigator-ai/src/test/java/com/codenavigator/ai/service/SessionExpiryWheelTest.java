@@ -0,0 +1,82 @@
+package com.codenavigator.ai.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * SessionExpiryWheel单元测试
+ * 使用模拟时间验证各层时间轮的到期精度、重新调度与取消
+ */
+@DisplayName("SessionExpiryWheel单元测试")
+class SessionExpiryWheelTest {
+
+    private static final long TICK_MS = 1000;
+    private static final long START = 1_700_000_000_000L;
+
+    private final SessionExpiryWheel wheel = new SessionExpiryWheel(TICK_MS, START);
+    private final List<String> expired = new ArrayList<>();
+
+    @Test
+    @DisplayName("不同层级的截止时间 - 恰好在到期的tick被回调")
+    void testAdvance_ExpiresExactlyAtDeadlineAcrossLevels() {
+        // 分别落在第0、1、2层以及超出覆盖范围
+        long[] delaysSeconds = {5, 100, 5_000, 100_000, 300_000};
+        for (long delay : delaysSeconds) {
+            wheel.schedule(new SessionExpiryWheel.Entry("s" + delay), START + delay * TICK_MS);
+        }
+        assertThat(wheel.size()).isEqualTo(delaysSeconds.length);
+
+        for (long delay : delaysSeconds) {
+            advanceTo(START + (delay - 1) * TICK_MS);
+            assertThat(expired).doesNotContain("s" + delay);
+            advanceTo(START + delay * TICK_MS);
+            assertThat(expired).contains("s" + delay);
+        }
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("重新调度 - 按最新的截止时间过期")
+    void testSchedule_RescheduleMovesDeadline() {
+        SessionExpiryWheel.Entry entry = new SessionExpiryWheel.Entry("session-1");
+        wheel.schedule(entry, START + 10 * TICK_MS);
+        wheel.schedule(entry, START + 200 * TICK_MS);
+
+        advanceTo(START + 199 * TICK_MS);
+        assertThat(expired).isEmpty();
+        assertThat(wheel.size()).isEqualTo(1);
+
+        advanceTo(START + 200 * TICK_MS);
+        assertThat(expired).containsExactly("session-1");
+    }
+
+    @Test
+    @DisplayName("取消与已过期条目 - 计数立即更新")
+    void testCancelAndOverdue_UpdateSize() {
+        SessionExpiryWheel.Entry cancelled = new SessionExpiryWheel.Entry("cancelled");
+        wheel.schedule(cancelled, START + 30 * TICK_MS);
+        wheel.schedule(new SessionExpiryWheel.Entry("overdue"), START - TICK_MS);
+        wheel.schedule(new SessionExpiryWheel.Entry("forever"), Long.MAX_VALUE);
+
+        assertThat(wheel.size()).isEqualTo(2);
+        wheel.cancel(cancelled);
+        assertThat(cancelled.isScheduled()).isFalse();
+        assertThat(wheel.size()).isEqualTo(1);
+
+        advanceTo(START);
+        assertThat(expired).containsExactly("overdue");
+
+        advanceTo(START + 400_000 * TICK_MS);
+        assertThat(expired).containsExactly("overdue");
+        assertThat(wheel.size()).isEqualTo(1);
+    }
+
+    private void advanceTo(long nowMillis) {
+        wheel.advance(nowMillis, entry -> expired.add(entry.getSessionId()));
+    }
+}
@@ -0,0 +1,90 @@
+package com.codenavigator.core.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 固定容量的布隆过滤器，由两个64位哈希值按双重哈希导出k个位置
+ * 位数组按字原子更新，读写均无需加锁
+ */
+class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitSize;
+    private final int hashCount;
+    private final long capacity;
+    private final double fpp;
+    private final AtomicLong insertions = new AtomicLong();
+
+    /**
+     * @param capacity 预期插入数量，插入数不超过该值时误判率不超过fpp
+     */
+    BloomFilter(long capacity, double fpp) {
+        double ln2 = Math.log(2);
+        long bits = (long) Math.ceil(-capacity * Math.log(fpp) / (ln2 * ln2));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE, Math.max(1, (bits + 63) / 64));
+        this.words = new AtomicLongArray(wordCount);
+        this.bitSize = (long) wordCount * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitSize / capacity * ln2));
+        this.capacity = capacity;
+        this.fpp = fpp;
+    }
+
+    void put(long hash1, long hash2) {
+        for (int i = 0; i < hashCount; i++) {
+            long index = index(hash1, hash2, i);
+            long mask = 1L << index;
+            int word = (int) (index >>> 6);
+            long current = words.get(word);
+            while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+                current = words.get(word);
+            }
+        }
+        insertions.incrementAndGet();
+    }
+
+    boolean mightContain(long hash1, long hash2) {
+        for (int i = 0; i < hashCount; i++) {
+            long index = index(hash1, hash2, i);
+            if ((words.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    boolean isFull() {
+        return insertions.get() >= capacity;
+    }
+
+    /**
+     * 按当前插入数估计的误判率
+     */
+    double expectedFpp() {
+        return Math.pow(1 - Math.exp(-hashCount * (double) insertions.get() / bitSize), hashCount);
+    }
+
+    long getInsertions() {
+        return insertions.get();
+    }
+
+    long getCapacity() {
+        return capacity;
+    }
+
+    double getFpp() {
+        return fpp;
+    }
+
+    long getBitSize() {
+        return bitSize;
+    }
+
+    int getHashCount() {
+        return hashCount;
+    }
+
+    private long index(long hash1, long hash2, int i) {
+        return ((hash1 + i * hash2) & Long.MAX_VALUE) % bitSize;
+    }
+}
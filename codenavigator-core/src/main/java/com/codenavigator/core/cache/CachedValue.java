@@ -0,0 +1,25 @@
+package com.codenavigator.core.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 带加载元数据的缓存值，由CacheService.getOrLoad写入
+ * Redis中的实际过期时间比逻辑过期时间多出一段陈旧窗口，窗口内仍可返回旧值并在后台刷新
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CachedValue {
+
+    private Object value;
+    // 上次计算该值的耗时（毫秒），用于提前刷新的概率计算
+    private long computeMs;
+    // 逻辑过期时间（epoch毫秒）
+    private long expiresAt;
+
+    public boolean isExpired(long now) {
+        return now >= expiresAt;
+    }
+}
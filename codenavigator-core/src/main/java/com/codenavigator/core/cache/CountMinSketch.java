@@ -0,0 +1,85 @@
+package com.codenavigator.core.cache;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Count-Min Sketch：以固定内存估计键的出现次数
+ * 采用保守更新（只把计数提高到当前最小值加一），降低哈希冲突带来的高估。
+ * 计数器为原子数组，读写无需加锁；并发递增同一个键时可能少计个别次数，对热度估计没有影响
+ */
+class CountMinSketch {
+
+    private static final long[] SEEDS = {
+        0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L
+    };
+
+    private final AtomicIntegerArray[] counters;
+    private final int mask;
+
+    /**
+     * @param width 每行计数器个数，向上取整为2的幂
+     */
+    CountMinSketch(int width) {
+        int size = Integer.highestOneBit(Math.max(16, width - 1) << 1);
+        this.counters = new AtomicIntegerArray[SEEDS.length];
+        for (int row = 0; row < SEEDS.length; row++) {
+            counters[row] = new AtomicIntegerArray(size);
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * 计数加一并返回新的估计值
+     */
+    int add(String key) {
+        int hash = key.hashCode();
+        int[] indexes = new int[SEEDS.length];
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < SEEDS.length; row++) {
+            indexes[row] = index(hash, row);
+            min = Math.min(min, counters[row].get(indexes[row]));
+        }
+        if (min == Integer.MAX_VALUE) {
+            return min;
+        }
+        int updated = min + 1;
+        for (int row = 0; row < SEEDS.length; row++) {
+            counters[row].accumulateAndGet(indexes[row], updated, Math::max);
+        }
+        return updated;
+    }
+
+    int estimate(String key) {
+        int hash = key.hashCode();
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < SEEDS.length; row++) {
+            min = Math.min(min, counters[row].get(index(hash, row)));
+        }
+        return min;
+    }
+
+    void clear() {
+        for (AtomicIntegerArray row : counters) {
+            for (int i = 0; i < row.length(); i++) {
+                row.set(i, 0);
+            }
+        }
+    }
+
+    /**
+     * 全部计数减半，使估计值偏向近期的访问
+     */
+    void halve() {
+        for (AtomicIntegerArray row : counters) {
+            for (int i = 0; i < row.length(); i++) {
+                row.getAndUpdate(i, count -> count >>> 1);
+            }
+        }
+    }
+
+    private int index(int hash, int row) {
+        long mixed = (hash ^ SEEDS[row]) * SEEDS[(row + 1) % SEEDS.length];
+        mixed ^= mixed >>> 29;
+        return (int) mixed & mask;
+    }
+}
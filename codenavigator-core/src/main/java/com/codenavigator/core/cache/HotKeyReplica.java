@@ -0,0 +1,80 @@
+package com.codenavigator.core.cache;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 热点键的本地副本
+ * 对每次读取做滑动窗口热点检测，被判定为热点的键把读到的值复制到本地并保留很短的时间，
+ * 热度下降后移出。本节点写入或删除该键时立即丢弃副本，其他节点的修改最多在副本过期时间后可见
+ */
+public class HotKeyReplica {
+
+    private final SlidingWindowHotKeyDetector detector;
+    private final LocalCacheRegion replica;
+
+    private final AtomicLong replicaHits = new AtomicLong();
+
+    public HotKeyReplica(SlidingWindowHotKeyDetector detector, int maxEntries, long ttlMs) {
+        this.detector = detector;
+        this.replica = new LocalCacheRegion(maxEntries, ttlMs);
+    }
+
+    /**
+     * 读取本地副本，不存在时返回null
+     */
+    public Object get(String key) {
+        Object value = replica.get(key);
+        if (value != null) {
+            replicaHits.incrementAndGet();
+            // 副本命中同样计入访问，使热点能持续保持
+            detector.record(key, System.currentTimeMillis());
+        }
+        return value;
+    }
+
+    /**
+     * 记录一次远端读取；键为热点且值不为null时复制到本地
+     *
+     * @param generation 读取Redis之前调用generation()得到的值，读取期间键被修改时不复制
+     */
+    public void onRead(String key, Object value, long generation) {
+        long now = System.currentTimeMillis();
+        boolean hot = detector.record(key, now);
+        for (String demotedKey : detector.drainDemoted(now)) {
+            replica.invalidate(demotedKey);
+        }
+        if (hot && value != null) {
+            replica.putIfUnchanged(key, value, generation);
+        }
+    }
+
+    public long generation() {
+        return replica.generation();
+    }
+
+    public void invalidate(String key) {
+        replica.invalidate(key);
+    }
+
+    public void clear() {
+        replica.clear();
+    }
+
+    public List<SlidingWindowHotKeyDetector.HotKey> getHotKeys() {
+        return detector.hotKeys(System.currentTimeMillis());
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hotKeys", detector.hotKeys(System.currentTimeMillis()).size());
+        stats.put("promotions", detector.getPromotions());
+        stats.put("demotions", detector.getDemotions());
+        stats.put("replicaSize", replica.size());
+        stats.put("replicaHits", replicaHits.get());
+        stats.put("replicaTtlMs", replica.getTtlMs());
+        return stats;
+    }
+}
@@ -0,0 +1,170 @@
+package com.codenavigator.core.cache;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 缓存键访问频率统计
+ * 访问次数记录在Count-Min Sketch中，另外保留估计值最高的一批候选键用于取Top-K；
+ * 每次decay后计数减半，热度随时间衰减。请求线程只做无锁的计数递增，候选键的维护与排序在取Top-K时进行
+ */
+public class HotKeyTracker {
+
+    private static final String SEPARATOR = "|";
+
+    /**
+     * 热点键及其估计访问次数
+     */
+    public record HotKey(String cacheName, String key, long count) {
+
+        public String id() {
+            return cacheName + SEPARATOR + key;
+        }
+
+        /**
+         * 解析id()生成的标识，格式不正确时返回null
+         */
+        public static HotKey parse(String id) {
+            int index = id.indexOf(SEPARATOR);
+            if (index <= 0 || index == id.length() - 1) {
+                return null;
+            }
+            return new HotKey(id.substring(0, index), id.substring(index + 1), 0);
+        }
+    }
+
+    private final int capacity;
+    private final CountMinSketch sketch;
+    // 候选键 -> 估计访问次数，超过容量的两倍时裁剪到容量；只在lock内访问
+    private final Map<String, Integer> candidates = new HashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    // 请求线程提交、由整理方（持久化任务或队列满时抢到锁的线程）取出的候选键
+    private final Queue<String> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingSize = new AtomicInteger();
+    private final int maxPending;
+    private final LongAdder recorded = new LongAdder();
+
+    /**
+     * @param capacity 保留的热点键数量
+     */
+    public HotKeyTracker(int capacity) {
+        this.capacity = capacity;
+        this.sketch = new CountMinSketch(Math.max(1024, capacity * 16));
+        this.maxPending = Math.max(1024, capacity * 4);
+    }
+
+    /**
+     * 记录一次访问：只做无锁的计数递增，估计值每翻一倍时提交一次候选，同一个键最多提交O(log n)次；
+     * 待整理的候选已满时由抢到锁的线程顺带整理，抢不到则丢弃本次提交
+     */
+    public void record(String cacheName, String key) {
+        String id = cacheName + SEPARATOR + key;
+        recorded.increment();
+        int count = sketch.add(id);
+        if (Integer.bitCount(count) != 1) {
+            return;
+        }
+        if (pendingSize.incrementAndGet() <= maxPending) {
+            pending.offer(id);
+            return;
+        }
+        pendingSize.decrementAndGet();
+        if (lock.tryLock()) {
+            try {
+                drainPending();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 估计的访问次数
+     */
+    public long estimate(String cacheName, String key) {
+        return sketch.estimate(cacheName + SEPARATOR + key);
+    }
+
+    /**
+     * 访问次数最高的k个键，按次数降序
+     */
+    public List<HotKey> topK(int k) {
+        List<Map.Entry<String, Integer>> entries;
+        lock.lock();
+        try {
+            drainPending();
+            candidates.replaceAll((id, count) -> sketch.estimate(id));
+            entries = new ArrayList<>(candidates.entrySet());
+        } finally {
+            lock.unlock();
+        }
+        entries.sort(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder()));
+        List<HotKey> hotKeys = new ArrayList<>(Math.min(k, entries.size()));
+        for (int i = 0; i < entries.size() && hotKeys.size() < k; i++) {
+            HotKey hotKey = HotKey.parse(entries.get(i).getKey());
+            if (hotKey != null) {
+                hotKeys.add(new HotKey(hotKey.cacheName(), hotKey.key(), entries.get(i).getValue()));
+            }
+        }
+        return hotKeys;
+    }
+
+    /**
+     * 计数减半，并移除已无访问的候选键
+     */
+    public void decay() {
+        lock.lock();
+        try {
+            drainPending();
+            sketch.halve();
+            candidates.replaceAll((id, count) -> sketch.estimate(id));
+            candidates.values().removeIf(count -> count == 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getRecorded() {
+        return recorded.sum();
+    }
+
+    public int getCandidateCount() {
+        lock.lock();
+        try {
+            drainPending();
+            return candidates.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 把待整理的候选并入候选表，须持有lock
+     */
+    private void drainPending() {
+        String id;
+        while ((id = pending.poll()) != null) {
+            pendingSize.decrementAndGet();
+            candidates.put(id, sketch.estimate(id));
+            if (candidates.size() > capacity * 2) {
+                trim(capacity);
+            }
+        }
+    }
+
+    private void trim(int size) {
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(candidates.entrySet());
+        entries.sort(Map.Entry.comparingByValue(Comparator.reverseOrder()));
+        for (int i = size; i < entries.size(); i++) {
+            candidates.remove(entries.get(i).getKey());
+        }
+    }
+}
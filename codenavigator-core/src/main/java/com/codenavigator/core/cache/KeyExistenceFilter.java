@@ -0,0 +1,18 @@
+package com.codenavigator.core.cache;
+
+/**
+ * 注解缓存区域中键对应实体的存在性判断
+ * 判定不存在的键按未命中处理，不再查询本地缓存和Redis
+ */
+public interface KeyExistenceFilter {
+
+    /**
+     * 返回false时该键对应的实体一定不存在；未跟踪的缓存区域总是返回true
+     */
+    boolean mightExist(String cacheName, String key);
+
+    /**
+     * 缓存写入了该键的值，说明实体存在
+     */
+    void recordExists(String cacheName, String key);
+}
@@ -0,0 +1,129 @@
+package com.codenavigator.core.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 单个缓存区域的进程内存储：容量受限（LRU淘汰），条目按写入时间过期
+ * 所有访问都在entries锁内进行
+ */
+class LocalCacheRegion {
+
+    private static class Entry {
+        private final Object value;
+        private final long expiresAt;
+
+        Entry(Object value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final int maxEntries;
+    private final long ttlMs;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() <= maxEntries) {
+                return false;
+            }
+            evictions++;
+            return true;
+        }
+    };
+
+    // 每次本地失效或写入时递增，用于丢弃失效之前从Redis读到的旧值
+    private long generation;
+    private long evictions;
+    private long expirations;
+
+    LocalCacheRegion(int maxEntries, long ttlMs) {
+        this.maxEntries = maxEntries;
+        this.ttlMs = ttlMs;
+    }
+
+    Object get(String key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt <= System.currentTimeMillis()) {
+                entries.remove(key);
+                expirations++;
+                return null;
+            }
+            return entry.value;
+        }
+    }
+
+    long generation() {
+        synchronized (entries) {
+            return generation;
+        }
+    }
+
+    /**
+     * 本节点写入新值
+     */
+    void put(String key, Object value) {
+        synchronized (entries) {
+            generation++;
+            entries.put(key, new Entry(value, System.currentTimeMillis() + ttlMs));
+        }
+    }
+
+    /**
+     * 回填从Redis读到的值；读取期间发生过失效或写入时放弃回填
+     */
+    boolean putIfUnchanged(String key, Object value, long expectedGeneration) {
+        synchronized (entries) {
+            if (generation != expectedGeneration) {
+                return false;
+            }
+            entries.put(key, new Entry(value, System.currentTimeMillis() + ttlMs));
+            return true;
+        }
+    }
+
+    void invalidate(String key) {
+        synchronized (entries) {
+            generation++;
+            entries.remove(key);
+        }
+    }
+
+    void clear() {
+        synchronized (entries) {
+            generation++;
+            entries.clear();
+        }
+    }
+
+    long getTtlMs() {
+        return ttlMs;
+    }
+
+    int getMaxEntries() {
+        return maxEntries;
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    long getEvictions() {
+        synchronized (entries) {
+            return evictions;
+        }
+    }
+
+    long getExpirations() {
+        synchronized (entries) {
+            return expirations;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.codenavigator.core.cache;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Redis不可用期间的本地替代缓存：容量受限（LRU淘汰），本地保留时间不超过localTtlMs，
+ * 避免各节点在降级期间长时间读到彼此不一致的值。
+ * 降级期间写入或删除过的键都记为待失效，Redis恢复后在Redis中删除，由读取方重新加载；
+ * 本节点降级期间写入的值不回写Redis，以免覆盖其他节点在此期间写入的更新值。
+ * 待失效的键超过上限时，新增的键改为按所属命名空间整体失效，而不是丢弃。
+ * 所有访问都在this锁内进行
+ */
+public class LocalFallbackCache {
+
+    private static final int MAX_PENDING_PATTERNS = 256;
+    private static final char NAMESPACE_SEPARATOR = ':';
+
+    private record Entry(Object value, long expiresAt) {
+    }
+
+    private final int maxEntries;
+    private final long localTtlMs;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() <= maxEntries) {
+                return false;
+            }
+            evictions++;
+            return true;
+        }
+    };
+
+    // 恢复后需要在Redis中删除的键，不随本地条目淘汰
+    private final Set<String> pendingKeys = new LinkedHashSet<>();
+    // 降级期间按模式删除的键，以及待失效键超限后按命名空间整体失效的模式
+    private final Set<String> pendingPatterns = new LinkedHashSet<>();
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long collapsedKeys;
+    private long droppedInvalidations;
+
+    /**
+     * @param maxEntries 本地条目数上限，同时也是逐个记录的待失效键数上限
+     * @param localTtlMs 条目在本地的最长保留时间
+     */
+    public LocalFallbackCache(int maxEntries, long localTtlMs) {
+        this.maxEntries = maxEntries;
+        this.localTtlMs = localTtlMs;
+    }
+
+    public synchronized Object get(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt <= System.currentTimeMillis()) {
+            entries.remove(key);
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    /**
+     * @param ttlMs 过期时间，不大于0时只受localTtlMs限制
+     */
+    public synchronized void put(String key, Object value, long ttlMs) {
+        long localMs = ttlMs > 0 ? Math.min(ttlMs, localTtlMs) : localTtlMs;
+        entries.put(key, new Entry(value, System.currentTimeMillis() + localMs));
+        markPending(key);
+    }
+
+    /**
+     * @return 本地是否存在该键
+     */
+    public synchronized boolean delete(String key) {
+        markPending(key);
+        return entries.remove(key) != null;
+    }
+
+    /**
+     * 删除本地匹配模式（仅支持*和?通配）的键，并记录待恢复后在Redis中执行的模式删除
+     *
+     * @return 本地删除的键数
+     */
+    public synchronized long deletePattern(String pattern) {
+        Pattern regex = globToRegex(pattern);
+        long removed = 0;
+        for (Iterator<String> it = entries.keySet().iterator(); it.hasNext(); ) {
+            if (regex.matcher(it.next()).matches()) {
+                it.remove();
+                removed++;
+            }
+        }
+        // 被模式覆盖的键不必再逐个删除
+        pendingKeys.removeIf(key -> regex.matcher(key).matches());
+        addPattern(pattern);
+        return removed;
+    }
+
+    /**
+     * 取出至多max个待失效的键
+     */
+    public synchronized List<String> drainPendingKeys(int max) {
+        List<String> drained = new ArrayList<>(Math.min(max, pendingKeys.size()));
+        for (Iterator<String> it = pendingKeys.iterator(); it.hasNext() && drained.size() < max; ) {
+            drained.add(it.next());
+            it.remove();
+        }
+        return drained;
+    }
+
+    public synchronized List<String> drainPatterns() {
+        List<String> drained = new ArrayList<>(pendingPatterns);
+        pendingPatterns.clear();
+        return drained;
+    }
+
+    /**
+     * 失效失败时放回取出的键和模式，删除是幂等的，重复执行没有副作用
+     */
+    public synchronized void restore(List<String> keys, List<String> patterns) {
+        keys.forEach(this::markPending);
+        patterns.forEach(this::addPattern);
+    }
+
+    public synchronized boolean hasPending() {
+        return !pendingKeys.isEmpty() || !pendingPatterns.isEmpty();
+    }
+
+    /**
+     * 清空本地条目，不影响待失效的键
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * 因模式数量超限而无法记录的失效次数，不为0时Redis中可能残留旧值直到其过期
+     */
+    public synchronized long getDroppedInvalidations() {
+        return droppedInvalidations;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", entries.size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("localTtlMs", localTtlMs);
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("evictions", evictions);
+        stats.put("pendingKeys", pendingKeys.size());
+        stats.put("pendingPatterns", pendingPatterns.size());
+        stats.put("collapsedKeys", collapsedKeys);
+        stats.put("droppedInvalidations", droppedInvalidations);
+        return stats;
+    }
+
+    private void markPending(String key) {
+        if (pendingKeys.contains(key) || pendingKeys.size() < maxEntries) {
+            pendingKeys.add(key);
+            return;
+        }
+        // 超过上限后按命名空间整体失效，失效范围变大但不会残留旧值
+        collapsedKeys++;
+        int index = key.indexOf(NAMESPACE_SEPARATOR);
+        addPattern(index > 0 ? key.substring(0, index + 1) + "*" : key);
+    }
+
+    private void addPattern(String pattern) {
+        if (pendingPatterns.size() < MAX_PENDING_PATTERNS || pendingPatterns.contains(pattern)) {
+            pendingPatterns.add(pattern);
+        } else {
+            droppedInvalidations++;
+        }
+    }
+
+    static Pattern globToRegex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (char c : glob.toCharArray()) {
+            if (c == '*' || c == '?') {
+                if (!literal.isEmpty()) {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                regex.append(c == '*' ? ".*" : ".");
+            } else {
+                literal.append(c);
+            }
+        }
+        if (!literal.isEmpty()) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+}
@@ -0,0 +1,131 @@
+package com.codenavigator.core.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Redis健康状态机：HEALTHY → DEGRADED → RECOVERING → HEALTHY
+ * 连续失败（或慢调用）达到阈值后进入DEGRADED，此后调用方不再访问Redis而直接快速失败；
+ * 后台探测成功后进入RECOVERING，由调用方使降级期间修改过的键失效，完成后恢复HEALTHY，失败则退回DEGRADED
+ */
+public class RedisHealthMonitor {
+
+    public enum State {
+        HEALTHY, DEGRADED, RECOVERING
+    }
+
+    private final int failureThreshold;
+    private final long slowCallMs;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.HEALTHY);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile long stateSince = System.currentTimeMillis();
+
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong slowCalls = new AtomicLong();
+    private final AtomicLong fastFailures = new AtomicLong();
+    private final AtomicLong degradations = new AtomicLong();
+    private final AtomicLong recoveries = new AtomicLong();
+
+    /**
+     * @param failureThreshold 进入DEGRADED所需的连续失败次数
+     * @param slowCallMs       耗时不小于该值的成功调用同样计为失败，不大于0时不检测
+     */
+    public RedisHealthMonitor(int failureThreshold, long slowCallMs) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.slowCallMs = slowCallMs;
+    }
+
+    /**
+     * 是否允许访问Redis；不允许时计为一次快速失败
+     */
+    public boolean allowRequest() {
+        if (state.get() == State.HEALTHY) {
+            return true;
+        }
+        fastFailures.incrementAndGet();
+        return false;
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    /**
+     * 记录一次成功调用
+     *
+     * @return 本次为慢调用且使状态从HEALTHY转为DEGRADED
+     */
+    public boolean onSuccess(long elapsedMs) {
+        if (slowCallMs > 0 && elapsedMs >= slowCallMs) {
+            slowCalls.incrementAndGet();
+            return countFailure();
+        }
+        consecutiveFailures.set(0);
+        return false;
+    }
+
+    /**
+     * 记录一次连接失败或超时
+     *
+     * @return 本次失败是否使状态从HEALTHY转为DEGRADED
+     */
+    public boolean onFailure() {
+        failures.incrementAndGet();
+        return countFailure();
+    }
+
+    /**
+     * 探测成功后从DEGRADED进入RECOVERING，只有一个调用方能成功
+     */
+    public boolean beginRecovery() {
+        return transition(State.DEGRADED, State.RECOVERING);
+    }
+
+    public void recovered() {
+        if (transition(State.RECOVERING, State.HEALTHY)) {
+            consecutiveFailures.set(0);
+            recoveries.incrementAndGet();
+        }
+    }
+
+    public void recoveryFailed() {
+        transition(State.RECOVERING, State.DEGRADED);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("state", state.get().name());
+        stats.put("stateSince", stateSince);
+        stats.put("consecutiveFailures", consecutiveFailures.get());
+        stats.put("failureThreshold", failureThreshold);
+        stats.put("failures", failures.get());
+        stats.put("slowCalls", slowCalls.get());
+        stats.put("fastFailures", fastFailures.get());
+        stats.put("degradations", degradations.get());
+        stats.put("recoveries", recoveries.get());
+        return stats;
+    }
+
+    private boolean countFailure() {
+        if (consecutiveFailures.incrementAndGet() < failureThreshold) {
+            return false;
+        }
+        if (transition(State.HEALTHY, State.DEGRADED)) {
+            degradations.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    private boolean transition(State from, State to) {
+        if (!state.compareAndSet(from, to)) {
+            return false;
+        }
+        stateSince = System.currentTimeMillis();
+        return true;
+    }
+}
@@ -0,0 +1,126 @@
+package com.codenavigator.core.cache;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 可扩展布隆过滤器：当前过滤器插满后追加一个容量翻倍、误判率减半的新过滤器，
+ * 各级误判率构成等比数列，总误判率不超过目标值。只能添加不能删除，判定不存在时一定不存在
+ */
+public class ScalableBloomFilter {
+
+    static final int GROWTH = 2;
+    static final double TIGHTENING = 0.5;
+
+    private static final long FNV_OFFSET = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+    private static final long SECOND_SEED = 0x9E3779B97F4A7C15L;
+
+    private final double targetFpp;
+    // 写时复制，追加过滤器时在this锁内替换
+    private volatile List<BloomFilter> filters;
+
+    /**
+     * @param initialCapacity 第一级过滤器的容量
+     * @param targetFpp       整体误判率上限
+     */
+    public ScalableBloomFilter(long initialCapacity, double targetFpp) {
+        if (initialCapacity <= 0 || targetFpp <= 0 || targetFpp >= 1) {
+            throw new IllegalArgumentException(
+                "Invalid bloom filter settings: capacity=" + initialCapacity + ", fpp=" + targetFpp);
+        }
+        this.targetFpp = targetFpp;
+        this.filters = List.of(new BloomFilter(initialCapacity, targetFpp * (1 - TIGHTENING)));
+    }
+
+    public void add(String key) {
+        long hash1 = hash(key);
+        long hash2 = mix(hash1 ^ SECOND_SEED) | 1;
+        if (mightContain(hash1, hash2)) {
+            return;
+        }
+        synchronized (this) {
+            BloomFilter last = filters.get(filters.size() - 1);
+            if (last.isFull()) {
+                last = new BloomFilter(last.getCapacity() * GROWTH, last.getFpp() * TIGHTENING);
+                List<BloomFilter> grown = new ArrayList<>(filters);
+                grown.add(last);
+                filters = List.copyOf(grown);
+            }
+            last.put(hash1, hash2);
+        }
+    }
+
+    /**
+     * 返回false时键一定未添加过，返回true时可能存在
+     */
+    public boolean mightContain(String key) {
+        long hash1 = hash(key);
+        return mightContain(hash1, mix(hash1 ^ SECOND_SEED) | 1);
+    }
+
+    public long size() {
+        long size = 0;
+        for (BloomFilter filter : filters) {
+            size += filter.getInsertions();
+        }
+        return size;
+    }
+
+    /**
+     * 按各级过滤器的插入数估计的整体误判率
+     */
+    public double expectedFpp() {
+        double allClear = 1;
+        for (BloomFilter filter : filters) {
+            allClear *= 1 - filter.expectedFpp();
+        }
+        return 1 - allClear;
+    }
+
+    public Map<String, Object> getStats() {
+        List<BloomFilter> current = filters;
+        long bits = 0;
+        for (BloomFilter filter : current) {
+            bits += filter.getBitSize();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("insertions", size());
+        stats.put("filters", current.size());
+        stats.put("capacity", current.get(current.size() - 1).getCapacity());
+        stats.put("hashCount", current.get(current.size() - 1).getHashCount());
+        stats.put("memoryBytes", bits / 8);
+        stats.put("targetFpp", targetFpp);
+        stats.put("expectedFpp", expectedFpp());
+        return stats;
+    }
+
+    private boolean mightContain(long hash1, long hash2) {
+        for (BloomFilter filter : filters) {
+            if (filter.mightContain(hash1, hash2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long hash(String key) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB9FE1A85EC53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -0,0 +1,183 @@
+package com.codenavigator.core.cache;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 滑动窗口热点键检测
+ * 窗口被划分为若干个时间桶，每个桶一个Count-Min Sketch；键在整个窗口内的估计访问次数达到阈值即判定为热点，
+ * 降到阈值一半以下时移出热点（留有滞回，避免在阈值附近反复进出）。桶随访问滚动，不需要后台线程。
+ * 记录访问只做无锁的计数递增：单个桶内即达到阈值的突发访问立即判定为热点，
+ * 其余键在当前桶内达到按桶平摊的阈值后成为候选，由桶滚动时统一按整个窗口的计数判定升降
+ */
+public class SlidingWindowHotKeyDetector {
+
+    /**
+     * 热点键、窗口内估计访问次数与成为热点的时间
+     */
+    public record HotKey(String key, long windowCount, long promotedAt) {
+    }
+
+    private final CountMinSketch[] buckets;
+    private final long bucketMs;
+    private final int threshold;
+    // 单个桶内达到该次数的键成为候选
+    private final int candidateThreshold;
+    private final int maxCandidates;
+
+    // 当前桶的绝对序号（时间 / bucketMs），只在rollLock内推进
+    private volatile long currentBucket;
+    private final Object rollLock = new Object();
+    // 热点键 -> 成为热点的时间
+    private final Map<String, Long> hotKeys = new ConcurrentHashMap<>();
+    // 等待下次滚动时判定的候选键
+    private final Set<String> candidates = ConcurrentHashMap.newKeySet();
+    // 被移出热点的键，等待调用方取走
+    private final Queue<String> demoted = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong promotions = new AtomicLong();
+    private final AtomicLong demotions = new AtomicLong();
+
+    /**
+     * @param windowMs  窗口长度
+     * @param bucketCount 窗口划分的桶数
+     * @param threshold 窗口内访问次数达到该值判定为热点
+     * @param width     每个桶的Sketch宽度
+     */
+    public SlidingWindowHotKeyDetector(long windowMs, int bucketCount, int threshold, int width) {
+        this.buckets = new CountMinSketch[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new CountMinSketch(width);
+        }
+        this.bucketMs = Math.max(1, windowMs / bucketCount);
+        this.threshold = threshold;
+        this.candidateThreshold = Math.max(1, threshold / bucketCount);
+        this.maxCandidates = Math.max(64, width / 4);
+        this.currentBucket = System.currentTimeMillis() / bucketMs;
+    }
+
+    /**
+     * 记录一次访问
+     *
+     * @return 该键当前是否为热点
+     */
+    public boolean record(String key, long now) {
+        long bucket = advance(now);
+        int bucketCount = buckets[bucketIndex(bucket)].add(key);
+        if (hotKeys.containsKey(key)) {
+            return true;
+        }
+        if (bucketCount >= threshold) {
+            promote(key, now);
+            return true;
+        }
+        if (bucketCount == candidateThreshold && candidates.size() < maxCandidates) {
+            candidates.add(key);
+        }
+        return false;
+    }
+
+    public boolean isHot(String key) {
+        return hotKeys.containsKey(key);
+    }
+
+    /**
+     * 取走已被移出热点的键
+     */
+    public List<String> drainDemoted(long now) {
+        advance(now);
+        if (demoted.isEmpty()) {
+            return List.of();
+        }
+        List<String> drained = new ArrayList<>();
+        String key;
+        while ((key = demoted.poll()) != null) {
+            drained.add(key);
+        }
+        return drained;
+    }
+
+    /**
+     * 当前热点键，按窗口内访问次数降序
+     */
+    public List<HotKey> hotKeys(long now) {
+        advance(now);
+        List<HotKey> result = new ArrayList<>(hotKeys.size());
+        hotKeys.forEach((key, promotedAt) -> result.add(new HotKey(key, windowCount(key), promotedAt)));
+        result.sort(Comparator.comparingLong(HotKey::windowCount).reversed());
+        return result;
+    }
+
+    public long getPromotions() {
+        return promotions.get();
+    }
+
+    public long getDemotions() {
+        return demotions.get();
+    }
+
+    private void promote(String key, long now) {
+        if (hotKeys.putIfAbsent(key, now) == null) {
+            promotions.incrementAndGet();
+        }
+    }
+
+    /**
+     * 滚动到now所在的桶：清空期间经过的桶，按整个窗口的计数判定候选键和现有热点。
+     * 只有跨越桶边界的调用进入锁，其余调用只读取当前桶序号
+     *
+     * @return now所在的桶序号（不早于当前桶）
+     */
+    private long advance(long now) {
+        long bucket = now / bucketMs;
+        if (bucket <= currentBucket) {
+            return currentBucket;
+        }
+        synchronized (rollLock) {
+            if (bucket <= currentBucket) {
+                return currentBucket;
+            }
+            long steps = Math.min(bucket - currentBucket, buckets.length);
+            for (long i = 1; i <= steps; i++) {
+                buckets[bucketIndex(currentBucket + i)].clear();
+            }
+            currentBucket = bucket;
+
+            for (String key : candidates) {
+                if (windowCount(key) >= threshold) {
+                    promote(key, now);
+                }
+            }
+            candidates.clear();
+
+            hotKeys.keySet().removeIf(key -> {
+                if (windowCount(key) * 2 >= threshold) {
+                    return false;
+                }
+                demoted.add(key);
+                demotions.incrementAndGet();
+                return true;
+            });
+            return bucket;
+        }
+    }
+
+    private long windowCount(String key) {
+        long count = 0;
+        for (CountMinSketch sketch : buckets) {
+            count += sketch.estimate(key);
+        }
+        return count;
+    }
+
+    private int bucketIndex(long bucket) {
+        return (int) (bucket % buckets.length);
+    }
+}
@@ -0,0 +1,267 @@
+package com.codenavigator.core.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 进程内一级缓存 + Redis二级缓存
+ * 读取先查本地，未命中再读Redis并回填本地；写入和删除先作用于Redis，再更新本地并广播失效通知。
+ * 存在性过滤器判定不存在的键直接按未命中处理，不查询本地和Redis。
+ * 本地命中返回的是共享实例，调用方不应修改缓存中的对象
+ */
+class TwoLevelCache implements Cache {
+
+    private final String name;
+    private final Cache redisCache;
+    // 未启用本地缓存的区域为null，只统计Redis命中
+    private final LocalCacheRegion local;
+    private final TwoLevelCacheManager manager;
+
+    private final AtomicLong localHits = new AtomicLong();
+    private final AtomicLong redisHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong filtered = new AtomicLong();
+
+    TwoLevelCache(String name, Cache redisCache, LocalCacheRegion local, TwoLevelCacheManager manager) {
+        this.name = name;
+        this.redisCache = redisCache;
+        this.local = local;
+        this.manager = manager;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return redisCache.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = localKey(key);
+        manager.recordAccess(name, localKey);
+        if (!manager.mightExist(name, localKey)) {
+            filtered.incrementAndGet();
+            return null;
+        }
+        if (local != null) {
+            Object value = local.get(localKey);
+            if (value != null) {
+                localHits.incrementAndGet();
+                return new SimpleValueWrapper(value);
+            }
+        }
+
+        long generation = local != null ? local.generation() : 0;
+        ValueWrapper wrapper = redisCache.get(key);
+        if (wrapper == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        redisHits.incrementAndGet();
+        if (local != null && wrapper.get() != null) {
+            local.putIfUnchanged(localKey, wrapper.get(), generation);
+        }
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                "Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = localKey(key);
+        manager.recordAccess(name, localKey);
+        if (!manager.mightExist(name, localKey)) {
+            filtered.incrementAndGet();
+            return loadFiltered(key, valueLoader);
+        }
+        if (local != null) {
+            Object value = local.get(localKey);
+            if (value != null) {
+                localHits.incrementAndGet();
+                return (T) value;
+            }
+        }
+
+        long generation = local != null ? local.generation() : 0;
+        AtomicBoolean loaded = new AtomicBoolean();
+        T value = redisCache.get(key, () -> {
+            loaded.set(true);
+            return valueLoader.call();
+        });
+        if (loaded.get()) {
+            misses.incrementAndGet();
+        } else {
+            redisHits.incrementAndGet();
+        }
+        if (local != null && value != null) {
+            local.putIfUnchanged(localKey, value, generation);
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        redisCache.put(key, value);
+        if (value != null) {
+            manager.recordExists(name, localKey(key));
+        }
+        if (local != null) {
+            String localKey = localKey(key);
+            if (value != null) {
+                local.put(localKey, value);
+            } else {
+                local.invalidate(localKey);
+            }
+            manager.publishEvict(name, localKey);
+        }
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = redisCache.putIfAbsent(key, value);
+        if (value != null) {
+            manager.recordExists(name, localKey(key));
+        }
+        if (local != null) {
+            String localKey = localKey(key);
+            if (existing == null && value != null) {
+                local.put(localKey, value);
+                manager.publishEvict(name, localKey);
+            } else {
+                local.invalidate(localKey);
+            }
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        redisCache.evict(key);
+        invalidateLocal(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean evicted = redisCache.evictIfPresent(key);
+        invalidateLocal(key);
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        redisCache.clear();
+        clearLocal();
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean invalidated = redisCache.invalidate();
+        clearLocal();
+        return invalidated;
+    }
+
+    /**
+     * 其他节点修改了该键
+     */
+    void onRemoteEvict(String localKey) {
+        if (local != null) {
+            local.invalidate(localKey);
+        }
+    }
+
+    /**
+     * 其他节点清空了该缓存区域
+     */
+    void onRemoteClear() {
+        if (local != null) {
+            local.clear();
+        }
+    }
+
+    Map<String, Object> getStats() {
+        long localHitCount = localHits.get();
+        long redisHitCount = redisHits.get();
+        long missCount = misses.get();
+        long requests = localHitCount + redisHitCount + missCount;
+        long redisRequests = redisHitCount + missCount;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("localEnabled", local != null);
+        stats.put("requests", requests);
+        stats.put("localHits", localHitCount);
+        stats.put("redisHits", redisHitCount);
+        stats.put("misses", missCount);
+        stats.put("filtered", filtered.get());
+        // 本地命中率按全部请求计算，Redis命中率按到达Redis的请求计算
+        stats.put("localHitRatio", requests == 0 ? 0.0 : (double) localHitCount / requests);
+        stats.put("redisHitRatio", redisRequests == 0 ? 0.0 : (double) redisHitCount / redisRequests);
+        stats.put("hitRatio", requests == 0 ? 0.0 : (double) (localHitCount + redisHitCount) / requests);
+        if (local != null) {
+            stats.put("localSize", local.size());
+            stats.put("localMaxEntries", local.getMaxEntries());
+            stats.put("localTtlSeconds", local.getTtlMs() / 1000);
+            stats.put("localEvictions", local.getEvictions());
+            stats.put("localExpirations", local.getExpirations());
+        }
+        return stats;
+    }
+
+    /**
+     * 过滤器判定不存在时不读缓存直接加载；加载到值说明过滤器漏记了该键，写入缓存的同时补记
+     */
+    private <T> T loadFiltered(Object key, Callable<T> valueLoader) {
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        if (value != null) {
+            put(key, value);
+        }
+        return value;
+    }
+
+    private void invalidateLocal(Object key) {
+        if (local != null) {
+            String localKey = localKey(key);
+            local.invalidate(localKey);
+            manager.publishEvict(name, localKey);
+        }
+    }
+
+    private void clearLocal() {
+        if (local != null) {
+            local.clear();
+            manager.publishClear(name);
+        }
+    }
+
+    /**
+     * 与RedisCache一致按字符串形式区分键，保证各节点的失效通知能对应到同一条目
+     */
+    static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+}
@@ -0,0 +1,231 @@
+package com.codenavigator.core.cache;
+
+import com.codenavigator.core.config.LocalCacheConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 两级缓存管理器：在Redis缓存管理器之前加一层按区域配置容量的进程内缓存
+ * 本地过期时间不超过该区域在Redis中的过期时间；写入与删除通过Redis发布订阅通知其他节点丢弃本地副本，
+ * 订阅失败或通知丢失时由本地过期时间兜底。设置了键存在性过滤器时，判定不存在的键在查询缓存之前短路
+ */
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager {
+
+    static final String INVALIDATION_CHANNEL = "cache:local:invalidate";
+    private static final String SEPARATOR = "|";
+    private static final String OP_EVICT = "evict";
+    private static final String OP_CLEAR = "clear";
+
+    // 本节点标识，用于忽略自己发出的失效通知
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final CacheManager redisCacheManager;
+    // 为null时不广播也不订阅失效通知（单节点或测试）
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final LocalCacheConfig localCacheConfig;
+    private final Map<String, Duration> redisTtls;
+    private final Duration defaultRedisTtl;
+    // 为null时不统计访问频率
+    private final HotKeyTracker hotKeyTracker;
+    // 为null时不做存在性判断
+    private volatile KeyExistenceFilter existenceFilter;
+
+    private final ConcurrentMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    private RedisMessageListenerContainer listenerContainer;
+
+    private final AtomicLong invalidationsPublished = new AtomicLong();
+    private final AtomicLong invalidationsReceived = new AtomicLong();
+    private final AtomicLong publishFailures = new AtomicLong();
+
+    public TwoLevelCacheManager(CacheManager redisCacheManager, RedisTemplate<String, Object> redisTemplate,
+                                LocalCacheConfig localCacheConfig, Map<String, Duration> redisTtls,
+                                Duration defaultRedisTtl, HotKeyTracker hotKeyTracker) {
+        this.redisCacheManager = redisCacheManager;
+        this.redisTemplate = redisTemplate;
+        this.localCacheConfig = localCacheConfig;
+        this.redisTtls = redisTtls;
+        this.defaultRedisTtl = defaultRedisTtl;
+        this.hotKeyTracker = hotKeyTracker;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (redisTemplate == null || !localCacheConfig.isEnabled() || localCacheConfig.getRegions().isEmpty()) {
+            return;
+        }
+        try {
+            listenerContainer = new RedisMessageListenerContainer();
+            listenerContainer.setConnectionFactory(redisTemplate.getConnectionFactory());
+            listenerContainer.addMessageListener(this::onInvalidation, new ChannelTopic(INVALIDATION_CHANNEL));
+            listenerContainer.afterPropertiesSet();
+            listenerContainer.start();
+            log.info("Local cache tier enabled for regions {}", localCacheConfig.getRegions().keySet());
+        } catch (Exception e) {
+            log.warn("Failed to subscribe to cache invalidations, relying on local TTL", e);
+            listenerContainer = null;
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (listenerContainer != null) {
+            try {
+                listenerContainer.destroy();
+            } catch (Exception e) {
+                log.warn("Error stopping cache invalidation listener", e);
+            }
+            listenerContainer = null;
+        }
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        TwoLevelCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache redisCache = redisCacheManager.getCache(name);
+        if (redisCache == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, cacheName -> new TwoLevelCache(cacheName, redisCache,
+            createLocalRegion(cacheName), this));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return redisCacheManager.getCacheNames();
+    }
+
+    /**
+     * 获取按缓存区域划分的本地/Redis两级命中统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> regions = new TreeMap<>();
+        caches.forEach((name, cache) -> regions.put(name, cache.getStats()));
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("localEnabled", localCacheConfig.isEnabled());
+        stats.put("subscribed", listenerContainer != null);
+        stats.put("invalidationsPublished", invalidationsPublished.get());
+        stats.put("invalidationsReceived", invalidationsReceived.get());
+        stats.put("publishFailures", publishFailures.get());
+        stats.put("regions", regions);
+        return stats;
+    }
+
+    /**
+     * 注解缓存的访问频率统计，用于缓存预热
+     */
+    public HotKeyTracker getHotKeyTracker() {
+        return hotKeyTracker;
+    }
+
+    public void setExistenceFilter(KeyExistenceFilter existenceFilter) {
+        this.existenceFilter = existenceFilter;
+    }
+
+    boolean mightExist(String cacheName, String localKey) {
+        KeyExistenceFilter filter = existenceFilter;
+        return filter == null || filter.mightExist(cacheName, localKey);
+    }
+
+    void recordExists(String cacheName, String localKey) {
+        KeyExistenceFilter filter = existenceFilter;
+        if (filter != null) {
+            filter.recordExists(cacheName, localKey);
+        }
+    }
+
+    void recordAccess(String cacheName, String localKey) {
+        if (hotKeyTracker != null) {
+            hotKeyTracker.record(cacheName, localKey);
+        }
+    }
+
+    void publishEvict(String cacheName, String localKey) {
+        publish(OP_EVICT, cacheName, localKey);
+    }
+
+    void publishClear(String cacheName) {
+        publish(OP_CLEAR, cacheName, "");
+    }
+
+    private void publish(String op, String cacheName, String localKey) {
+        if (redisTemplate == null) {
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL,
+                String.join(SEPARATOR, nodeId, op, cacheName, localKey));
+            invalidationsPublished.incrementAndGet();
+        } catch (Exception e) {
+            // 通知失败不影响写入结果，其他节点的本地副本在本地过期时间后失效
+            publishFailures.incrementAndGet();
+            log.warn("Failed to publish cache invalidation: cache={}, key={}, error={}",
+                cacheName, localKey, e.getMessage());
+        }
+    }
+
+    private void onInvalidation(Message message, byte[] pattern) {
+        Object payload = redisTemplate.getValueSerializer().deserialize(message.getBody());
+        if (payload instanceof String text) {
+            handleInvalidation(text);
+        }
+    }
+
+    /**
+     * 处理其他节点的失效通知，格式为 节点|操作|缓存名|键
+     */
+    void handleInvalidation(String payload) {
+        // 键位于最后，允许其中包含分隔符
+        String[] parts = payload.split("\\" + SEPARATOR, 4);
+        if (parts.length < 4 || parts[0].equals(nodeId)) {
+            return;
+        }
+        TwoLevelCache cache = caches.get(parts[2]);
+        if (cache == null) {
+            return;
+        }
+        if (OP_CLEAR.equals(parts[1])) {
+            cache.onRemoteClear();
+        } else {
+            cache.onRemoteEvict(parts[3]);
+        }
+        invalidationsReceived.incrementAndGet();
+    }
+
+    private LocalCacheRegion createLocalRegion(String cacheName) {
+        if (!localCacheConfig.isEnabled()) {
+            return null;
+        }
+        LocalCacheConfig.Region region = localCacheConfig.getRegions().get(cacheName);
+        if (region == null || region.getMaxEntries() <= 0) {
+            return null;
+        }
+        long redisTtlMs = redisTtls.getOrDefault(cacheName, defaultRedisTtl).toMillis();
+        long ttlMs = region.getTtlSeconds() > 0
+            ? Math.min(region.getTtlSeconds() * 1000, redisTtlMs)
+            : redisTtlMs;
+        return new LocalCacheRegion(region.getMaxEntries(), ttlMs);
+    }
+}
@@ -0,0 +1,25 @@
+package com.codenavigator.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Redis值序列化配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "codenavigator.cache.serialization")
+public class CacheSerializationConfig {
+
+    // 关闭时回退为带类名的JSON序列化
+    private boolean compactEnabled = true;
+    private boolean compressionEnabled = true;
+    // 超过该字节数的载荷才尝试LZ4压缩
+    private int compressionThresholdBytes = 1024;
+    // 额外注册的类型别名（别名 -> 全限定类名），别名一经使用不可改指其他类
+    private Map<String, String> typeAliases = new LinkedHashMap<>();
+}
@@ -0,0 +1,25 @@
+package com.codenavigator.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 基于访问频率的缓存预热配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "codenavigator.cache.warmup")
+public class CacheWarmupConfig {
+
+    // 关闭时不统计访问频率，启动时也不预热
+    private boolean enabled = true;
+    // 持久化并在启动时重新加载的热点键数量
+    private int topK = 1000;
+    // 热点键持久化间隔，每次持久化后访问计数减半
+    private long persistIntervalMs = 300000;
+    // 并行加载的线程数
+    private int threads = 4;
+    // 每秒最多从数据库加载的键数
+    private int maxLoadsPerSecond = 200;
+}
@@ -0,0 +1,43 @@
+package com.codenavigator.core.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 进程内一级缓存配置，按缓存区域分别设置容量与过期时间
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "codenavigator.cache.local")
+public class LocalCacheConfig {
+
+    // 关闭时所有缓存区域直接读写Redis
+    private boolean enabled = true;
+    // 未配置的缓存区域不启用本地缓存
+    private Map<String, Region> regions = defaultRegions();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Region {
+        // 本地最多保留的条目数，超出后按LRU淘汰
+        private int maxEntries;
+        // 本地过期时间（秒），0表示与Redis中该缓存区域的过期时间一致；大于Redis过期时间时按Redis过期时间
+        private long ttlSeconds;
+    }
+
+    private static Map<String, Region> defaultRegions() {
+        Map<String, Region> regions = new LinkedHashMap<>();
+        regions.put(RedisConfig.CacheNames.LEARNING_PATH_CACHE, new Region(2000, 0));
+        regions.put(RedisConfig.CacheNames.HOT_CONTENT_CACHE, new Region(200, 0));
+        regions.put(RedisConfig.CacheNames.USER_CACHE, new Region(5000, 300));
+        regions.put(RedisConfig.CacheNames.USER_PROGRESS_CACHE, new Region(5000, 60));
+        return regions;
+    }
+}
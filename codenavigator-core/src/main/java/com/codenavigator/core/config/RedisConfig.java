@@ -1,34 +1,61 @@
 package com.codenavigator.core.config;
 
+import com.codenavigator.core.cache.HotKeyTracker;
+import com.codenavigator.core.cache.TwoLevelCacheManager;
+import com.codenavigator.core.serializer.CompactRedisSerializer;
+import com.codenavigator.core.serializer.SerializationMetrics;
+import com.codenavigator.core.serializer.TypeTable;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
+@Slf4j
 @Configuration
 @EnableCaching
 public class RedisConfig {
 
+    // RedisTemplate写入的值在序列化统计中使用的名称
+    public static final String TEMPLATE_METRICS_NAME = "redisTemplate";
+    private static final String DEFAULT_CACHE_METRICS_NAME = "default";
+    private static final Duration DEFAULT_CACHE_TTL = Duration.ofHours(1);
+
+    private volatile ObjectMapper compactMapper;
+
+    /**
+     * 序列化统计，按缓存名称记录载荷大小与编解码耗时
+     */
+    @Bean
+    public SerializationMetrics serializationMetrics() {
+        return new SerializationMetrics();
+    }
+
     /**
      * Redis模板配置
      */
     @Bean
-    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory,
+                                                       CacheSerializationConfig serializationConfig,
+                                                       SerializationMetrics serializationMetrics) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
 
@@ -43,6 +70,10 @@ public class RedisConfig {
         Jackson2JsonRedisSerializer<Object> jackson2JsonRedisSerializer =
             new Jackson2JsonRedisSerializer<>(objectMapper, Object.class);
 
+        // 值序列化：默认使用紧凑二进制格式，JSON仅用于读取存量数据
+        RedisSerializer<Object> valueSerializer = valueSerializer(TEMPLATE_METRICS_NAME,
+            jackson2JsonRedisSerializer, serializationConfig, serializationMetrics);
+
         // String序列化
         StringRedisSerializer stringRedisSerializer = new StringRedisSerializer();
 
@@ -50,68 +81,127 @@ public class RedisConfig {
         template.setKeySerializer(stringRedisSerializer);
         // hash的key也采用String的序列化方式
         template.setHashKeySerializer(stringRedisSerializer);
-        // value序列化方式采用jackson
-        template.setValueSerializer(jackson2JsonRedisSerializer);
-        // hash的value序列化方式采用jackson
-        template.setHashValueSerializer(jackson2JsonRedisSerializer);
+        // value序列化方式
+        template.setValueSerializer(valueSerializer);
+        // hash的value序列化方式
+        template.setHashValueSerializer(valueSerializer);
         
         template.afterPropertiesSet();
         return template;
     }
 
     /**
-     * 缓存管理器配置
+     * Redis缓存管理器配置（二级缓存）
      */
     @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public RedisCacheManager redisCacheManager(RedisConnectionFactory connectionFactory,
+                                               CacheSerializationConfig serializationConfig,
+                                               SerializationMetrics serializationMetrics) {
+        Jackson2JsonRedisSerializer<Object> legacySerializer = new Jackson2JsonRedisSerializer<>(Object.class);
+
         // 默认缓存配置
         RedisCacheConfiguration defaultCacheConfig = RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofHours(1)) // 默认1小时过期
+                .entryTtl(DEFAULT_CACHE_TTL) // 默认1小时过期
                 .serializeKeysWith(RedisSerializationContext.SerializationPair
                     .fromSerializer(new StringRedisSerializer()))
                 .serializeValuesWith(RedisSerializationContext.SerializationPair
-                    .fromSerializer(new Jackson2JsonRedisSerializer<>(Object.class)))
+                    .fromSerializer(valueSerializer(DEFAULT_CACHE_METRICS_NAME, legacySerializer,
+                        serializationConfig, serializationMetrics)))
                 .disableCachingNullValues(); // 不缓存null值
 
-        // 不同缓存区域的配置
+        // 不同缓存区域的配置，每个缓存使用独立的序列化器以便分别统计
         Map<String, RedisCacheConfiguration> cacheConfigurations = new HashMap<>();
+        cacheTtls().forEach((cacheName, ttl) -> cacheConfigurations.put(cacheName, defaultCacheConfig
+            .entryTtl(ttl)
+            .serializeValuesWith(RedisSerializationContext.SerializationPair
+                .fromSerializer(valueSerializer(cacheName, legacySerializer,
+                    serializationConfig, serializationMetrics)))));
+
+        return RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(defaultCacheConfig)
+                .withInitialCacheConfigurations(cacheConfigurations)
+                .build();
+    }
+
+    /**
+     * 缓存管理器配置：进程内一级缓存 + Redis二级缓存，@Cacheable等注解使用该管理器
+     */
+    @Bean
+    @Primary
+    public TwoLevelCacheManager cacheManager(RedisCacheManager redisCacheManager,
+                                             RedisTemplate<String, Object> redisTemplate,
+                                             LocalCacheConfig localCacheConfig,
+                                             CacheWarmupConfig warmupConfig) {
+        // 预热开启时统计各键的访问频率
+        HotKeyTracker hotKeyTracker = warmupConfig.isEnabled() ? new HotKeyTracker(warmupConfig.getTopK()) : null;
+        return new TwoLevelCacheManager(redisCacheManager, redisTemplate, localCacheConfig,
+            cacheTtls(), DEFAULT_CACHE_TTL, hotKeyTracker);
+    }
+
+    /**
+     * 各缓存区域在Redis中的过期时间，与CacheConfig中的常量保持一致
+     */
+    public static Map<String, Duration> cacheTtls() {
+        Map<String, Duration> cacheTtls = new LinkedHashMap<>();
         
         // 用户信息缓存：30分钟过期
-        cacheConfigurations.put(CacheNames.USER_CACHE, 
-            defaultCacheConfig.entryTtl(Duration.ofMinutes(30)));
+        cacheTtls.put(CacheNames.USER_CACHE, Duration.ofSeconds(CacheConfig.USER_EXPIRE_TIME));
         
         // 学习路径缓存：2小时过期
-        cacheConfigurations.put(CacheNames.LEARNING_PATH_CACHE, 
-            defaultCacheConfig.entryTtl(Duration.ofHours(2)));
+        cacheTtls.put(CacheNames.LEARNING_PATH_CACHE, Duration.ofSeconds(CacheConfig.LEARNING_PATH_EXPIRE_TIME));
         
         // 用户进度缓存：15分钟过期
-        cacheConfigurations.put(CacheNames.USER_PROGRESS_CACHE, 
-            defaultCacheConfig.entryTtl(Duration.ofMinutes(15)));
+        cacheTtls.put(CacheNames.USER_PROGRESS_CACHE, Duration.ofSeconds(CacheConfig.USER_PROGRESS_EXPIRE_TIME));
         
         // 代码分析结果缓存：6小时过期
-        cacheConfigurations.put(CacheNames.CODE_ANALYSIS_CACHE, 
-            defaultCacheConfig.entryTtl(Duration.ofHours(6)));
+        cacheTtls.put(CacheNames.CODE_ANALYSIS_CACHE, Duration.ofSeconds(CacheConfig.CODE_ANALYSIS_EXPIRE_TIME));
         
         // 对话会话缓存：1小时过期
-        cacheConfigurations.put(CacheNames.CONVERSATION_CACHE, 
-            defaultCacheConfig.entryTtl(Duration.ofHours(1)));
+        cacheTtls.put(CacheNames.CONVERSATION_CACHE, Duration.ofSeconds(CacheConfig.CONVERSATION_EXPIRE_TIME));
         
         // 学习统计缓存：30分钟过期
-        cacheConfigurations.put(CacheNames.STATISTICS_CACHE, 
-            defaultCacheConfig.entryTtl(Duration.ofMinutes(30)));
+        cacheTtls.put(CacheNames.STATISTICS_CACHE, Duration.ofSeconds(CacheConfig.STATISTICS_EXPIRE_TIME));
         
         // 热门内容缓存：1小时过期
-        cacheConfigurations.put(CacheNames.HOT_CONTENT_CACHE, 
-            defaultCacheConfig.entryTtl(Duration.ofHours(1)));
+        cacheTtls.put(CacheNames.HOT_CONTENT_CACHE, Duration.ofSeconds(CacheConfig.HOT_CONTENT_EXPIRE_TIME));
         
         // 排行榜缓存：5分钟过期
-        cacheConfigurations.put(CacheNames.LEADERBOARD_CACHE, 
-            defaultCacheConfig.entryTtl(Duration.ofMinutes(5)));
+        cacheTtls.put(CacheNames.LEADERBOARD_CACHE, Duration.ofSeconds(CacheConfig.LEADERBOARD_EXPIRE_TIME));
+        return cacheTtls;
+    }
 
-        return RedisCacheManager.builder(connectionFactory)
-                .cacheDefaults(defaultCacheConfig)
-                .withInitialCacheConfigurations(cacheConfigurations)
-                .build();
+    private RedisSerializer<Object> valueSerializer(String metricsName, RedisSerializer<Object> legacySerializer,
+                                                    CacheSerializationConfig serializationConfig,
+                                                    SerializationMetrics serializationMetrics) {
+        if (!serializationConfig.isCompactEnabled()) {
+            return legacySerializer;
+        }
+        return new CompactRedisSerializer(compactMapper(serializationConfig), legacySerializer,
+            serializationMetrics.forCache(metricsName),
+            serializationConfig.isCompressionEnabled(), serializationConfig.getCompressionThresholdBytes());
+    }
+
+    /**
+     * 所有紧凑序列化器共享同一个映射器与类型别名表
+     */
+    private ObjectMapper compactMapper(CacheSerializationConfig serializationConfig) {
+        if (compactMapper == null) {
+            synchronized (this) {
+                if (compactMapper == null) {
+                    TypeTable typeTable = TypeTable.withDefaults();
+                    serializationConfig.getTypeAliases().forEach((alias, className) -> {
+                        try {
+                            typeTable.register(alias, className);
+                        } catch (IllegalArgumentException e) {
+                            log.warn("Skipping cache type alias {}: {}", alias, e.getMessage());
+                        }
+                    });
+                    log.info("Compact cache serialization enabled with {} type aliases", typeTable.size());
+                    compactMapper = CompactRedisSerializer.createMapper(typeTable);
+                }
+            }
+        }
+        return compactMapper;
     }
 
     /**
@@ -177,6 +267,26 @@ public class RedisConfig {
             return CacheNames.STATISTICS_CACHE + SEPARATOR + type + SEPARATOR + period;
         }
         
+        /**
+         * 生成带命名空间版本的统计数据缓存键；版本为0（从未失效过）时与不带版本的键相同
+         */
+        public static String statisticsKey(String type, String period, long version) {
+            if (version <= 0) {
+                return statisticsKey(type, period);
+            }
+            return CacheNames.STATISTICS_CACHE + SEPARATOR + "v" + version + SEPARATOR + type + SEPARATOR + period;
+        }
+        
+        /**
+         * 生成注解缓存userProgress区域内的键（不含缓存名），带用户的命名空间版本；版本为0时为 userId_pathId
+         */
+        public static String userProgressCacheKey(Long userId, String pathId, long version) {
+            if (version <= 0) {
+                return userId + "_" + pathId;
+            }
+            return userId + "_v" + version + "_" + pathId;
+        }
+        
         /**
          * 生成热门内容缓存键
          */
@@ -0,0 +1,88 @@
+package com.codenavigator.core.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "conversation_messages",
+       indexes = @Index(name = "idx_session_time", columnList = "session_id, created_time"))
+public class ConversationMessage {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "session_id", nullable = false, length = 50)
+    private String sessionId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "message_type", nullable = false)
+    private MessageType messageType;
+    
+    @Column(nullable = false, columnDefinition = "text")
+    private String content;
+    
+    @Column(name = "created_time")
+    private LocalDateTime createdTime;
+    
+    // 消息类型枚举
+    public enum MessageType {
+        USER,
+        ASSISTANT,
+        SYSTEM
+    }
+    
+    // 无参构造函数
+    public ConversationMessage() {
+    }
+    
+    // 构造函数
+    public ConversationMessage(String sessionId, MessageType messageType, String content, LocalDateTime createdTime) {
+        this.sessionId = sessionId;
+        this.messageType = messageType;
+        this.content = content;
+        this.createdTime = createdTime;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getSessionId() {
+        return sessionId;
+    }
+    
+    public void setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+    }
+    
+    public MessageType getMessageType() {
+        return messageType;
+    }
+    
+    public void setMessageType(MessageType messageType) {
+        this.messageType = messageType;
+    }
+    
+    public String getContent() {
+        return content;
+    }
+    
+    public void setContent(String content) {
+        this.content = content;
+    }
+    
+    public LocalDateTime getCreatedTime() {
+        return createdTime;
+    }
+    
+    public void setCreatedTime(LocalDateTime createdTime) {
+        this.createdTime = createdTime;
+    }
+}
@@ -2,6 +2,7 @@ package com.codenavigator.core.entity;
 
 import com.codenavigator.common.enums.DifficultyLevel;
 import com.codenavigator.common.enums.UserLevel;
+import com.codenavigator.core.entity.listener.ExistenceFilterListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -15,6 +16,7 @@ import java.util.List;
 
 @Entity
 @Table(name = "learning_paths")
+@EntityListeners(ExistenceFilterListener.class)
 @Data
 @Builder
 @NoArgsConstructor
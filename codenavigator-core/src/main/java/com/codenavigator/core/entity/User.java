@@ -1,6 +1,7 @@
 package com.codenavigator.core.entity;
 
 import com.codenavigator.common.enums.UserLevel;
+import com.codenavigator.core.entity.listener.ExistenceFilterListener;
 import jakarta.persistence.*;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
@@ -10,6 +11,7 @@ import java.util.List;
 
 @Entity
 @Table(name = "users")
+@EntityListeners(ExistenceFilterListener.class)
 public class User {
     
     @Id
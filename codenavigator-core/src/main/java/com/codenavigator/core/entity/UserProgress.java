@@ -1,6 +1,7 @@
 package com.codenavigator.core.entity;
 
 import com.codenavigator.common.enums.ProgressStatus;
+import com.codenavigator.core.entity.listener.LeaderboardProgressListener;
 import jakarta.persistence.*;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
@@ -9,6 +10,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "user_progress")
+@EntityListeners(LeaderboardProgressListener.class)
 public class UserProgress {
     
     @Id
@@ -60,6 +62,10 @@ public class UserProgress {
     @Column(nullable = false)
     private LocalDateTime updatedAt;
     
+    // 从数据库加载或上次保存时的状态，用于判断本次保存是否完成了学习路径
+    @Transient
+    private ProgressStatus persistedStatus;
+    
     // 无参构造函数
     public UserProgress() {
     }
@@ -201,4 +207,12 @@ public class UserProgress {
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
+    
+    public ProgressStatus getPersistedStatus() {
+        return persistedStatus;
+    }
+    
+    public void setPersistedStatus(ProgressStatus persistedStatus) {
+        this.persistedStatus = persistedStatus;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,7 @@
+package com.codenavigator.core.entity.listener;
+
+/**
+ * 带有ExistenceFilterListener的实体已插入；在插入的事务内同步发布
+ */
+public record EntityInsertedEvent(Object entity) {
+}
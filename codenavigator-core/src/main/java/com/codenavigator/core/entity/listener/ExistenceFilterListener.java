@@ -0,0 +1,22 @@
+package com.codenavigator.core.entity.listener;
+
+import jakarta.persistence.PostPersist;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * 实体插入后发布EntityInsertedEvent，由存在性过滤器记入
+ * 由Hibernate通过Spring容器创建；以事件通知过滤器，实体层不依赖服务层
+ */
+public class ExistenceFilterListener {
+
+    @Autowired(required = false)
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    public void onPersist(Object entity) {
+        if (eventPublisher != null) {
+            eventPublisher.publishEvent(new EntityInsertedEvent(entity));
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.codenavigator.core.entity.listener;
+
+import com.codenavigator.common.enums.ProgressStatus;
+import com.codenavigator.core.entity.UserProgress;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * 用户进度保存时检测学习路径完成，发布LearningPathCompletedEvent
+ * 由Hibernate通过Spring容器创建；以事件通知排行榜，实体层不依赖服务层
+ */
+public class LeaderboardProgressListener {
+
+    @Autowired(required = false)
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostLoad
+    public void onLoad(UserProgress progress) {
+        progress.setPersistedStatus(progress.getStatus());
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(UserProgress progress) {
+        // 只在状态变为已完成的那次保存时发布
+        boolean completed = progress.getStatus() == ProgressStatus.COMPLETED
+                && progress.getPersistedStatus() != ProgressStatus.COMPLETED;
+        progress.setPersistedStatus(progress.getStatus());
+        if (completed && eventPublisher != null) {
+            eventPublisher.publishEvent(new LearningPathCompletedEvent(progress));
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.codenavigator.core.entity.listener;
+
+import com.codenavigator.core.entity.UserProgress;
+
+/**
+ * 用户进度的状态变为已完成；在保存进度的事务内同步发布
+ */
+public record LearningPathCompletedEvent(UserProgress progress) {
+}
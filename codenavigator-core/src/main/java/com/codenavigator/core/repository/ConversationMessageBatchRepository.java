@@ -0,0 +1,17 @@
+package com.codenavigator.core.repository;
+
+import com.codenavigator.core.entity.ConversationMessage;
+
+import java.util.List;
+
+/**
+ * 对话消息批量写入
+ * IDENTITY主键会让Hibernate逐条插入，批量归档时直接使用JDBC批处理
+ */
+public interface ConversationMessageBatchRepository {
+
+    /**
+     * 以单个JDBC批次插入消息，返回写入条数
+     */
+    int batchInsert(List<ConversationMessage> messages);
+}
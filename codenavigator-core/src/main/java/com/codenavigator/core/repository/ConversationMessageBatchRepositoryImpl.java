@@ -0,0 +1,33 @@
+package com.codenavigator.core.repository;
+
+import com.codenavigator.core.entity.ConversationMessage;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class ConversationMessageBatchRepositoryImpl implements ConversationMessageBatchRepository {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO conversation_messages (session_id, message_type, content, created_time) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int batchInsert(List<ConversationMessage> messages) {
+        if (messages.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, messages, messages.size(), (statement, message) -> {
+            LocalDateTime createdTime = message.getCreatedTime() != null ? message.getCreatedTime() : LocalDateTime.now();
+            statement.setString(1, message.getSessionId());
+            statement.setString(2, message.getMessageType().name());
+            statement.setString(3, message.getContent());
+            statement.setTimestamp(4, Timestamp.valueOf(createdTime));
+        });
+        return messages.size();
+    }
+}
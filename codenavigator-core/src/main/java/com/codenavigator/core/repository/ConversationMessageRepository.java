@@ -0,0 +1,34 @@
+package com.codenavigator.core.repository;
+
+import com.codenavigator.core.entity.ConversationMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface ConversationMessageRepository extends JpaRepository<ConversationMessage, Long>,
+        ConversationMessageBatchRepository {
+
+    /**
+     * 按写入顺序查找会话的全部消息
+     */
+    List<ConversationMessage> findBySessionIdOrderByIdAsc(String sessionId);
+
+    /**
+     * 统计会话已归档的消息数量
+     */
+    long countBySessionId(String sessionId);
+
+    /**
+     * 删除会话的全部消息
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ConversationMessage m WHERE m.sessionId = :sessionId")
+    int deleteBySessionId(@Param("sessionId") String sessionId);
+}
@@ -0,0 +1,20 @@
+package com.codenavigator.core.repository;
+
+import com.codenavigator.core.entity.LearningModule;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface LearningModuleRepository extends JpaRepository<LearningModule, String> {
+
+    /**
+     * 按ID顺序分批读取学习模块ID（键集分页），用于重建存在性过滤器
+     */
+    @Query("SELECT m.id FROM LearningModule m WHERE m.id > :afterId ORDER BY m.id")
+    List<String> findIdsAfter(@Param("afterId") String afterId, Pageable pageable);
+}
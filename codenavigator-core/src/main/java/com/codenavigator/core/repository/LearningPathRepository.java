@@ -164,4 +164,10 @@ public interface LearningPathRepository extends JpaRepository<LearningPath, Stri
     @Query("SELECT lp FROM LearningPath lp WHERE lp.isActive = true " +
            "AND lp.averageRating >= :minRating ORDER BY lp.averageRating DESC")
     List<LearningPath> findHighRatedPaths(@Param("minRating") Double minRating, Pageable pageable);
+
+    /**
+     * 按ID顺序分批读取学习路径ID（键集分页），用于重建存在性过滤器
+     */
+    @Query("SELECT lp.id FROM LearningPath lp WHERE lp.id > :afterId ORDER BY lp.id")
+    List<String> findIdsAfter(@Param("afterId") String afterId, Pageable pageable);
 }
\ No newline at end of file
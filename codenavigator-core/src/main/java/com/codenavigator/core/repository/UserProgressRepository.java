@@ -173,6 +173,25 @@ public interface UserProgressRepository extends JpaRepository<UserProgress, Long
         """, nativeQuery = true)
     List<Object[]> getLeaderboard(@Param("limit") int limit);
 
+    /**
+     * 按用户ID顺序分批汇总已完成路径数与完成度之和（键集分页），用于Redis排行榜对账
+     */
+    @Query(value = """
+        SELECT 
+            u.id,
+            u.username,
+            u.avatar,
+            COUNT(up.id) as completed_paths,
+            SUM(up.completion_percentage) as progress_sum
+        FROM users u
+        INNER JOIN user_progress up ON u.id = up.user_id
+        WHERE up.status = 'COMPLETED' AND u.id > :afterUserId
+        GROUP BY u.id, u.username, u.avatar
+        ORDER BY u.id
+        LIMIT :limit
+        """, nativeQuery = true)
+    List<Object[]> getLeaderboardTotalsAfter(@Param("afterUserId") Long afterUserId, @Param("limit") int limit);
+
     /**
      * 查找学习路径的每日完成统计
      */
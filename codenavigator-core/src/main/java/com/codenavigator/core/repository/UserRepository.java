@@ -133,4 +133,10 @@ public interface UserRepository extends JpaRepository<User, Long> {
         FROM users
         """, nativeQuery = true)
     Object[] getUserStatistics(@Param("recentDate") LocalDateTime recentDate);
+
+    /**
+     * 按ID顺序分批读取用户ID（键集分页），用于重建存在性过滤器
+     */
+    @Query("SELECT u.id FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,226 @@
+package com.codenavigator.core.serializer;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DatabindContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.cfg.MapperConfig;
+import com.fasterxml.jackson.databind.jsontype.NamedType;
+import com.fasterxml.jackson.databind.jsontype.PolymorphicTypeValidator;
+import com.fasterxml.jackson.databind.jsontype.TypeIdResolver;
+import com.fasterxml.jackson.databind.jsontype.impl.ClassNameIdResolver;
+import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * 紧凑的二进制Redis值序列化器
+ * 使用Smile格式编码，类型信息通过{@link TypeTable}写成短别名；超过阈值的载荷用LZ4压缩。
+ * 首字节标记编码格式，无法识别时交给旧的JSON序列化器解码，便于存量数据平滑迁移
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    static final byte FORMAT_SMILE = 0x01;
+    static final byte FORMAT_SMILE_LZ4 = 0x02;
+    // 格式标记1字节 + 原始长度4字节
+    private static final int LZ4_HEADER_BYTES = 5;
+
+    private static final LZ4Factory LZ4 = LZ4Factory.fastestInstance();
+
+    private final ObjectMapper mapper;
+    private final RedisSerializer<Object> legacySerializer;
+    private final SerializationMetrics.CacheMetrics metrics;
+    private final boolean compressionEnabled;
+    private final int compressionThresholdBytes;
+
+    /**
+     * @param mapper 由{@link #createMapper(TypeTable)}创建的Smile映射器，可在多个序列化器间共享
+     * @param legacySerializer 解码旧格式数据的序列化器，为null时遇到旧格式直接报错
+     */
+    public CompactRedisSerializer(ObjectMapper mapper, RedisSerializer<Object> legacySerializer,
+                                  SerializationMetrics.CacheMetrics metrics,
+                                  boolean compressionEnabled, int compressionThresholdBytes) {
+        this.mapper = mapper;
+        this.legacySerializer = legacySerializer;
+        this.metrics = metrics;
+        this.compressionEnabled = compressionEnabled;
+        this.compressionThresholdBytes = compressionThresholdBytes;
+    }
+
+    /**
+     * 创建与旧JSON序列化器相同可见性与默认类型策略的Smile映射器，类型ID使用别名表
+     */
+    public static ObjectMapper createMapper(TypeTable typeTable) {
+        SmileFactory factory = SmileFactory.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build();
+        ObjectMapper mapper = new ObjectMapper(factory);
+        mapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
+        // 缓存数据会跨版本读取，字段删减不应导致读取失败
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        mapper.registerModule(new JavaTimeModule());
+        mapper.setDefaultTyping(new TypeTableResolverBuilder(typeTable)
+                .init(JsonTypeInfo.Id.CLASS, null)
+                .inclusion(JsonTypeInfo.As.WRAPPER_ARRAY));
+        return mapper;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+
+        long start = System.nanoTime();
+        byte[] encoded;
+        try {
+            encoded = mapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new SerializationException("Could not write compact value: " + e.getMessage(), e);
+        }
+
+        byte[] payload = null;
+        if (compressionEnabled && encoded.length >= compressionThresholdBytes) {
+            payload = compress(encoded);
+        }
+        boolean compressed = payload != null;
+        if (!compressed) {
+            payload = new byte[encoded.length + 1];
+            payload[0] = FORMAT_SMILE;
+            System.arraycopy(encoded, 0, payload, 1, encoded.length);
+        }
+        metrics.recordEncode(System.nanoTime() - start, encoded.length, payload.length, compressed);
+        return payload;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+
+        long start = System.nanoTime();
+        Object value;
+        boolean legacy = false;
+        try {
+            if (bytes[0] == FORMAT_SMILE) {
+                value = mapper.readValue(bytes, 1, bytes.length - 1, Object.class);
+            } else if (bytes[0] == FORMAT_SMILE_LZ4) {
+                byte[] encoded = decompress(bytes);
+                value = mapper.readValue(encoded, Object.class);
+            } else if (legacySerializer != null) {
+                legacy = true;
+                value = legacySerializer.deserialize(bytes);
+            } else {
+                throw new SerializationException("Unknown value format: " + bytes[0]);
+            }
+        } catch (IOException e) {
+            throw new SerializationException("Could not read compact value: " + e.getMessage(), e);
+        }
+        metrics.recordDecode(System.nanoTime() - start, legacy);
+        return value;
+    }
+
+    /**
+     * 压缩后没有变小时返回null，按未压缩格式存储
+     */
+    private byte[] compress(byte[] encoded) {
+        LZ4Compressor compressor = LZ4.fastCompressor();
+        int maxLength = compressor.maxCompressedLength(encoded.length);
+        byte[] output = new byte[LZ4_HEADER_BYTES + maxLength];
+        int compressedLength = compressor.compress(encoded, 0, encoded.length, output, LZ4_HEADER_BYTES, maxLength);
+        if (LZ4_HEADER_BYTES + compressedLength >= encoded.length + 1) {
+            return null;
+        }
+        output[0] = FORMAT_SMILE_LZ4;
+        output[1] = (byte) (encoded.length >>> 24);
+        output[2] = (byte) (encoded.length >>> 16);
+        output[3] = (byte) (encoded.length >>> 8);
+        output[4] = (byte) encoded.length;
+        return Arrays.copyOf(output, LZ4_HEADER_BYTES + compressedLength);
+    }
+
+    private byte[] decompress(byte[] payload) {
+        if (payload.length < LZ4_HEADER_BYTES) {
+            throw new SerializationException("Truncated compressed value");
+        }
+        int length = ((payload[1] & 0xFF) << 24) | ((payload[2] & 0xFF) << 16)
+                | ((payload[3] & 0xFF) << 8) | (payload[4] & 0xFF);
+        byte[] encoded = new byte[length];
+        try {
+            LZ4.fastDecompressor().decompress(payload, LZ4_HEADER_BYTES, encoded, 0, length);
+        } catch (RuntimeException e) {
+            throw new SerializationException("Could not decompress value: " + e.getMessage(), e);
+        }
+        return encoded;
+    }
+
+    /**
+     * 沿用NON_FINAL默认类型策略，仅替换类型ID的生成与解析
+     */
+    private static class TypeTableResolverBuilder extends ObjectMapper.DefaultTypeResolverBuilder {
+
+        private final TypeTable typeTable;
+
+        TypeTableResolverBuilder(TypeTable typeTable) {
+            super(ObjectMapper.DefaultTyping.NON_FINAL, LaissezFaireSubTypeValidator.instance);
+            this.typeTable = typeTable;
+        }
+
+        private TypeTableResolverBuilder(TypeTableResolverBuilder base, Class<?> defaultImpl) {
+            super(base, defaultImpl);
+            this.typeTable = base.typeTable;
+        }
+
+        @Override
+        public ObjectMapper.DefaultTypeResolverBuilder withDefaultImpl(Class<?> defaultImpl) {
+            return new TypeTableResolverBuilder(this, defaultImpl);
+        }
+
+        @Override
+        protected TypeIdResolver idResolver(MapperConfig<?> config, JavaType baseType,
+                                            PolymorphicTypeValidator subtypeValidator,
+                                            Collection<NamedType> subtypes, boolean forSer, boolean forDeser) {
+            return new TypeTableIdResolver(baseType, config.getTypeFactory(), subtypeValidator, typeTable);
+        }
+    }
+
+    private static class TypeTableIdResolver extends ClassNameIdResolver {
+
+        private final TypeTable typeTable;
+
+        TypeTableIdResolver(JavaType baseType, TypeFactory typeFactory,
+                            PolymorphicTypeValidator subtypeValidator, TypeTable typeTable) {
+            super(baseType, typeFactory, subtypeValidator);
+            this.typeTable = typeTable;
+        }
+
+        @Override
+        protected String _idFrom(Object value, Class<?> cls, TypeFactory typeFactory) {
+            String alias = typeTable.aliasOf(cls);
+            return alias != null ? alias : super._idFrom(value, cls, typeFactory);
+        }
+
+        @Override
+        public JavaType typeFromId(DatabindContext context, String id) throws IOException {
+            Class<?> type = typeTable.classOf(id);
+            if (type != null) {
+                return context.getTypeFactory().constructSpecializedType(_baseType, type);
+            }
+            return super.typeFromId(context, id);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.codenavigator.core.serializer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按缓存名称统计序列化载荷大小与编解码耗时
+ */
+public class SerializationMetrics {
+
+    private final Map<String, CacheMetrics> metrics = new ConcurrentHashMap<>();
+
+    public CacheMetrics forCache(String cacheName) {
+        return metrics.computeIfAbsent(cacheName, name -> new CacheMetrics());
+    }
+
+    /**
+     * 所有缓存的统计快照，按缓存名称排序
+     */
+    public Map<String, Map<String, Object>> snapshot() {
+        Map<String, Map<String, Object>> snapshot = new TreeMap<>();
+        metrics.forEach((name, cacheMetrics) -> snapshot.put(name, cacheMetrics.toMap()));
+        return snapshot;
+    }
+
+    public static class CacheMetrics {
+        private final LongAdder encodeCount = new LongAdder();
+        private final LongAdder encodeNanos = new LongAdder();
+        private final LongAdder decodeCount = new LongAdder();
+        private final LongAdder decodeNanos = new LongAdder();
+        private final LongAdder rawBytes = new LongAdder();
+        private final LongAdder storedBytes = new LongAdder();
+        private final LongAdder compressedCount = new LongAdder();
+        private final LongAdder legacyDecodeCount = new LongAdder();
+        private final LongAccumulator maxStoredBytes = new LongAccumulator(Math::max, 0);
+
+        /**
+         * @param rawSize 压缩前的字节数
+         * @param storedSize 实际写入Redis的字节数
+         */
+        void recordEncode(long nanos, int rawSize, int storedSize, boolean compressed) {
+            encodeCount.increment();
+            encodeNanos.add(nanos);
+            rawBytes.add(rawSize);
+            storedBytes.add(storedSize);
+            maxStoredBytes.accumulate(storedSize);
+            if (compressed) {
+                compressedCount.increment();
+            }
+        }
+
+        void recordDecode(long nanos, boolean legacy) {
+            decodeCount.increment();
+            decodeNanos.add(nanos);
+            if (legacy) {
+                legacyDecodeCount.increment();
+            }
+        }
+
+        public Map<String, Object> toMap() {
+            long encodes = encodeCount.sum();
+            long decodes = decodeCount.sum();
+            long raw = rawBytes.sum();
+            long stored = storedBytes.sum();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("encodeCount", encodes);
+            map.put("decodeCount", decodes);
+            map.put("avgEncodeMicros", encodes == 0 ? 0 : encodeNanos.sum() / encodes / 1000.0);
+            map.put("avgDecodeMicros", decodes == 0 ? 0 : decodeNanos.sum() / decodes / 1000.0);
+            map.put("avgPayloadBytes", encodes == 0 ? 0 : stored / encodes);
+            map.put("maxPayloadBytes", maxStoredBytes.get());
+            map.put("compressionRatio", stored == 0 ? 1.0 : (double) raw / stored);
+            map.put("compressedCount", compressedCount.sum());
+            map.put("legacyDecodeCount", legacyDecodeCount.sum());
+            return map;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.codenavigator.core.serializer;
+
+import com.codenavigator.core.cache.CachedValue;
+import com.codenavigator.core.entity.LearningModule;
+import com.codenavigator.core.entity.LearningNote;
+import com.codenavigator.core.entity.LearningPath;
+import com.codenavigator.core.entity.User;
+import com.codenavigator.core.entity.UserProgress;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 类型别名表
+ * 序列化时用短别名代替全限定类名写入类型信息，未注册的类型仍写类名。
+ * 别名会持久化在Redis中，已发布的别名不能删除或改指其他类
+ */
+public class TypeTable {
+
+    private final Map<String, Class<?>> classesByAlias = new ConcurrentHashMap<>();
+    private final Map<Class<?>, String> aliasesByClass = new ConcurrentHashMap<>();
+
+    /**
+     * 创建包含常用集合类型与核心实体的默认别名表
+     */
+    public static TypeTable withDefaults() {
+        TypeTable table = new TypeTable();
+        table.register("AL", ArrayList.class);
+        table.register("LL", LinkedList.class);
+        table.register("HM", HashMap.class);
+        table.register("LHM", LinkedHashMap.class);
+        table.register("TM", TreeMap.class);
+        table.register("HS", HashSet.class);
+        table.register("LHS", LinkedHashSet.class);
+        table.register("TS", TreeSet.class);
+        table.register("User", User.class);
+        table.register("LearningPath", LearningPath.class);
+        table.register("LearningModule", LearningModule.class);
+        table.register("LearningNote", LearningNote.class);
+        table.register("UserProgress", UserProgress.class);
+        table.register("CachedValue", CachedValue.class);
+        return table;
+    }
+
+    public TypeTable register(String alias, Class<?> type) {
+        if (alias == null || alias.isEmpty() || alias.indexOf('.') >= 0) {
+            // 别名不能含'.'，以免与未注册类型的类名混淆
+            throw new IllegalArgumentException("Invalid type alias: " + alias);
+        }
+        Class<?> existingClass = classesByAlias.putIfAbsent(alias, type);
+        if (existingClass != null && existingClass != type) {
+            throw new IllegalArgumentException("Type alias " + alias + " already registered for " + existingClass.getName());
+        }
+        String existingAlias = aliasesByClass.putIfAbsent(type, alias);
+        if (existingAlias != null && !existingAlias.equals(alias)) {
+            throw new IllegalArgumentException("Type " + type.getName() + " already registered as " + existingAlias);
+        }
+        return this;
+    }
+
+    /**
+     * 按类名注册，类不在当前classpath上时抛出IllegalArgumentException
+     */
+    public TypeTable register(String alias, String className) {
+        try {
+            return register(alias, Class.forName(className, false, TypeTable.class.getClassLoader()));
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("Unknown class for type alias " + alias + ": " + className, e);
+        }
+    }
+
+    public String aliasOf(Class<?> type) {
+        return aliasesByClass.get(type);
+    }
+
+    public Class<?> classOf(String alias) {
+        return classesByAlias.get(alias);
+    }
+
+    public int size() {
+        return classesByAlias.size();
+    }
+}
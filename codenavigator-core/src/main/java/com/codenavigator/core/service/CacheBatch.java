@@ -0,0 +1,87 @@
+package com.codenavigator.core.service;
+
+import org.springframework.data.redis.core.RedisOperations;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 管道批处理中的命令集合，由CacheService.pipelined在管道内创建
+ * 命令不会立即返回结果，全部结果在管道提交后按顺序一次性返回并统一反序列化；
+ * SET等只返回状态（OK）的命令不计入结果
+ */
+public class CacheBatch {
+
+    private final RedisOperations<String, Object> operations;
+    private int commands;
+
+    CacheBatch(RedisOperations<String, Object> operations) {
+        this.operations = operations;
+    }
+
+    public CacheBatch get(String key) {
+        operations.opsForValue().get(key);
+        commands++;
+        return this;
+    }
+
+    public CacheBatch set(String key, Object value) {
+        operations.opsForValue().set(key, value);
+        commands++;
+        return this;
+    }
+
+    public CacheBatch set(String key, Object value, long timeout, TimeUnit unit) {
+        operations.opsForValue().set(key, value, timeout, unit);
+        commands++;
+        return this;
+    }
+
+    public CacheBatch delete(String key) {
+        operations.delete(key);
+        commands++;
+        return this;
+    }
+
+    public CacheBatch exists(String key) {
+        operations.hasKey(key);
+        commands++;
+        return this;
+    }
+
+    public CacheBatch expire(String key, long timeout, TimeUnit unit) {
+        operations.expire(key, timeout, unit);
+        commands++;
+        return this;
+    }
+
+    public CacheBatch hGet(String key, String hashKey) {
+        operations.opsForHash().get(key, hashKey);
+        commands++;
+        return this;
+    }
+
+    public CacheBatch hSet(String key, String hashKey, Object value) {
+        operations.opsForHash().put(key, hashKey, value);
+        commands++;
+        return this;
+    }
+
+    public CacheBatch hGetAll(String key) {
+        operations.opsForHash().entries(key);
+        commands++;
+        return this;
+    }
+
+    public CacheBatch zAdd(String key, Object value, double score) {
+        operations.opsForZSet().add(key, value, score);
+        commands++;
+        return this;
+    }
+
+    /**
+     * 已加入管道的命令数
+     */
+    public int size() {
+        return commands;
+    }
+}
@@ -0,0 +1,230 @@
+package com.codenavigator.core.service;
+
+import com.codenavigator.core.config.RedisConfig;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 缓存命名空间版本
+ * 用户进度与统计数据的缓存键中带有所属命名空间的版本号，失效整个命名空间只需对版本计数器执行一次INCR，
+ * 旧版本的键不再被读取，随各自的TTL过期。版本计数器以原始整数存放在Redis中且不设过期时间，本地缓存很短时间以减少读取。
+ * Redis降级期间不访问Redis，沿用本地已知的版本；期间的失效先在本地生效，并在Redis恢复访问之前补做INCR
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CacheNamespaceVersions {
+
+    private static final String VERSION_KEY_PREFIX = "version:";
+    private static final String USER_NAMESPACE = "user:";
+    private static final String STATISTICS_NAMESPACE = "statistics";
+    private static final int MAX_LOCAL_VERSIONS = 10000;
+
+    private static final RedisSerializer<String> KEY_SERIALIZER = RedisSerializer.string();
+
+    private final CacheService cacheService;
+
+    // 其他节点执行的失效最多在该时间后可见
+    @Value("${codenavigator.cache.version.local-ttl-ms:1000}")
+    private long localTtlMs = 1000;
+
+    private record LocalVersion(long version, long fetchedAt) {
+    }
+
+    // 版本计数器键 -> 本地缓存的版本（按访问顺序淘汰），所有访问都在localVersions锁内进行
+    private final LinkedHashMap<String, LocalVersion> localVersions = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, LocalVersion> eldest) {
+            return size() > MAX_LOCAL_VERSIONS;
+        }
+    };
+
+    // 未能写入Redis的失效，由CacheService在恢复时补做；同一命名空间多次失效只需一次INCR
+    private final Set<String> pendingInvalidations = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong versionReads = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        cacheService.addRecoveryTask(this::replayPendingInvalidations);
+    }
+
+    /**
+     * 用户命名空间（用户进度缓存）的当前版本
+     */
+    public long userVersion(Long userId) {
+        return version(VERSION_KEY_PREFIX + USER_NAMESPACE + userId);
+    }
+
+    /**
+     * 统计数据命名空间的当前版本
+     */
+    public long statisticsVersion() {
+        return version(VERSION_KEY_PREFIX + STATISTICS_NAMESPACE);
+    }
+
+    /**
+     * 注解缓存中用户进度的键，供@Cacheable等注解的SpEL使用
+     */
+    public String userProgressKey(Long userId, String pathId) {
+        return RedisConfig.CacheKeyGenerator.userProgressCacheKey(userId, pathId, userVersion(userId));
+    }
+
+    /**
+     * 统计数据的缓存键
+     */
+    public String statisticsKey(String type, String period) {
+        return RedisConfig.CacheKeyGenerator.statisticsKey(type, period, statisticsVersion());
+    }
+
+    /**
+     * 失效用户的全部进度缓存
+     *
+     * @return 新版本，失败时返回-1
+     */
+    public long invalidateUser(Long userId) {
+        return increment(VERSION_KEY_PREFIX + USER_NAMESPACE + userId);
+    }
+
+    /**
+     * 失效全部统计数据缓存
+     *
+     * @return 新版本，失败时返回-1
+     */
+    public long invalidateStatistics() {
+        return increment(VERSION_KEY_PREFIX + STATISTICS_NAMESPACE);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (localVersions) {
+            stats.put("localVersions", localVersions.size());
+        }
+        stats.put("versionReads", versionReads.get());
+        stats.put("invalidations", invalidations.get());
+        stats.put("pendingInvalidations", pendingInvalidations.size());
+        stats.put("localTtlMs", localTtlMs);
+        return stats;
+    }
+
+    private long version(String versionKey) {
+        long now = System.currentTimeMillis();
+        LocalVersion local;
+        synchronized (localVersions) {
+            local = localVersions.get(versionKey);
+        }
+        // 有未补做的失效时Redis中仍是旧版本，继续使用本地先行增加的版本
+        if (local != null && (now - local.fetchedAt() < localTtlMs || pendingInvalidations.contains(versionKey))) {
+            return local.version();
+        }
+        if (!cacheService.isRedisAvailable()) {
+            return local != null ? local.version() : 0;
+        }
+
+        try {
+            versionReads.incrementAndGet();
+            byte[] raw = cacheService.execute((RedisCallback<byte[]>) connection ->
+                    connection.stringCommands().get(KEY_SERIALIZER.serialize(versionKey)));
+            long version = raw != null ? Long.parseLong(new String(raw, StandardCharsets.UTF_8)) : 0;
+            remember(versionKey, version, now);
+            return version;
+        } catch (Exception e) {
+            // 读取失败时沿用本地已知的版本
+            log.warn("Failed to read cache namespace version: key={}, error={}", versionKey, e.getMessage());
+            return local != null ? local.version() : 0;
+        }
+    }
+
+    private long increment(String versionKey) {
+        if (!cacheService.isRedisAvailable()) {
+            deferInvalidation(versionKey);
+            return -1;
+        }
+        try {
+            long version = incr(versionKey);
+            if (version > 0) {
+                remember(versionKey, version, System.currentTimeMillis());
+                invalidations.incrementAndGet();
+            }
+            log.debug("Cache namespace invalidated: key={}, version={}", versionKey, version);
+            return version;
+        } catch (Exception e) {
+            log.error("Failed to invalidate cache namespace, will retry on recovery: key={}", versionKey, e);
+            deferInvalidation(versionKey);
+            return -1;
+        }
+    }
+
+    private long incr(String versionKey) {
+        // PERSIST清除早期版本为计数器设置的过期时间
+        List<Object> results = cacheService.executePipelined((RedisCallback<Object>) connection -> {
+            byte[] rawKey = KEY_SERIALIZER.serialize(versionKey);
+            connection.stringCommands().incr(rawKey);
+            connection.keyCommands().persist(rawKey);
+            return null;
+        });
+        return results != null && !results.isEmpty() && results.get(0) instanceof Long value ? value : -1;
+    }
+
+    /**
+     * 记录未写入Redis的失效；本地版本先行加一，本节点随即改用新的键，不再读到失效前的数据
+     */
+    private void deferInvalidation(String versionKey) {
+        pendingInvalidations.add(versionKey);
+        synchronized (localVersions) {
+            LocalVersion local = localVersions.get(versionKey);
+            long version = (local != null ? local.version() : 0) + 1;
+            localVersions.put(versionKey, new LocalVersion(version, System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * 补做降级期间未写入Redis的失效，失败的部分放回并抛出异常，由CacheService保持降级并稍后重试
+     */
+    private void replayPendingInvalidations() {
+        for (String versionKey : List.copyOf(pendingInvalidations)) {
+            if (!pendingInvalidations.remove(versionKey)) {
+                continue;
+            }
+            long version;
+            try {
+                version = incr(versionKey);
+            } catch (RuntimeException e) {
+                pendingInvalidations.add(versionKey);
+                throw e;
+            }
+            // 以Redis中的版本为准，覆盖降级期间本地先行增加的版本
+            synchronized (localVersions) {
+                localVersions.put(versionKey, new LocalVersion(version, System.currentTimeMillis()));
+            }
+            invalidations.incrementAndGet();
+            log.info("Replayed cache namespace invalidation: key={}, version={}", versionKey, version);
+        }
+    }
+
+    private void remember(String versionKey, long version, long fetchedAt) {
+        synchronized (localVersions) {
+            LocalVersion existing = localVersions.get(versionKey);
+            // 版本只增不减，避免较早发起的读取覆盖刚写入的新版本；
+            // 本地版本已超过本地缓存期时以Redis为准，计数器被删除或重置后不会一直停留在本地的旧值
+            if (existing == null || existing.version() <= version || fetchedAt - existing.fetchedAt() >= localTtlMs) {
+                localVersions.put(versionKey, new LocalVersion(version, fetchedAt));
+            }
+        }
+    }
+}
@@ -1,16 +1,53 @@
 package com.codenavigator.core.service;
 
+import com.codenavigator.core.cache.CachedValue;
+import com.codenavigator.core.cache.HotKeyReplica;
+import com.codenavigator.core.cache.LocalFallbackCache;
+import com.codenavigator.core.cache.RedisHealthMonitor;
+import com.codenavigator.core.cache.SlidingWindowHotKeyDetector;
 import com.codenavigator.core.config.RedisConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @Slf4j
 @Service
@@ -19,12 +56,195 @@ public class CacheService {
 
     private final RedisTemplate<String, Object> redisTemplate;
 
+    // 与RedisConfig中模板的键序列化方式一致，管道中直接发送原始命令时使用
+    private static final RedisSerializer<String> KEY_SERIALIZER = RedisSerializer.string();
+
+    @Value("${codenavigator.cache.scan.count:1000}")
+    private int scanCount = 1000;
+
+    @Value("${codenavigator.cache.scan.unlink-batch-size:200}")
+    private int unlinkBatchSize = 200;
+
+    // 批量读写时每个MGET/管道包含的键数上限，避免单条命令过大阻塞Redis
+    @Value("${codenavigator.cache.batch.size:500}")
+    private int batchSize = 500;
+
+    @Value("${codenavigator.cache.key-count.enabled:true}")
+    private boolean keyCountEnabled = true;
+
+    @Value("${codenavigator.cache.key-count.interval-ms:300000}")
+    private long keyCountIntervalMs = 300000;
+
+    @Value("${codenavigator.cache.key-count.pause-ms:2}")
+    private long keyCountPauseMs = 2;
+
+    // getOrLoad：XFetch提前刷新系数，越大越早刷新
+    @Value("${codenavigator.cache.loader.beta:1.0}")
+    private double loaderBeta = 1.0;
+
+    // getOrLoad：逻辑过期后继续返回旧值的窗口，占TTL的比例
+    @Value("${codenavigator.cache.loader.stale-ratio:0.2}")
+    private double loaderStaleRatio = 0.2;
+
+    // getOrLoad：跨节点加载锁的过期时间，应大于最慢一次加载的耗时
+    @Value("${codenavigator.cache.loader.lock-ttl-ms:30000}")
+    private long loaderLockTtlMs = 30000;
+
+    // getOrLoad：其他节点持有加载锁时等待其结果的最长时间，超时后本节点自行加载
+    @Value("${codenavigator.cache.loader.lock-wait-ms:3000}")
+    private long loaderLockWaitMs = 3000;
+
+    @Value("${codenavigator.cache.loader.refresh-threads:2}")
+    private int loaderRefreshThreads = 2;
+
+    // 热点键检测：窗口内单节点读取次数达到阈值的键复制到本地，副本只保留很短时间
+    @Value("${codenavigator.cache.hot-key.enabled:true}")
+    private boolean hotKeyEnabled = true;
+
+    @Value("${codenavigator.cache.hot-key.window-ms:10000}")
+    private long hotKeyWindowMs = 10000;
+
+    @Value("${codenavigator.cache.hot-key.buckets:5}")
+    private int hotKeyBuckets = 5;
+
+    @Value("${codenavigator.cache.hot-key.threshold:200}")
+    private int hotKeyThreshold = 200;
+
+    @Value("${codenavigator.cache.hot-key.replica-ttl-ms:2000}")
+    private long hotKeyReplicaTtlMs = 2000;
+
+    @Value("${codenavigator.cache.hot-key.replica-max-entries:256}")
+    private int hotKeyReplicaMaxEntries = 256;
+
+    // Redis不可用时的降级：连续失败（或慢调用）达到阈值后不再访问Redis，读写改用本地替代缓存，
+    // 后台探测到Redis恢复后先删除降级期间修改过的键再恢复访问
+    @Value("${codenavigator.cache.resilience.enabled:true}")
+    private boolean resilienceEnabled = true;
+
+    @Value("${codenavigator.cache.resilience.failure-threshold:3}")
+    private int resilienceFailureThreshold = 3;
+
+    @Value("${codenavigator.cache.resilience.slow-call-ms:1000}")
+    private long resilienceSlowCallMs = 1000;
+
+    @Value("${codenavigator.cache.resilience.probe-interval-ms:2000}")
+    private long resilienceProbeIntervalMs = 2000;
+
+    @Value("${codenavigator.cache.resilience.fallback-max-entries:10000}")
+    private int fallbackMaxEntries = 10000;
+
+    @Value("${codenavigator.cache.resilience.fallback-ttl-ms:30000}")
+    private long fallbackTtlMs = 30000;
+
+    private static final String LOAD_LOCK_PREFIX = "lock:load:";
+    // 命名空间键数量：由持有租约的一个节点SCAN统计后发布到该Hash，其他节点只读取发布结果
+    private static final String KEY_COUNT_KEY = "stats:namespace-keys";
+    private static final String KEY_COUNT_LOCK_KEY = "lock:namespace-recount";
+    private static final long LOAD_LOCK_POLL_MS = 50;
+
+    // 仅当锁仍由自己持有时才删除，避免误删其他节点在锁过期后获得的锁
+    private static final RedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    // 写入一批键并返回各键写入前是否不存在（1为新键），新键即时计入命名空间键数量
+    // KEYS: 要写入的键；ARGV[1]: 过期毫秒数（0为不过期）；ARGV[i + 1]: KEYS[i]的值
+    @SuppressWarnings("unchecked")
+    private static final RedisScript<List<Long>> SET_SCRIPT = new DefaultRedisScript<>(
+            "local created = {} "
+            + "for i, key in ipairs(KEYS) do "
+            + "  created[i] = 1 - redis.call('EXISTS', key) "
+            + "  if ARGV[1] == '0' then redis.call('SET', key, ARGV[i + 1]) "
+            + "  else redis.call('SET', key, ARGV[i + 1], 'PX', ARGV[1]) end "
+            + "end "
+            + "return created", (Class<List<Long>>) (Class<?>) List.class);
+
+    private final NamespaceKeyCounter keyCounter = new NamespaceKeyCounter();
+    private ScheduledExecutorService keyCountExecutor;
+
+    // 本节点正在前台加载的键，同一键的并发请求共享一次加载
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlightLoads = new ConcurrentHashMap<>();
+    // 本节点正在后台刷新的键；后台刷新可能因锁被占用而放弃或失败，前台请求不等待它
+    private final Set<String> refreshingKeys = ConcurrentHashMap.newKeySet();
+    private ExecutorService refreshExecutor;
+    // 未启用热点检测（或未经过start）时为null
+    private volatile HotKeyReplica hotKeyReplica;
+    // 未启用降级（或未经过start）时均为null
+    private volatile RedisHealthMonitor redisHealth;
+    private volatile LocalFallbackCache fallbackCache;
+    private ScheduledExecutorService healthProbeExecutor;
+    // 恢复访问Redis之前执行的补偿任务（如降级期间未能执行的命名空间失效），失败时保持降级
+    private final List<Runnable> recoveryTasks = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong loaderHits = new AtomicLong();
+    private final AtomicLong loaderMisses = new AtomicLong();
+    private final AtomicLong loaderStaleServed = new AtomicLong();
+    private final AtomicLong loaderEarlyRefreshes = new AtomicLong();
+    private final AtomicLong loaderJoins = new AtomicLong();
+    private final AtomicLong loaderLockContended = new AtomicLong();
+    private final AtomicLong loaderRefreshFailures = new AtomicLong();
+    private final AtomicLong invalidatedOnRecovery = new AtomicLong();
+    private final AtomicLong invalidationFailures = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        if (hotKeyEnabled) {
+            hotKeyReplica = new HotKeyReplica(
+                    new SlidingWindowHotKeyDetector(hotKeyWindowMs, hotKeyBuckets, hotKeyThreshold, 4096),
+                    hotKeyReplicaMaxEntries, hotKeyReplicaTtlMs);
+        }
+        refreshExecutor = Executors.newFixedThreadPool(loaderRefreshThreads, runnable -> {
+            Thread thread = new Thread(runnable, "CodeNavigator-Cache-Refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (resilienceEnabled) {
+            fallbackCache = new LocalFallbackCache(fallbackMaxEntries, fallbackTtlMs);
+            redisHealth = new RedisHealthMonitor(resilienceFailureThreshold, resilienceSlowCallMs);
+            healthProbeExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "CodeNavigator-Cache-HealthProbe");
+                thread.setDaemon(true);
+                return thread;
+            });
+            healthProbeExecutor.scheduleWithFixedDelay(this::probeRedis,
+                    resilienceProbeIntervalMs, resilienceProbeIntervalMs, TimeUnit.MILLISECONDS);
+        }
+        if (!keyCountEnabled) {
+            return;
+        }
+        keyCountExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "CodeNavigator-Cache-KeyCounter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        keyCountExecutor.scheduleWithFixedDelay(this::recountNamespaces,
+                0, keyCountIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (keyCountExecutor != null) {
+            keyCountExecutor.shutdownNow();
+        }
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+        }
+        if (healthProbeExecutor != null) {
+            healthProbeExecutor.shutdownNow();
+        }
+    }
+
     /**
      * 设置缓存
      */
     public void set(String key, Object value) {
+        if (!redisAvailable()) {
+            writeFallback(key, value, 0);
+            return;
+        }
         try {
-            redisTemplate.opsForValue().set(key, value);
+            writeAndCount(List.of(key), List.of(value), 0);
+            invalidateReplica(key);
             log.debug("Cache set: key={}", key);
         } catch (Exception e) {
             log.error("Failed to set cache: key={}", key, e);
@@ -35,8 +255,13 @@ public class CacheService {
      * 设置缓存并指定过期时间
      */
     public void set(String key, Object value, long timeout, TimeUnit unit) {
+        if (!redisAvailable()) {
+            writeFallback(key, value, unit.toMillis(timeout));
+            return;
+        }
         try {
-            redisTemplate.opsForValue().set(key, value, timeout, unit);
+            writeAndCount(List.of(key), List.of(value), unit.toMillis(timeout));
+            invalidateReplica(key);
             log.debug("Cache set with expiration: key={}, timeout={} {}", key, timeout, unit);
         } catch (Exception e) {
             log.error("Failed to set cache with expiration: key={}", key, e);
@@ -49,7 +274,7 @@ public class CacheService {
     @SuppressWarnings("unchecked")
     public <T> T get(String key, Class<T> type) {
         try {
-            Object value = redisTemplate.opsForValue().get(key);
+            Object value = unwrap(readValue(key));
             if (value != null && type.isAssignableFrom(value.getClass())) {
                 log.debug("Cache hit: key={}", key);
                 return (T) value;
@@ -67,7 +292,7 @@ public class CacheService {
      */
     public Object get(String key) {
         try {
-            Object value = redisTemplate.opsForValue().get(key);
+            Object value = unwrap(readValue(key));
             if (value != null) {
                 log.debug("Cache hit: key={}", key);
             } else {
@@ -80,12 +305,624 @@ public class CacheService {
         }
     }
 
+    /**
+     * 读取缓存，未命中时通过loader加载并写入，适用于计算代价高的聚合数据
+     * <ul>
+     *   <li>同一键在本节点只有一次加载在进行，跨节点通过Redis短锁互斥，未抢到锁的节点等待其结果</li>
+     *   <li>临近过期时按XFetch算法以一定概率提前在后台刷新，计算越慢、越接近过期越可能刷新</li>
+     *   <li>逻辑过期后的陈旧窗口内直接返回旧值，同时在后台刷新</li>
+     * </ul>
+     * loader返回null时不缓存；loader抛出的异常直接传给调用方
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getOrLoad(String key, long timeout, TimeUnit unit, Supplier<T> loader) {
+        long ttlMs = unit.toMillis(timeout);
+        CachedValue cached = readCachedValue(key);
+        if (cached != null) {
+            long now = System.currentTimeMillis();
+            if (cached.isExpired(now)) {
+                loaderStaleServed.incrementAndGet();
+                refreshAsync(key, ttlMs, loader);
+            } else {
+                loaderHits.incrementAndGet();
+                if (shouldRefreshEarly(cached, now)) {
+                    loaderEarlyRefreshes.incrementAndGet();
+                    refreshAsync(key, ttlMs, loader);
+                }
+            }
+            return (T) cached.getValue();
+        }
+
+        loaderMisses.incrementAndGet();
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlightLoads.putIfAbsent(key, future);
+        if (existing != null) {
+            loaderJoins.incrementAndGet();
+            return (T) awaitLoad(existing);
+        }
+        try {
+            Object value = loadWithLock(key, ttlMs, loader, true);
+            future.complete(value);
+            return (T) value;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightLoads.remove(key, future);
+        }
+    }
+
+    /**
+     * 获取getOrLoad的命中、刷新与加载合并统计
+     */
+    public Map<String, Object> getLoaderStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("hits", loaderHits.get());
+        stats.put("misses", loaderMisses.get());
+        stats.put("staleServed", loaderStaleServed.get());
+        stats.put("earlyRefreshes", loaderEarlyRefreshes.get());
+        stats.put("joinedLoads", loaderJoins.get());
+        stats.put("lockContended", loaderLockContended.get());
+        stats.put("refreshFailures", loaderRefreshFailures.get());
+        stats.put("inFlight", inFlightLoads.size());
+        stats.put("refreshing", refreshingKeys.size());
+        return stats;
+    }
+
+    /**
+     * XFetch：now - computeMs * beta * ln(rand) >= expiresAt 时提前刷新
+     */
+    private boolean shouldRefreshEarly(CachedValue cached, long now) {
+        double random = ThreadLocalRandom.current().nextDouble();
+        return now - cached.getComputeMs() * loaderBeta * Math.log(random) >= cached.getExpiresAt();
+    }
+
+    /**
+     * 后台刷新只与同键的其他刷新合并，不登记到inFlightLoads，
+     * 以免未命中的前台请求拿到放弃锁后的null或后台刷新的异常
+     */
+    private void refreshAsync(String key, long ttlMs, Supplier<?> loader) {
+        if (refreshExecutor == null || inFlightLoads.containsKey(key) || !refreshingKeys.add(key)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    loadWithLock(key, ttlMs, loader, false);
+                } catch (Exception e) {
+                    loaderRefreshFailures.incrementAndGet();
+                    log.warn("Background cache refresh failed: key={}, error={}", key, e.getMessage());
+                } finally {
+                    refreshingKeys.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshingKeys.remove(key);
+        }
+    }
+
+    /**
+     * 持有跨节点锁执行加载并写入缓存
+     *
+     * @param waitForOthers 未抢到锁时是否等待持锁节点的结果；后台刷新不等待，直接放弃
+     */
+    private Object loadWithLock(String key, long ttlMs, Supplier<?> loader, boolean waitForOthers) {
+        String lockKey = LOAD_LOCK_PREFIX + key;
+        String token = UUID.randomUUID().toString();
+        boolean locked = tryLock(lockKey, token);
+        if (!locked) {
+            loaderLockContended.incrementAndGet();
+            if (!waitForOthers) {
+                return null;
+            }
+            CachedValue loaded = awaitRemoteLoad(key);
+            if (loaded != null) {
+                return loaded.getValue();
+            }
+            log.warn("Timed out waiting for cache load on another node, loading locally: key={}", key);
+        }
+
+        try {
+            long start = System.currentTimeMillis();
+            Object value = loader.get();
+            long computeMs = System.currentTimeMillis() - start;
+            if (value != null) {
+                long staleMs = (long) (ttlMs * loaderStaleRatio);
+                set(key, new CachedValue(value, computeMs, System.currentTimeMillis() + ttlMs),
+                        ttlMs + staleMs, TimeUnit.MILLISECONDS);
+            }
+            log.debug("Cache loaded: key={}, computeMs={}", key, computeMs);
+            return value;
+        } finally {
+            if (locked) {
+                unlock(lockKey, token);
+            }
+        }
+    }
+
+    private boolean tryLock(String lockKey, String token) {
+        if (!redisAvailable()) {
+            return true;
+        }
+        try {
+            return Boolean.TRUE.equals(callRedis(() -> redisTemplate.opsForValue()
+                    .setIfAbsent(lockKey, token, loaderLockTtlMs, TimeUnit.MILLISECONDS)));
+        } catch (Exception e) {
+            // Redis不可用时只保留本节点内的合并
+            log.warn("Failed to acquire cache load lock: key={}, error={}", lockKey, e.getMessage());
+            return true;
+        }
+    }
+
+    private void unlock(String lockKey, String token) {
+        if (!redisAvailable()) {
+            // 锁在过期后自动释放
+            return;
+        }
+        try {
+            callRedis(() -> redisTemplate.execute(UNLOCK_SCRIPT, List.of(lockKey), token));
+        } catch (Exception e) {
+            log.warn("Failed to release cache load lock: key={}, error={}", lockKey, e.getMessage());
+        }
+    }
+
+    /**
+     * 轮询等待其他节点写入未过期的值
+     */
+    private CachedValue awaitRemoteLoad(String key) {
+        long deadline = System.currentTimeMillis() + loaderLockWaitMs;
+        while (System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(LOAD_LOCK_POLL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            CachedValue cached = readCachedValue(key);
+            if (cached != null && !cached.isExpired(System.currentTimeMillis())) {
+                return cached;
+            }
+        }
+        return null;
+    }
+
+    private CachedValue readCachedValue(String key) {
+        try {
+            return readValue(key) instanceof CachedValue cached ? cached : null;
+        } catch (Exception e) {
+            log.error("Failed to get cache: key={}", key, e);
+            return null;
+        }
+    }
+
+    private static Object awaitLoad(CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 读取键的值：Redis降级期间只读本地替代缓存；热点键优先读本地副本，否则读Redis并参与热点检测
+     */
+    private Object readValue(String key) {
+        if (!redisAvailable()) {
+            return fallbackCache.get(key);
+        }
+        HotKeyReplica replica = hotKeyReplica;
+        if (replica == null) {
+            return callRedis(() -> redisTemplate.opsForValue().get(key));
+        }
+        Object local = replica.get(key);
+        if (local != null) {
+            return local;
+        }
+        long generation = replica.generation();
+        Object value = callRedis(() -> redisTemplate.opsForValue().get(key));
+        replica.onRead(key, value, generation);
+        return value;
+    }
+
+    private void invalidateReplica(String key) {
+        HotKeyReplica replica = hotKeyReplica;
+        if (replica != null) {
+            replica.invalidate(key);
+        }
+    }
+
+    /**
+     * 获取本节点检测到的热点键及本地副本统计
+     */
+    public Map<String, Object> getHotKeyStats() {
+        HotKeyReplica replica = hotKeyReplica;
+        if (replica == null) {
+            return Map.of("enabled", false);
+        }
+        List<Map<String, Object>> hotKeys = new ArrayList<>();
+        for (SlidingWindowHotKeyDetector.HotKey hotKey : replica.getHotKeys()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("key", hotKey.key());
+            entry.put("windowCount", hotKey.windowCount());
+            entry.put("promotedAt", hotKey.promotedAt());
+            hotKeys.add(entry);
+        }
+        Map<String, Object> stats = new LinkedHashMap<>(replica.getStats());
+        stats.put("enabled", true);
+        stats.put("windowMs", hotKeyWindowMs);
+        stats.put("threshold", hotKeyThreshold);
+        stats.put("keys", hotKeys);
+        return stats;
+    }
+
+    /**
+     * Redis当前是否可用，供直接发送Redis命令的组件在降级期间快速失败
+     */
+    public boolean isRedisAvailable() {
+        return redisAvailable();
+    }
+
+    /**
+     * 执行原始Redis命令并计入健康状态；不检查是否降级，调用方应先调用isRedisAvailable
+     */
+    public <T> T execute(RedisCallback<T> action) {
+        return callRedis(() -> redisTemplate.execute(action));
+    }
+
+    /**
+     * 以管道执行原始Redis命令并计入健康状态；不检查是否降级，调用方应先调用isRedisAvailable
+     */
+    public List<Object> executePipelined(RedisCallback<?> action) {
+        return callRedis(() -> redisTemplate.executePipelined(action));
+    }
+
+    /**
+     * 以管道执行原始Redis命令，结果按指定序列化器反序列化；不检查是否降级，调用方应先调用isRedisAvailable
+     */
+    public List<Object> executePipelined(RedisCallback<?> action, RedisSerializer<?> resultSerializer) {
+        return callRedis(() -> redisTemplate.executePipelined(action, resultSerializer));
+    }
+
+    /**
+     * 执行Lua脚本并计入健康状态；不检查是否降级，调用方应先调用isRedisAvailable
+     */
+    public <T> T executeScript(RedisScript<T> script, RedisSerializer<?> argsSerializer,
+                               RedisSerializer<T> resultSerializer, List<String> keys, Object... args) {
+        return callRedis(() -> redisTemplate.execute(script, argsSerializer, resultSerializer, keys, args));
+    }
+
+    /**
+     * 注册恢复任务：Redis从降级中恢复时，在删除降级期间修改过的键之后、恢复访问之前执行；
+     * 任务抛出异常时保持降级并在下次探测时重试，恢复后每次探测也会执行一次以补做剩余的工作
+     */
+    public void addRecoveryTask(Runnable task) {
+        recoveryTasks.add(task);
+    }
+
+    /**
+     * Redis当前是否可用；降级期间返回false并计为一次快速失败，调用方改用本地替代缓存或直接返回默认值
+     */
+    private boolean redisAvailable() {
+        RedisHealthMonitor health = redisHealth;
+        return health == null || health.allowRequest();
+    }
+
+    /**
+     * 执行一次Redis调用并计入健康状态：连接失败、超时和慢调用计为失败，其他异常（如序列化失败）不计入
+     */
+    private <T> T callRedis(Supplier<T> call) {
+        RedisHealthMonitor health = redisHealth;
+        if (health == null) {
+            return call.get();
+        }
+        long start = System.nanoTime();
+        T result;
+        try {
+            result = call.get();
+        } catch (DataAccessResourceFailureException | TransientDataAccessException e) {
+            if (health.onFailure()) {
+                log.error("Redis marked unavailable after {} consecutive failures, serving from local fallback cache: {}",
+                        resilienceFailureThreshold, e.getMessage());
+            }
+            throw e;
+        }
+        if (health.onSuccess(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))) {
+            log.error("Redis marked unavailable after {} consecutive slow calls, serving from local fallback cache",
+                    resilienceFailureThreshold);
+        }
+        return result;
+    }
+
+    /**
+     * 以SET_SCRIPT写入一批键（值按模板的值序列化器编码），写入前不存在的键计入命名空间键数量
+     */
+    private void writeAndCount(List<String> keys, List<?> values, long ttlMs) {
+        @SuppressWarnings("unchecked")
+        RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        Object[] args = new Object[values.size() + 1];
+        args[0] = KEY_SERIALIZER.serialize(String.valueOf(Math.max(0, ttlMs)));
+        for (int i = 0; i < values.size(); i++) {
+            args[i + 1] = valueSerializer.serialize(values.get(i));
+        }
+        // 参数已编码为字节，不再经过序列化器
+        List<Long> created = callRedis(() -> redisTemplate.execute(SET_SCRIPT, null, null, keys, args));
+        for (int i = 0; created != null && i < created.size() && i < keys.size(); i++) {
+            if (created.get(i) == 1) {
+                keyCounter.onAdded(NamespaceKeyCounter.namespaceOf(keys.get(i)));
+            }
+        }
+    }
+
+    private void writeFallback(String key, Object value, long ttlMs) {
+        fallbackCache.put(key, value, ttlMs);
+        invalidateReplica(key);
+        log.debug("Cache set (local fallback): key={}", key);
+    }
+
+    private long deleteFallback(Collection<String> keys) {
+        long removed = 0;
+        for (String key : keys) {
+            invalidateReplica(key);
+            if (fallbackCache.delete(key)) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * 后台探测：降级期间PING成功后先在Redis中删除降级期间本节点写入或删除过的键并执行恢复任务，全部成功才恢复对Redis的访问；
+     * 恢复后仍有未完成的失效（恢复前最后一刻的修改或失败放回的部分）时继续补做
+     */
+    public void probeRedis() {
+        RedisHealthMonitor health = redisHealth;
+        if (health == null) {
+            return;
+        }
+        if (health.getState() == RedisHealthMonitor.State.HEALTHY) {
+            if (fallbackCache.hasPending()) {
+                invalidatePendingQuietly();
+            }
+            runRecoveryTasksQuietly();
+            return;
+        }
+        if (health.getState() != RedisHealthMonitor.State.DEGRADED) {
+            return;
+        }
+        try {
+            redisTemplate.execute((RedisCallback<String>) connection -> connection.ping());
+        } catch (Exception e) {
+            log.debug("Redis still unavailable: {}", e.getMessage());
+            return;
+        }
+        if (!health.beginRecovery()) {
+            return;
+        }
+        long invalidated;
+        try {
+            invalidated = invalidatePending();
+            recoveryTasks.forEach(Runnable::run);
+        } catch (Exception e) {
+            invalidationFailures.incrementAndGet();
+            health.recoveryFailed();
+            log.warn("Failed to invalidate keys modified while Redis was unavailable, staying degraded: {}", e.getMessage());
+            return;
+        }
+        health.recovered();
+        fallbackCache.clear();
+        invalidatePendingQuietly();
+        long dropped = fallbackCache.getDroppedInvalidations();
+        if (dropped > 0) {
+            log.error("Redis recovered but {} invalidations were dropped while degraded, stale values may remain until they expire",
+                    dropped);
+        }
+        log.warn("Redis recovered, invalidated {} keys/patterns modified while degraded", invalidated);
+    }
+
+    private void runRecoveryTasksQuietly() {
+        for (Runnable task : recoveryTasks) {
+            try {
+                task.run();
+            } catch (Exception e) {
+                invalidationFailures.incrementAndGet();
+                log.warn("Cache recovery task failed, will retry: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void invalidatePendingQuietly() {
+        try {
+            invalidatePending();
+        } catch (Exception e) {
+            invalidationFailures.incrementAndGet();
+            log.warn("Failed to invalidate keys modified while Redis was unavailable, will retry: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 在Redis中删除降级期间写入或删除过的键：先按模式删除，再以UNLINK分批删除单个键。
+     * 降级期间本节点写入的值不回写，其他节点可能已写入更新的值，删除后由读取方重新加载。
+     * 失败时放回未完成的部分并抛出异常
+     *
+     * @return 删除的键数与执行的模式数之和
+     */
+    private long invalidatePending() {
+        List<String> patterns = fallbackCache.drainPatterns();
+        try {
+            for (String pattern : patterns) {
+                scanKeys(pattern, scanCount, this::unlinkKeys);
+            }
+        } catch (RuntimeException e) {
+            fallbackCache.restore(List.of(), patterns);
+            throw e;
+        }
+        long invalidated = patterns.size();
+        List<String> keys;
+        while (!(keys = fallbackCache.drainPendingKeys(batchSize)).isEmpty()) {
+            try {
+                unlinkKeys(keys);
+            } catch (RuntimeException e) {
+                fallbackCache.restore(keys, List.of());
+                throw e;
+            }
+            invalidated += keys.size();
+        }
+        invalidatedOnRecovery.addAndGet(invalidated);
+        return invalidated;
+    }
+    /**
+     * Redis健康状态；未启用降级时始终为HEALTHY
+     */
+    public RedisHealthMonitor.State getRedisState() {
+        RedisHealthMonitor health = redisHealth;
+        return health != null ? health.getState() : RedisHealthMonitor.State.HEALTHY;
+    }
+
+    /**
+     * 获取Redis健康状态、快速失败次数及本地替代缓存统计
+     */
+    public Map<String, Object> getResilienceStats() {
+        RedisHealthMonitor health = redisHealth;
+        if (health == null) {
+            return Map.of("enabled", false, "state", RedisHealthMonitor.State.HEALTHY.name());
+        }
+        Map<String, Object> stats = new LinkedHashMap<>(health.getStats());
+        stats.put("enabled", true);
+        stats.put("slowCallMs", resilienceSlowCallMs);
+        stats.put("invalidatedOnRecovery", invalidatedOnRecovery.get());
+        stats.put("invalidationFailures", invalidationFailures.get());
+        stats.put("fallback", fallbackCache.getStats());
+        return stats;
+    }
+
+    /**
+     * getOrLoad写入的值带有加载元数据，普通读取时只返回其中的值
+     */
+    private static Object unwrap(Object value) {
+        return value instanceof CachedValue cached ? cached.getValue() : value;
+    }
+
+    /**
+     * 批量获取缓存，以MGET一次读取多个键（每批batchSize个），返回值统一反序列化
+     *
+     * @return 命中且类型匹配的键值，按keys的顺序排列；失败时返回空Map
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Map<String, T> multiGet(Collection<String> keys, Class<T> type) {
+        if (keys.isEmpty()) {
+            return Map.of();
+        }
+        if (!redisAvailable()) {
+            Map<String, T> result = new LinkedHashMap<>();
+            for (String key : new LinkedHashSet<>(keys)) {
+                Object value = unwrap(fallbackCache.get(key));
+                if (value != null && type.isAssignableFrom(value.getClass())) {
+                    result.put(key, (T) value);
+                }
+            }
+            return result;
+        }
+        try {
+            List<String> keyList = new ArrayList<>(new LinkedHashSet<>(keys));
+            Map<String, T> result = new LinkedHashMap<>();
+            for (int from = 0; from < keyList.size(); from += batchSize) {
+                List<String> chunk = keyList.subList(from, Math.min(from + batchSize, keyList.size()));
+                List<Object> values = callRedis(() -> redisTemplate.opsForValue().multiGet(chunk));
+                for (int i = 0; values != null && i < chunk.size() && i < values.size(); i++) {
+                    Object value = unwrap(values.get(i));
+                    if (value != null && type.isAssignableFrom(value.getClass())) {
+                        result.put(chunk.get(i), (T) value);
+                    }
+                }
+            }
+            log.debug("Cache multi get: keys={}, hits={}", keyList.size(), result.size());
+            return result;
+        } catch (Exception e) {
+            log.error("Failed to multi get cache: keys={}", keys.size(), e);
+            return Map.of();
+        }
+    }
+
+    /**
+     * 批量设置缓存并指定过期时间，每批batchSize个键由一次脚本调用写入（MSET不支持过期时间，也不报告新键）
+     * timeout不大于0时不过期
+     */
+    public boolean multiSet(Map<String, ?> entries, long timeout, TimeUnit unit) {
+        if (entries.isEmpty()) {
+            return true;
+        }
+        if (!redisAvailable()) {
+            entries.forEach((key, value) -> writeFallback(key, value, timeout > 0 ? unit.toMillis(timeout) : 0));
+            return true;
+        }
+        try {
+            List<Map.Entry<String, ?>> entryList = new ArrayList<>(entries.entrySet());
+            for (int from = 0; from < entryList.size(); from += batchSize) {
+                List<Map.Entry<String, ?>> chunk = entryList.subList(from, Math.min(from + batchSize, entryList.size()));
+                List<String> keys = new ArrayList<>(chunk.size());
+                List<Object> values = new ArrayList<>(chunk.size());
+                chunk.forEach(entry -> {
+                    keys.add(entry.getKey());
+                    values.add(entry.getValue());
+                });
+                writeAndCount(keys, values, timeout > 0 ? unit.toMillis(timeout) : 0);
+            }
+            entries.keySet().forEach(this::invalidateReplica);
+            log.debug("Cache multi set: keys={}, timeout={} {}", entries.size(), timeout, unit);
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to multi set cache: keys={}", entries.size(), e);
+            return false;
+        }
+    }
+
+    /**
+     * 在一个管道中执行一组命令，整批只需一次网络往返
+     *
+     * @return 有返回值的命令的结果（已反序列化），顺序与提交顺序一致；失败时返回空列表
+     */
+    public List<Object> pipelined(Consumer<CacheBatch> commands) {
+        if (!redisAvailable()) {
+            return List.of();
+        }
+        try {
+            return executeBatch(commands);
+        } catch (Exception e) {
+            log.error("Failed to execute cache pipeline", e);
+            return List.of();
+        }
+    }
+
+    private List<Object> executeBatch(Consumer<CacheBatch> commands) {
+        int[] size = {0};
+        List<Object> results = callRedis(() -> redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                CacheBatch batch = new CacheBatch((RedisOperations<String, Object>) operations);
+                commands.accept(batch);
+                size[0] = batch.size();
+                return null;
+            }
+        }));
+        log.debug("Cache pipeline executed: commands={}, results={}", size[0], results != null ? results.size() : 0);
+        return results != null ? results : List.of();
+    }
+
     /**
      * 删除缓存
      */
     public boolean delete(String key) {
+        if (!redisAvailable()) {
+            invalidateReplica(key);
+            return fallbackCache.delete(key);
+        }
         try {
-            Boolean result = redisTemplate.delete(key);
+            Boolean result = callRedis(() -> redisTemplate.delete(key));
+            invalidateReplica(key);
             log.debug("Cache deleted: key={}, result={}", key, result);
             return Boolean.TRUE.equals(result);
         } catch (Exception e) {
@@ -98,8 +935,12 @@ public class CacheService {
      * 批量删除缓存
      */
     public long delete(Collection<String> keys) {
+        if (!redisAvailable()) {
+            return deleteFallback(keys);
+        }
         try {
-            Long result = redisTemplate.delete(keys);
+            Long result = callRedis(() -> redisTemplate.delete(keys));
+            keys.forEach(this::invalidateReplica);
             log.debug("Cache batch deleted: keys={}, count={}", keys.size(), result);
             return result != null ? result : 0;
         } catch (Exception e) {
@@ -112,8 +953,11 @@ public class CacheService {
      * 检查缓存是否存在
      */
     public boolean exists(String key) {
+        if (!redisAvailable()) {
+            return fallbackCache.get(key) != null;
+        }
         try {
-            Boolean result = redisTemplate.hasKey(key);
+            Boolean result = callRedis(() -> redisTemplate.hasKey(key));
             return Boolean.TRUE.equals(result);
         } catch (Exception e) {
             log.error("Failed to check cache existence: key={}", key, e);
@@ -125,8 +969,11 @@ public class CacheService {
      * 设置缓存过期时间
      */
     public boolean expire(String key, long timeout, TimeUnit unit) {
+        if (!redisAvailable()) {
+            return false;
+        }
         try {
-            Boolean result = redisTemplate.expire(key, timeout, unit);
+            Boolean result = callRedis(() -> redisTemplate.expire(key, timeout, unit));
             log.debug("Cache expiration set: key={}, timeout={} {}", key, timeout, unit);
             return Boolean.TRUE.equals(result);
         } catch (Exception e) {
@@ -139,8 +986,11 @@ public class CacheService {
      * 获取缓存剩余过期时间
      */
     public long getExpire(String key) {
+        if (!redisAvailable()) {
+            return -1;
+        }
         try {
-            Long expire = redisTemplate.getExpire(key);
+            Long expire = callRedis(() -> redisTemplate.getExpire(key));
             return expire != null ? expire : -1;
         } catch (Exception e) {
             log.error("Failed to get cache expiration: key={}", key, e);
@@ -148,17 +998,261 @@ public class CacheService {
         }
     }
 
+    /**
+     * 批量获取缓存剩余过期时间，在一个管道中发送TTL命令
+     *
+     * @return 与keys一一对应；失败时返回空列表
+     */
+    public List<Long> getExpires(List<String> keys) {
+        if (keys.isEmpty() || !redisAvailable()) {
+            return List.of();
+        }
+        try {
+            List<Object> results = callRedis(() -> redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (String key : keys) {
+                    connection.keyCommands().ttl(KEY_SERIALIZER.serialize(key));
+                }
+                return null;
+            }));
+            if (results == null || results.size() != keys.size()) {
+                return List.of();
+            }
+            List<Long> ttls = new ArrayList<>(keys.size());
+            for (Object result : results) {
+                ttls.add(result instanceof Long ttl ? ttl : -2L);
+            }
+            return ttls;
+        } catch (Exception e) {
+            log.error("Failed to get cache expirations: count={}", keys.size(), e);
+            return List.of();
+        }
+    }
+
     /**
      * 模糊查询缓存键
+     * 基于SCAN实现，但会把全部匹配的键加载到内存；键较多时应使用scan分批处理
      */
     public Set<String> keys(String pattern) {
+        Set<String> keys = new HashSet<>();
+        scan(pattern, scanCount, keys::addAll);
+        log.debug("Cache keys found: pattern={}, count={}", pattern, keys.size());
+        return keys;
+    }
+
+    /**
+     * 以SCAN游标遍历匹配的键，每凑满batchSize个回调一次
+     * 每次SCAN只检查COUNT个槽位，不会像KEYS那样在整个键空间上阻塞Redis；遍历期间新增或删除的键可能被遗漏或重复返回
+     *
+     * @return 遍历到的键数
+     */
+    public long scan(String pattern, int batchSize, Consumer<List<String>> consumer) {
+        if (!redisAvailable()) {
+            return 0;
+        }
         try {
-            Set<String> keys = redisTemplate.keys(pattern);
-            log.debug("Cache keys found: pattern={}, count={}", pattern, keys != null ? keys.size() : 0);
-            return keys;
+            return scanKeys(pattern, batchSize, consumer);
         } catch (Exception e) {
-            log.error("Failed to get cache keys: pattern={}", pattern, e);
-            return Set.of();
+            log.error("Failed to scan cache keys: pattern={}", pattern, e);
+            return 0;
+        }
+    }
+
+    private long scanKeys(String pattern, int batchSize, Consumer<List<String>> consumer) {
+        ScanOptions options = ScanOptions.scanOptions().match(pattern).count(scanCount).build();
+        long scanned = 0;
+        List<String> batch = new ArrayList<>(batchSize);
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() >= batchSize) {
+                    scanned += batch.size();
+                    consumer.accept(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            scanned += batch.size();
+            consumer.accept(batch);
+        }
+        return scanned;
+    }
+
+    /**
+     * 批量异步删除缓存
+     * 按命名空间分组后以UNLINK分批在一个管道中提交，内存由Redis后台线程回收，不阻塞其他命令
+     *
+     * @return 实际删除的键数
+     */
+    public long unlink(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        if (!redisAvailable()) {
+            return deleteFallback(keys);
+        }
+        try {
+            return unlinkKeys(keys);
+        } catch (Exception e) {
+            log.error("Failed to unlink cache: keys={}", keys.size(), e);
+            return 0;
+        }
+    }
+
+    private long unlinkKeys(Collection<String> keys) {
+        Map<String, List<String>> byNamespace = new LinkedHashMap<>();
+        for (String key : keys) {
+            byNamespace.computeIfAbsent(NamespaceKeyCounter.namespaceOf(key), ns -> new ArrayList<>()).add(key);
+        }
+
+        // 管道返回的结果与提交的UNLINK一一对应，记录每条命令所属的命名空间
+        List<String> commandNamespaces = new ArrayList<>();
+        List<Object> results = callRedis(() -> redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            byNamespace.forEach((namespace, namespaceKeys) -> {
+                for (int from = 0; from < namespaceKeys.size(); from += unlinkBatchSize) {
+                    List<String> chunk = namespaceKeys.subList(from, Math.min(from + unlinkBatchSize, namespaceKeys.size()));
+                    byte[][] rawKeys = new byte[chunk.size()][];
+                    for (int i = 0; i < chunk.size(); i++) {
+                        rawKeys[i] = KEY_SERIALIZER.serialize(chunk.get(i));
+                    }
+                    commandNamespaces.add(namespace);
+                    connection.keyCommands().unlink(rawKeys);
+                }
+            });
+            return null;
+        }));
+
+        keys.forEach(this::invalidateReplica);
+        long removed = 0;
+        for (int i = 0; results != null && i < results.size() && i < commandNamespaces.size(); i++) {
+            long count = results.get(i) instanceof Long value ? value : 0;
+            keyCounter.onRemoved(commandNamespaces.get(i), count);
+            removed += count;
+        }
+        log.debug("Cache batch unlinked: keys={}, count={}", keys.size(), removed);
+        return removed;
+    }
+
+    /**
+     * 以SCAN + UNLINK删除匹配模式的全部键
+     *
+     * @return 实际删除的键数
+     */
+    public long unlinkByPattern(String pattern) {
+        if (!redisAvailable()) {
+            // 恢复后重新在Redis中按模式删除
+            return fallbackCache.deletePattern(pattern);
+        }
+        long[] removed = {0};
+        long scanned = scan(pattern, scanCount, batch -> removed[0] += unlink(batch));
+        log.debug("Cache unlinked by pattern: pattern={}, scanned={}, removed={}", pattern, scanned, removed[0]);
+        return removed[0];
+    }
+
+    /**
+     * 获取命名空间的键数量（集群最近一轮发布的统计，加减此后通过本节点新增和删除的键）
+     */
+    public long getNamespaceKeyCount(String namespace) {
+        return keyCounter.get(namespace);
+    }
+
+    /**
+     * 获取所有命名空间的键数量
+     */
+    public Map<String, Object> getNamespaceKeyStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("counts", keyCounter.snapshot());
+        stats.put("lastRecountAt", keyCounter.getLastRecountAt());
+        return stats;
+    }
+
+    /**
+     * 定期校准各命名空间的键数量。集群中每个统计周期只有取得租约（过期时间为一个周期）的节点执行SCAN，
+     * 批次之间短暂停顿以限制对Redis的压力，完成后把结果发布到Redis；其他节点只读取已发布的计数。
+     * 两次校准之间的计数由写入和删除即时增减，SCAN只修正其他节点的写入、过期和淘汰带来的偏差
+     */
+    public void recountNamespaces() {
+        if (!redisAvailable()) {
+            return;
+        }
+        String token = UUID.randomUUID().toString();
+        boolean leader;
+        try {
+            leader = Boolean.TRUE.equals(callRedis(() -> redisTemplate.opsForValue()
+                    .setIfAbsent(KEY_COUNT_LOCK_KEY, token, keyCountIntervalMs, TimeUnit.MILLISECONDS)));
+        } catch (Exception e) {
+            log.warn("Failed to acquire namespace recount lease: {}", e.getMessage());
+            return;
+        }
+        if (!leader) {
+            loadPublishedKeyCounts();
+            return;
+        }
+
+        long startTime = System.currentTimeMillis();
+        try {
+            long scanned = scanKeys("*", scanCount, batch -> {
+                keyCounter.accumulate(batch);
+                pause(keyCountPauseMs);
+            });
+            keyCounter.publish();
+            publishKeyCounts(keyCounter.snapshot());
+            log.debug("Namespace key counts refreshed: keys={}, took={}ms",
+                     scanned, System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            keyCounter.discard();
+            // 释放租约，由下一个到达统计周期的节点重试
+            unlock(KEY_COUNT_LOCK_KEY, token);
+            log.warn("Failed to recount namespace keys: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 写入临时键后RENAME覆盖已发布的计数，读取方不会看到写了一半的结果
+     */
+    private void publishKeyCounts(Map<String, Long> counts) {
+        String tempKey = KEY_COUNT_KEY + ":" + UUID.randomUUID();
+        callRedis(() -> redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            byte[] rawKey = KEY_SERIALIZER.serialize(KEY_COUNT_KEY);
+            if (counts.isEmpty()) {
+                connection.keyCommands().del(rawKey);
+                return null;
+            }
+            Map<byte[], byte[]> fields = new HashMap<>();
+            counts.forEach((namespace, count) ->
+                    fields.put(KEY_SERIALIZER.serialize(namespace), KEY_SERIALIZER.serialize(String.valueOf(count))));
+            byte[] rawTempKey = KEY_SERIALIZER.serialize(tempKey);
+            connection.hashCommands().hMSet(rawTempKey, fields);
+            connection.keyCommands().rename(rawTempKey, rawKey);
+            return null;
+        }));
+    }
+
+    private void loadPublishedKeyCounts() {
+        try {
+            Map<byte[], byte[]> raw = callRedis(() -> redisTemplate.execute((RedisCallback<Map<byte[], byte[]>>) connection ->
+                    connection.hashCommands().hGetAll(KEY_SERIALIZER.serialize(KEY_COUNT_KEY))));
+            if (raw == null || raw.isEmpty()) {
+                return;
+            }
+            Map<String, Long> counts = new HashMap<>();
+            raw.forEach((namespace, count) ->
+                    counts.put(KEY_SERIALIZER.deserialize(namespace), Long.parseLong(KEY_SERIALIZER.deserialize(count))));
+            keyCounter.replace(counts);
+        } catch (Exception e) {
+            log.warn("Failed to load published namespace key counts: {}", e.getMessage());
+        }
+    }
+
+    private void pause(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Namespace key recount interrupted", e);
         }
     }
 
@@ -166,8 +1260,14 @@ public class CacheService {
      * 设置Hash缓存
      */
     public void hSet(String key, String hashKey, Object value) {
+        if (!redisAvailable()) {
+            return;
+        }
         try {
-            redisTemplate.opsForHash().put(key, hashKey, value);
+            callRedis(() -> {
+                redisTemplate.opsForHash().put(key, hashKey, value);
+                return null;
+            });
             log.debug("Hash cache set: key={}, hashKey={}", key, hashKey);
         } catch (Exception e) {
             log.error("Failed to set hash cache: key={}, hashKey={}", key, hashKey, e);
@@ -178,8 +1278,11 @@ public class CacheService {
      * 获取Hash缓存
      */
     public Object hGet(String key, String hashKey) {
+        if (!redisAvailable()) {
+            return null;
+        }
         try {
-            Object value = redisTemplate.opsForHash().get(key, hashKey);
+            Object value = callRedis(() -> redisTemplate.opsForHash().get(key, hashKey));
             if (value != null) {
                 log.debug("Hash cache hit: key={}, hashKey={}", key, hashKey);
             } else {
@@ -196,8 +1299,11 @@ public class CacheService {
      * 获取所有Hash缓存
      */
     public Map<Object, Object> hGetAll(String key) {
+        if (!redisAvailable()) {
+            return Map.of();
+        }
         try {
-            Map<Object, Object> map = redisTemplate.opsForHash().entries(key);
+            Map<Object, Object> map = callRedis(() -> redisTemplate.opsForHash().entries(key));
             log.debug("Hash cache get all: key={}, size={}", key, map.size());
             return map;
         } catch (Exception e) {
@@ -210,8 +1316,11 @@ public class CacheService {
      * 删除Hash缓存
      */
     public long hDelete(String key, Object... hashKeys) {
+        if (!redisAvailable()) {
+            return 0;
+        }
         try {
-            Long result = redisTemplate.opsForHash().delete(key, hashKeys);
+            Long result = callRedis(() -> redisTemplate.opsForHash().delete(key, hashKeys));
             log.debug("Hash cache deleted: key={}, hashKeys={}, count={}", key, hashKeys, result);
             return result != null ? result : 0;
         } catch (Exception e) {
@@ -224,8 +1333,11 @@ public class CacheService {
      * 设置List缓存
      */
     public long lPush(String key, Object... values) {
+        if (!redisAvailable()) {
+            return 0;
+        }
         try {
-            Long result = redisTemplate.opsForList().leftPushAll(key, values);
+            Long result = callRedis(() -> redisTemplate.opsForList().leftPushAll(key, values));
             log.debug("List cache pushed: key={}, count={}", key, result);
             return result != null ? result : 0;
         } catch (Exception e) {
@@ -238,8 +1350,11 @@ public class CacheService {
      * 获取List缓存
      */
     public List<Object> lRange(String key, long start, long end) {
+        if (!redisAvailable()) {
+            return List.of();
+        }
         try {
-            List<Object> list = redisTemplate.opsForList().range(key, start, end);
+            List<Object> list = callRedis(() -> redisTemplate.opsForList().range(key, start, end));
             log.debug("List cache range: key={}, start={}, end={}, size={}", 
                      key, start, end, list != null ? list.size() : 0);
             return list;
@@ -253,8 +1368,11 @@ public class CacheService {
      * 设置Set缓存
      */
     public long sAdd(String key, Object... values) {
+        if (!redisAvailable()) {
+            return 0;
+        }
         try {
-            Long result = redisTemplate.opsForSet().add(key, values);
+            Long result = callRedis(() -> redisTemplate.opsForSet().add(key, values));
             log.debug("Set cache added: key={}, count={}", key, result);
             return result != null ? result : 0;
         } catch (Exception e) {
@@ -267,8 +1385,11 @@ public class CacheService {
      * 获取Set缓存
      */
     public Set<Object> sMembers(String key) {
+        if (!redisAvailable()) {
+            return Set.of();
+        }
         try {
-            Set<Object> set = redisTemplate.opsForSet().members(key);
+            Set<Object> set = callRedis(() -> redisTemplate.opsForSet().members(key));
             log.debug("Set cache members: key={}, size={}", key, set != null ? set.size() : 0);
             return set;
         } catch (Exception e) {
@@ -281,8 +1402,11 @@ public class CacheService {
      * 设置ZSet缓存
      */
     public boolean zAdd(String key, Object value, double score) {
+        if (!redisAvailable()) {
+            return false;
+        }
         try {
-            Boolean result = redisTemplate.opsForZSet().add(key, value, score);
+            Boolean result = callRedis(() -> redisTemplate.opsForZSet().add(key, value, score));
             log.debug("ZSet cache added: key={}, value={}, score={}", key, value, score);
             return Boolean.TRUE.equals(result);
         } catch (Exception e) {
@@ -295,8 +1419,11 @@ public class CacheService {
      * 获取ZSet缓存（按分数范围）
      */
     public Set<Object> zRangeByScore(String key, double min, double max) {
+        if (!redisAvailable()) {
+            return Set.of();
+        }
         try {
-            Set<Object> set = redisTemplate.opsForZSet().rangeByScore(key, min, max);
+            Set<Object> set = callRedis(() -> redisTemplate.opsForZSet().rangeByScore(key, min, max));
             log.debug("ZSet cache range by score: key={}, min={}, max={}, size={}", 
                      key, min, max, set != null ? set.size() : 0);
             return set;
@@ -310,11 +1437,19 @@ public class CacheService {
      * 清除所有缓存
      */
     public void flushAll() {
+        if (!redisAvailable()) {
+            log.warn("Redis unavailable, cache not flushed");
+            return;
+        }
         try {
-            redisTemplate.execute((org.springframework.data.redis.core.RedisCallback<Object>) connection -> {
+            callRedis(() -> redisTemplate.execute((org.springframework.data.redis.core.RedisCallback<Object>) connection -> {
                 connection.serverCommands().flushAll();
                 return null;
-            });
+            }));
+            keyCounter.clear();
+            if (hotKeyReplica != null) {
+                hotKeyReplica.clear();
+            }
             log.warn("All cache flushed");
         } catch (Exception e) {
             log.error("Failed to flush all cache", e);
@@ -1,27 +1,51 @@
 package com.codenavigator.core.service;
 
+import com.codenavigator.core.cache.TwoLevelCacheManager;
 import com.codenavigator.core.config.RedisConfig;
 import com.codenavigator.core.entity.User;
 import com.codenavigator.core.entity.LearningPath;
 import com.codenavigator.core.entity.UserProgress;
+import com.codenavigator.core.serializer.SerializationMetrics;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class CacheStrategyService {
 
+    private static final int CLEANUP_BATCH_SIZE = 500;
+
     private final CacheService cacheService;
 
+    // 注解缓存的SpEL（@cacheNamespaceVersions）同样依赖该Bean
+    private final CacheNamespaceVersions namespaceVersions;
+
+    @Autowired(required = false)
+    private SerializationMetrics serializationMetrics;
+
+    @Autowired(required = false)
+    private TwoLevelCacheManager cacheManager;
+
+    @Autowired(required = false)
+    private CacheWarmupService cacheWarmupService;
+
+    @Autowired(required = false)
+    private EntityExistenceFilter existenceFilter;
+
     /**
      * 缓存用户基本信息
      */
@@ -95,7 +119,7 @@ public class CacheStrategyService {
      * 缓存用户进度
      */
     @Cacheable(value = RedisConfig.CacheNames.USER_PROGRESS_CACHE, 
-              key = "#userId + '_' + #pathId")
+              key = "@cacheNamespaceVersions.userProgressKey(#userId, #pathId)")
     public UserProgress cacheUserProgress(Long userId, String pathId, UserProgress progress) {
         log.debug("Caching user progress: userId={}, pathId={}", userId, pathId);
         return progress;
@@ -105,7 +129,7 @@ public class CacheStrategyService {
      * 更新用户进度缓存
      */
     @CachePut(value = RedisConfig.CacheNames.USER_PROGRESS_CACHE, 
-             key = "#progress.user.id + '_' + #progress.learningPath.id")
+             key = "@cacheNamespaceVersions.userProgressKey(#progress.user.id, #progress.learningPath.id)")
     public UserProgress updateUserProgressCache(UserProgress progress) {
         log.debug("Updating user progress cache: userId={}, pathId={}", 
                  progress.getUser().getId(), progress.getLearningPath().getId());
@@ -116,17 +140,16 @@ public class CacheStrategyService {
      * 清除用户进度缓存
      */
     @CacheEvict(value = RedisConfig.CacheNames.USER_PROGRESS_CACHE, 
-               key = "#userId + '_' + #pathId")
+               key = "@cacheNamespaceVersions.userProgressKey(#userId, #pathId)")
     public void evictUserProgressCache(Long userId, String pathId) {
         log.debug("Evicting user progress cache: userId={}, pathId={}", userId, pathId);
     }
     
     /**
-     * 清除用户所有进度缓存
+     * 清除用户所有进度缓存：递增用户的命名空间版本，旧版本的进度缓存不再被读取，随TTL过期
      */
-    @CacheEvict(value = RedisConfig.CacheNames.USER_PROGRESS_CACHE, 
-               key = "#userId + '_*'")
     public void evictAllUserProgressCache(Long userId) {
+        namespaceVersions.invalidateUser(userId);
         log.debug("Evicting all user progress cache: userId={}", userId);
     }
 
@@ -134,7 +157,7 @@ public class CacheStrategyService {
      * 统计数据缓存管理
      */
     public void cacheStatistics(String type, String period, Object data) {
-        String key = RedisConfig.CacheKeyGenerator.statisticsKey(type, period);
+        String key = statisticsKey(type, period);
         cacheService.set(key, data, RedisConfig.CacheConfig.STATISTICS_EXPIRE_TIME, TimeUnit.SECONDS);
         log.debug("Cached statistics: type={}, period={}", type, period);
     }
@@ -143,7 +166,7 @@ public class CacheStrategyService {
      * 获取缓存的统计数据
      */
     public <T> T getCachedStatistics(String type, String period, Class<T> clazz) {
-        String key = RedisConfig.CacheKeyGenerator.statisticsKey(type, period);
+        String key = statisticsKey(type, period);
         T data = cacheService.get(key, clazz);
         if (data != null) {
             log.debug("Cache hit for statistics: type={}, period={}", type, period);
@@ -153,6 +176,41 @@ public class CacheStrategyService {
         return data;
     }
 
+    /**
+     * 获取统计数据，未命中时由loader计算；同一统计不会被并发重复计算，临近过期时在后台提前刷新
+     */
+    public <T> T getOrLoadStatistics(String type, String period, Supplier<T> loader) {
+        String key = statisticsKey(type, period);
+        return cacheService.getOrLoad(key, RedisConfig.CacheConfig.STATISTICS_EXPIRE_TIME, TimeUnit.SECONDS, loader);
+    }
+
+    /**
+     * 批量缓存同一类型多个周期的统计数据，整批在一个管道中写入
+     */
+    public void cacheStatistics(String type, Map<String, ?> dataByPeriod) {
+        Map<String, Object> entries = new LinkedHashMap<>();
+        dataByPeriod.forEach((period, data) -> entries.put(statisticsKey(type, period), data));
+        cacheService.multiSet(entries, RedisConfig.CacheConfig.STATISTICS_EXPIRE_TIME, TimeUnit.SECONDS);
+        log.debug("Cached statistics: type={}, periods={}", type, dataByPeriod.keySet());
+    }
+
+    /**
+     * 批量获取同一类型多个周期的统计数据（如仪表盘同时展示日/周/月统计），一次MGET读取
+     *
+     * @return 命中的周期及其数据，未命中的周期不包含在结果中
+     */
+    public <T> Map<String, T> getCachedStatistics(String type, Collection<String> periods, Class<T> clazz) {
+        Map<String, String> periodByKey = new LinkedHashMap<>();
+        for (String period : periods) {
+            periodByKey.put(statisticsKey(type, period), period);
+        }
+        Map<String, T> result = new LinkedHashMap<>();
+        cacheService.multiGet(periodByKey.keySet(), clazz)
+            .forEach((key, data) -> result.put(periodByKey.get(key), data));
+        log.debug("Statistics batch lookup: type={}, periods={}, hits={}", type, periods.size(), result.size());
+        return result;
+    }
+
     /**
      * 缓存排行榜数据
      */
@@ -177,6 +235,14 @@ public class CacheStrategyService {
         return null;
     }
 
+    /**
+     * 获取排行榜数据，未命中时由loader计算；同一排行榜不会被并发重复计算，临近过期时在后台提前刷新
+     */
+    public <T> List<T> getOrLoadLeaderboard(String type, int limit, Supplier<List<T>> loader) {
+        String key = RedisConfig.CacheKeyGenerator.leaderboardKey(type, limit);
+        return cacheService.getOrLoad(key, RedisConfig.CacheConfig.LEADERBOARD_EXPIRE_TIME, TimeUnit.SECONDS, loader);
+    }
+
     /**
      * 缓存代码分析结果
      */
@@ -224,51 +290,23 @@ public class CacheStrategyService {
     }
 
     /**
-     * 缓存预热
+     * 缓存预热：重新加载上次保存的热点键（学习路径、用户、用户进度、热门内容）
      */
     public void warmupCache() {
         log.info("Starting cache warmup...");
         
+        if (cacheWarmupService == null) {
+            log.info("Cache warmup service not available, skipping warmup");
+            return;
+        }
         try {
-            // 预热热门学习路径
-            warmupPopularPaths();
-            
-            // 预热统计数据
-            warmupStatistics();
-            
-            // 预热排行榜数据
-            warmupLeaderboards();
-            
-            log.info("Cache warmup completed successfully");
+            Map<String, Object> result = cacheWarmupService.warmup();
+            log.info("Cache warmup completed successfully: {}", result);
         } catch (Exception e) {
             log.error("Cache warmup failed", e);
         }
     }
 
-    /**
-     * 预热热门学习路径
-     */
-    private void warmupPopularPaths() {
-        // 这里可以预加载热门的学习路径到缓存
-        log.debug("Warming up popular learning paths");
-    }
-
-    /**
-     * 预热统计数据
-     */
-    private void warmupStatistics() {
-        // 这里可以预加载常用的统计数据到缓存
-        log.debug("Warming up statistics data");
-    }
-
-    /**
-     * 预热排行榜数据
-     */
-    private void warmupLeaderboards() {
-        // 这里可以预加载排行榜数据到缓存
-        log.debug("Warming up leaderboard data");
-    }
-
     /**
      * 清理过期缓存
      */
@@ -289,34 +327,64 @@ public class CacheStrategyService {
 
     /**
      * 清理指定模式的过期键
+     * 以SCAN分批遍历，每批在一个管道中查询TTL，再以UNLINK批量删除
      */
     private void cleanupExpiredKeys(String pattern) {
-        var keys = cacheService.keys(pattern);
-        for (String key : keys) {
-            long ttl = cacheService.getExpire(key);
-            if (ttl <= 0) {
-                cacheService.delete(key);
-                log.debug("Cleaned up expired key: {}", key);
+        cacheService.scan(pattern, CLEANUP_BATCH_SIZE, batch -> {
+            List<Long> ttls = cacheService.getExpires(batch);
+            if (ttls.size() != batch.size()) {
+                return;
             }
-        }
+            List<String> expired = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i++) {
+                if (ttls.get(i) <= 0) {
+                    expired.add(batch.get(i));
+                }
+            }
+            if (!expired.isEmpty()) {
+                long removed = cacheService.unlink(expired);
+                log.debug("Cleaned up expired keys: pattern={}, count={}", pattern, removed);
+            }
+        });
     }
 
     /**
-     * 获取缓存使用情况统计
+     * 获取缓存使用情况统计，读取按命名空间维护的键计数
      */
     public Map<String, Object> getCacheUsageStats() {
         Map<String, Object> stats = Map.of(
-            "userCacheCount", cacheService.keys("user:*").size(),
-            "learningPathCacheCount", cacheService.keys("learningPath:*").size(),
-            "userProgressCacheCount", cacheService.keys("userProgress:*").size(),
-            "statisticsCacheCount", cacheService.keys("statistics:*").size(),
-            "leaderboardCacheCount", cacheService.keys("leaderboard:*").size()
+            "userCacheCount", cacheService.getNamespaceKeyCount(RedisConfig.CacheNames.USER_CACHE),
+            "learningPathCacheCount", cacheService.getNamespaceKeyCount(RedisConfig.CacheNames.LEARNING_PATH_CACHE),
+            "userProgressCacheCount", cacheService.getNamespaceKeyCount(RedisConfig.CacheNames.USER_PROGRESS_CACHE),
+            "statisticsCacheCount", cacheService.getNamespaceKeyCount(RedisConfig.CacheNames.STATISTICS_CACHE),
+            "leaderboardCacheCount", cacheService.getNamespaceKeyCount(RedisConfig.CacheNames.LEADERBOARD_CACHE)
         );
         
         log.debug("Cache usage stats: {}", stats);
         return stats;
     }
 
+    /**
+     * 获取各缓存的序列化统计（载荷大小、编解码耗时、压缩比）
+     */
+    public Map<String, Map<String, Object>> getSerializationStats() {
+        return serializationMetrics != null ? serializationMetrics.snapshot() : Map.of();
+    }
+
+    /**
+     * 获取注解缓存各区域的本地/Redis两级命中率
+     */
+    public Map<String, Object> getCacheTierStats() {
+        return cacheManager != null ? cacheManager.getStats() : Map.of();
+    }
+
+    /**
+     * 获取用户、学习路径和模块ID存在性过滤器的误判率与拦截统计
+     */
+    public Map<String, Object> getExistenceFilterStats() {
+        return existenceFilter != null ? existenceFilter.getStats() : Map.of();
+    }
+
     /**
      * 批量失效相关缓存
      */
@@ -325,17 +393,18 @@ public class CacheStrategyService {
         evictUserCache(userId);
         
         // 清除用户进度相关缓存
-        var progressKeys = cacheService.keys("userProgress:" + userId + "_*");
-        if (!progressKeys.isEmpty()) {
-            cacheService.delete(progressKeys);
-        }
+        evictAllUserProgressCache(userId);
         
         // 清除统计相关缓存（如果用户数据变化影响统计）
-        var statsKeys = cacheService.keys("statistics:*");
-        if (!statsKeys.isEmpty()) {
-            cacheService.delete(statsKeys);
-        }
+        namespaceVersions.invalidateStatistics();
         
         log.debug("Invalidated related caches for user: {}", userId);
     }
+
+    /**
+     * 统计数据缓存键，带统计命名空间的当前版本
+     */
+    private String statisticsKey(String type, String period) {
+        return namespaceVersions.statisticsKey(type, period);
+    }
 }
\ No newline at end of file
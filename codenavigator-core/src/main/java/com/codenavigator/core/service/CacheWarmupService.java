@@ -0,0 +1,364 @@
+package com.codenavigator.core.service;
+
+import com.codenavigator.core.cache.HotKeyTracker;
+import com.codenavigator.core.cache.TwoLevelCacheManager;
+import com.codenavigator.core.config.CacheWarmupConfig;
+import com.codenavigator.core.config.RedisConfig;
+import com.codenavigator.core.entity.LearningPath;
+import com.codenavigator.core.entity.User;
+import com.codenavigator.core.repository.LearningPathRepository;
+import com.codenavigator.core.repository.UserProgressRepository;
+import com.codenavigator.core.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * 基于访问频率的缓存预热
+ * 运行期间统计注解缓存各键的访问频率，定期把Top-K热点键写入Redis；
+ * 启动后按WARMUP_BATCH_SIZE分批并行重新加载这些键：Redis中仍存在的只回填本地缓存，
+ * 缺失的通过仓库批量查询加载，数据库加载按每秒键数限流
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CacheWarmupService {
+
+    static final String HOT_KEYS_KEY = "warmup:hotkeys";
+    private static final long HOT_KEYS_EXPIRE_DAYS = 7;
+    private static final String POPULAR_PATHS_PREFIX = "popular_paths_";
+    private static final String PROGRESS_KEY_SEPARATOR = "_";
+    private static final Pattern PROGRESS_KEY_VERSION = Pattern.compile("^v\\d+_");
+
+    private final CacheService cacheService;
+    private final CacheWarmupConfig warmupConfig;
+
+    @Autowired(required = false)
+    private TwoLevelCacheManager cacheManager;
+
+    @Autowired(required = false)
+    private LearningPathRepository learningPathRepository;
+
+    @Autowired(required = false)
+    private UserRepository userRepository;
+
+    @Autowired(required = false)
+    private UserProgressRepository userProgressRepository;
+
+    @Autowired(required = false)
+    private CacheNamespaceVersions namespaceVersions;
+
+    @Autowired(required = false)
+    private EntityExistenceFilter existenceFilter;
+
+    private ScheduledExecutorService warmupExecutor;
+
+    // 下一次允许从数据库加载的时间（纳秒），在this锁内访问
+    private long nextLoadAt;
+
+    private final AtomicLong persistedRuns = new AtomicLong();
+    private volatile Map<String, Object> lastWarmup = Map.of();
+
+    private static class WarmupCounters {
+        private final AtomicLong cached = new AtomicLong();
+        private final AtomicLong loaded = new AtomicLong();
+        private final AtomicLong missing = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!warmupConfig.isEnabled() || cacheManager == null) {
+            return;
+        }
+        warmupExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "CodeNavigator-Cache-Warmup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (cacheManager.getHotKeyTracker() != null) {
+            warmupExecutor.scheduleWithFixedDelay(this::persistHotKeys, warmupConfig.getPersistIntervalMs(),
+                    warmupConfig.getPersistIntervalMs(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (warmupExecutor != null) {
+            warmupExecutor.shutdownNow();
+            // 退出前保存最新的热点键，供下次启动预热
+            persistHotKeys();
+        }
+    }
+
+    /**
+     * 应用启动完成后在后台预热，不阻塞启动
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (warmupExecutor != null && RedisConfig.CacheConfig.ENABLE_CACHE_WARMUP) {
+            warmupExecutor.execute(this::warmup);
+        }
+    }
+
+    /**
+     * 把当前Top-K热点键写入Redis，随后访问计数减半
+     * 多个节点各自写入时以最后一次为准，各节点的访问分布通常相近
+     */
+    public void persistHotKeys() {
+        HotKeyTracker tracker = cacheManager != null ? cacheManager.getHotKeyTracker() : null;
+        if (tracker == null) {
+            return;
+        }
+        List<String> ids = new ArrayList<>();
+        for (HotKeyTracker.HotKey hotKey : tracker.topK(warmupConfig.getTopK())) {
+            ids.add(hotKey.id());
+        }
+        if (!ids.isEmpty()) {
+            cacheService.set(HOT_KEYS_KEY, ids, HOT_KEYS_EXPIRE_DAYS, TimeUnit.DAYS);
+            persistedRuns.incrementAndGet();
+            log.debug("Persisted hot cache keys: count={}", ids.size());
+        }
+        tracker.decay();
+    }
+
+    /**
+     * 重新加载上次保存的热点键
+     *
+     * @return 本次预热统计
+     */
+    public Map<String, Object> warmup() {
+        if (cacheManager == null) {
+            return Map.of("status", "skipped");
+        }
+        long startTime = System.currentTimeMillis();
+        List<HotKeyTracker.HotKey> hotKeys = loadHotKeys();
+        if (hotKeys.isEmpty()) {
+            log.info("No persisted hot cache keys, skipping warmup");
+            return Map.of("status", "empty");
+        }
+
+        WarmupCounters counters = new WarmupCounters();
+        ExecutorService loaders = Executors.newFixedThreadPool(Math.max(1, warmupConfig.getThreads()), runnable -> {
+            Thread thread = new Thread(runnable, "CodeNavigator-Cache-Warmup-Loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            int batchSize = RedisConfig.CacheConfig.WARMUP_BATCH_SIZE;
+            for (int from = 0; from < hotKeys.size(); from += batchSize) {
+                List<HotKeyTracker.HotKey> batch = hotKeys.subList(from, Math.min(from + batchSize, hotKeys.size()));
+                futures.add(loaders.submit(() -> warmupBatch(batch, counters)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Cache warmup interrupted");
+        } catch (ExecutionException e) {
+            log.warn("Cache warmup batch failed", e.getCause());
+        } finally {
+            loaders.shutdownNow();
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("status", "completed");
+        stats.put("keys", hotKeys.size());
+        stats.put("cached", counters.cached.get());
+        stats.put("loaded", counters.loaded.get());
+        stats.put("missing", counters.missing.get());
+        stats.put("failed", counters.failed.get());
+        stats.put("durationMs", System.currentTimeMillis() - startTime);
+        lastWarmup = stats;
+        log.info("Cache warmup completed: {}", stats);
+        return stats;
+    }
+
+    /**
+     * 获取预热与访问频率统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        HotKeyTracker tracker = cacheManager != null ? cacheManager.getHotKeyTracker() : null;
+        stats.put("trackingEnabled", tracker != null);
+        if (tracker != null) {
+            stats.put("accessesRecorded", tracker.getRecorded());
+            stats.put("candidateKeys", tracker.getCandidateCount());
+        }
+        stats.put("persistedRuns", persistedRuns.get());
+        stats.put("lastWarmup", lastWarmup);
+        return stats;
+    }
+
+    private List<HotKeyTracker.HotKey> loadHotKeys() {
+        List<HotKeyTracker.HotKey> hotKeys = new ArrayList<>();
+        if (cacheService.get(HOT_KEYS_KEY) instanceof List<?> ids) {
+            for (Object id : ids) {
+                HotKeyTracker.HotKey hotKey = id instanceof String text ? HotKeyTracker.HotKey.parse(text) : null;
+                if (hotKey != null) {
+                    hotKeys.add(hotKey);
+                }
+            }
+        }
+        return hotKeys;
+    }
+
+    private void warmupBatch(List<HotKeyTracker.HotKey> batch, WarmupCounters counters) {
+        Map<String, List<String>> keysByCache = new LinkedHashMap<>();
+        for (HotKeyTracker.HotKey hotKey : batch) {
+            keysByCache.computeIfAbsent(hotKey.cacheName(), name -> new ArrayList<>()).add(hotKey.key());
+        }
+
+        keysByCache.forEach((cacheName, keys) -> {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache == null) {
+                return;
+            }
+            // Redis中仍存在的键只需回填本地缓存
+            List<String> misses = new ArrayList<>();
+            for (String key : keys) {
+                if (cache.get(key) != null) {
+                    counters.cached.incrementAndGet();
+                } else {
+                    misses.add(key);
+                }
+            }
+            if (misses.isEmpty()) {
+                return;
+            }
+
+            try {
+                acquireLoadPermits(misses.size());
+                Map<String, Object> values = loadFromDatabase(cacheName, misses);
+                values.forEach(cache::put);
+                counters.loaded.addAndGet(values.size());
+                counters.missing.addAndGet(misses.size() - values.size());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                counters.failed.addAndGet(misses.size());
+            } catch (Exception e) {
+                counters.failed.addAndGet(misses.size());
+                log.warn("Failed to warm up cache {}: keys={}, error={}", cacheName, misses.size(), e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 按缓存区域使用对应的仓库查询加载，能批量查询的区域一次查询整批
+     * 统计、排行榜等通过getOrLoad加载的数据由调用方提供加载逻辑，不在此预热
+     */
+    Map<String, Object> loadFromDatabase(String cacheName, List<String> keys) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        if (existenceFilter != null) {
+            // 一定不存在的ID不查询数据库
+            keys = keys.stream().filter(key -> existenceFilter.mightExist(cacheName, key)).toList();
+        }
+        switch (cacheName) {
+            case RedisConfig.CacheNames.LEARNING_PATH_CACHE -> {
+                if (learningPathRepository != null) {
+                    for (LearningPath path : learningPathRepository.findAllById(keys)) {
+                        values.put(path.getId(), path);
+                    }
+                }
+            }
+            case RedisConfig.CacheNames.USER_CACHE -> {
+                if (userRepository != null) {
+                    for (User user : userRepository.findAllById(parseLongs(keys))) {
+                        values.put(String.valueOf(user.getId()), user);
+                    }
+                }
+            }
+            case RedisConfig.CacheNames.USER_PROGRESS_CACHE -> {
+                if (userProgressRepository != null) {
+                    for (String key : keys) {
+                        int index = key.indexOf(PROGRESS_KEY_SEPARATOR);
+                        Long userId = index > 0 ? parseLong(key.substring(0, index)) : null;
+                        if (userId != null && (existenceFilter == null
+                                || existenceFilter.mightExist(EntityExistenceFilter.USER, String.valueOf(userId)))) {
+                            // 记录的键可能带有已失效的命名空间版本，加载后写入当前版本的键
+                            String pathId = PROGRESS_KEY_VERSION.matcher(key.substring(index + 1)).replaceFirst("");
+                            String currentKey = namespaceVersions != null
+                                    ? namespaceVersions.userProgressKey(userId, pathId) : key;
+                            userProgressRepository.findByUserIdAndLearningPathId(userId, pathId)
+                                    .ifPresent(progress -> values.put(currentKey, progress));
+                        }
+                    }
+                }
+            }
+            case RedisConfig.CacheNames.HOT_CONTENT_CACHE -> {
+                if (learningPathRepository != null) {
+                    for (String key : keys) {
+                        Long limit = key.startsWith(POPULAR_PATHS_PREFIX)
+                                ? parseLong(key.substring(POPULAR_PATHS_PREFIX.length())) : null;
+                        if (limit != null && limit > 0) {
+                            values.put(key, new ArrayList<>(learningPathRepository
+                                    .findPopularPaths(PageRequest.of(0, limit.intValue()))));
+                        }
+                    }
+                }
+            }
+            default -> {
+            }
+        }
+        return values;
+    }
+
+    /**
+     * 平滑限流：每个键占用1/maxLoadsPerSecond秒
+     */
+    private void acquireLoadPermits(int permits) throws InterruptedException {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, warmupConfig.getMaxLoadsPerSecond());
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long start = Math.max(now, nextLoadAt);
+            nextLoadAt = start + permits * intervalNanos;
+            waitNanos = start - now;
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    private static List<Long> parseLongs(List<String> keys) {
+        List<Long> ids = new ArrayList<>();
+        for (String key : keys) {
+            Long id = parseLong(key);
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    private static Long parseLong(String text) {
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
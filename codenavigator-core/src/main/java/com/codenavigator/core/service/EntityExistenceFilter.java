@@ -0,0 +1,363 @@
+package com.codenavigator.core.service;
+
+import com.codenavigator.core.cache.KeyExistenceFilter;
+import com.codenavigator.core.cache.ScalableBloomFilter;
+import com.codenavigator.core.cache.TwoLevelCacheManager;
+import com.codenavigator.core.config.RedisConfig;
+import com.codenavigator.core.entity.LearningModule;
+import com.codenavigator.core.entity.LearningPath;
+import com.codenavigator.core.entity.User;
+import com.codenavigator.core.entity.listener.EntityInsertedEvent;
+import com.codenavigator.core.repository.LearningModuleRepository;
+import com.codenavigator.core.repository.LearningPathRepository;
+import com.codenavigator.core.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+/**
+ * 实体存在性过滤器
+ * 为用户、学习路径和学习模块的ID各维护一个可扩展布隆过滤器，启动后从数据库分批重建，新插入的实体即时加入
+ * 并通过Redis发布订阅同步到其他节点。判定不存在的ID直接按未命中处理，不再查询缓存和数据库；
+ * 过滤器尚未建好时一律视为可能存在
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EntityExistenceFilter implements KeyExistenceFilter {
+
+    public static final String USER = RedisConfig.CacheNames.USER_CACHE;
+    public static final String LEARNING_PATH = RedisConfig.CacheNames.LEARNING_PATH_CACHE;
+    public static final String LEARNING_MODULE = "learningModule";
+
+    static final String ADD_CHANNEL = "cache:bloom:add";
+    private static final String SEPARATOR = "|";
+    // 重建期间已读过的数据页之后才提交的插入会漏掉，换入新过滤器时重放该时间窗口内的插入
+    private static final long RECENT_ADD_WINDOW_MS = 60000;
+
+    // 本节点标识，用于忽略自己发出的插入通知
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired(required = false)
+    private UserRepository userRepository;
+
+    @Autowired(required = false)
+    private LearningPathRepository learningPathRepository;
+
+    @Autowired(required = false)
+    private LearningModuleRepository learningModuleRepository;
+
+    @Autowired(required = false)
+    private TwoLevelCacheManager cacheManager;
+
+    @Value("${codenavigator.cache.bloom.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${codenavigator.cache.bloom.expected-insertions:100000}")
+    private long expectedInsertions = 100000;
+
+    @Value("${codenavigator.cache.bloom.fpp:0.01}")
+    private double fpp = 0.01;
+
+    @Value("${codenavigator.cache.bloom.rebuild-page-size:5000}")
+    private int rebuildPageSize = 5000;
+
+    // 定期重建以移除已删除的ID并补上丢失的插入通知，0表示只在启动时构建
+    @Value("${codenavigator.cache.bloom.rebuild-interval-ms:21600000}")
+    private long rebuildIntervalMs = 21600000;
+
+    private record RecentAdd(String id, long addedAt) {
+    }
+
+    private static class TypeFilter {
+        // 尚未建好时为null
+        private volatile ScalableBloomFilter filter;
+        // 正在重建的过滤器，重建期间的插入同时写入
+        private volatile ScalableBloomFilter rebuilding;
+        private final ConcurrentLinkedDeque<RecentAdd> recentAdds = new ConcurrentLinkedDeque<>();
+        private final AtomicLong checks = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicLong added = new AtomicLong();
+    }
+
+    private final Map<String, TypeFilter> filters = Map.of(
+        USER, new TypeFilter(),
+        LEARNING_PATH, new TypeFilter(),
+        LEARNING_MODULE, new TypeFilter());
+
+    private ScheduledExecutorService rebuildExecutor;
+    private RedisMessageListenerContainer listenerContainer;
+
+    private final AtomicLong rebuilds = new AtomicLong();
+    private final AtomicLong rebuildFailures = new AtomicLong();
+    private final AtomicLong addsPublished = new AtomicLong();
+    private final AtomicLong addsReceived = new AtomicLong();
+    private volatile long lastRebuildAt;
+    private volatile long lastRebuildMs;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        rebuildExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "CodeNavigator-Bloom-Rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (rebuildIntervalMs > 0) {
+            rebuildExecutor.scheduleWithFixedDelay(this::rebuild, rebuildIntervalMs, rebuildIntervalMs,
+                TimeUnit.MILLISECONDS);
+        }
+        try {
+            listenerContainer = new RedisMessageListenerContainer();
+            listenerContainer.setConnectionFactory(redisTemplate.getConnectionFactory());
+            listenerContainer.addMessageListener(this::onAdd, new ChannelTopic(ADD_CHANNEL));
+            listenerContainer.afterPropertiesSet();
+            listenerContainer.start();
+        } catch (Exception e) {
+            log.warn("Failed to subscribe to existence filter updates, relying on periodic rebuild", e);
+            listenerContainer = null;
+        }
+        if (cacheManager != null) {
+            cacheManager.setExistenceFilter(this);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (rebuildExecutor != null) {
+            rebuildExecutor.shutdownNow();
+        }
+        if (listenerContainer != null) {
+            try {
+                listenerContainer.destroy();
+            } catch (Exception e) {
+                log.warn("Error stopping existence filter listener", e);
+            }
+            listenerContainer = null;
+        }
+    }
+
+    /**
+     * 应用启动完成后在后台构建，构建完成前所有ID视为可能存在
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (rebuildExecutor != null) {
+            rebuildExecutor.execute(this::rebuild);
+        }
+    }
+
+    /**
+     * 从数据库重建全部过滤器，建好后整体替换旧过滤器
+     */
+    public void rebuild() {
+        long startTime = System.currentTimeMillis();
+        if (userRepository != null) {
+            rebuild(USER, 0L, userRepository::findIdsAfter);
+        }
+        if (learningPathRepository != null) {
+            rebuild(LEARNING_PATH, "", learningPathRepository::findIdsAfter);
+        }
+        if (learningModuleRepository != null) {
+            rebuild(LEARNING_MODULE, "", learningModuleRepository::findIdsAfter);
+        }
+        lastRebuildAt = System.currentTimeMillis();
+        lastRebuildMs = lastRebuildAt - startTime;
+        rebuilds.incrementAndGet();
+    }
+
+    /**
+     * 返回false时该ID的实体一定不存在；未跟踪的类型或过滤器尚未建好时返回true
+     */
+    @Override
+    public boolean mightExist(String type, String id) {
+        TypeFilter typeFilter = filters.get(type);
+        ScalableBloomFilter filter = typeFilter != null ? typeFilter.filter : null;
+        if (!enabled || filter == null) {
+            return true;
+        }
+        typeFilter.checks.incrementAndGet();
+        if (filter.mightContain(id)) {
+            return true;
+        }
+        typeFilter.rejected.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * 缓存写入了该ID的实体，只记入本节点
+     */
+    @Override
+    public void recordExists(String type, String id) {
+        add(type, id);
+    }
+
+    /**
+     * 实体插入事件，由ExistenceFilterListener在实体插入后发布
+     */
+    @EventListener
+    public void onEntityInserted(EntityInsertedEvent event) {
+        Object entity = event.entity();
+        if (entity instanceof User user) {
+            recordInsert(USER, user.getId());
+        } else if (entity instanceof LearningPath path) {
+            recordInsert(LEARNING_PATH, path.getId());
+        } else if (entity instanceof LearningModule module) {
+            recordInsert(LEARNING_MODULE, module.getId());
+        }
+    }
+
+    /**
+     * 新插入的实体，记入本节点并通知其他节点
+     */
+    public void recordInsert(String type, Object id) {
+        if (!enabled || id == null || !filters.containsKey(type)) {
+            return;
+        }
+        String key = String.valueOf(id);
+        add(type, key);
+        try {
+            redisTemplate.convertAndSend(ADD_CHANNEL, String.join(SEPARATOR, nodeId, type, key));
+            addsPublished.incrementAndGet();
+        } catch (Exception e) {
+            // 其他节点在下次重建或缓存写入时补上
+            log.warn("Failed to publish existence filter update: type={}, id={}, error={}", type, key, e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("configuredFpp", fpp);
+        stats.put("subscribed", listenerContainer != null);
+        stats.put("rebuilds", rebuilds.get());
+        stats.put("rebuildFailures", rebuildFailures.get());
+        stats.put("lastRebuildAt", lastRebuildAt);
+        stats.put("lastRebuildMs", lastRebuildMs);
+        stats.put("addsPublished", addsPublished.get());
+        stats.put("addsReceived", addsReceived.get());
+        filters.forEach((type, typeFilter) -> {
+            ScalableBloomFilter filter = typeFilter.filter;
+            long checks = typeFilter.checks.get();
+            long rejected = typeFilter.rejected.get();
+            Map<String, Object> typeStats = new LinkedHashMap<>();
+            typeStats.put("built", filter != null);
+            typeStats.put("rebuilding", typeFilter.rebuilding != null);
+            typeStats.put("checks", checks);
+            typeStats.put("rejected", rejected);
+            typeStats.put("rejectedRatio", checks == 0 ? 0.0 : (double) rejected / checks);
+            typeStats.put("added", typeFilter.added.get());
+            if (filter != null) {
+                typeStats.putAll(filter.getStats());
+            }
+            stats.put(type, typeStats);
+        });
+        return stats;
+    }
+
+    private <T> void rebuild(String type, T start, BiFunction<T, Pageable, List<T>> idPager) {
+        TypeFilter typeFilter = filters.get(type);
+        long rebuildStartedAt = System.currentTimeMillis();
+        ScalableBloomFilter next = new ScalableBloomFilter(expectedInsertions, fpp);
+        typeFilter.rebuilding = next;
+        try {
+            Pageable page = PageRequest.of(0, rebuildPageSize);
+            T after = start;
+            List<T> ids;
+            do {
+                ids = idPager.apply(after, page);
+                for (T id : ids) {
+                    next.add(String.valueOf(id));
+                }
+                if (!ids.isEmpty()) {
+                    after = ids.get(ids.size() - 1);
+                }
+            } while (ids.size() == rebuildPageSize);
+
+            for (RecentAdd recent : typeFilter.recentAdds) {
+                if (recent.addedAt() >= rebuildStartedAt - RECENT_ADD_WINDOW_MS) {
+                    next.add(recent.id());
+                }
+            }
+            typeFilter.filter = next;
+            log.info("Existence filter rebuilt: type={}, ids={}, expectedFpp={}",
+                type, next.size(), String.format("%.5f", next.expectedFpp()));
+        } catch (Exception e) {
+            // 保留旧过滤器
+            rebuildFailures.incrementAndGet();
+            log.warn("Failed to rebuild existence filter: type={}", type, e);
+        } finally {
+            typeFilter.rebuilding = null;
+        }
+    }
+
+    private void add(String type, String id) {
+        TypeFilter typeFilter = filters.get(type);
+        if (!enabled || typeFilter == null) {
+            return;
+        }
+        ScalableBloomFilter filter = typeFilter.filter;
+        if (filter != null) {
+            filter.add(id);
+        }
+        ScalableBloomFilter rebuilding = typeFilter.rebuilding;
+        if (rebuilding != null) {
+            rebuilding.add(id);
+        }
+        typeFilter.added.incrementAndGet();
+
+        long now = System.currentTimeMillis();
+        typeFilter.recentAdds.addLast(new RecentAdd(id, now));
+        Iterator<RecentAdd> iterator = typeFilter.recentAdds.iterator();
+        while (iterator.hasNext() && iterator.next().addedAt() < now - RECENT_ADD_WINDOW_MS) {
+            iterator.remove();
+        }
+    }
+
+    private void onAdd(Message message, byte[] pattern) {
+        Object payload = redisTemplate.getValueSerializer().deserialize(message.getBody());
+        if (payload instanceof String text) {
+            handleAdd(text);
+        }
+    }
+
+    /**
+     * 处理其他节点的插入通知，格式为 节点|类型|ID
+     */
+    void handleAdd(String payload) {
+        String[] parts = payload.split("\\" + SEPARATOR, 3);
+        if (parts.length < 3 || parts[0].equals(nodeId)) {
+            return;
+        }
+        add(parts[1], parts[2]);
+        addsReceived.incrementAndGet();
+    }
+}
@@ -0,0 +1,511 @@
+package com.codenavigator.core.service;
+
+import com.codenavigator.core.cache.RedisHealthMonitor;
+import com.codenavigator.core.entity.User;
+import com.codenavigator.core.entity.UserProgress;
+import com.codenavigator.core.entity.listener.LearningPathCompletedEvent;
+import com.codenavigator.core.repository.UserProgressRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.connection.zset.Tuple;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 学习路径完成排行榜
+ * 以Redis有序集合维护，分数为 完成路径数 × SCORE_SCALE + 平均完成度（百分比，精确到0.01）；
+ * 学习路径完成的事务提交后，由一个Lua脚本原子地更新完成数、完成度之和与分数。
+ * Top-N与用户排名查询为O(log n)，读取不访问数据库；定期与MySQL对账修正丢失或重复的更新。
+ * Redis命令经CacheService计入健康状态，降级期间跳过更新与读取，遗漏的完成事件由恢复后的对账补上
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LeaderboardService {
+
+    // 同一哈希标签，保证脚本涉及的键在集群模式下位于同一槽位
+    static final String LEADERBOARD_KEY = "leaderboard:{completed-paths}";
+    static final String COUNT_KEY = LEADERBOARD_KEY + ":count";
+    static final String PROGRESS_KEY = LEADERBOARD_KEY + ":progress";
+    static final String PROFILE_KEY = LEADERBOARD_KEY + ":profile";
+    static final String UPDATED_KEY = LEADERBOARD_KEY + ":updated";
+    static final long SCORE_SCALE = 100000;
+
+    private static final List<String> KEYS = List.of(LEADERBOARD_KEY, COUNT_KEY, PROGRESS_KEY, PROFILE_KEY, UPDATED_KEY);
+    private static final String RECONCILE_LOCK_KEY = "lock:leaderboard:reconcile";
+    private static final String PROFILE_SEPARATOR = "\n";
+    private static final int REMOVE_BATCH_SIZE = 500;
+
+    private static final String SCORE_EXPRESSION =
+            "local function score(count, sum, scale) "
+            + "return count * scale + math.min(scale - 1, math.floor(sum * 100 / count + 0.5)) end ";
+
+    // ARGV: 用户ID, 完成度, 用户资料, 更新时间, SCORE_SCALE
+    private static final RedisScript<Long> COMPLETE_SCRIPT = new DefaultRedisScript<>(SCORE_EXPRESSION
+            + "local count = redis.call('HINCRBY', KEYS[2], ARGV[1], 1) "
+            + "local sum = tonumber(redis.call('HINCRBYFLOAT', KEYS[3], ARGV[1], ARGV[2])) "
+            + "if ARGV[3] ~= '' then redis.call('HSET', KEYS[4], ARGV[1], ARGV[3]) end "
+            + "redis.call('HSET', KEYS[5], ARGV[1], ARGV[4]) "
+            + "local s = score(count, sum, tonumber(ARGV[5])) "
+            + "redis.call('ZADD', KEYS[1], s, ARGV[1]) "
+            + "return s", Long.class);
+
+    // ARGV: 对账开始时间, SCORE_SCALE, 之后每4个为 用户ID, 完成数, 完成度之和, 用户资料；对账开始后有更新的用户跳过
+    private static final RedisScript<Long> RECONCILE_SCRIPT = new DefaultRedisScript<>(SCORE_EXPRESSION
+            + "local corrected = 0 "
+            + "for i = 3, #ARGV, 4 do "
+            + "  local user = ARGV[i] "
+            + "  if tonumber(redis.call('HGET', KEYS[5], user) or '0') < tonumber(ARGV[1]) then "
+            + "    local s = score(tonumber(ARGV[i + 1]), tonumber(ARGV[i + 2]), tonumber(ARGV[2])) "
+            + "    if tonumber(redis.call('ZSCORE', KEYS[1], user) or '-1') ~= s then "
+            + "      redis.call('HSET', KEYS[2], user, ARGV[i + 1]) "
+            + "      redis.call('HSET', KEYS[3], user, ARGV[i + 2]) "
+            + "      redis.call('ZADD', KEYS[1], s, user) "
+            + "      corrected = corrected + 1 "
+            + "    end "
+            + "  end "
+            + "  if ARGV[i + 3] ~= '' then redis.call('HSET', KEYS[4], user, ARGV[i + 3]) end "
+            + "end "
+            + "return corrected", Long.class);
+
+    // ARGV: 对账开始时间, 之后为要移除的用户ID；对账开始后有更新的用户保留
+    private static final RedisScript<Long> REMOVE_SCRIPT = new DefaultRedisScript<>(
+            "local removed = 0 "
+            + "for i = 2, #ARGV do "
+            + "  if tonumber(redis.call('HGET', KEYS[5], ARGV[i]) or '0') < tonumber(ARGV[1]) then "
+            + "    removed = removed + redis.call('ZREM', KEYS[1], ARGV[i]) "
+            + "    for k = 2, 5 do redis.call('HDEL', KEYS[k], ARGV[i]) end "
+            + "  end "
+            + "end "
+            + "return removed", Long.class);
+
+    private static final RedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private static final RedisSerializer<String> STRING_SERIALIZER = RedisSerializer.string();
+    private static final RedisSerializer<Long> LONG_SERIALIZER = new GenericToStringSerializer<>(Long.class);
+
+    /**
+     * 排行榜条目，rank从1开始
+     */
+    public record Entry(long rank, Long userId, String username, String avatar,
+                        long completedPaths, double averageProgress) {
+    }
+
+    private final CacheService cacheService;
+
+    @Autowired(required = false)
+    private UserProgressRepository userProgressRepository;
+
+    @Value("${codenavigator.cache.leaderboard.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${codenavigator.cache.leaderboard.reconcile-interval-ms:600000}")
+    private long reconcileIntervalMs = 600000;
+
+    @Value("${codenavigator.cache.leaderboard.reconcile-page-size:1000}")
+    private int reconcilePageSize = 1000;
+
+    private ScheduledExecutorService reconcileExecutor;
+
+    private final AtomicLong completions = new AtomicLong();
+    private final AtomicLong completionFailures = new AtomicLong();
+    private final AtomicLong reconciliations = new AtomicLong();
+    private final AtomicLong corrections = new AtomicLong();
+    private final AtomicLong removals = new AtomicLong();
+    // 降级期间跳过了更新，Redis恢复后需尽快对账
+    private final AtomicBoolean reconcileNeeded = new AtomicBoolean();
+    private volatile long lastReconcileAt;
+    private volatile long lastReconcileMs;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled || userProgressRepository == null) {
+            return;
+        }
+        reconcileExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "CodeNavigator-Leaderboard-Reconcile");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (reconcileIntervalMs > 0) {
+            reconcileExecutor.scheduleWithFixedDelay(this::reconcile, reconcileIntervalMs, reconcileIntervalMs,
+                    TimeUnit.MILLISECONDS);
+        }
+        cacheService.addRecoveryTask(this::reconcileAfterRecovery);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (reconcileExecutor != null) {
+            reconcileExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * 应用启动完成后排行榜为空时在后台从数据库构建
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (reconcileExecutor != null) {
+            reconcileExecutor.execute(() -> {
+                if (size() == 0) {
+                    reconcile();
+                }
+            });
+        }
+    }
+
+    /**
+     * 学习路径完成事件，由LeaderboardProgressListener在保存进度时发布
+     */
+    @EventListener
+    public void onLearningPathCompleted(LearningPathCompletedEvent event) {
+        onPathCompleted(event.progress());
+    }
+
+    /**
+     * 学习路径完成；在事务中调用时于提交后更新排行榜，回滚则不计入
+     */
+    public void onPathCompleted(UserProgress progress) {
+        User user = progress.getUser();
+        Long userId = user != null ? user.getId() : null;
+        if (!enabled || userId == null) {
+            return;
+        }
+        double percentage = progress.getCompletionPercentage() != null ? progress.getCompletionPercentage() : 100.0;
+        String profile = profileOf(user);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recordCompletion(userId, percentage, profile);
+                }
+            });
+        } else {
+            recordCompletion(userId, percentage, profile);
+        }
+    }
+
+    /**
+     * 原子地计入一次完成并更新分数；失败的更新在下次对账时修正
+     */
+    public void recordCompletion(Long userId, double completionPercentage, String profile) {
+        if (!cacheService.isRedisAvailable()) {
+            completionFailures.incrementAndGet();
+            reconcileNeeded.set(true);
+            log.debug("Redis unavailable, leaving leaderboard update for user {} to reconciliation", userId);
+            return;
+        }
+        try {
+            cacheService.executeScript(COMPLETE_SCRIPT, STRING_SERIALIZER, LONG_SERIALIZER, KEYS,
+                    String.valueOf(userId), String.valueOf(completionPercentage), profile != null ? profile : "",
+                    String.valueOf(System.currentTimeMillis()), String.valueOf(SCORE_SCALE));
+            completions.incrementAndGet();
+        } catch (Exception e) {
+            completionFailures.incrementAndGet();
+            reconcileNeeded.set(true);
+            log.warn("Failed to update leaderboard for user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    /**
+     * 获取前n名
+     */
+    public List<Entry> getTopN(int n) {
+        if (n <= 0 || !cacheService.isRedisAvailable()) {
+            return List.of();
+        }
+        try {
+            List<Entry> entries = cacheService.execute((RedisCallback<List<Entry>>) connection -> {
+                Set<Tuple> tuples = connection.zSetCommands().zRevRangeWithScores(raw(LEADERBOARD_KEY), 0, n - 1);
+                if (tuples == null || tuples.isEmpty()) {
+                    return List.of();
+                }
+                List<Tuple> ranked = new ArrayList<>(tuples);
+                byte[][] members = new byte[ranked.size()][];
+                for (int i = 0; i < ranked.size(); i++) {
+                    members[i] = ranked.get(i).getValue();
+                }
+                List<byte[]> profiles = connection.hashCommands().hMGet(raw(PROFILE_KEY), members);
+                List<Entry> result = new ArrayList<>(ranked.size());
+                for (int i = 0; i < ranked.size(); i++) {
+                    byte[] profile = profiles != null ? profiles.get(i) : null;
+                    result.add(toEntry(i + 1, new String(members[i], StandardCharsets.UTF_8),
+                            ranked.get(i).getScore(), profile != null ? new String(profile, StandardCharsets.UTF_8) : null));
+                }
+                return result;
+            });
+            return entries != null ? entries : List.of();
+        } catch (Exception e) {
+            log.warn("Failed to read leaderboard top {}: {}", n, e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * 获取用户的排名，未上榜时返回null
+     */
+    public Entry getUserRank(Long userId) {
+        if (!cacheService.isRedisAvailable()) {
+            return null;
+        }
+        try {
+            String member = String.valueOf(userId);
+            List<Object> results = cacheService.executePipelined((RedisCallback<Object>) connection -> {
+                connection.zSetCommands().zRevRank(raw(LEADERBOARD_KEY), raw(member));
+                connection.zSetCommands().zScore(raw(LEADERBOARD_KEY), raw(member));
+                connection.hashCommands().hGet(raw(PROFILE_KEY), raw(member));
+                return null;
+            }, STRING_SERIALIZER);
+            if (results == null || results.size() < 3 || !(results.get(0) instanceof Long rank)
+                    || !(results.get(1) instanceof Double score)) {
+                return null;
+            }
+            return toEntry(rank + 1, member, score, (String) results.get(2));
+        } catch (Exception e) {
+            log.warn("Failed to read leaderboard rank for user {}: {}", userId, e.getMessage());
+            return null;
+        }
+    }
+
+    public long size() {
+        if (!cacheService.isRedisAvailable()) {
+            return 0;
+        }
+        try {
+            Long size = cacheService.execute((RedisCallback<Long>) connection ->
+                    connection.zSetCommands().zCard(raw(LEADERBOARD_KEY)));
+            return size != null ? size : 0;
+        } catch (Exception e) {
+            log.warn("Failed to read leaderboard size: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * 与数据库对账：按用户分批汇总完成记录，修正分数不一致的用户并移除已无完成记录的用户；
+     * 对账开始后有完成事件的用户以事件为准。多个节点同时触发时只有一个节点执行
+     *
+     * @return 本次对账统计
+     */
+    public Map<String, Object> reconcile() {
+        if (userProgressRepository == null) {
+            return Map.of("status", "skipped");
+        }
+        if (!cacheService.isRedisAvailable()) {
+            return Map.of("status", "unavailable");
+        }
+        String token = UUID.randomUUID().toString();
+        if (!tryLock(token)) {
+            return Map.of("status", "locked");
+        }
+        long startedAt = System.currentTimeMillis();
+        long corrected = 0;
+        long removed = 0;
+        Set<String> seen = new HashSet<>();
+        try {
+            long afterUserId = 0;
+            List<Object[]> rows;
+            do {
+                rows = userProgressRepository.getLeaderboardTotalsAfter(afterUserId, reconcilePageSize);
+                if (rows.isEmpty()) {
+                    break;
+                }
+                List<String> args = new ArrayList<>(rows.size() * 4 + 2);
+                args.add(String.valueOf(startedAt));
+                args.add(String.valueOf(SCORE_SCALE));
+                for (Object[] row : rows) {
+                    long userId = ((Number) row[0]).longValue();
+                    String member = String.valueOf(userId);
+                    seen.add(member);
+                    args.add(member);
+                    args.add(String.valueOf(((Number) row[3]).longValue()));
+                    args.add(String.valueOf(row[4] != null ? ((Number) row[4]).doubleValue() : 0.0));
+                    args.add(profileOf((String) row[1], (String) row[2]));
+                    afterUserId = userId;
+                }
+                Long result = cacheService.executeScript(RECONCILE_SCRIPT, STRING_SERIALIZER, LONG_SERIALIZER, KEYS,
+                        args.toArray());
+                corrected += result != null ? result : 0;
+            } while (rows.size() == reconcilePageSize);
+
+            removed = removeStale(seen, startedAt);
+            corrections.addAndGet(corrected);
+            removals.addAndGet(removed);
+            reconciliations.incrementAndGet();
+            lastReconcileAt = System.currentTimeMillis();
+            lastReconcileMs = lastReconcileAt - startedAt;
+            if (corrected > 0 || removed > 0) {
+                log.info("Leaderboard reconciled: users={}, corrected={}, removed={}, elapsed={}ms",
+                        seen.size(), corrected, removed, lastReconcileMs);
+            }
+        } catch (Exception e) {
+            log.warn("Leaderboard reconciliation failed", e);
+            return Map.of("status", "failed");
+        } finally {
+            unlock(token);
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("status", "completed");
+        result.put("users", seen.size());
+        result.put("corrected", corrected);
+        result.put("removed", removed);
+        return result;
+    }
+
+    /**
+     * CacheService的恢复任务：降级期间跳过了更新时，在Redis恢复访问后于后台补做一次对账
+     */
+    private void reconcileAfterRecovery() {
+        if (cacheService.getRedisState() != RedisHealthMonitor.State.HEALTHY || !reconcileNeeded.getAndSet(false)) {
+            return;
+        }
+        try {
+            reconcileExecutor.execute(() -> {
+                Object status = reconcile().get("status");
+                if (!"completed".equals(status) && !"locked".equals(status)) {
+                    reconcileNeeded.set(true);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            reconcileNeeded.set(true);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("completions", completions.get());
+        stats.put("completionFailures", completionFailures.get());
+        stats.put("reconciliations", reconciliations.get());
+        stats.put("corrections", corrections.get());
+        stats.put("removals", removals.get());
+        stats.put("reconcileNeeded", reconcileNeeded.get());
+        stats.put("lastReconcileAt", lastReconcileAt);
+        stats.put("lastReconcileMs", lastReconcileMs);
+        return stats;
+    }
+
+    /**
+     * 解码分数：完成路径数 × SCORE_SCALE + 平均完成度 × 100
+     */
+    static Entry toEntry(long rank, String member, double score, String profile) {
+        long encoded = (long) score;
+        long completedPaths = encoded / SCORE_SCALE;
+        double averageProgress = (encoded % SCORE_SCALE) / 100.0;
+        String username = null;
+        String avatar = null;
+        if (profile != null && !profile.isEmpty()) {
+            int index = profile.indexOf(PROFILE_SEPARATOR);
+            username = index >= 0 ? profile.substring(0, index) : profile;
+            avatar = index >= 0 && index < profile.length() - 1 ? profile.substring(index + 1) : null;
+        }
+        return new Entry(rank, Long.valueOf(member), username, avatar, completedPaths, averageProgress);
+    }
+
+    private long removeStale(Set<String> seen, long startedAt) {
+        List<String> stale = cacheService.execute((RedisCallback<List<String>>) connection -> {
+            List<String> members = new ArrayList<>();
+            try (Cursor<Tuple> cursor = connection.zSetCommands().zScan(raw(LEADERBOARD_KEY),
+                    ScanOptions.scanOptions().count(reconcilePageSize).build())) {
+                while (cursor.hasNext()) {
+                    String member = new String(cursor.next().getValue(), StandardCharsets.UTF_8);
+                    if (!seen.contains(member)) {
+                        members.add(member);
+                    }
+                }
+            }
+            return members;
+        });
+        if (stale == null || stale.isEmpty()) {
+            return 0;
+        }
+        long removed = 0;
+        for (int from = 0; from < stale.size(); from += REMOVE_BATCH_SIZE) {
+            List<String> args = new ArrayList<>();
+            args.add(String.valueOf(startedAt));
+            args.addAll(stale.subList(from, Math.min(stale.size(), from + REMOVE_BATCH_SIZE)));
+            Long result = cacheService.executeScript(REMOVE_SCRIPT, STRING_SERIALIZER, LONG_SERIALIZER, KEYS, args.toArray());
+            removed += result != null ? result : 0;
+        }
+        return removed;
+    }
+
+    private boolean tryLock(String token) {
+        try {
+            return Boolean.TRUE.equals(cacheService.execute((RedisCallback<Boolean>) connection -> setLock(connection, token)));
+        } catch (Exception e) {
+            log.warn("Failed to acquire leaderboard reconcile lock: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private Boolean setLock(RedisConnection connection, String token) {
+        // 锁的有效期覆盖一轮对账，节点崩溃时自动释放
+        return connection.stringCommands().set(raw(RECONCILE_LOCK_KEY), raw(token),
+                Expiration.milliseconds(Math.max(60000, reconcileIntervalMs)), SetOption.SET_IF_ABSENT);
+    }
+
+    private void unlock(String token) {
+        try {
+            cacheService.executeScript(UNLOCK_SCRIPT, STRING_SERIALIZER, LONG_SERIALIZER, List.of(RECONCILE_LOCK_KEY), token);
+        } catch (Exception e) {
+            log.warn("Failed to release leaderboard reconcile lock: {}", e.getMessage());
+        }
+    }
+
+    private static String profileOf(User user) {
+        try {
+            return profileOf(user.getUsername(), user.getAvatar());
+        } catch (RuntimeException e) {
+            // 延迟加载失败时不更新资料，由对账补上
+            return "";
+        }
+    }
+
+    private static String profileOf(String username, String avatar) {
+        if (username == null) {
+            return "";
+        }
+        return avatar != null ? username + PROFILE_SEPARATOR + avatar : username;
+    }
+
+    private static byte[] raw(String value) {
+        return STRING_SERIALIZER.serialize(value);
+    }
+}
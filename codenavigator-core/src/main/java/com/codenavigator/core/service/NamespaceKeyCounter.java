@@ -0,0 +1,113 @@
+package com.codenavigator.core.service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按命名空间（键中第一个":"之前的部分）统计Redis键数量
+ * 本节点执行的SCAN每完成一轮、或读取到其他节点发布的统计时整体替换计数；
+ * 两次替换之间通过本节点新增和删除的键即时增减，读取为O(1)
+ */
+class NamespaceKeyCounter {
+
+    private static final String SEPARATOR = ":";
+
+    private volatile Map<String, AtomicLong> counts = new ConcurrentHashMap<>();
+    private volatile long lastRecountAt;
+
+    // 正在进行的一轮计数
+    private Map<String, Long> pending = new HashMap<>();
+
+    static String namespaceOf(String key) {
+        int index = key.indexOf(SEPARATOR);
+        return index > 0 ? key.substring(0, index) : key;
+    }
+
+    /**
+     * 模式中通配符之前的固定部分包含完整命名空间时返回该命名空间，否则返回null
+     */
+    static String namespaceOfPattern(String pattern) {
+        int index = pattern.indexOf(SEPARATOR);
+        if (index <= 0) {
+            return null;
+        }
+        String namespace = pattern.substring(0, index);
+        return namespace.matches(".*[*?\\[\\]\\\\].*") ? null : namespace;
+    }
+
+    long get(String namespace) {
+        AtomicLong count = counts.get(namespace);
+        return count != null ? count.get() : 0;
+    }
+
+    Map<String, Long> snapshot() {
+        Map<String, Long> snapshot = new HashMap<>();
+        counts.forEach((namespace, count) -> snapshot.put(namespace, count.get()));
+        return snapshot;
+    }
+
+    long getLastRecountAt() {
+        return lastRecountAt;
+    }
+
+    void onAdded(String namespace) {
+        counts.computeIfAbsent(namespace, key -> new AtomicLong()).incrementAndGet();
+    }
+
+    void onRemoved(String namespace, long removed) {
+        if (namespace == null || removed <= 0) {
+            return;
+        }
+        AtomicLong count = counts.get(namespace);
+        if (count != null) {
+            count.updateAndGet(current -> Math.max(0, current - removed));
+        }
+    }
+
+    /**
+     * 累加本轮SCAN扫描到的一批键
+     */
+    synchronized void accumulate(Collection<String> keys) {
+        for (String key : keys) {
+            pending.merge(namespaceOf(key), 1L, Long::sum);
+        }
+    }
+
+    /**
+     * 本轮SCAN完成，发布计数
+     */
+    synchronized void publish() {
+        Map<String, AtomicLong> published = new ConcurrentHashMap<>();
+        pending.forEach((namespace, count) -> published.put(namespace, new AtomicLong(count)));
+        counts = published;
+        pending = new HashMap<>();
+        lastRecountAt = System.currentTimeMillis();
+    }
+
+    /**
+     * 以其他节点发布的统计替换计数
+     */
+    synchronized void replace(Map<String, Long> published) {
+        Map<String, AtomicLong> replaced = new ConcurrentHashMap<>();
+        published.forEach((namespace, count) -> replaced.put(namespace, new AtomicLong(count)));
+        counts = replaced;
+        lastRecountAt = System.currentTimeMillis();
+    }
+
+    /**
+     * 清空全部计数（FLUSHALL之后）
+     */
+    synchronized void clear() {
+        counts = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * 本轮SCAN中断，丢弃未完成的计数
+     */
+    synchronized void discard() {
+        pending = new HashMap<>();
+    }
+}
@@ -0,0 +1,57 @@
+package com.codenavigator.core.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HotKeyTrackerTest {
+
+    @Test
+    void testTopKReturnsMostFrequentKeys() {
+        HotKeyTracker tracker = new HotKeyTracker(3);
+        // 大量只访问一次的长尾键
+        for (int i = 0; i < 5000; i++) {
+            tracker.record("learningPath", "tail-" + i);
+        }
+        for (int round = 0; round < 50; round++) {
+            tracker.record("learningPath", "java-basics");
+            tracker.record("user", "42");
+            if (round % 2 == 0) {
+                tracker.record("hotContent", "popular_paths_10");
+            }
+        }
+
+        List<HotKeyTracker.HotKey> top = tracker.topK(3);
+
+        assertEquals(List.of("learningPath|java-basics", "user|42", "hotContent|popular_paths_10"),
+            top.stream().map(HotKeyTracker.HotKey::id).toList());
+        assertTrue(top.get(0).count() >= 50);
+        // 候选键数量不超过容量的两倍
+        assertTrue(tracker.getCandidateCount() <= 6);
+    }
+
+    @Test
+    void testDecayHalvesCountsAndDropsColdKeys() {
+        HotKeyTracker tracker = new HotKeyTracker(10);
+        for (int i = 0; i < 8; i++) {
+            tracker.record("user", "1");
+        }
+        tracker.record("user", "2");
+
+        tracker.decay();
+
+        assertEquals(4, tracker.estimate("user", "1"));
+        assertEquals(List.of("user|1"), tracker.topK(10).stream().map(HotKeyTracker.HotKey::id).toList());
+    }
+
+    @Test
+    void testParseKeepsSeparatorInKey() {
+        HotKeyTracker.HotKey hotKey = HotKeyTracker.HotKey.parse("userProgress|1_a|b");
+
+        assertEquals("userProgress", hotKey.cacheName());
+        assertEquals("1_a|b", hotKey.key());
+        assertNull(HotKeyTracker.HotKey.parse("invalid"));
+    }
+}
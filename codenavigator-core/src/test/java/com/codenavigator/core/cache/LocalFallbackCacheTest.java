@@ -0,0 +1,53 @@
+package com.codenavigator.core.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalFallbackCacheTest {
+
+    @Test
+    void testPendingKeysSurviveLocalEvictionAndCollapseToNamespace() {
+        LocalFallbackCache cache = new LocalFallbackCache(3, 60000);
+        cache.put("user:1", "alice", 0);
+        cache.put("user:2", "bob", 60000);
+        cache.delete("user:1");
+        cache.put("user:3", "carol", 0);
+        cache.put("statistics:daily", 1, 0);
+        cache.delete("learningPath:java");
+
+        // 本地条目按LRU淘汰，但待失效的键不会因淘汰而丢失；超出上限的键按命名空间整体失效
+        assertNull(cache.get("user:1"));
+        assertEquals("carol", cache.get("user:3"));
+        assertEquals(List.of("statistics:*", "learningPath:*"), cache.drainPatterns());
+        assertEquals(2L, cache.getStats().get("collapsedKeys"));
+        assertEquals(0L, cache.getDroppedInvalidations());
+
+        List<String> first = cache.drainPendingKeys(2);
+        assertEquals(List.of("user:1", "user:2"), first);
+
+        // 失效失败时放回，删除是幂等的
+        cache.restore(first, List.of());
+        assertEquals(List.of("user:3", "user:1", "user:2"), cache.drainPendingKeys(10));
+        assertFalse(cache.hasPending());
+    }
+
+    @Test
+    void testDeletePatternRemovesMatchingKeysAndRecordsPattern() {
+        LocalFallbackCache cache = new LocalFallbackCache(100, 60000);
+        cache.put("userProgress::42_java", 1, 0);
+        cache.put("userProgress::42_go", 2, 0);
+        cache.put("userProgress::7_java", 3, 0);
+
+        assertEquals(2, cache.deletePattern("userProgress::42_*"));
+
+        assertNull(cache.get("userProgress::42_java"));
+        assertEquals(3, cache.get("userProgress::7_java"));
+        assertEquals(List.of("userProgress::7_java"), cache.drainPendingKeys(10));
+        assertEquals(List.of("userProgress::42_*"), cache.drainPatterns());
+        assertTrue(LocalFallbackCache.globToRegex("a.b?c*").matcher("a.bXc123").matches());
+        assertFalse(LocalFallbackCache.globToRegex("a.b?c*").matcher("aXbXc").matches());
+    }
+}
@@ -0,0 +1,44 @@
+package com.codenavigator.core.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScalableBloomFilterTest {
+
+    @Test
+    void testNoFalseNegativesAndFppWithinTargetAfterGrowth() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(1000, 0.01);
+        // 插入量为初始容量的20倍，触发多次扩容
+        for (int i = 0; i < 20000; i++) {
+            filter.add("user-" + i);
+        }
+        for (int i = 0; i < 20000; i++) {
+            assertTrue(filter.mightContain("user-" + i));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100000; i++) {
+            if (filter.mightContain("missing-" + i)) {
+                falsePositives++;
+            }
+        }
+        Map<String, Object> stats = filter.getStats();
+        assertTrue((Integer) stats.get("filters") > 1);
+        assertTrue(filter.expectedFpp() <= 0.01, "expected fpp " + filter.expectedFpp());
+        assertTrue(falsePositives / 100000.0 <= 0.015, "observed fpp " + falsePositives / 100000.0);
+    }
+
+    @Test
+    void testDuplicateAddsAreNotCounted() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(100, 0.01);
+        filter.add("42");
+        filter.add("42");
+
+        assertEquals(1, filter.size());
+        assertFalse(filter.mightContain("default-user"));
+        assertThrows(IllegalArgumentException.class, () -> new ScalableBloomFilter(100, 1.5));
+    }
+}
@@ -0,0 +1,64 @@
+package com.codenavigator.core.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlidingWindowHotKeyDetectorTest {
+
+    @Test
+    void testKeyPromotedOnceWindowCountReachesThreshold() {
+        SlidingWindowHotKeyDetector detector = new SlidingWindowHotKeyDetector(1000, 5, 10, 1024);
+        long now = System.currentTimeMillis();
+
+        for (int i = 0; i < 9; i++) {
+            assertFalse(detector.record("leaderboard:global:10", now));
+        }
+        assertTrue(detector.record("leaderboard:global:10", now));
+        assertFalse(detector.record("statistics:user:daily", now));
+
+        List<SlidingWindowHotKeyDetector.HotKey> hotKeys = detector.hotKeys(now);
+        assertEquals(1, hotKeys.size());
+        assertEquals("leaderboard:global:10", hotKeys.get(0).key());
+        assertEquals(10, hotKeys.get(0).windowCount());
+    }
+
+    @Test
+    void testHotKeyDemotedAfterTrafficLeavesWindow() {
+        SlidingWindowHotKeyDetector detector = new SlidingWindowHotKeyDetector(1000, 5, 10, 1024);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 10; i++) {
+            detector.record("learningPath:spring", now);
+        }
+
+        // 一个桶之后仍在窗口内，保持热点
+        assertTrue(detector.drainDemoted(now + 200).isEmpty());
+        assertTrue(detector.isHot("learningPath:spring"));
+
+        // 整个窗口过去后访问计数清零，移出热点
+        assertEquals(List.of("learningPath:spring"), detector.drainDemoted(now + 1200));
+        assertFalse(detector.isHot("learningPath:spring"));
+        assertEquals(1, detector.getDemotions());
+        assertTrue(detector.drainDemoted(now + 1200).isEmpty());
+    }
+
+    @Test
+    void testSteadyTrafficPromotedWhenBucketRolls() {
+        SlidingWindowHotKeyDetector detector = new SlidingWindowHotKeyDetector(1000, 5, 10, 1024);
+        long start = System.currentTimeMillis() / 200 * 200;
+
+        // 每个桶3次，单桶内达不到阈值，只在滚动时按整个窗口的计数判定
+        for (int bucket = 0; bucket < 4; bucket++) {
+            for (int i = 0; i < 3; i++) {
+                assertFalse(detector.record("user:42", start + bucket * 200L));
+            }
+        }
+        assertFalse(detector.isHot("user:42"));
+
+        detector.drainDemoted(start + 800);
+        assertTrue(detector.isHot("user:42"));
+        assertEquals(1, detector.getPromotions());
+    }
+}
@@ -0,0 +1,106 @@
+package com.codenavigator.core.cache;
+
+import com.codenavigator.core.config.LocalCacheConfig;
+import com.codenavigator.core.config.RedisConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TwoLevelCacheManagerTest {
+
+    private ConcurrentMapCacheManager redisCacheManager;
+    private LocalCacheConfig localCacheConfig;
+    private TwoLevelCacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        // 以内存缓存管理器代替Redis作为二级缓存
+        redisCacheManager = new ConcurrentMapCacheManager();
+        localCacheConfig = new LocalCacheConfig();
+        cacheManager = new TwoLevelCacheManager(redisCacheManager, null, localCacheConfig,
+            RedisConfig.cacheTtls(), Duration.ofHours(1), new HotKeyTracker(100));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testReadsServedFromLocalTierAfterFirstHit() {
+        redisCacheManager.getCache(RedisConfig.CacheNames.LEARNING_PATH_CACHE).put(1L, "path-1");
+        Cache cache = cacheManager.getCache(RedisConfig.CacheNames.LEARNING_PATH_CACHE);
+
+        assertEquals("path-1", cache.get(1L).get());
+        // 二级缓存中的值被删除后，本地副本仍可命中
+        redisCacheManager.getCache(RedisConfig.CacheNames.LEARNING_PATH_CACHE).evict(1L);
+        assertEquals("path-1", cache.get(1L, String.class));
+        assertNull(cache.get(2L));
+
+        Map<String, Object> regions = (Map<String, Object>) cacheManager.getStats().get("regions");
+        Map<String, Object> stats = (Map<String, Object>) regions.get(RedisConfig.CacheNames.LEARNING_PATH_CACHE);
+        assertEquals(1L, stats.get("localHits"));
+        assertEquals(1L, stats.get("redisHits"));
+        assertEquals(1L, stats.get("misses"));
+        assertEquals(0.5, (Double) stats.get("redisHitRatio"), 0.0001);
+        assertEquals(1, stats.get("localSize"));
+        // 未配置本地过期时间时与Redis中的过期时间一致
+        assertEquals((long) RedisConfig.CacheConfig.LEARNING_PATH_EXPIRE_TIME, stats.get("localTtlSeconds"));
+        // 读取计入访问频率
+        assertEquals(2, cacheManager.getHotKeyTracker().estimate(RedisConfig.CacheNames.LEARNING_PATH_CACHE, "1"));
+    }
+
+    @Test
+    void testWritesUpdateBothTiersAndRemoteInvalidationDropsLocalCopy() {
+        Cache cache = cacheManager.getCache(RedisConfig.CacheNames.USER_CACHE);
+        Cache redisCache = redisCacheManager.getCache(RedisConfig.CacheNames.USER_CACHE);
+
+        cache.put(7L, "user-7");
+        assertEquals("user-7", redisCache.get(7L).get());
+
+        // 其他节点更新了该键
+        redisCache.put(7L, "user-7-v2");
+        assertEquals("user-7", cache.get(7L).get());
+        cacheManager.handleInvalidation("other-node|evict|user|7");
+        assertEquals("user-7-v2", cache.get(7L).get());
+
+        cacheManager.handleInvalidation("other-node|clear|user|");
+        cache.evict(7L);
+        assertNull(redisCache.get(7L));
+        assertNull(cache.get(7L));
+        assertEquals(2L, cacheManager.getStats().get("invalidationsReceived"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRegionWithoutLocalConfigPassesThroughAndTtlIsCapped() {
+        Cache statistics = cacheManager.getCache(RedisConfig.CacheNames.STATISTICS_CACHE);
+        statistics.put("daily", 10);
+        redisCacheManager.getCache(RedisConfig.CacheNames.STATISTICS_CACHE).evict("daily");
+        assertNull(statistics.get("daily"));
+
+        cacheManager.getCache(RedisConfig.CacheNames.USER_PROGRESS_CACHE);
+        Map<String, Object> regions = (Map<String, Object>) cacheManager.getStats().get("regions");
+        assertEquals(false, ((Map<String, Object>) regions.get(RedisConfig.CacheNames.STATISTICS_CACHE)).get("localEnabled"));
+        assertEquals(60L, ((Map<String, Object>) regions.get(RedisConfig.CacheNames.USER_PROGRESS_CACHE)).get("localTtlSeconds"));
+    }
+
+    @Test
+    void testRegionsBindFromProperties() {
+        Binder binder = new Binder(new MapConfigurationPropertySource(Map.of(
+            "codenavigator.cache.local.regions.learningPath.max-entries", "10",
+            "codenavigator.cache.local.regions.learningPath.ttl-seconds", "99999")));
+        LocalCacheConfig config = binder.bindOrCreate("codenavigator.cache.local", LocalCacheConfig.class);
+
+        assertEquals(10, config.getRegions().get(RedisConfig.CacheNames.LEARNING_PATH_CACHE).getMaxEntries());
+        TwoLevelCacheManager manager = new TwoLevelCacheManager(redisCacheManager, null, config,
+            RedisConfig.cacheTtls(), Duration.ofHours(1), null);
+        // 本地过期时间不超过Redis过期时间
+        Map<String, Object> stats = ((TwoLevelCache) manager.getCache(RedisConfig.CacheNames.LEARNING_PATH_CACHE)).getStats();
+        assertEquals((long) RedisConfig.CacheConfig.LEARNING_PATH_EXPIRE_TIME, stats.get("localTtlSeconds"));
+    }
+}
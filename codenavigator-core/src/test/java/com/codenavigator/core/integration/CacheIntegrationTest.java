@@ -1,5 +1,6 @@
 package com.codenavigator.core.integration;
 
+import com.codenavigator.core.service.CacheNamespaceVersions;
 import com.codenavigator.core.service.CacheService;
 import com.codenavigator.core.service.CacheStrategyService;
 import org.junit.jupiter.api.Test;
@@ -12,7 +13,7 @@ import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
-@SpringBootTest(classes = {CacheService.class, CacheStrategyService.class})
+@SpringBootTest(classes = {CacheService.class, CacheNamespaceVersions.class, CacheStrategyService.class})
 @ActiveProfiles("test")
 class CacheIntegrationTest {
 
@@ -0,0 +1,68 @@
+package com.codenavigator.core.repository;
+
+import com.codenavigator.core.entity.ConversationMessage;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * ConversationMessageRepository单元测试
+ * 验证JDBC批量写入与按会话顺序读取
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+class ConversationMessageRepositoryTest {
+
+    @Autowired
+    private ConversationMessageRepository messageRepository;
+
+    @Test
+    void testBatchInsertAndFindInOrder() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        List<ConversationMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            messages.add(new ConversationMessage("session-1", ConversationMessage.MessageType.USER, "消息" + i, now));
+        }
+        messages.add(new ConversationMessage("session-2", ConversationMessage.MessageType.USER, "其他会话", now));
+
+        // When
+        int inserted = messageRepository.batchInsert(messages);
+
+        // Then
+        assertThat(inserted).isEqualTo(31);
+        List<ConversationMessage> found = messageRepository.findBySessionIdOrderByIdAsc("session-1");
+        assertThat(found).hasSize(30);
+        assertThat(found.get(0).getContent()).isEqualTo("消息0");
+        assertThat(found.get(29).getContent()).isEqualTo("消息29");
+        assertThat(messageRepository.countBySessionId("session-2")).isEqualTo(1);
+    }
+
+    @Test
+    void testBatchInsertEmptyList() {
+        assertThat(messageRepository.batchInsert(List.of())).isZero();
+        assertThat(messageRepository.count()).isZero();
+    }
+
+    @Test
+    void testDeleteBySessionId() {
+        // Given
+        messageRepository.batchInsert(List.of(
+            new ConversationMessage("session-1", ConversationMessage.MessageType.USER, "a", null),
+            new ConversationMessage("session-1", ConversationMessage.MessageType.USER, "b", null)));
+
+        // When
+        int deleted = messageRepository.deleteBySessionId("session-1");
+
+        // Then
+        assertThat(deleted).isEqualTo(2);
+        assertThat(messageRepository.findBySessionIdOrderByIdAsc("session-1")).isEmpty();
+    }
+}
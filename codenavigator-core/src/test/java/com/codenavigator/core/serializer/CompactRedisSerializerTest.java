@@ -0,0 +1,128 @@
+package com.codenavigator.core.serializer;
+
+import com.codenavigator.core.entity.User;
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactRedisSerializerTest {
+
+    private Jackson2JsonRedisSerializer<Object> legacySerializer;
+    private SerializationMetrics metrics;
+    private CompactRedisSerializer serializer;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper legacyMapper = new ObjectMapper();
+        legacyMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
+        legacyMapper.activateDefaultTyping(LaissezFaireSubTypeValidator.instance, ObjectMapper.DefaultTyping.NON_FINAL);
+        legacyMapper.registerModule(new JavaTimeModule());
+        legacySerializer = new Jackson2JsonRedisSerializer<>(legacyMapper, Object.class);
+
+        metrics = new SerializationMetrics();
+        serializer = new CompactRedisSerializer(CompactRedisSerializer.createMapper(TypeTable.withDefaults()),
+            legacySerializer, metrics.forCache("test"), true, 1024);
+    }
+
+    @Test
+    void testRoundTripPreservesTypes() {
+        User user = new User();
+        user.setId(42L);
+        user.setUsername("alice");
+        Map<String, Object> value = new HashMap<>();
+        value.put("user", user);
+        value.put("tags", new ArrayList<>(List.of("java", "spring")));
+        value.put("createdAt", LocalDateTime.of(2024, 1, 2, 3, 4, 5));
+
+        Object result = serializer.deserialize(serializer.serialize(value));
+
+        Map<?, ?> map = assertInstanceOf(HashMap.class, result);
+        User restoredUser = assertInstanceOf(User.class, map.get("user"));
+        assertEquals(42L, restoredUser.getId());
+        assertEquals("alice", restoredUser.getUsername());
+        assertEquals(List.of("java", "spring"), map.get("tags"));
+        assertEquals(LocalDateTime.of(2024, 1, 2, 3, 4, 5), map.get("createdAt"));
+    }
+
+    @Test
+    void testRegisteredTypesWrittenAsAliases() {
+        Map<String, Object> value = new HashMap<>();
+        value.put("items", new ArrayList<>(List.of("a", "b")));
+
+        byte[] bytes = serializer.serialize(value);
+        String raw = new String(bytes, StandardCharsets.ISO_8859_1);
+
+        assertEquals(CompactRedisSerializer.FORMAT_SMILE, bytes[0]);
+        assertFalse(raw.contains("java.util.ArrayList"));
+        assertFalse(raw.contains("java.util.HashMap"));
+        assertTrue(bytes.length < legacySerializer.serialize(value).length);
+    }
+
+    @Test
+    void testLargePayloadCompressed() {
+        List<String> history = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            history.add("第" + i + "条消息：我想系统地学习Spring框架的事务管理");
+        }
+
+        byte[] bytes = serializer.serialize(history);
+
+        assertEquals(CompactRedisSerializer.FORMAT_SMILE_LZ4, bytes[0]);
+        assertEquals(history, serializer.deserialize(bytes));
+        Map<String, Object> stats = metrics.snapshot().get("test");
+        assertEquals(1L, stats.get("compressedCount"));
+        assertTrue((Double) stats.get("compressionRatio") > 1.0);
+    }
+
+    @Test
+    void testSmallPayloadNotCompressed() {
+        byte[] bytes = serializer.serialize(new ArrayList<>(List.of("short")));
+
+        assertEquals(CompactRedisSerializer.FORMAT_SMILE, bytes[0]);
+        assertEquals(0L, metrics.snapshot().get("test").get("compressedCount"));
+    }
+
+    @Test
+    void testLegacyJsonValueStillReadable() {
+        Map<String, Object> value = new HashMap<>();
+        value.put("count", 3);
+        byte[] legacyBytes = legacySerializer.serialize(value);
+
+        Object result = serializer.deserialize(legacyBytes);
+
+        assertEquals(value, result);
+        Map<String, Object> stats = metrics.snapshot().get("test");
+        assertEquals(1L, stats.get("decodeCount"));
+        assertEquals(1L, stats.get("legacyDecodeCount"));
+    }
+
+    @Test
+    void testNullAndEmptyValues() {
+        assertEquals(0, serializer.serialize(null).length);
+        assertNull(serializer.deserialize(null));
+        assertNull(serializer.deserialize(new byte[0]));
+    }
+
+    @Test
+    void testTypeTableRejectsConflictingAlias() {
+        TypeTable typeTable = TypeTable.withDefaults();
+
+        assertThrows(IllegalArgumentException.class, () -> typeTable.register("AL", HashMap.class));
+        assertThrows(IllegalArgumentException.class, () -> typeTable.register("com.example.Type", String.class));
+        assertThrows(IllegalArgumentException.class, () -> typeTable.register("Missing", "com.example.Missing"));
+    }
+}
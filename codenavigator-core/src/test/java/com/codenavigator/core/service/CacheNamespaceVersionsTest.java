@@ -0,0 +1,132 @@
+package com.codenavigator.core.service;
+
+import com.codenavigator.core.cache.RedisHealthMonitor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CacheNamespaceVersionsTest {
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    private CacheService cacheService;
+
+    private CacheNamespaceVersions namespaceVersions;
+
+    @BeforeEach
+    void setUp() {
+        cacheService = new CacheService(redisTemplate);
+        namespaceVersions = new CacheNamespaceVersions(cacheService);
+        ReflectionTestUtils.setField(namespaceVersions, "localTtlMs", 60000L);
+    }
+
+    @Test
+    void testKeysEmbedVersionAndVersionZeroKeepsLegacyFormat() {
+        when(redisTemplate.execute(any(RedisCallback.class)))
+            .thenReturn(null)
+            .thenReturn("3".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("1_path-1", namespaceVersions.userProgressKey(1L, "path-1"));
+        assertEquals("statistics:v3:user:daily", namespaceVersions.statisticsKey("user", "daily"));
+
+        // 版本在本地缓存期内不重复读取
+        assertEquals("1_path-2", namespaceVersions.userProgressKey(1L, "path-2"));
+        assertEquals("statistics:v3:user:weekly", namespaceVersions.statisticsKey("user", "weekly"));
+        verify(redisTemplate, times(2)).execute(any(RedisCallback.class));
+    }
+
+    @Test
+    void testInvalidateBumpsVersionWithSingleIncr() {
+        when(redisTemplate.execute(any(RedisCallback.class))).thenReturn("2".getBytes(StandardCharsets.UTF_8));
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenReturn(List.of(3L, true));
+
+        assertEquals("1_v2_path-1", namespaceVersions.userProgressKey(1L, "path-1"));
+        assertEquals(3L, namespaceVersions.invalidateUser(1L));
+
+        // 本节点失效后立即使用新版本，无需等待本地缓存过期
+        assertEquals("1_v3_path-1", namespaceVersions.userProgressKey(1L, "path-1"));
+        verify(redisTemplate, times(1)).execute(any(RedisCallback.class));
+        verify(redisTemplate, times(1)).executePipelined(any(RedisCallback.class));
+        verify(redisTemplate, never()).keys(anyString());
+        assertEquals(1L, namespaceVersions.getStats().get("invalidations"));
+    }
+
+    @Test
+    void testCounterResetInRedisIsAcceptedAfterLocalTtl() throws InterruptedException {
+        ReflectionTestUtils.setField(namespaceVersions, "localTtlMs", 50L);
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenReturn(List.of(7L, true));
+        when(redisTemplate.execute(any(RedisCallback.class))).thenReturn(null);
+
+        assertEquals(7L, namespaceVersions.invalidateStatistics());
+        Thread.sleep(60);
+
+        // 计数器在Redis中被删除后以Redis为准，本地缓存期重新开始，不会每次读取都访问Redis
+        assertEquals(0L, namespaceVersions.statisticsVersion());
+        assertEquals(0L, namespaceVersions.statisticsVersion());
+        verify(redisTemplate, times(1)).execute(any(RedisCallback.class));
+    }
+
+    @Test
+    void testRedisFailureFallsBackToLastKnownVersion() {
+        ReflectionTestUtils.setField(namespaceVersions, "localTtlMs", 0L);
+        when(redisTemplate.execute(any(RedisCallback.class)))
+            .thenReturn("5".getBytes(StandardCharsets.UTF_8))
+            .thenThrow(new RedisConnectionFailureException("down"));
+        when(redisTemplate.executePipelined(any(RedisCallback.class)))
+            .thenThrow(new RedisConnectionFailureException("down"));
+
+        assertEquals(5L, namespaceVersions.statisticsVersion());
+        assertEquals(5L, namespaceVersions.statisticsVersion());
+        assertEquals(-1L, namespaceVersions.invalidateStatistics());
+        assertEquals(0L, namespaceVersions.userVersion(9L));
+    }
+
+    @Test
+    void testDegradedRedisIsSkippedAndInvalidationReplaysOnRecovery() {
+        ReflectionTestUtils.setField(cacheService, "keyCountEnabled", false);
+        ReflectionTestUtils.setField(cacheService, "hotKeyEnabled", false);
+        ReflectionTestUtils.setField(cacheService, "resilienceFailureThreshold", 1);
+        ReflectionTestUtils.setField(cacheService, "resilienceProbeIntervalMs", 60000L);
+        cacheService.start();
+        namespaceVersions.start();
+        ReflectionTestUtils.setField(namespaceVersions, "localTtlMs", 0L);
+        when(redisTemplate.execute(any(RedisCallback.class)))
+            .thenReturn("5".getBytes(StandardCharsets.UTF_8))
+            .thenThrow(new RedisConnectionFailureException("down"))
+            .thenReturn("PONG");
+
+        assertEquals(5L, namespaceVersions.statisticsVersion());
+        assertEquals(5L, namespaceVersions.statisticsVersion());
+        assertEquals(RedisHealthMonitor.State.DEGRADED, cacheService.getRedisState());
+
+        // 降级期间不访问Redis：失效在本地先行生效并等待补做
+        assertEquals(-1L, namespaceVersions.invalidateStatistics());
+        assertEquals(6L, namespaceVersions.statisticsVersion());
+        verify(redisTemplate, times(2)).execute(any(RedisCallback.class));
+        verify(redisTemplate, never()).executePipelined(any(RedisCallback.class));
+        assertEquals(1, namespaceVersions.getStats().get("pendingInvalidations"));
+
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenReturn(List.of(6L, true));
+        cacheService.probeRedis();
+
+        assertEquals(RedisHealthMonitor.State.HEALTHY, cacheService.getRedisState());
+        verify(redisTemplate, times(1)).executePipelined(any(RedisCallback.class));
+        assertEquals(0, namespaceVersions.getStats().get("pendingInvalidations"));
+        cacheService.stop();
+    }
+}
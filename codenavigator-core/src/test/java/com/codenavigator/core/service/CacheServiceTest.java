@@ -1,23 +1,48 @@
 package com.codenavigator.core.service;
 
+import com.codenavigator.core.cache.CachedValue;
+import com.codenavigator.core.cache.RedisHealthMonitor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisHashCommands;
+import org.springframework.data.redis.connection.RedisKeyCommands;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.ValueOperations;
 import org.springframework.data.redis.core.HashOperations;
 import org.springframework.data.redis.core.ListOperations;
 import org.springframework.data.redis.core.SetOperations;
 import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
 
+import java.util.ArrayList;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -47,8 +72,35 @@ class CacheServiceTest {
     @InjectMocks
     private CacheService cacheService;
 
+    /**
+     * 一次脚本写入中的一个键
+     */
+    private record Write(String key, Object value, long ttlMs) {
+    }
+
+    private final List<Write> writes = new CopyOnWriteArrayList<>();
+
+    // 测试用值序列化器：字节内容为写入对象的序号，解码时取回原对象
+    private final List<Object> encoded = new CopyOnWriteArrayList<>();
+    private final RedisSerializer<Object> valueSerializer = new RedisSerializer<>() {
+        @Override
+        public synchronized byte[] serialize(Object value) {
+            encoded.add(value);
+            return String.valueOf(encoded.size() - 1).getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public Object deserialize(byte[] bytes) {
+            return encoded.get(Integer.parseInt(new String(bytes, StandardCharsets.UTF_8)));
+        }
+    };
+
     @BeforeEach
+    @SuppressWarnings("unchecked")
     void setUp() {
+        lenient().doReturn(valueSerializer).when(redisTemplate).getValueSerializer();
+        lenient().doAnswer(this::recordWrites).when(redisTemplate)
+            .execute(any(RedisScript.class), isNull(), isNull(), anyList(), any(Object[].class));
         lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
         lenient().when(redisTemplate.opsForHash()).thenReturn(hashOperations);
         lenient().when(redisTemplate.opsForList()).thenReturn(listOperations);
@@ -56,6 +108,23 @@ class CacheServiceTest {
         lenient().when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
     }
 
+    /**
+     * 记录写入脚本的键、值与过期时间，所有键都按新键返回
+     */
+    private List<Long> recordWrites(InvocationOnMock invocation) {
+        List<String> keys = invocation.getArgument(3);
+        Object[] arguments = invocation.getArguments();
+        Object[] args = arguments.length == 5 && arguments[4] instanceof Object[] varargs
+            ? varargs : Arrays.copyOfRange(arguments, 4, arguments.length);
+        long ttlMs = Long.parseLong(new String((byte[]) args[0], StandardCharsets.UTF_8));
+        List<Long> created = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            writes.add(new Write(keys.get(i), valueSerializer.deserialize((byte[]) args[i + 1]), ttlMs));
+            created.add(1L);
+        }
+        return created;
+    }
+
     @Test
     void testSetAndGet() {
         String key = "test:key";
@@ -63,7 +132,7 @@ class CacheServiceTest {
 
         // Test set
         cacheService.set(key, value);
-        verify(valueOperations).set(key, value);
+        assertEquals(List.of(new Write(key, value, 0)), writes);
 
         // Test get
         when(valueOperations.get(key)).thenReturn(value);
@@ -79,7 +148,7 @@ class CacheServiceTest {
         TimeUnit unit = TimeUnit.SECONDS;
 
         cacheService.set(key, value, timeout, unit);
-        verify(valueOperations).set(key, value, timeout, unit);
+        assertEquals(List.of(new Write(key, value, unit.toMillis(timeout))), writes);
     }
 
     @Test
@@ -157,11 +226,305 @@ class CacheServiceTest {
     void testKeys() {
         String pattern = "test:*";
         Set<String> expectedKeys = Set.of("test:key1", "test:key2");
-        when(redisTemplate.keys(pattern)).thenReturn(expectedKeys);
+        Cursor<String> cursor = cursorOf("test:key1", "test:key2");
+        when(redisTemplate.scan(any(ScanOptions.class))).thenReturn(cursor);
 
         Set<String> result = cacheService.keys(pattern);
         assertEquals(expectedKeys, result);
-        verify(redisTemplate).keys(pattern);
+        verify(redisTemplate, never()).keys(anyString());
+    }
+
+    @Test
+    void testScanInBatches() {
+        Cursor<String> cursor = cursorOf("a:1", "a:2", "a:3", "a:4", "a:5");
+        when(redisTemplate.scan(any(ScanOptions.class))).thenReturn(cursor);
+        List<List<String>> batches = new ArrayList<>();
+
+        long scanned = cacheService.scan("a:*", 2, batches::add);
+
+        assertEquals(5, scanned);
+        assertEquals(List.of(List.of("a:1", "a:2"), List.of("a:3", "a:4"), List.of("a:5")), batches);
+    }
+
+    @Test
+    void testUnlinkPipelinedByNamespace() {
+        ReflectionTestUtils.setField(cacheService, "unlinkBatchSize", 2);
+        RedisConnection connection = mock(RedisConnection.class);
+        RedisKeyCommands keyCommands = mock(RedisKeyCommands.class);
+        when(connection.keyCommands()).thenReturn(keyCommands);
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            RedisCallback<?> callback = invocation.getArgument(0);
+            callback.doInRedis(connection);
+            return List.of(2L, 1L, 1L);
+        });
+
+        long removed = cacheService.unlink(List.of("user:1", "user:2", "user:3", "statistics:daily"));
+
+        assertEquals(4, removed);
+        verify(keyCommands, times(3)).unlink(any(byte[][].class));
+        verify(redisTemplate, never()).delete(anyCollection());
+    }
+
+    @Test
+    void testNamespaceKeyCounts() {
+        when(valueOperations.setIfAbsent(eq("lock:namespace-recount"), anyString(), anyLong(), eq(TimeUnit.MILLISECONDS)))
+            .thenReturn(true);
+        Cursor<String> cursor = cursorOf("user:1", "user:2", "user:3", "statistics:user:daily", "plain");
+        when(redisTemplate.scan(any(ScanOptions.class))).thenReturn(cursor);
+        RedisConnection connection = mock(RedisConnection.class);
+        RedisKeyCommands keyCommands = mock(RedisKeyCommands.class);
+        RedisHashCommands hashCommands = mock(RedisHashCommands.class);
+        when(connection.keyCommands()).thenReturn(keyCommands);
+        when(connection.hashCommands()).thenReturn(hashCommands);
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            RedisCallback<?> callback = invocation.getArgument(0);
+            callback.doInRedis(connection);
+            return List.of(2L);
+        });
+
+        cacheService.recountNamespaces();
+        assertEquals(3, cacheService.getNamespaceKeyCount("user"));
+        assertEquals(1, cacheService.getNamespaceKeyCount("statistics"));
+        assertEquals(1, cacheService.getNamespaceKeyCount("plain"));
+        assertEquals(0, cacheService.getNamespaceKeyCount("leaderboard"));
+        // 统计结果发布给其他节点
+        verify(hashCommands).hMSet(any(byte[].class), anyMap());
+        verify(keyCommands).rename(any(byte[].class), eq("stats:namespace-keys".getBytes(StandardCharsets.UTF_8)));
+
+        // 删除后即时扣减、写入新键后即时增加，无需等待下一轮统计
+        cacheService.unlink(List.of("user:1", "user:2"));
+        assertEquals(1, cacheService.getNamespaceKeyCount("user"));
+        cacheService.set("user:9", "alice");
+        cacheService.multiSet(Map.of("leaderboard:daily:10", "top"), 60, TimeUnit.SECONDS);
+        assertEquals(2, cacheService.getNamespaceKeyCount("user"));
+        assertEquals(1, cacheService.getNamespaceKeyCount("leaderboard"));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void testNamespaceKeyCountsReadPublishedResultWithoutLease() {
+        when(valueOperations.setIfAbsent(eq("lock:namespace-recount"), anyString(), anyLong(), eq(TimeUnit.MILLISECONDS)))
+            .thenReturn(false);
+        Map<byte[], byte[]> published = new LinkedHashMap<>();
+        published.put("user".getBytes(StandardCharsets.UTF_8), "42".getBytes(StandardCharsets.UTF_8));
+        published.put("statistics".getBytes(StandardCharsets.UTF_8), "7".getBytes(StandardCharsets.UTF_8));
+        when(redisTemplate.execute(any(RedisCallback.class))).thenReturn(published);
+
+        cacheService.recountNamespaces();
+
+        // 未取得租约的节点不遍历键空间
+        verify(redisTemplate, never()).scan(any(ScanOptions.class));
+        assertEquals(42, cacheService.getNamespaceKeyCount("user"));
+        assertEquals(7, cacheService.getNamespaceKeyCount("statistics"));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void testMultiGetInBatchesFiltersMissesAndType() {
+        ReflectionTestUtils.setField(cacheService, "batchSize", 2);
+        when(valueOperations.multiGet(List.of("user:1", "user:2"))).thenReturn(Arrays.asList("a", null));
+        when(valueOperations.multiGet(List.of("user:3"))).thenReturn(List.of(3));
+
+        Map<String, String> result = cacheService.multiGet(List.of("user:1", "user:2", "user:3", "user:1"), String.class);
+
+        assertEquals(Map.of("user:1", "a"), result);
+        verify(valueOperations, times(2)).multiGet(anyCollection());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testMultiSetWritesEachBatchWithOneScript() {
+        ReflectionTestUtils.setField(cacheService, "batchSize", 2);
+
+        Map<String, Object> entries = new LinkedHashMap<>();
+        entries.put("statistics:user:daily", 1);
+        entries.put("statistics:user:weekly", 7);
+        entries.put("statistics:user:monthly", 30);
+        assertTrue(cacheService.multiSet(entries, 60, TimeUnit.SECONDS));
+
+        assertEquals(List.of(new Write("statistics:user:daily", 1, 60000), new Write("statistics:user:weekly", 7, 60000),
+            new Write("statistics:user:monthly", 30, 60000)), writes);
+        verify(redisTemplate, times(2)).execute(any(RedisScript.class), isNull(), isNull(), anyList(), any(Object[].class));
+
+        // 不过期的批量写入
+        assertTrue(cacheService.multiSet(Map.of("hotContent:a", "x"), 0, TimeUnit.SECONDS));
+        assertEquals(new Write("hotContent:a", "x", 0), writes.get(3));
+        verify(valueOperations, never()).multiSet(anyMap());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testPipelinedReturnsResultsInOrder() {
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenAnswer(invocation -> {
+            SessionCallback<Object> callback = invocation.getArgument(0);
+            callback.execute(redisTemplate);
+            return List.of("v1", Map.of("f", 1));
+        });
+
+        List<Object> results = cacheService.pipelined(batch -> batch.get("k1").hGetAll("h1"));
+
+        assertEquals(List.of("v1", Map.of("f", 1)), results);
+        verify(valueOperations).get("k1");
+        verify(hashOperations).entries("h1");
+
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenThrow(new RuntimeException("Redis error"));
+        assertEquals(List.of(), cacheService.pipelined(batch -> batch.get("k1")));
+    }
+
+    @Test
+    void testGetOrLoadSingleFlightOnMiss() throws Exception {
+        when(valueOperations.get("leaderboard:weekly:10")).thenReturn(null);
+        when(valueOperations.setIfAbsent(eq("lock:load:leaderboard:weekly:10"), anyString(), anyLong(), eq(TimeUnit.MILLISECONDS)))
+                .thenReturn(true);
+
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<List<String>> loader = () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            try {
+                release.await(2, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return List.of("alice", "bob");
+        };
+
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<String>>> results = new ArrayList<>();
+            results.add(callers.submit(() -> cacheService.getOrLoad("leaderboard:weekly:10", 5, TimeUnit.MINUTES, loader)));
+            assertTrue(loading.await(2, TimeUnit.SECONDS));
+            for (int i = 0; i < 3; i++) {
+                results.add(callers.submit(() -> cacheService.getOrLoad("leaderboard:weekly:10", 5, TimeUnit.MINUTES, loader)));
+            }
+            Thread.sleep(50);
+            release.countDown();
+            for (Future<List<String>> result : results) {
+                assertEquals(List.of("alice", "bob"), result.get(2, TimeUnit.SECONDS));
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        assertEquals(1, loads.get());
+        // Redis中的过期时间包含陈旧窗口（默认TTL的20%）
+        assertEquals(1, writes.size());
+        assertEquals("leaderboard:weekly:10", writes.get(0).key());
+        assertInstanceOf(CachedValue.class, writes.get(0).value());
+        assertEquals(TimeUnit.MINUTES.toMillis(6), writes.get(0).ttlMs());
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("lock:load:leaderboard:weekly:10")), anyString());
+    }
+
+    @Test
+    void testGetOrLoadServesStaleAndRefreshesInBackground() {
+        ReflectionTestUtils.setField(cacheService, "keyCountEnabled", false);
+        cacheService.start();
+        try {
+            CachedValue stale = new CachedValue(42, 10, System.currentTimeMillis() - 1000);
+            when(valueOperations.get("statistics:path:daily")).thenReturn(stale);
+            when(valueOperations.setIfAbsent(anyString(), anyString(), anyLong(), any(TimeUnit.class))).thenReturn(true);
+
+            Integer result = cacheService.getOrLoad("statistics:path:daily", 30, TimeUnit.MINUTES, () -> 43);
+
+            assertEquals(42, result);
+            verify(redisTemplate, timeout(2000)).execute(any(RedisScript.class), isNull(), isNull(),
+                    eq(List.of("statistics:path:daily")), any(Object[].class));
+            assertTrue(writes.get(0).value() instanceof CachedValue cached && Integer.valueOf(43).equals(cached.getValue()));
+            assertEquals(1L, cacheService.getLoaderStats().get("staleServed"));
+        } finally {
+            cacheService.stop();
+        }
+    }
+
+    @Test
+    void testGetOrLoadMissDoesNotJoinBackgroundRefresh() throws Exception {
+        ReflectionTestUtils.setField(cacheService, "keyCountEnabled", false);
+        cacheService.start();
+        CountDownLatch refreshing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            CachedValue stale = new CachedValue(42, 10, System.currentTimeMillis() - 1000);
+            when(valueOperations.get("statistics:path:weekly")).thenReturn(stale);
+            when(valueOperations.setIfAbsent(anyString(), anyString(), anyLong(), any(TimeUnit.class))).thenReturn(true);
+
+            assertEquals(42, (Integer) cacheService.getOrLoad("statistics:path:weekly", 30, TimeUnit.MINUTES, () -> {
+                refreshing.countDown();
+                try {
+                    release.await(2, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return 43;
+            }));
+            assertTrue(refreshing.await(2, TimeUnit.SECONDS));
+
+            // 后台刷新进行中时键被删除，前台未命中自行加载，不等待后台刷新的结果
+            when(valueOperations.get("statistics:path:weekly")).thenReturn(null);
+            long start = System.currentTimeMillis();
+            Integer result = cacheService.getOrLoad("statistics:path:weekly", 30, TimeUnit.MINUTES, () -> 44);
+
+            assertEquals(44, result);
+            assertTrue(System.currentTimeMillis() - start < 1000);
+            assertEquals(0L, cacheService.getLoaderStats().get("joinedLoads"));
+            assertEquals(1, cacheService.getLoaderStats().get("refreshing"));
+        } finally {
+            release.countDown();
+            cacheService.stop();
+        }
+    }
+
+    @Test
+    void testGetOrLoadWaitsForOtherNodeHoldingLock() {
+        ReflectionTestUtils.setField(cacheService, "loaderLockWaitMs", 2000L);
+        CachedValue loaded = new CachedValue(List.of("x"), 10, System.currentTimeMillis() + 60000);
+        when(valueOperations.get("leaderboard:daily:5")).thenReturn(null, null, loaded);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), anyLong(), any(TimeUnit.class))).thenReturn(false);
+
+        List<String> result = cacheService.getOrLoad("leaderboard:daily:5", 5, TimeUnit.MINUTES, () -> {
+            throw new AssertionError("loader should not run while another node holds the lock");
+        });
+
+        assertEquals(List.of("x"), result);
+        // 普通读取时透明解包
+        when(valueOperations.get("leaderboard:daily:5")).thenReturn(loaded);
+        assertEquals(List.of("x"), cacheService.get("leaderboard:daily:5"));
+    }
+
+    @Test
+    void testHotKeyServedFromLocalReplicaUntilWritten() {
+        ReflectionTestUtils.setField(cacheService, "keyCountEnabled", false);
+        ReflectionTestUtils.setField(cacheService, "hotKeyThreshold", 3);
+        cacheService.start();
+        try {
+            when(valueOperations.get("leaderboard:global:10")).thenReturn("top-10");
+
+            for (int i = 0; i < 5; i++) {
+                assertEquals("top-10", cacheService.get("leaderboard:global:10"));
+            }
+            // 第3次读取后成为热点，之后的读取由本地副本返回
+            verify(valueOperations, times(3)).get("leaderboard:global:10");
+
+            cacheService.set("leaderboard:global:10", "new-top-10");
+            when(valueOperations.get("leaderboard:global:10")).thenReturn("new-top-10");
+            assertEquals("new-top-10", cacheService.get("leaderboard:global:10", String.class));
+
+            Map<String, Object> stats = cacheService.getHotKeyStats();
+            assertEquals(true, stats.get("enabled"));
+            assertEquals(1, stats.get("hotKeys"));
+            assertEquals(2L, stats.get("replicaHits"));
+        } finally {
+            cacheService.stop();
+        }
+    }
+
+    private Cursor<String> cursorOf(String... keys) {
+        Iterator<String> iterator = List.of(keys).iterator();
+        Cursor<String> cursor = mock(Cursor.class);
+        lenient().when(cursor.hasNext()).thenAnswer(invocation -> iterator.hasNext());
+        lenient().when(cursor.next()).thenAnswer(invocation -> iterator.next());
+        return cursor;
     }
 
     @Test
@@ -251,7 +614,8 @@ class CacheServiceTest {
         String value = "test value";
 
         // Test set with exception
-        doThrow(new RuntimeException("Redis error")).when(valueOperations).set(key, value);
+        doThrow(new RuntimeException("Redis error")).when(redisTemplate)
+            .execute(any(RedisScript.class), isNull(), isNull(), anyList(), any(Object[].class));
         assertDoesNotThrow(() -> cacheService.set(key, value));
 
         // Test delete with exception
@@ -264,4 +628,89 @@ class CacheServiceTest {
         boolean existsResult = cacheService.exists(key);
         assertFalse(existsResult);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testFailsFastAndServesLocalFallbackWhileRedisDegraded() {
+        ReflectionTestUtils.setField(cacheService, "keyCountEnabled", false);
+        ReflectionTestUtils.setField(cacheService, "hotKeyEnabled", false);
+        ReflectionTestUtils.setField(cacheService, "resilienceFailureThreshold", 2);
+        ReflectionTestUtils.setField(cacheService, "resilienceProbeIntervalMs", 60000L);
+        cacheService.start();
+        when(valueOperations.get("user:1")).thenThrow(new RedisConnectionFailureException("Connection refused"));
+
+        assertNull(cacheService.get("user:1"));
+        assertEquals(RedisHealthMonitor.State.HEALTHY, cacheService.getRedisState());
+        assertNull(cacheService.get("user:1"));
+        assertEquals(RedisHealthMonitor.State.DEGRADED, cacheService.getRedisState());
+
+        // 降级后不再访问Redis，读写都在本地完成
+        assertNull(cacheService.get("user:1"));
+        cacheService.set("user:1", "alice", 60, TimeUnit.SECONDS);
+        assertEquals("alice", cacheService.get("user:1", String.class));
+        assertTrue(cacheService.exists("user:1"));
+        assertTrue(cacheService.delete("user:1"));
+        assertNull(cacheService.get("user:1"));
+        assertEquals(0, cacheService.hGetAll("h1").size());
+
+        verify(valueOperations, times(2)).get("user:1");
+        assertTrue(writes.isEmpty());
+        verifyNoInteractions(hashOperations);
+        assertTrue((Long) cacheService.getResilienceStats().get("fastFailures") >= 6);
+        cacheService.stop();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testProbeInvalidatesKeysModifiedWhileDegradedBeforeRecovering() {
+        ReflectionTestUtils.setField(cacheService, "keyCountEnabled", false);
+        ReflectionTestUtils.setField(cacheService, "resilienceFailureThreshold", 1);
+        ReflectionTestUtils.setField(cacheService, "resilienceProbeIntervalMs", 60000L);
+        cacheService.start();
+        when(redisTemplate.delete("user:1")).thenThrow(new RedisConnectionFailureException("Connection refused"));
+        cacheService.delete("user:1");
+        assertEquals(RedisHealthMonitor.State.DEGRADED, cacheService.getRedisState());
+
+        cacheService.set("user:2", "bob", 60, TimeUnit.SECONDS);
+        cacheService.set("user:3", "carol");
+        cacheService.delete("user:1");
+        cacheService.unlinkByPattern("userProgress:*");
+
+        // 探测仍失败时保持降级
+        when(redisTemplate.execute(any(RedisCallback.class))).thenThrow(new RedisConnectionFailureException("down"));
+        cacheService.probeRedis();
+        assertEquals(RedisHealthMonitor.State.DEGRADED, cacheService.getRedisState());
+
+        doReturn("PONG").when(redisTemplate).execute(any(RedisCallback.class));
+        Cursor<String> cursor = cursorOf("userProgress::42_java");
+        when(redisTemplate.scan(any(ScanOptions.class))).thenReturn(cursor);
+        RedisConnection connection = mock(RedisConnection.class);
+        RedisKeyCommands keyCommands = mock(RedisKeyCommands.class);
+        when(connection.keyCommands()).thenReturn(keyCommands);
+        List<List<String>> unlinked = new ArrayList<>();
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            RedisCallback<?> callback = invocation.getArgument(0);
+            callback.doInRedis(connection);
+            return List.of(1L);
+        });
+        doAnswer(invocation -> {
+            List<String> keys = new ArrayList<>();
+            for (Object raw : invocation.getArguments()) {
+                keys.add(new String((byte[]) raw));
+            }
+            unlinked.add(keys);
+            return null;
+        }).when(keyCommands).unlink(any(byte[][].class));
+        cacheService.probeRedis();
+
+        assertEquals(RedisHealthMonitor.State.HEALTHY, cacheService.getRedisState());
+        // 只删除不回写，避免覆盖其他节点在降级期间写入的更新值
+        assertEquals(List.of(List.of("userProgress::42_java"), List.of("user:2", "user:3", "user:1")), unlinked);
+        assertTrue(writes.isEmpty());
+        assertEquals(4L, cacheService.getResilienceStats().get("invalidatedOnRecovery"));
+
+        // 恢复后重新访问Redis，本地替代缓存已清空
+        when(valueOperations.get("user:2")).thenReturn("bob2");
+        assertEquals("bob2", cacheService.get("user:2"));
+        cacheService.stop();
+    }
+}
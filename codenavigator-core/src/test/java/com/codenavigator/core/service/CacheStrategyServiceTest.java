@@ -13,6 +13,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -24,12 +25,17 @@ class CacheStrategyServiceTest {
     @Mock
     private CacheService cacheService;
 
+    @Mock
+    private CacheNamespaceVersions namespaceVersions;
+
     @InjectMocks
     private CacheStrategyService cacheStrategyService;
 
     @BeforeEach
     void setUp() {
-        // Setup common mocks
+        // 命名空间版本为0时的键与未带版本的键相同
+        lenient().when(namespaceVersions.statisticsKey(anyString(), anyString())).thenAnswer(invocation ->
+            RedisConfig.CacheKeyGenerator.statisticsKey(invocation.getArgument(0), invocation.getArgument(1)));
     }
 
     @Test
@@ -73,6 +79,19 @@ class CacheStrategyServiceTest {
         verify(cacheService).get(expectedKey, Map.class);
     }
 
+    @Test
+    void testStatisticsBatch() {
+        String dailyKey = RedisConfig.CacheKeyGenerator.statisticsKey("user", "daily");
+        String weeklyKey = RedisConfig.CacheKeyGenerator.statisticsKey("user", "weekly");
+        when(cacheService.multiGet(Set.of(dailyKey, weeklyKey), Integer.class)).thenReturn(Map.of(weeklyKey, 7));
+
+        Map<String, Integer> result = cacheStrategyService.getCachedStatistics("user", List.of("daily", "weekly"), Integer.class);
+        assertEquals(Map.of("weekly", 7), result);
+
+        cacheStrategyService.cacheStatistics("user", Map.of("daily", 1));
+        verify(cacheService).multiSet(Map.of(dailyKey, 1), RedisConfig.CacheConfig.STATISTICS_EXPIRE_TIME, TimeUnit.SECONDS);
+    }
+
     @Test
     void testCacheLeaderboard() {
         String type = "top_users";
@@ -174,79 +193,94 @@ class CacheStrategyServiceTest {
 
     @Test
     void testCleanupExpiredCache() {
-        Set<String> userKeys = Set.of("user:1", "user:2");
-        Set<String> pathKeys = Set.of("learningPath:1", "learningPath:2");
-        Set<String> progressKeys = Set.of("userProgress:1_1", "userProgress:1_2");
+        List<String> userKeys = List.of("user:1", "user:2");
+        List<String> pathKeys = List.of("learningPath:1", "learningPath:2");
+        List<String> progressKeys = List.of("userProgress:1_1", "userProgress:1_2");
 
-        when(cacheService.keys("user:*")).thenReturn(userKeys);
-        when(cacheService.keys("learningPath:*")).thenReturn(pathKeys);
-        when(cacheService.keys("userProgress:*")).thenReturn(progressKeys);
+        stubScan("user:*", userKeys);
+        stubScan("learningPath:*", pathKeys);
+        stubScan("userProgress:*", progressKeys);
 
         // Mock some keys as expired
-        when(cacheService.getExpire("user:1")).thenReturn(-1L); // expired
-        when(cacheService.getExpire("user:2")).thenReturn(3600L); // not expired
-        when(cacheService.getExpire("learningPath:1")).thenReturn(0L); // expired
-        when(cacheService.getExpire("learningPath:2")).thenReturn(7200L); // not expired
-        when(cacheService.getExpire("userProgress:1_1")).thenReturn(-2L); // expired
-        when(cacheService.getExpire("userProgress:1_2")).thenReturn(900L); // not expired
+        when(cacheService.getExpires(userKeys)).thenReturn(List.of(-1L, 3600L));
+        when(cacheService.getExpires(pathKeys)).thenReturn(List.of(0L, 7200L));
+        when(cacheService.getExpires(progressKeys)).thenReturn(List.of(-2L, 900L));
 
         cacheStrategyService.cleanupExpiredCache();
 
-        // Verify expired keys are deleted
-        verify(cacheService).delete("user:1");
-        verify(cacheService).delete("learningPath:1");
-        verify(cacheService).delete("userProgress:1_1");
-
-        // Verify non-expired keys are not deleted
-        verify(cacheService, never()).delete("user:2");
-        verify(cacheService, never()).delete("learningPath:2");
-        verify(cacheService, never()).delete("userProgress:1_2");
+        // Verify only expired keys are unlinked
+        verify(cacheService).unlink(List.of("user:1"));
+        verify(cacheService).unlink(List.of("learningPath:1"));
+        verify(cacheService).unlink(List.of("userProgress:1_1"));
+        verify(cacheService, times(3)).unlink(anyCollection());
+        verify(cacheService, never()).keys(anyString());
     }
 
     @Test
     void testGetCacheUsageStats() {
-        when(cacheService.keys("user:*")).thenReturn(Set.of("user:1", "user:2"));
-        when(cacheService.keys("learningPath:*")).thenReturn(Set.of("learningPath:1"));
-        when(cacheService.keys("userProgress:*")).thenReturn(Set.of("userProgress:1_1", "userProgress:1_2", "userProgress:2_1"));
-        when(cacheService.keys("statistics:*")).thenReturn(Set.of("statistics:user_daily"));
-        when(cacheService.keys("leaderboard:*")).thenReturn(Set.of("leaderboard:top_users_10"));
+        when(cacheService.getNamespaceKeyCount("user")).thenReturn(2L);
+        when(cacheService.getNamespaceKeyCount("learningPath")).thenReturn(1L);
+        when(cacheService.getNamespaceKeyCount("userProgress")).thenReturn(3L);
+        when(cacheService.getNamespaceKeyCount("statistics")).thenReturn(1L);
+        when(cacheService.getNamespaceKeyCount("leaderboard")).thenReturn(1L);
 
         Map<String, Object> stats = cacheStrategyService.getCacheUsageStats();
 
-        assertEquals(2, stats.get("userCacheCount"));
-        assertEquals(1, stats.get("learningPathCacheCount"));
-        assertEquals(3, stats.get("userProgressCacheCount"));
-        assertEquals(1, stats.get("statisticsCacheCount"));
-        assertEquals(1, stats.get("leaderboardCacheCount"));
+        assertEquals(2L, stats.get("userCacheCount"));
+        assertEquals(1L, stats.get("learningPathCacheCount"));
+        assertEquals(3L, stats.get("userProgressCacheCount"));
+        assertEquals(1L, stats.get("statisticsCacheCount"));
+        assertEquals(1L, stats.get("leaderboardCacheCount"));
+        verify(cacheService, never()).keys(anyString());
     }
 
     @Test
     void testInvalidateRelatedCaches() {
         Long userId = 1L;
-        Set<String> progressKeys = Set.of("userProgress:1_path1", "userProgress:1_path2");
-        Set<String> statsKeys = Set.of("statistics:user_daily", "statistics:system_hourly");
-
-        when(cacheService.keys("userProgress:" + userId + "_*")).thenReturn(progressKeys);
-        when(cacheService.keys("statistics:*")).thenReturn(statsKeys);
 
         // Test the method execution
         assertDoesNotThrow(() -> cacheStrategyService.invalidateRelatedCaches(userId));
 
-        verify(cacheService).delete(progressKeys);
-        verify(cacheService).delete(statsKeys);
+        // 失效只递增命名空间版本，不遍历或删除键
+        verify(namespaceVersions).invalidateUser(userId);
+        verify(namespaceVersions).invalidateStatistics();
+        verify(cacheService, never()).unlinkByPattern(anyString());
+        verify(cacheService, never()).keys(anyString());
+    }
+
+    @Test
+    void testStatisticsUseVersionedKeys() {
+        String versionedKey = RedisConfig.CacheKeyGenerator.statisticsKey("user", "daily", 2);
+        when(namespaceVersions.statisticsKey("user", "daily")).thenReturn(versionedKey);
+        when(cacheService.get(versionedKey, Map.class)).thenReturn(Map.of("count", 1));
+
+        assertEquals("statistics:v2:user:daily", versionedKey);
+        assertEquals(Map.of("count", 1), cacheStrategyService.getCachedStatistics("user", "daily", Map.class));
     }
 
     @Test
     void testErrorHandlingInCleanup() {
-        Set<String> userKeys = Set.of("user:1", "user:2");
-        when(cacheService.keys("user:*")).thenReturn(userKeys);
-        when(cacheService.getExpire("user:1")).thenThrow(new RuntimeException("Redis error"));
-        when(cacheService.getExpire("user:2")).thenReturn(-1L);
+        List<String> userKeys = List.of("user:1", "user:2");
+        stubScan("user:*", userKeys);
+        stubScan("learningPath:*", List.of());
+        stubScan("userProgress:*", List.of());
+        // TTL lookup failed for the batch
+        when(cacheService.getExpires(userKeys)).thenReturn(List.of());
 
         // Should not throw exception even if individual operations fail
         assertDoesNotThrow(() -> cacheStrategyService.cleanupExpiredCache());
 
-        // Should still process other keys
-        verify(cacheService).delete("user:2");
+        // Keys with unknown TTL are never deleted
+        verify(cacheService, never()).unlink(anyCollection());
+    }
+
+    private void stubScan(String pattern, List<String> keys) {
+        when(cacheService.scan(eq(pattern), anyInt(), any())).thenAnswer(invocation -> {
+            Consumer<List<String>> consumer = invocation.getArgument(2);
+            if (!keys.isEmpty()) {
+                consumer.accept(keys);
+            }
+            return (long) keys.size();
+        });
     }
-}
\ No newline at end of file
+}
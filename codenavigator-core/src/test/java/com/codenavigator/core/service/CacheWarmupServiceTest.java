@@ -0,0 +1,109 @@
+package com.codenavigator.core.service;
+
+import com.codenavigator.core.cache.HotKeyTracker;
+import com.codenavigator.core.cache.TwoLevelCacheManager;
+import com.codenavigator.core.config.CacheWarmupConfig;
+import com.codenavigator.core.config.LocalCacheConfig;
+import com.codenavigator.core.config.RedisConfig;
+import com.codenavigator.core.entity.LearningPath;
+import com.codenavigator.core.repository.LearningPathRepository;
+import com.codenavigator.core.repository.UserProgressRepository;
+import com.codenavigator.core.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CacheWarmupServiceTest {
+
+    private CacheService cacheService;
+    private LearningPathRepository learningPathRepository;
+    private ConcurrentMapCacheManager redisCacheManager;
+    private TwoLevelCacheManager cacheManager;
+    private CacheWarmupConfig warmupConfig;
+    private CacheWarmupService warmupService;
+
+    @BeforeEach
+    void setUp() {
+        cacheService = mock(CacheService.class);
+        learningPathRepository = mock(LearningPathRepository.class);
+        redisCacheManager = new ConcurrentMapCacheManager();
+        cacheManager = new TwoLevelCacheManager(redisCacheManager, null, new LocalCacheConfig(),
+            RedisConfig.cacheTtls(), Duration.ofHours(1), new HotKeyTracker(10));
+        warmupConfig = new CacheWarmupConfig();
+
+        warmupService = new CacheWarmupService(cacheService, warmupConfig);
+        ReflectionTestUtils.setField(warmupService, "cacheManager", cacheManager);
+        ReflectionTestUtils.setField(warmupService, "learningPathRepository", learningPathRepository);
+        ReflectionTestUtils.setField(warmupService, "userRepository", mock(UserRepository.class));
+        ReflectionTestUtils.setField(warmupService, "userProgressRepository", mock(UserProgressRepository.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testPersistHotKeysWritesTopKAndDecays() {
+        for (int i = 0; i < 4; i++) {
+            cacheManager.getCache(RedisConfig.CacheNames.LEARNING_PATH_CACHE).get("path-1");
+        }
+        cacheManager.getCache(RedisConfig.CacheNames.USER_CACHE).get(7L);
+
+        warmupService.persistHotKeys();
+
+        verify(cacheService).set(eq(CacheWarmupService.HOT_KEYS_KEY),
+            eq(new ArrayList<>(List.of("learningPath|path-1", "user|7"))), eq(7L), eq(TimeUnit.DAYS));
+        assertEquals(2, cacheManager.getHotKeyTracker().estimate(RedisConfig.CacheNames.LEARNING_PATH_CACHE, "path-1"));
+    }
+
+    @Test
+    void testWarmupBackfillsCachedKeysAndBatchLoadsMisses() {
+        when(cacheService.get(CacheWarmupService.HOT_KEYS_KEY)).thenReturn(List.of(
+            "learningPath|path-1", "learningPath|path-2", "learningPath|path-3", "unknown|x"));
+        redisCacheManager.getCache(RedisConfig.CacheNames.LEARNING_PATH_CACHE).put("path-1", learningPath("path-1"));
+        when(learningPathRepository.findAllById(List.of("path-2", "path-3")))
+            .thenReturn(List.of(learningPath("path-2")));
+
+        Map<String, Object> stats = warmupService.warmup();
+
+        assertEquals(1L, stats.get("cached"));
+        assertEquals(1L, stats.get("loaded"));
+        // 数据库中不存在的path-3与没有加载方式的缓存区域都计为缺失
+        assertEquals(2L, stats.get("missing"));
+        // 缺失的键通过一次批量查询加载
+        verify(learningPathRepository, times(1)).findAllById(anyIterable());
+        assertNotNull(redisCacheManager.getCache(RedisConfig.CacheNames.LEARNING_PATH_CACHE).get("path-2"));
+    }
+
+    @Test
+    void testDatabaseLoadsAreRateLimited() {
+        warmupConfig.setMaxLoadsPerSecond(20);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            ids.add("learningPath|path-" + i);
+        }
+        when(cacheService.get(CacheWarmupService.HOT_KEYS_KEY)).thenReturn(ids);
+        when(learningPathRepository.findAllById(anyIterable())).thenReturn(List.of());
+
+        warmupService.warmup();
+        long startTime = System.currentTimeMillis();
+        // 第二轮需要等待第一轮占用的10个配额（0.5秒）
+        warmupService.warmup();
+
+        assertTrue(System.currentTimeMillis() - startTime >= 400);
+    }
+
+    private LearningPath learningPath(String id) {
+        LearningPath path = new LearningPath();
+        path.setId(id);
+        return path;
+    }
+}
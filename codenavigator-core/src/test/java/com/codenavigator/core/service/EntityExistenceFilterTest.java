@@ -0,0 +1,118 @@
+package com.codenavigator.core.service;
+
+import com.codenavigator.core.cache.HotKeyTracker;
+import com.codenavigator.core.cache.TwoLevelCacheManager;
+import com.codenavigator.core.config.LocalCacheConfig;
+import com.codenavigator.core.config.RedisConfig;
+import com.codenavigator.core.entity.User;
+import com.codenavigator.core.entity.listener.EntityInsertedEvent;
+import com.codenavigator.core.repository.LearningPathRepository;
+import com.codenavigator.core.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EntityExistenceFilterTest {
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private LearningPathRepository learningPathRepository;
+
+    @InjectMocks
+    private EntityExistenceFilter existenceFilter;
+
+    @BeforeEach
+    void setUp() {
+        // 构造器注入之外的可选依赖需手动设置
+        ReflectionTestUtils.setField(existenceFilter, "userRepository", userRepository);
+        ReflectionTestUtils.setField(existenceFilter, "learningPathRepository", learningPathRepository);
+        ReflectionTestUtils.setField(existenceFilter, "rebuildPageSize", 2);
+    }
+
+    @Test
+    void testRebuildPagesThroughIdsAndRejectsUnknownIds() {
+        when(userRepository.findIdsAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(1L, 2L));
+        when(userRepository.findIdsAfter(eq(2L), any(Pageable.class))).thenReturn(List.of(5L));
+        when(learningPathRepository.findIdsAfter(eq(""), any(Pageable.class))).thenReturn(List.of("java-basics"));
+
+        // 重建完成前一律视为可能存在
+        assertTrue(existenceFilter.mightExist(EntityExistenceFilter.USER, "404"));
+
+        existenceFilter.rebuild();
+
+        assertTrue(existenceFilter.mightExist(EntityExistenceFilter.USER, "5"));
+        assertFalse(existenceFilter.mightExist(EntityExistenceFilter.USER, "default-user"));
+        assertTrue(existenceFilter.mightExist(EntityExistenceFilter.LEARNING_PATH, "java-basics"));
+        assertFalse(existenceFilter.mightExist(EntityExistenceFilter.LEARNING_PATH, "stale-link"));
+        // 未跟踪的类型不过滤
+        assertTrue(existenceFilter.mightExist(RedisConfig.CacheNames.USER_PROGRESS_CACHE, "1_x"));
+        verify(userRepository, times(2)).findIdsAfter(anyLong(), any(Pageable.class));
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> userStats = (Map<String, Object>) existenceFilter.getStats().get(EntityExistenceFilter.USER);
+        assertEquals(3L, userStats.get("insertions"));
+        assertEquals(1L, userStats.get("rejected"));
+        assertEquals(0.01, (Double) userStats.get("targetFpp"), 0.0);
+    }
+
+    @Test
+    void testInsertsArePublishedAndRemoteInsertsApplied() {
+        when(userRepository.findIdsAfter(anyLong(), any(Pageable.class))).thenReturn(List.of());
+        existenceFilter.rebuild();
+
+        User user = new User("alice", "alice@example.com");
+        user.setId(7L);
+        existenceFilter.onEntityInserted(new EntityInsertedEvent(user));
+        existenceFilter.handleAdd("other-node|" + EntityExistenceFilter.USER + "|8");
+
+        assertTrue(existenceFilter.mightExist(EntityExistenceFilter.USER, "7"));
+        assertTrue(existenceFilter.mightExist(EntityExistenceFilter.USER, "8"));
+        verify(redisTemplate).convertAndSend(eq(EntityExistenceFilter.ADD_CHANNEL), endsWith("|user|7"));
+        assertEquals(1L, existenceFilter.getStats().get("addsReceived"));
+    }
+
+    @Test
+    void testCacheLookupsForUnknownIdsShortCircuit() {
+        when(userRepository.findIdsAfter(anyLong(), any(Pageable.class))).thenReturn(List.of(1L));
+        existenceFilter.rebuild();
+
+        ConcurrentMapCacheManager redisCacheManager = spy(new ConcurrentMapCacheManager());
+        TwoLevelCacheManager cacheManager = new TwoLevelCacheManager(redisCacheManager, null, new LocalCacheConfig(),
+            RedisConfig.cacheTtls(), Duration.ofHours(1), new HotKeyTracker(100));
+        cacheManager.setExistenceFilter(existenceFilter);
+        Cache redisCache = spy(redisCacheManager.getCache(RedisConfig.CacheNames.USER_CACHE));
+        when(redisCacheManager.getCache(RedisConfig.CacheNames.USER_CACHE)).thenReturn(redisCache);
+        Cache cache = cacheManager.getCache(RedisConfig.CacheNames.USER_CACHE);
+
+        assertNull(cache.get(99L));
+        verify(redisCache, never()).get(99L);
+
+        // 过滤器漏记的实体在写入缓存后补记
+        cache.put(99L, "user-99");
+        assertEquals("user-99", cache.get(99L, String.class));
+        assertEquals("loaded", cache.get(100L, () -> "loaded"));
+        assertTrue(existenceFilter.mightExist(EntityExistenceFilter.USER, "100"));
+    }
+}
@@ -0,0 +1,159 @@
+package com.codenavigator.core.service;
+
+import com.codenavigator.common.enums.ProgressStatus;
+import com.codenavigator.core.cache.RedisHealthMonitor;
+import com.codenavigator.core.entity.User;
+import com.codenavigator.core.entity.UserProgress;
+import com.codenavigator.core.repository.UserProgressRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LeaderboardServiceTest {
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private UserProgressRepository userProgressRepository;
+
+    private CacheService cacheService;
+
+    private LeaderboardService leaderboardService;
+
+    @BeforeEach
+    void setUp() {
+        cacheService = new CacheService(redisTemplate);
+        leaderboardService = new LeaderboardService(cacheService);
+        // 构造器注入之外的可选依赖需手动设置
+        ReflectionTestUtils.setField(leaderboardService, "userProgressRepository", userProgressRepository);
+        ReflectionTestUtils.setField(leaderboardService, "reconcilePageSize", 2);
+    }
+
+    @Test
+    void testScoreDecodesCompletedPathsAndAverageProgress() {
+        LeaderboardService.Entry entry = LeaderboardService.toEntry(1, "42",
+            3 * LeaderboardService.SCORE_SCALE + 9550, "alice\nhttps://a.png");
+
+        assertEquals(42L, entry.userId());
+        assertEquals(3, entry.completedPaths());
+        assertEquals(95.5, entry.averageProgress(), 0.0001);
+        assertEquals("alice", entry.username());
+        assertEquals("https://a.png", entry.avatar());
+        assertNull(LeaderboardService.toEntry(2, "7", LeaderboardService.SCORE_SCALE, "bob").avatar());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCompletionRecordedOnlyAfterCommit() {
+        User user = new User("alice", "alice@example.com");
+        user.setId(42L);
+        UserProgress progress = new UserProgress();
+        progress.setUser(user);
+        progress.setStatus(ProgressStatus.COMPLETED);
+        progress.setCompletionPercentage(100.0);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            leaderboardService.onPathCompleted(progress);
+            verify(redisTemplate, never()).execute(any(RedisScript.class), any(RedisSerializer.class),
+                any(RedisSerializer.class), anyList(), any(Object[].class));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(redisTemplate).execute(any(RedisScript.class), any(RedisSerializer.class), any(RedisSerializer.class),
+            eq(List.of(LeaderboardService.LEADERBOARD_KEY, LeaderboardService.COUNT_KEY, LeaderboardService.PROGRESS_KEY,
+                LeaderboardService.PROFILE_KEY, LeaderboardService.UPDATED_KEY)),
+            eq("42"), eq("100.0"), eq("alice"), anyString(), eq(String.valueOf(LeaderboardService.SCORE_SCALE)));
+        assertEquals(1L, leaderboardService.getStats().get("completions"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testReconcilePagesThroughTotalsAndRemovesStaleMembers() {
+        when(redisTemplate.execute(any(RedisCallback.class)))
+            .thenReturn(true)
+            .thenReturn(List.of("9"));
+        when(redisTemplate.execute(any(RedisScript.class), any(RedisSerializer.class), any(RedisSerializer.class),
+            anyList(), any(Object[].class))).thenReturn(1L);
+        when(userProgressRepository.getLeaderboardTotalsAfter(0L, 2)).thenReturn(List.of(
+            new Object[]{1L, "alice", null, 2L, 200.0},
+            new Object[]{2L, "bob", "https://b.png", 1L, 100.0}));
+        when(userProgressRepository.getLeaderboardTotalsAfter(2L, 2)).thenReturn(List.<Object[]>of(
+            new Object[]{5L, "carol", null, 1L, 100.0}));
+
+        Map<String, Object> result = leaderboardService.reconcile();
+
+        assertEquals("completed", result.get("status"));
+        assertEquals(3, result.get("users"));
+        assertEquals(2L, result.get("corrected"));
+        assertEquals(1L, result.get("removed"));
+        verify(userProgressRepository, times(2)).getLeaderboardTotalsAfter(anyLong(), eq(2));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testDegradedRedisSkipsCompletionAndReconcilesAfterRecovery() {
+        ReflectionTestUtils.setField(cacheService, "keyCountEnabled", false);
+        ReflectionTestUtils.setField(cacheService, "hotKeyEnabled", false);
+        ReflectionTestUtils.setField(cacheService, "resilienceFailureThreshold", 1);
+        ReflectionTestUtils.setField(cacheService, "resilienceProbeIntervalMs", 60000L);
+        ReflectionTestUtils.setField(leaderboardService, "reconcileIntervalMs", 0L);
+        cacheService.start();
+        leaderboardService.start();
+        try {
+            when(redisTemplate.execute(any(RedisScript.class), any(RedisSerializer.class), any(RedisSerializer.class),
+                anyList(), any(Object[].class)))
+                .thenThrow(new RedisConnectionFailureException("down"))
+                .thenReturn(0L);
+
+            leaderboardService.recordCompletion(42L, 100.0, "alice");
+            assertEquals(RedisHealthMonitor.State.DEGRADED, cacheService.getRedisState());
+
+            // 降级期间不访问Redis，计为失败并等待对账
+            leaderboardService.recordCompletion(42L, 100.0, "alice");
+            assertTrue(leaderboardService.getTopN(10).isEmpty());
+            assertNull(leaderboardService.getUserRank(42L));
+            assertEquals("unavailable", leaderboardService.reconcile().get("status"));
+            verify(redisTemplate, times(1)).execute(any(RedisScript.class), any(RedisSerializer.class),
+                any(RedisSerializer.class), anyList(), any(Object[].class));
+            verify(userProgressRepository, never()).getLeaderboardTotalsAfter(anyLong(), anyInt());
+            assertEquals(2L, leaderboardService.getStats().get("completionFailures"));
+            assertEquals(true, leaderboardService.getStats().get("reconcileNeeded"));
+
+            when(redisTemplate.execute(any(RedisCallback.class))).thenReturn("PONG").thenReturn(true)
+                .thenReturn(List.of());
+            when(userProgressRepository.getLeaderboardTotalsAfter(0L, 2)).thenReturn(List.of());
+            cacheService.probeRedis();
+            assertEquals(RedisHealthMonitor.State.HEALTHY, cacheService.getRedisState());
+
+            // 恢复后的下一次探测在后台补做对账
+            cacheService.probeRedis();
+            verify(userProgressRepository, timeout(2000)).getLeaderboardTotalsAfter(0L, 2);
+        } finally {
+            leaderboardService.stop();
+            cacheService.stop();
+        }
+    }
+}
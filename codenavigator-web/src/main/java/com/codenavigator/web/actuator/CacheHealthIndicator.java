@@ -0,0 +1,30 @@
+package com.codenavigator.web.actuator;
+
+import com.codenavigator.core.cache.RedisHealthMonitor;
+import com.codenavigator.core.service.CacheService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+/**
+ * 缓存健康检查（/actuator/health中的cache）
+ * Redis降级期间报告DEGRADED：服务仍可用，但缓存只在本节点内有效，数据库压力会升高
+ */
+@Component
+@RequiredArgsConstructor
+public class CacheHealthIndicator implements HealthIndicator {
+
+    public static final Status DEGRADED = new Status("DEGRADED", "Redis unavailable, serving from local fallback cache");
+
+    private final CacheService cacheService;
+
+    @Override
+    public Health health() {
+        Health.Builder builder = cacheService.getRedisState() == RedisHealthMonitor.State.HEALTHY
+                ? Health.up()
+                : Health.status(DEGRADED);
+        return builder.withDetails(cacheService.getResilienceStats()).build();
+    }
+}
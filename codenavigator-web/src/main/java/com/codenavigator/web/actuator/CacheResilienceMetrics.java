@@ -0,0 +1,59 @@
+package com.codenavigator.web.actuator;
+
+import com.codenavigator.core.service.CacheService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Redis降级相关指标（/actuator/metrics/codenavigator.cache.*）
+ * redis.state：0=HEALTHY，1=DEGRADED，2=RECOVERING
+ */
+@Component
+@RequiredArgsConstructor
+public class CacheResilienceMetrics implements MeterBinder {
+
+    private final CacheService cacheService;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("codenavigator.cache.redis.state", cacheService, service -> service.getRedisState().ordinal())
+                .description("Redis health state: 0=healthy, 1=degraded, 2=recovering")
+                .register(registry);
+        FunctionCounter.builder("codenavigator.cache.redis.failures", this, metrics -> metrics.stat("failures"))
+                .description("Redis connection failures and timeouts")
+                .register(registry);
+        FunctionCounter.builder("codenavigator.cache.redis.fast.failures", this, metrics -> metrics.stat("fastFailures"))
+                .description("Cache operations that skipped Redis while it was marked unavailable")
+                .register(registry);
+        FunctionCounter.builder("codenavigator.cache.redis.degradations", this, metrics -> metrics.stat("degradations"))
+                .description("Transitions into degraded mode")
+                .register(registry);
+        FunctionCounter.builder("codenavigator.cache.fallback.invalidated", this, metrics -> metrics.stat("invalidatedOnRecovery"))
+                .description("Keys and patterns invalidated in Redis after recovery")
+                .register(registry);
+        Gauge.builder("codenavigator.cache.fallback.size", this, metrics -> metrics.fallbackStat("size"))
+                .description("Entries in the local fallback cache")
+                .register(registry);
+        Gauge.builder("codenavigator.cache.fallback.pending", this, metrics -> metrics.fallbackStat("pendingKeys"))
+                .description("Keys waiting to be invalidated in Redis")
+                .register(registry);
+        Gauge.builder("codenavigator.cache.fallback.dropped", this, metrics -> metrics.fallbackStat("droppedInvalidations"))
+                .description("Invalidations dropped while degraded; stale values may remain until they expire")
+                .register(registry);
+    }
+
+    private double stat(String name) {
+        return cacheService.getResilienceStats().get(name) instanceof Number value ? value.doubleValue() : 0;
+    }
+
+    private double fallbackStat(String name) {
+        return cacheService.getResilienceStats().get("fallback") instanceof Map<?, ?> fallback
+                && fallback.get(name) instanceof Number value ? value.doubleValue() : 0;
+    }
+}
@@ -0,0 +1,53 @@
+package com.codenavigator.web.actuator;
+
+import com.codenavigator.core.cache.HotKeyTracker;
+import com.codenavigator.core.cache.TwoLevelCacheManager;
+import com.codenavigator.core.service.CacheService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 热点键监控端点（/actuator/hotkeys）
+ * cacheService：本节点滑动窗口内检测到的热点键及其本地副本；
+ * annotationCaches：注解缓存按访问频率排序的键（缓存预热使用的Top-K）
+ */
+@Component
+@Endpoint(id = "hotkeys")
+@RequiredArgsConstructor
+public class HotKeysEndpoint {
+
+    private static final int TOP_ANNOTATION_KEYS = 50;
+
+    private final CacheService cacheService;
+
+    @Autowired(required = false)
+    private TwoLevelCacheManager cacheManager;
+
+    @ReadOperation
+    public Map<String, Object> hotKeys() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("cacheService", cacheService.getHotKeyStats());
+
+        HotKeyTracker tracker = cacheManager != null ? cacheManager.getHotKeyTracker() : null;
+        if (tracker != null) {
+            List<Map<String, Object>> keys = new ArrayList<>();
+            for (HotKeyTracker.HotKey hotKey : tracker.topK(TOP_ANNOTATION_KEYS)) {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("cache", hotKey.cacheName());
+                entry.put("key", hotKey.key());
+                entry.put("count", hotKey.count());
+                keys.add(entry);
+            }
+            result.put("annotationCaches", keys);
+        }
+        return result;
+    }
+}
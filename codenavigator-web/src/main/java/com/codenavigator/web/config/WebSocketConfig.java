@@ -0,0 +1,46 @@
+package com.codenavigator.web.config;
+
+import com.codenavigator.web.websocket.ConversationWebSocketHandler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+import java.util.Arrays;
+
+@Configuration
+@EnableWebSocket
+@RequiredArgsConstructor
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final ConversationWebSocketHandler conversationWebSocketHandler;
+
+    // 允许跨域连接的来源列表，未配置时只允许同源连接
+    @Value("${codenavigator.websocket.allowed-origins:}")
+    private String[] allowedOrigins = new String[0];
+
+    /**
+     * 注册对话WebSocket通道
+     * 浏览器跨站发起WebSocket握手时会自动携带Cookie，且连接按查询参数中的userId绑定用户，
+     * 因此不允许通配所有来源，只接受显式列出的来源
+     */
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(conversationWebSocketHandler, "/ws/conversation")
+                .setAllowedOriginPatterns(resolveAllowedOrigins());
+    }
+
+    String[] resolveAllowedOrigins() {
+        String[] origins = Arrays.stream(allowedOrigins)
+                .map(String::trim)
+                .filter(origin -> !origin.isEmpty())
+                .toArray(String[]::new);
+        if (Arrays.asList(origins).contains("*")) {
+            throw new IllegalStateException(
+                    "codenavigator.websocket.allowed-origins must list explicit origins, '*' is not allowed");
+        }
+        return origins;
+    }
+}
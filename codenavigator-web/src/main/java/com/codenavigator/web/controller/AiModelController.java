@@ -162,6 +162,20 @@ public class AiModelController {
         }
     }
 
+    @Operation(summary = "获取对冲请求统计", description = "获取跨提供商对冲请求的触发次数与胜出次数")
+    @ApiResponse(responseCode = "200", description = "成功获取对冲统计",
+            content = @Content(mediaType = "application/json",
+            schema = @Schema(example = "{\"enabled\": true, \"hedgedRequests\": 12, \"hedgeWins\": 7, \"hedgeWinRate\": 0.58}")))
+    @GetMapping("/hedging/stats")
+    public ResponseEntity<Map<String, Object>> getHedgingStats() {
+        try {
+            return ResponseEntity.ok(aiModelService.getHedgingStats());
+        } catch (Exception e) {
+            log.error("Error getting hedging stats", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     @Operation(summary = "测试提供商连接", description = "测试指定AI提供商的连接状态")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "测试完成",
@@ -19,6 +19,7 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Slf4j
@@ -94,6 +95,25 @@ public class ConversationController {
         return ResponseEntity.ok().build();
     }
     
+    @Operation(summary = "获取完整对话记录", description = "返回会话的全部用户消息，早期消息从归档中加载")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "成功获取对话记录"),
+        @ApiResponse(responseCode = "500", description = "服务器内部错误")
+    })
+    @GetMapping("/sessions/{sessionId}/transcript")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getTranscript(
+            @Parameter(description = "会话唯一标识符", required = true, example = "session-123")
+            @PathVariable String sessionId) {
+        List<String> messages = conversationEngine.getTranscript(sessionId);
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("sessionId", sessionId);
+        result.put("messages", messages);
+        result.put("total", messages.size());
+        return ResponseEntity.ok(result);
+    }
+    
     @Operation(summary = "结束会话", description = "结束指定的对话会话")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "会话已成功结束"),
@@ -0,0 +1,368 @@
+package com.codenavigator.web.websocket;
+
+import com.codenavigator.ai.dto.ConversationRequest;
+import com.codenavigator.ai.dto.ConversationResponse;
+import com.codenavigator.ai.engine.ConversationEngine;
+import com.codenavigator.ai.engine.ConversationEventListener;
+import com.codenavigator.ai.model.ConversationState;
+import com.codenavigator.core.entity.LearningPath;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.PongMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 对话WebSocket通道
+ * 连接建立时解析一次会话（?sessionId=&userId=），之后的消息都绑定到该会话；
+ * 处理进度、流式回复片段、学习路径和最终回复通过同一连接推送，服务端定期ping，超过空闲时间未收到任何帧则断开。
+ *
+ * 客户端消息：{"type":"message","message":"...","preferredProvider":"..."}、{"type":"ping"}
+ * 服务端事件：connected、progress、token、learningPath、response、error、pong
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ConversationWebSocketHandler extends TextWebSocketHandler {
+
+    private static final String DEFAULT_USER_ID = "default-user";
+
+    private final ConversationEngine conversationEngine;
+    private final ObjectMapper objectMapper;
+
+    @Value("${codenavigator.websocket.heartbeat-interval-ms:25000}")
+    private long heartbeatIntervalMs = 25000;
+
+    @Value("${codenavigator.websocket.idle-timeout-ms:75000}")
+    private long idleTimeoutMs = 75000;
+
+    @Value("${codenavigator.websocket.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs = 10000;
+
+    @Value("${codenavigator.websocket.send-buffer-limit:524288}")
+    private int sendBufferLimit = 512 * 1024;
+
+    @Value("${codenavigator.websocket.worker-threads:8}")
+    private int workerThreads = 8;
+
+    @Value("${codenavigator.websocket.max-worker-threads:64}")
+    private int maxWorkerThreads = 64;
+
+    @Value("${codenavigator.websocket.max-pending-turns:8}")
+    private int maxPendingTurns = 8;
+
+    private final Map<String, Connection> connections = new ConcurrentHashMap<>();
+
+    // 统计
+    private final AtomicLong totalConnections = new AtomicLong();
+    private final AtomicLong turns = new AtomicLong();
+    private final AtomicLong tokensPushed = new AtomicLong();
+    private final AtomicLong rejectedTurns = new AtomicLong();
+    private final AtomicLong busyRejections = new AtomicLong();
+    private final AtomicLong heartbeatTimeouts = new AtomicLong();
+
+    private ThreadPoolExecutor turnExecutor;
+    private ScheduledExecutorService heartbeatExecutor;
+
+    @PostConstruct
+    public void start() {
+        // 对话轮次在弹性线程池中执行，不占用容器的IO线程：常驻workerThreads个线程，
+        // 并发轮次更多时按需扩容到maxWorkerThreads，空闲后回收；达到上限时拒绝新的轮次而不是排队等待
+        turnExecutor = new ThreadPoolExecutor(workerThreads, Math.max(workerThreads, maxWorkerThreads),
+                60, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "CodeNavigator-WS-Conversation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "CodeNavigator-WS-Heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeatExecutor.scheduleWithFixedDelay(this::checkHeartbeats,
+                heartbeatIntervalMs, heartbeatIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (heartbeatExecutor != null) {
+            heartbeatExecutor.shutdownNow();
+        }
+        if (turnExecutor != null) {
+            turnExecutor.shutdown();
+        }
+        connections.values().forEach(connection -> close(connection, CloseStatus.GOING_AWAY));
+        connections.clear();
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        MultiValueMap<String, String> params = session.getUri() != null
+                ? UriComponentsBuilder.fromUri(session.getUri()).build().getQueryParams()
+                : new LinkedMultiValueMap<>();
+        String userId = params.getFirst("userId") != null ? params.getFirst("userId") : DEFAULT_USER_ID;
+
+        // 每个连接只解析一次会话
+        ConversationState state = conversationEngine.openSession(params.getFirst("sessionId"), userId);
+        Connection connection = new Connection(
+                new ConcurrentWebSocketSessionDecorator(session, sendTimeLimitMs, sendBufferLimit),
+                state, userId);
+        connections.put(session.getId(), connection);
+        totalConnections.incrementAndGet();
+        log.info("WebSocket connection {} bound to conversation session {}", session.getId(), state.getSessionId());
+
+        Map<String, Object> event = event("connected");
+        event.put("sessionId", state.getSessionId());
+        event.put("phase", state.getPhase());
+        event.put("heartbeatIntervalMs", heartbeatIntervalMs);
+        send(connection, event);
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+        Connection connection = connections.get(session.getId());
+        if (connection == null) {
+            return;
+        }
+        connection.touch();
+
+        JsonNode payload;
+        try {
+            payload = objectMapper.readTree(message.getPayload());
+        } catch (IOException e) {
+            sendError(connection, "消息格式不正确");
+            return;
+        }
+
+        switch (payload.path("type").asText("message")) {
+            case "ping" -> send(connection, event("pong"));
+            case "message" -> submitTurn(connection, payload);
+            default -> sendError(connection, "不支持的消息类型: " + payload.path("type").asText());
+        }
+    }
+
+    @Override
+    protected void handlePongMessage(WebSocketSession session, PongMessage message) {
+        Connection connection = connections.get(session.getId());
+        if (connection != null) {
+            connection.touch();
+        }
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        log.debug("WebSocket transport error on {}: {}", session.getId(), exception.getMessage());
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        Connection connection = connections.remove(session.getId());
+        if (connection != null) {
+            log.info("WebSocket connection {} for session {} closed: {}",
+                    session.getId(), connection.sessionId, status);
+        }
+    }
+
+    /**
+     * 获取通道统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("activeConnections", connections.size());
+        stats.put("totalConnections", totalConnections.get());
+        stats.put("turns", turns.get());
+        stats.put("tokensPushed", tokensPushed.get());
+        stats.put("rejectedTurns", rejectedTurns.get());
+        stats.put("busyRejections", busyRejections.get());
+        stats.put("activeWorkers", turnExecutor != null ? turnExecutor.getActiveCount() : 0);
+        stats.put("heartbeatTimeouts", heartbeatTimeouts.get());
+        return stats;
+    }
+
+    /**
+     * 同一连接的消息按到达顺序依次处理，积压过多时直接拒绝
+     */
+    private void submitTurn(Connection connection, JsonNode payload) {
+        String text = payload.path("message").asText("").trim();
+        if (text.isEmpty()) {
+            sendError(connection, "消息内容不能为空");
+            return;
+        }
+        if (connection.pendingTurns.incrementAndGet() > maxPendingTurns) {
+            connection.pendingTurns.decrementAndGet();
+            rejectedTurns.incrementAndGet();
+            sendError(connection, "消息发送过快，请稍后再试。");
+            return;
+        }
+
+        ConversationRequest request = ConversationRequest.builder()
+                .sessionId(connection.sessionId)
+                .userId(connection.userId)
+                .message(text)
+                .preferredProvider(payload.hasNonNull("preferredProvider")
+                        ? payload.get("preferredProvider").asText() : null)
+                .type(ConversationRequest.ConversationType.GENERAL_QUESTION)
+                .build();
+        synchronized (connection) {
+            connection.tail = connection.tail
+                    .thenRunAsync(() -> runTurn(connection, request), turnExecutor)
+                    .exceptionally(e -> {
+                        // 线程池已满，本轮未执行；后续轮次仍可继续提交
+                        connection.pendingTurns.decrementAndGet();
+                        busyRejections.incrementAndGet();
+                        log.warn("Conversation workers exhausted, rejecting turn for session {}", connection.sessionId);
+                        sendError(connection, "服务繁忙，请稍后再试。");
+                        return null;
+                    });
+        }
+    }
+
+    private void runTurn(Connection connection, ConversationRequest request) {
+        try {
+            if (!connection.session.isOpen()) {
+                return;
+            }
+            turns.incrementAndGet();
+            ConversationEventListener listener = new ConversationEventListener() {
+                @Override
+                public void onProgress(String stage, String message) {
+                    Map<String, Object> event = event("progress");
+                    event.put("stage", stage);
+                    event.put("message", message);
+                    send(connection, event);
+                }
+
+                @Override
+                public void onToken(String token) {
+                    tokensPushed.incrementAndGet();
+                    Map<String, Object> event = event("token");
+                    event.put("content", token);
+                    send(connection, event);
+                }
+
+                @Override
+                public void onLearningPath(LearningPath learningPath) {
+                    Map<String, Object> event = event("learningPath");
+                    event.put("learningPath", learningPath);
+                    send(connection, event);
+                }
+            };
+            // 使用连接建立时绑定的会话状态，不再逐轮按会话ID查找
+            ConversationResponse response = conversationEngine.processMessage(request, connection.state, listener);
+
+            Map<String, Object> event = event("response");
+            event.put("response", response);
+            send(connection, event);
+        } catch (Exception e) {
+            log.error("Error processing WebSocket message for session {}", connection.sessionId, e);
+            sendError(connection, "抱歉，我遇到了一些问题，请稍后再试。");
+        } finally {
+            connection.pendingTurns.decrementAndGet();
+        }
+    }
+
+    /**
+     * 向所有连接发送ping，超过空闲时间未收到任何帧（含pong）的连接视为失活并关闭
+     */
+    void checkHeartbeats() {
+        long now = System.currentTimeMillis();
+        for (Connection connection : connections.values()) {
+            if (now - connection.lastSeen > idleTimeoutMs) {
+                heartbeatTimeouts.incrementAndGet();
+                log.info("WebSocket connection for session {} missed heartbeats, closing", connection.sessionId);
+                close(connection, CloseStatus.SESSION_NOT_RELIABLE);
+                continue;
+            }
+            try {
+                connection.session.sendMessage(new PingMessage(ByteBuffer.allocate(0)));
+            } catch (Exception e) {
+                log.debug("Failed to ping session {}: {}", connection.sessionId, e.getMessage());
+            }
+        }
+    }
+
+    private void close(Connection connection, CloseStatus status) {
+        connections.remove(connection.session.getId());
+        try {
+            connection.session.close(status);
+        } catch (IOException e) {
+            log.debug("Failed to close session {}: {}", connection.sessionId, e.getMessage());
+        }
+    }
+
+    private void sendError(Connection connection, String message) {
+        Map<String, Object> event = event("error");
+        event.put("message", message);
+        send(connection, event);
+    }
+
+    private void send(Connection connection, Map<String, Object> event) {
+        if (!connection.session.isOpen()) {
+            return;
+        }
+        try {
+            connection.session.sendMessage(new TextMessage(objectMapper.writeValueAsString(event)));
+        } catch (Exception e) {
+            log.debug("Failed to push {} event to session {}: {}",
+                    event.get("type"), connection.sessionId, e.getMessage());
+        }
+    }
+
+    private Map<String, Object> event(String type) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("type", type);
+        return event;
+    }
+
+    /**
+     * 连接与其绑定的会话
+     */
+    private static final class Connection {
+        private final WebSocketSession session;
+        private final ConversationState state;
+        private final String sessionId;
+        private final String userId;
+        private final AtomicInteger pendingTurns = new AtomicInteger();
+        private volatile long lastSeen = System.currentTimeMillis();
+        private CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
+
+        private Connection(WebSocketSession session, ConversationState state, String userId) {
+            this.session = session;
+            this.state = state;
+            this.sessionId = state.getSessionId();
+            this.userId = userId;
+        }
+
+        private void touch() {
+            lastSeen = System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.codenavigator.web.loadtest;
+
+import com.codenavigator.ai.config.AiModelConfig;
+import com.codenavigator.ai.dto.ConversationRequest;
+import com.codenavigator.ai.dto.ConversationResponse;
+import com.codenavigator.ai.engine.ConversationEngine;
+import com.codenavigator.ai.enums.AiProvider;
+import com.codenavigator.ai.model.ConversationState;
+import com.codenavigator.ai.provider.ProviderHealthProber;
+import com.codenavigator.ai.provider.ProviderRouter;
+import com.codenavigator.ai.service.ConversationStateManager;
+import com.codenavigator.ai.service.LearningPathGenerator;
+import com.codenavigator.ai.service.NaturalLanguageProcessor;
+import com.codenavigator.ai.service.impl.AiModelServiceImpl;
+import com.codenavigator.web.controller.ConversationController;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 对话链路压测
+ * 以真实的ConversationController → ConversationEngine → AiModelServiceImpl调用链压测进程内OpenAI兼容桩服务，
+ * 输出吞吐量与延迟分位数。默认不执行，通过 -Dloadtest.enabled=true 开启，例如：
+ * mvn test -pl codenavigator-web -Dtest=ConversationLoadTest -Dloadtest.enabled=true -Dloadtest.concurrency=32
+ *
+ * 可选参数：loadtest.concurrency、loadtest.requests、loadtest.warmup、loadtest.medianLatencyMs、
+ * loadtest.latencySigma、loadtest.errorRate、loadtest.throttleRate、loadtest.requestsPerMinute、
+ * loadtest.routing、loadtest.hedge
+ */
+@Slf4j
+@DisplayName("对话链路压测")
+@EnabledIfSystemProperty(named = "loadtest.enabled", matches = "true")
+class ConversationLoadTest {
+
+    private OpenAiStubServer stub;
+    private AiModelServiceImpl aiModelService;
+    private ConversationStateManager stateManager;
+    private ConversationController controller;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stub = new OpenAiStubServer()
+            .latency(OpenAiStubServer.LatencyDistribution.logNormal(
+                Long.getLong("loadtest.medianLatencyMs", 200),
+                Double.parseDouble(System.getProperty("loadtest.latencySigma", "0.5"))))
+            .errorRate(Double.parseDouble(System.getProperty("loadtest.errorRate", "0")))
+            .throttleRate(Double.parseDouble(System.getProperty("loadtest.throttleRate", "0")), 1)
+            .start();
+
+        AiModelConfig config = new AiModelConfig();
+        config.setDefaultProvider("openai");
+        Map<String, AiModelConfig.ProviderConfig> providers = new HashMap<>();
+        providers.put("openai", providerConfig("gpt-4"));
+        providers.put("deepseek", providerConfig("deepseek-chat"));
+        config.setProviders(providers);
+        config.getRouting().setPolicy(System.getProperty("loadtest.routing", "least-outstanding"));
+        config.getHedge().setEnabled(Boolean.getBoolean("loadtest.hedge"));
+        config.getHealth().setEnabled(false);
+
+        ProviderRouter providerRouter = new ProviderRouter();
+        aiModelService = new AiModelServiceImpl(config, providerRouter, new ProviderHealthProber(config, providerRouter));
+        stateManager = new ConversationStateManager();
+        ConversationEngine engine = new ConversationEngine(
+            aiModelService, new NaturalLanguageProcessor(), new LearningPathGenerator(), stateManager);
+        controller = new ConversationController(engine);
+    }
+
+    @AfterEach
+    void tearDown() {
+        aiModelService.shutdown();
+        stub.close();
+    }
+
+    @Test
+    @DisplayName("并发发送对话消息 - 输出吞吐量与延迟分位数")
+    void testConversationThroughput() throws InterruptedException {
+        int concurrency = Integer.getInteger("loadtest.concurrency", 16);
+        int totalRequests = Integer.getInteger("loadtest.requests", 400);
+        int warmup = Integer.getInteger("loadtest.warmup", 20);
+
+        List<String> sessions = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            sessions.add(seedSession(i));
+        }
+
+        runLoad(sessions, warmup, null);
+
+        long[] latencies = new long[totalRequests];
+        AtomicInteger failures = new AtomicInteger();
+        long startTime = System.nanoTime();
+        int completed = runLoad(sessions, totalRequests, new Recorder(latencies, failures));
+        double elapsedSeconds = (System.nanoTime() - startTime) / 1_000_000_000.0;
+
+        Arrays.sort(latencies);
+        log.info("Load test finished: concurrency={}, requests={}, failures={}, elapsed={}s",
+            concurrency, completed, failures.get(), String.format("%.2f", elapsedSeconds));
+        log.info("Throughput: {} req/s", String.format("%.1f", completed / elapsedSeconds));
+        log.info("Latency ms: p50={}, p90={}, p99={}, max={}",
+            percentile(latencies, 50), percentile(latencies, 90), percentile(latencies, 99),
+            latencies[latencies.length - 1] / 1_000_000);
+        log.info("Stub server: {}", stub.getStats());
+        log.info("Hedging: {}", aiModelService.getHedgingStats());
+        log.info("OpenAI provider: {}", aiModelService.getProviderStatus(AiProvider.OPENAI));
+
+        assertThat(completed).isEqualTo(totalRequests);
+    }
+
+    /**
+     * 以固定并发发送指定数量的请求，每个并发用户使用各自的会话
+     */
+    private int runLoad(List<String> sessions, int requests, Recorder recorder) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(sessions.size());
+        AtomicLong issued = new AtomicLong();
+        AtomicInteger completed = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(sessions.size());
+
+        for (String sessionId : sessions) {
+            executor.execute(() -> {
+                try {
+                    long index;
+                    while ((index = issued.getAndIncrement()) < requests) {
+                        long start = System.nanoTime();
+                        ResponseEntity<ConversationResponse> response = controller.sendMessage(request(sessionId, index));
+                        long latency = System.nanoTime() - start;
+                        if (recorder != null) {
+                            recorder.record((int) index, latency, isAiResponse(response.getBody()));
+                        }
+                        completed.incrementAndGet();
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        done.await();
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        return completed.get();
+    }
+
+    /**
+     * 预置处于自由对话阶段的会话，使每条消息都走AI回复路径
+     */
+    private String seedSession(int index) {
+        String sessionId = "loadtest-session-" + index;
+        ConversationState state = ConversationState.builder()
+            .sessionId(sessionId)
+            .userId("loadtest-user-" + index)
+            .phase(ConversationState.ConversationPhase.COMPLETED)
+            .learningGoal("Spring")
+            .messageCount(0)
+            .build();
+        state.addMessage("我想学习Spring");
+        stateManager.saveState(state);
+        return sessionId;
+    }
+
+    private ConversationRequest request(String sessionId, long index) {
+        ConversationRequest request = new ConversationRequest();
+        request.setSessionId(sessionId);
+        request.setUserId("loadtest-user");
+        request.setMessage("第" + index + "个问题：Spring事务的传播行为有哪些？");
+        return request;
+    }
+
+    private boolean isAiResponse(ConversationResponse response) {
+        return response != null && response.getData() != null && response.getData().containsKey("promptUsage");
+    }
+
+    private AiModelConfig.ProviderConfig providerConfig(String modelName) {
+        AiModelConfig.ProviderConfig providerConfig = new AiModelConfig.ProviderConfig();
+        providerConfig.setApiKey("stub-key");
+        providerConfig.setBaseUrl(stub.getBaseUrl());
+        providerConfig.setModelName(modelName);
+        providerConfig.setTimeout("30s");
+        String requestsPerMinute = System.getProperty("loadtest.requestsPerMinute");
+        if (requestsPerMinute != null) {
+            providerConfig.setRequestsPerMinute(Integer.parseInt(requestsPerMinute));
+        }
+        return providerConfig;
+    }
+
+    private long percentile(long[] sortedNanos, double percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, Math.min(index, sortedNanos.length - 1))] / 1_000_000;
+    }
+
+    private record Recorder(long[] latencies, AtomicInteger failures) {
+
+        void record(int index, long latencyNanos, boolean success) {
+            latencies[index] = latencyNanos;
+            if (!success) {
+                failures.incrementAndGet();
+            }
+        }
+    }
+}
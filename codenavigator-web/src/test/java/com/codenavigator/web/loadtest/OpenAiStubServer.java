@@ -0,0 +1,254 @@
+package com.codenavigator.web.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 进程内的OpenAI兼容桩服务
+ * 基于JDK HttpServer实现 /chat/completions（支持stream）与 /models，
+ * 可配置延迟分布、错误注入与429限流，用于在没有真实密钥的情况下离线压测AI调用链路
+ */
+@Slf4j
+public class OpenAiStubServer implements AutoCloseable {
+
+    /**
+     * 延迟分布
+     */
+    @FunctionalInterface
+    public interface LatencyDistribution {
+
+        long sampleMillis(Random random);
+
+        static LatencyDistribution fixed(long millis) {
+            return random -> millis;
+        }
+
+        static LatencyDistribution uniform(long minMillis, long maxMillis) {
+            return random -> minMillis + (long) (random.nextDouble() * (maxMillis - minMillis));
+        }
+
+        /**
+         * 对数正态分布，贴近真实大模型接口的长尾延迟
+         */
+        static LatencyDistribution logNormal(long medianMillis, double sigma) {
+            return random -> Math.round(medianMillis * Math.exp(sigma * random.nextGaussian()));
+        }
+    }
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private volatile LatencyDistribution latency = LatencyDistribution.fixed(0);
+    private volatile double errorRate;
+    private volatile double throttleRate;
+    private volatile int retryAfterSeconds = 1;
+    private volatile String reply = "这是桩服务返回的回复，用于压测AI调用链路。";
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong streamedRequests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+
+    public OpenAiStubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/v1/chat/completions", this::handleChatCompletions);
+        server.createContext("/v1/models", this::handleModels);
+    }
+
+    public OpenAiStubServer start() {
+        server.start();
+        log.info("OpenAI stub server listening on {}", getBaseUrl());
+        return this;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * 作为提供商base-url使用的地址
+     */
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v1";
+    }
+
+    public OpenAiStubServer latency(LatencyDistribution latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    public OpenAiStubServer errorRate(double errorRate) {
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    public OpenAiStubServer throttleRate(double throttleRate, int retryAfterSeconds) {
+        this.throttleRate = throttleRate;
+        this.retryAfterSeconds = retryAfterSeconds;
+        return this;
+    }
+
+    public OpenAiStubServer reply(String reply) {
+        this.reply = reply;
+        return this;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("requests", requests.get());
+        stats.put("streamedRequests", streamedRequests.get());
+        stats.put("errors", errors.get());
+        stats.put("throttled", throttled.get());
+        return stats;
+    }
+
+    private void handleChatCompletions(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                sendJson(exchange, 405, Map.of("error", Map.of("message", "method not allowed")));
+                return;
+            }
+            requests.incrementAndGet();
+            JsonNode body = readBody(exchange.getRequestBody());
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (random.nextDouble() < throttleRate) {
+                throttled.incrementAndGet();
+                exchange.getResponseHeaders().set("Retry-After", String.valueOf(retryAfterSeconds));
+                sendJson(exchange, 429, Map.of("error", Map.of("message", "Rate limit reached", "type", "requests")));
+                return;
+            }
+
+            long delayMillis = Math.max(0, latency.sampleMillis(random));
+            if (random.nextDouble() < errorRate) {
+                errors.incrementAndGet();
+                sleep(delayMillis);
+                sendJson(exchange, 500, Map.of("error", Map.of("message", "Injected server error")));
+                return;
+            }
+
+            int promptTokens = Math.max(1, body.path("messages").toString().length() / 4);
+            int completionTokens = Math.max(1, reply.length());
+            if (body.path("stream").asBoolean(false)) {
+                streamedRequests.incrementAndGet();
+                streamReply(exchange, body.path("model").asText("stub-model"), delayMillis);
+            } else {
+                sleep(delayMillis);
+                sendJson(exchange, 200, completion(body.path("model").asText("stub-model"),
+                        promptTokens, completionTokens));
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleModels(HttpExchange exchange) throws IOException {
+        try {
+            sendJson(exchange, 200, Map.of("object", "list",
+                    "data", List.of(Map.of("id", "stub-model", "object", "model"))));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private Map<String, Object> completion(String model, int promptTokens, int completionTokens) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("id", "chatcmpl-stub-" + requests.get());
+        response.put("object", "chat.completion");
+        response.put("created", System.currentTimeMillis() / 1000);
+        response.put("model", model);
+        response.put("choices", List.of(Map.of(
+                "index", 0,
+                "message", Map.of("role", "assistant", "content", reply),
+                "finish_reason", "stop")));
+        response.put("usage", Map.of(
+                "prompt_tokens", promptTokens,
+                "completion_tokens", completionTokens,
+                "total_tokens", promptTokens + completionTokens));
+        return response;
+    }
+
+    /**
+     * 以SSE分块返回回复，总耗时约等于采样得到的延迟
+     */
+    private void streamReply(HttpExchange exchange, String model, long delayMillis) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+
+        String[] chunks = reply.split("(?<=[，。！？,.!?])");
+        long chunkDelay = delayMillis / Math.max(chunks.length, 1);
+        OutputStream output = exchange.getResponseBody();
+        for (String chunk : chunks) {
+            sleep(chunkDelay);
+            Map<String, Object> event = Map.of(
+                    "object", "chat.completion.chunk",
+                    "model", model,
+                    "choices", List.of(Map.of("index", 0, "delta", Map.of("content", chunk))));
+            writeEvent(output, OBJECT_MAPPER.writeValueAsString(event));
+        }
+        writeEvent(output, "[DONE]");
+    }
+
+    private void writeEvent(OutputStream output, String data) throws IOException {
+        output.write(("data: " + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+        output.flush();
+    }
+
+    private void sendJson(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = OBJECT_MAPPER.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private JsonNode readBody(InputStream input) throws IOException {
+        byte[] bytes = input.readAllBytes();
+        return bytes.length == 0 ? OBJECT_MAPPER.createObjectNode() : OBJECT_MAPPER.readTree(bytes);
+    }
+
+    private void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 独立运行桩服务，便于将应用的提供商base-url指向它进行手工压测
+     */
+    public static void main(String[] args) throws Exception {
+        OpenAiStubServer stub = new OpenAiStubServer()
+                .latency(LatencyDistribution.logNormal(Long.getLong("stub.medianLatencyMs", 800), 0.5))
+                .errorRate(Double.parseDouble(System.getProperty("stub.errorRate", "0")))
+                .throttleRate(Double.parseDouble(System.getProperty("stub.throttleRate", "0")), 1)
+                .start();
+        Runtime.getRuntime().addShutdownHook(new Thread(stub::close));
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,193 @@
+package com.codenavigator.web.websocket;
+
+import com.codenavigator.ai.dto.ConversationRequest;
+import com.codenavigator.ai.dto.ConversationResponse;
+import com.codenavigator.ai.engine.ConversationEngine;
+import com.codenavigator.ai.engine.ConversationEventListener;
+import com.codenavigator.ai.model.ConversationState;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * ConversationWebSocketHandler单元测试
+ * 测试连接绑定会话、事件推送顺序与心跳超时断开
+ */
+@DisplayName("ConversationWebSocketHandler单元测试")
+class ConversationWebSocketHandlerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final List<WebSocketMessage<?>> sent = new CopyOnWriteArrayList<>();
+
+    private ConversationEngine engine;
+    private ConversationWebSocketHandler handler;
+    private WebSocketSession session;
+    private ConversationState state;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        engine = mock(ConversationEngine.class);
+        handler = new ConversationWebSocketHandler(engine, objectMapper);
+        handler.start();
+
+        session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("ws-1");
+        when(session.getUri()).thenReturn(URI.create("ws://localhost/ws/conversation?sessionId=session-1&userId=user-1"));
+        when(session.isOpen()).thenReturn(true);
+        doAnswer(invocation -> sent.add(invocation.getArgument(0))).when(session).sendMessage(any());
+
+        state = ConversationState.builder()
+            .sessionId("session-1")
+            .userId("user-1")
+            .phase(ConversationState.ConversationPhase.TASK_EXECUTION)
+            .build();
+        when(engine.openSession("session-1", "user-1")).thenReturn(state);
+    }
+
+    @AfterEach
+    void tearDown() {
+        handler.stop();
+    }
+
+    @Test
+    @DisplayName("连接建立时解析一次会话 - 后续消息绑定该会话并按顺序推送事件")
+    void testConversation_StreamsEventsInOrder() throws Exception {
+        when(engine.processMessage(any(ConversationRequest.class), eq(state), any(ConversationEventListener.class)))
+            .thenAnswer(invocation -> {
+                ConversationRequest request = invocation.getArgument(0);
+                ConversationEventListener listener = invocation.getArgument(2);
+                listener.onProgress("generating", "正在生成回复...");
+                listener.onToken("回复");
+                listener.onToken(request.getMessage());
+                return ConversationResponse.builder()
+                    .type(ConversationResponse.ResponseType.TEXT_RESPONSE)
+                    .message("回复" + request.getMessage())
+                    .sessionId(request.getSessionId())
+                    .build();
+            });
+
+        handler.afterConnectionEstablished(session);
+        handler.handleTextMessage(session, new TextMessage("{\"type\":\"message\",\"message\":\"第一条\"}"));
+        handler.handleTextMessage(session, new TextMessage("{\"type\":\"message\",\"message\":\"第二条\"}"));
+
+        verify(session, timeout(2000).times(9)).sendMessage(any());
+        verify(engine, times(1)).openSession("session-1", "user-1");
+
+        List<JsonNode> events = textEvents();
+        assertThat(events).extracting(event -> event.get("type").asText()).containsExactly(
+            "connected",
+            "progress", "token", "token", "response",
+            "progress", "token", "token", "response");
+        assertThat(events.get(0).get("sessionId").asText()).isEqualTo("session-1");
+        assertThat(events.get(3).get("content").asText()).isEqualTo("第一条");
+        assertThat(events.get(4).get("response").get("sessionId").asText()).isEqualTo("session-1");
+        assertThat(events.get(8).get("response").get("message").asText()).isEqualTo("回复第二条");
+        assertThat(handler.getStats()).containsEntry("turns", 2L).containsEntry("tokensPushed", 4L);
+    }
+
+    @Test
+    @DisplayName("对话线程已满 - 拒绝新的轮次并回复error，不影响该连接后续消息")
+    void testTurnRejectedWhenWorkersExhausted() throws Exception {
+        handler.stop();
+        ReflectionTestUtils.setField(handler, "workerThreads", 1);
+        ReflectionTestUtils.setField(handler, "maxWorkerThreads", 1);
+        handler.start();
+
+        CountDownLatch release = new CountDownLatch(1);
+        when(engine.processMessage(any(ConversationRequest.class), eq(state), any(ConversationEventListener.class)))
+            .thenAnswer(invocation -> {
+                release.await(2, TimeUnit.SECONDS);
+                return ConversationResponse.builder()
+                    .type(ConversationResponse.ResponseType.TEXT_RESPONSE)
+                    .message("完成")
+                    .build();
+            });
+        URI uri = session.getUri();
+        WebSocketSession other = mock(WebSocketSession.class);
+        when(other.getId()).thenReturn("ws-2");
+        when(other.getUri()).thenReturn(uri);
+        when(other.isOpen()).thenReturn(true);
+        List<WebSocketMessage<?>> otherSent = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> otherSent.add(invocation.getArgument(0))).when(other).sendMessage(any());
+
+        handler.afterConnectionEstablished(session);
+        handler.afterConnectionEstablished(other);
+        handler.handleTextMessage(session, new TextMessage("{\"type\":\"message\",\"message\":\"第一条\"}"));
+        verify(engine, timeout(2000)).processMessage(any(ConversationRequest.class), eq(state), any(ConversationEventListener.class));
+        handler.handleTextMessage(other, new TextMessage("{\"type\":\"message\",\"message\":\"第二条\"}"));
+
+        verify(other, timeout(2000).times(2)).sendMessage(any());
+        assertThat(((TextMessage) otherSent.get(1)).getPayload()).contains("\"type\":\"error\"");
+        assertThat(handler.getStats()).containsEntry("busyRejections", 1L);
+
+        release.countDown();
+        verify(session, timeout(2000).times(2)).sendMessage(any());
+        // 等待工作线程回到线程池
+        Thread.sleep(100);
+        handler.handleTextMessage(other, new TextMessage("{\"type\":\"message\",\"message\":\"第三条\"}"));
+        verify(other, timeout(2000).times(3)).sendMessage(any());
+        assertThat(handler.getStats()).containsEntry("turns", 2L);
+    }
+
+    @Test
+    @DisplayName("应用层ping - 回复pong，消息格式错误时回复error")
+    void testPingAndMalformedMessage() throws Exception {
+        handler.afterConnectionEstablished(session);
+        handler.handleTextMessage(session, new TextMessage("{\"type\":\"ping\"}"));
+        handler.handleTextMessage(session, new TextMessage("not json"));
+
+        assertThat(textEvents()).extracting(event -> event.get("type").asText())
+            .containsExactly("connected", "pong", "error");
+    }
+
+    @Test
+    @DisplayName("心跳检查 - 活跃连接收到ping，超过空闲时间的连接被关闭")
+    void testHeartbeat_ClosesIdleConnection() throws Exception {
+        handler.afterConnectionEstablished(session);
+
+        handler.checkHeartbeats();
+        assertThat(sent).hasAtLeastOneElementOfType(PingMessage.class);
+
+        ReflectionTestUtils.setField(handler, "idleTimeoutMs", 0L);
+        Thread.sleep(5);
+        handler.checkHeartbeats();
+
+        verify(session).close(eq(CloseStatus.SESSION_NOT_RELIABLE));
+        assertThat(handler.getStats()).containsEntry("activeConnections", 0).containsEntry("heartbeatTimeouts", 1L);
+    }
+
+    private List<JsonNode> textEvents() throws Exception {
+        List<JsonNode> events = new CopyOnWriteArrayList<>();
+        for (WebSocketMessage<?> message : sent) {
+            if (message instanceof TextMessage text) {
+                events.add(objectMapper.readTree(text.getPayload()));
+            }
+        }
+        return events;
+    }
+}
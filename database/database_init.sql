@@ -172,7 +172,7 @@ CREATE TABLE IF NOT EXISTS conversation_messages (
     content TEXT NOT NULL,
     metadata JSON,
     created_time DATETIME DEFAULT CURRENT_TIMESTAMP,
-    FOREIGN KEY (session_id) REFERENCES conversation_sessions(id),
+    -- session_id为对话状态的会话ID，归档时不一定存在conversation_sessions记录，不设外键
     INDEX idx_session_time (session_id, created_time)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
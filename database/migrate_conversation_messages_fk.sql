@@ -0,0 +1,25 @@
+-- ====================================================================
+-- 已有数据库迁移：删除conversation_messages.session_id的外键
+-- 对话历史归档按对话状态的会话ID写入，归档时不一定存在conversation_sessions记录，
+-- 保留外键会使归档批次全部失败。外键名由MySQL自动生成，这里按约束定义查找
+-- ====================================================================
+
+USE code_navigator;
+
+SET @fk_name = (
+    SELECT CONSTRAINT_NAME
+    FROM information_schema.KEY_COLUMN_USAGE
+    WHERE TABLE_SCHEMA = DATABASE()
+      AND TABLE_NAME = 'conversation_messages'
+      AND COLUMN_NAME = 'session_id'
+      AND REFERENCED_TABLE_NAME = 'conversation_sessions'
+    LIMIT 1
+);
+
+SET @drop_fk = IF(@fk_name IS NULL,
+    'SELECT ''conversation_messages.session_id has no foreign key''',
+    CONCAT('ALTER TABLE conversation_messages DROP FOREIGN KEY ', @fk_name));
+
+PREPARE stmt FROM @drop_fk;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;